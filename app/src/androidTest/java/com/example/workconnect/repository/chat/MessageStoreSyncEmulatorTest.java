@@ -0,0 +1,241 @@
+package com.example.workconnect.repository.chat;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.example.workconnect.models.ChatMessage;
+import com.example.workconnect.repository.decode.ModelMappers;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.Source;
+import com.google.firebase.firestore.WriteBatch;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Measures cold-open latency and server reads per chat open with and without the local store.
+ * Runs ChatActivity's sync path: {@link MessageSyncQuery} for the tail window, {@link SqliteMessageStore}
+ * for stored history and its watermark, {@link ModelMappers#CHAT_MESSAGE} for decoding.
+ * Requires the Firestore emulator: firebase emulators:start --only firestore
+ */
+@RunWith(AndroidJUnit4.class)
+public class MessageStoreSyncEmulatorTest {
+
+    private static final String TAG = "MessageStoreSyncTest";
+    private static final int PAGE = 50;
+    private static final int HISTORY = 120;
+    private static final int NEW_WHILE_AWAY = 3;
+
+    private static FirebaseFirestore db;
+
+    @BeforeClass
+    public static void connectToEmulator() {
+        db = FirebaseFirestore.getInstance();
+        try {
+            db.useEmulator("10.0.2.2", 8080);
+        } catch (IllegalStateException e) {
+            // Already connected by a previous test class
+        }
+    }
+
+    @Test
+    public void reopenChat_rendersFromDisk_andReadsOnlyWhatChanged() throws Exception {
+        Context context = ApplicationProvider.getApplicationContext();
+        MessageStore store = SqliteMessageStore.getInstance(context);
+
+        String conversationId = "store_test_" + System.currentTimeMillis();
+        CollectionReference messagesRef = db.collection("conversations")
+                .document(conversationId)
+                .collection("messages");
+
+        long base = System.currentTimeMillis() - HISTORY * 1000L;
+        seedMessages(messagesRef, 0, HISTORY, base);
+
+        // 1) First open: nothing on disk, the tail window comes from the server
+        assertEquals(null, awaitWatermark(store, conversationId));
+        long start = System.nanoTime();
+        QuerySnapshot first = Tasks.await(MessageSyncQuery.tail(db, conversationId, null, PAGE)
+                .get(Source.SERVER), 10, TimeUnit.SECONDS);
+        long firstOpenMs = (System.nanoTime() - start) / 1_000_000;
+        assertEquals(PAGE, first.size());
+
+        List<ChatMessage> window = toMessages(first);
+        store.saveMessages(conversationId, window);
+
+        // 2) While the chat is closed: a reaction to the oldest stored message, and new messages
+        String reactedId = window.get(0).getId();
+        Tasks.await(messagesRef.document(reactedId).update(
+                "reactions.👍", FieldValue.arrayUnion("reader"),
+                "version", FieldValue.increment(1),
+                "updatedAt", FieldValue.serverTimestamp()), 10, TimeUnit.SECONDS);
+        seedMessages(messagesRef, HISTORY, NEW_WHILE_AWAY, base);
+
+        // 3) Reopen: render from disk, then delta-sync from the stored watermark
+        start = System.nanoTime();
+        List<ChatMessage> cached = awaitLatest(store, conversationId);
+        long diskRenderMs = (System.nanoTime() - start) / 1_000_000;
+        assertEquals(PAGE, cached.size());
+
+        Date watermark = awaitWatermark(store, conversationId);
+        assertNotNull(watermark);
+        QuerySnapshot delta = Tasks.await(MessageSyncQuery.tail(db, conversationId, watermark, PAGE)
+                .get(Source.SERVER), 10, TimeUnit.SECONDS);
+
+        Log.i(TAG, "first open: " + firstOpenMs + "ms / " + first.size() + " reads; "
+                + "reopen: disk render " + diskRenderMs + "ms, " + delta.size() + " reads");
+
+        // The reacted message + the ones sent while away
+        assertEquals(NEW_WHILE_AWAY + 1, delta.size());
+        assertTrue("Reopen should read far fewer documents than a full page", delta.size() < PAGE);
+
+        // 4) The reaction reaches stored history, and the next reopen reads nothing new
+        store.saveMessages(conversationId, toMessages(delta));
+        ChatMessage reacted = null;
+        for (ChatMessage m : awaitLatest(store, conversationId)) {
+            if (m.getId().equals(reactedId)) reacted = m;
+        }
+        assertNotNull(reacted);
+        assertNotNull(reacted.getReactions());
+        assertTrue(reacted.getReactions().get("👍").contains("reader"));
+
+        QuerySnapshot next = Tasks.await(MessageSyncQuery.tail(db, conversationId,
+                awaitWatermark(store, conversationId), PAGE).get(Source.SERVER), 10, TimeUnit.SECONDS);
+        assertEquals(0, next.size());
+    }
+
+    @Test
+    public void reactionToStoredButUnloadedHistory_updatesStore_andShowsWhenPagedIn() throws Exception {
+        Context context = ApplicationProvider.getApplicationContext();
+        MessageStore store = SqliteMessageStore.getInstance(context);
+
+        String conversationId = "store_paging_test_" + System.currentTimeMillis();
+        CollectionReference messagesRef = db.collection("conversations")
+                .document(conversationId)
+                .collection("messages");
+
+        long base = System.currentTimeMillis() - HISTORY * 1000L;
+        seedMessages(messagesRef, 0, HISTORY, base);
+
+        // Two pages stored, only the newest one loaded on screen
+        QuerySnapshot stored = Tasks.await(MessageSyncQuery.tail(db, conversationId, null, 2 * PAGE)
+                .get(Source.SERVER), 10, TimeUnit.SECONDS);
+        List<ChatMessage> storedMessages = toMessages(stored);
+        store.saveMessages(conversationId, storedMessages);
+        List<ChatMessage> loaded = awaitLatest(store, conversationId);
+        ChatMessage oldestLoaded = loaded.get(0);
+
+        // A reaction to a stored message older than the loaded page, and to one that was never stored
+        String reactedId = storedMessages.get(0).getId();
+        String unstoredId = String.format("m%05d", 0);
+        for (String id : new String[]{reactedId, unstoredId}) {
+            Tasks.await(messagesRef.document(id).update(
+                    "reactions.👍", FieldValue.arrayUnion("reader"),
+                    "version", FieldValue.increment(1),
+                    "updatedAt", FieldValue.serverTimestamp()), 10, TimeUnit.SECONDS);
+        }
+
+        // Delta sync, applied like ChatActivity.applyTailDelta: out of the loaded range, so
+        // nothing is shown, but the stored copy is updated and the unstored one is not inserted
+        QuerySnapshot delta = Tasks.await(MessageSyncQuery.tail(db, conversationId,
+                awaitWatermark(store, conversationId), PAGE).get(Source.SERVER), 10, TimeUnit.SECONDS);
+        assertEquals(2, delta.size());
+        store.updateMessages(conversationId, toMessages(delta));
+
+        // Page the older history in from the store
+        List<ChatMessage> older = awaitBefore(store, conversationId, oldestLoaded);
+        assertEquals(PAGE, older.size());
+        ChatMessage reacted = null;
+        for (ChatMessage m : older) {
+            if (m.getId().equals(reactedId)) reacted = m;
+        }
+        assertNotNull(reacted);
+        assertNotNull(reacted.getReactions());
+        assertTrue(reacted.getReactions().get("👍").contains("reader"));
+        assertEquals(2, reacted.getVersion());
+        assertTrue("Unstored history must not be inserted",
+                awaitBefore(store, conversationId, older.get(0)).isEmpty());
+    }
+
+    private void seedMessages(CollectionReference messagesRef, int from, int count, long base) throws Exception {
+        WriteBatch batch = db.batch();
+        for (int i = from; i < from + count; i++) {
+            Map<String, Object> data = new HashMap<>();
+            data.put("senderId", "sender");
+            data.put("text", "Message " + i);
+            data.put("sentAt", new Date(base + i * 1000L));
+            data.put("messageType", "TEXT");
+            data.put("version", 1L);
+            data.put("updatedAt", FieldValue.serverTimestamp());
+            batch.set(messagesRef.document(String.format("m%05d", i)), data);
+        }
+        Tasks.await(batch.commit(), 10, TimeUnit.SECONDS);
+    }
+
+    // Snapshots are newest first (DESC), the store and the chat list are oldest first
+    private List<ChatMessage> toMessages(QuerySnapshot snap) {
+        List<ChatMessage> list = new ArrayList<>();
+        for (DocumentSnapshot d : snap.getDocuments()) {
+            ChatMessage m = ModelMappers.CHAT_MESSAGE.map(d);
+            if (m != null) {
+                list.add(0, m);
+            }
+        }
+        return list;
+    }
+
+    private List<ChatMessage> awaitLatest(MessageStore store, String conversationId) throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(1);
+        AtomicReference<List<ChatMessage>> result = new AtomicReference<>();
+        store.loadLatest(conversationId, PAGE, list -> {
+            result.set(list);
+            latch.countDown();
+        });
+        assertTrue("Store did not answer in time", latch.await(5, TimeUnit.SECONDS));
+        return result.get();
+    }
+
+    private List<ChatMessage> awaitBefore(MessageStore store, String conversationId, ChatMessage oldest)
+            throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(1);
+        AtomicReference<List<ChatMessage>> result = new AtomicReference<>();
+        store.loadBefore(conversationId, oldest.getSentAt(), oldest.getId(), PAGE, list -> {
+            result.set(list);
+            latch.countDown();
+        });
+        assertTrue("Store did not answer in time", latch.await(5, TimeUnit.SECONDS));
+        return result.get();
+    }
+
+    private Date awaitWatermark(MessageStore store, String conversationId) throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(1);
+        AtomicReference<Date> result = new AtomicReference<>();
+        store.loadSyncWatermark(conversationId, watermark -> {
+            result.set(watermark);
+            latch.countDown();
+        });
+        assertTrue("Store did not answer in time", latch.await(5, TimeUnit.SECONDS));
+        return result.get();
+    }
+}
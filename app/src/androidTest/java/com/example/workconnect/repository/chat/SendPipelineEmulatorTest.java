@@ -0,0 +1,154 @@
+package com.example.workconnect.repository.chat;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.example.workconnect.models.ChatMessage;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Source;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Send-to-ack latency and documents read/written per send through {@link MessageRepository#sendMessage}
+ * (outbox batch, conversation metadata, inbox fan-out).
+ * Requires the Firestore emulator: firebase emulators:start --only firestore
+ */
+@RunWith(AndroidJUnit4.class)
+public class SendPipelineEmulatorTest {
+
+    private static final String TAG = "SendPipelineTest";
+    private static final int SENDS = 20;
+    private static final String SENDER = "sender";
+    private static final List<String> MEMBERS = Arrays.asList(SENDER, "member1", "member2");
+
+    private static FirebaseFirestore db;
+
+    @BeforeClass
+    public static void connectToEmulator() {
+        db = FirebaseFirestore.getInstance();
+        try {
+            db.useEmulator("10.0.2.2", 8080);
+        } catch (IllegalStateException e) {
+            // Already connected by a previous test class
+        }
+    }
+
+    @Test
+    public void send_cachedParticipants_readsOnlyInboxEntries() throws Exception {
+        Context context = ApplicationProvider.getApplicationContext();
+        MessageRepository repository = new MessageRepository(context);
+        String conversationId = createConversation();
+        MessageRepository.cacheParticipants(conversationId, MEMBERS);
+
+        long readsBefore = MessageOutbox.documentReads.get();
+        long writesBefore = MessageOutbox.documentWrites.get();
+        List<Long> latencies = new ArrayList<>();
+        for (int i = 0; i < SENDS; i++) {
+            latencies.add(sendAndAwaitAck(repository, conversationId, "Message " + i));
+        }
+        awaitUnreadCount(conversationId, "member1", SENDS);
+
+        long reads = MessageOutbox.documentReads.get() - readsBefore;
+        long writes = MessageOutbox.documentWrites.get() - writesBefore;
+        Collections.sort(latencies);
+        Log.i(TAG, "send-to-ack p50 " + latencies.get(SENDS / 2) + "ms, p95 "
+                + latencies.get(SENDS * 95 / 100) + "ms; per send: "
+                + (double) writes / SENDS + " writes, " + (double) reads / SENDS + " reads");
+
+        // Message + conversation metadata + one inbox entry per member; the only reads are the
+        // inbox entries, checked by the idempotent fan-out transaction
+        assertEquals(SENDS * (long) MEMBERS.size(), reads);
+        assertEquals(SENDS * (2L + MEMBERS.size()), writes);
+    }
+
+    @Test
+    public void send_uncachedParticipants_readsConversationOnce() throws Exception {
+        Context context = ApplicationProvider.getApplicationContext();
+        MessageRepository repository = new MessageRepository(context);
+        String conversationId = createConversation();
+        MessageRepository.invalidateParticipants(conversationId);
+
+        long readsBefore = MessageOutbox.documentReads.get();
+        sendAndAwaitAck(repository, conversationId, "First");
+        sendAndAwaitAck(repository, conversationId, "Second");
+
+        awaitUnreadCount(conversationId, "member1", 2);
+
+        // The first send caches the participant list for the next ones (the rest are fan-out reads)
+        assertEquals(1 + 2L * MEMBERS.size(), MessageOutbox.documentReads.get() - readsBefore);
+    }
+
+    private String createConversation() throws Exception {
+        String conversationId = "send_test_" + System.nanoTime();
+        Map<String, Object> conversation = new HashMap<>();
+        conversation.put("type", "group");
+        conversation.put("participantIds", MEMBERS);
+        Tasks.await(db.collection("conversations").document(conversationId).set(conversation),
+                10, TimeUnit.SECONDS);
+        return conversationId;
+    }
+
+    // @return Milliseconds from sendMessage() to the success callback
+    private long sendAndAwaitAck(MessageRepository repository, String conversationId, String text)
+            throws InterruptedException {
+        ChatMessage message = new ChatMessage();
+        message.setSenderId(SENDER);
+        message.setText(text);
+
+        CountDownLatch latch = new CountDownLatch(1);
+        AtomicReference<String> error = new AtomicReference<>();
+        long start = System.nanoTime();
+        repository.sendMessage(message, conversationId, SENDER, new MessageRepository.SendMessageCallback() {
+            @Override
+            public void onSuccess(String messageId) {
+                latch.countDown();
+            }
+
+            @Override
+            public void onFailure(String e) {
+                error.set(e);
+                latch.countDown();
+            }
+        });
+        assertTrue("Send was not acknowledged in time", latch.await(10, TimeUnit.SECONDS));
+        assertNull(error.get());
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+
+    // The inbox fan-out lands after the ack: wait for it before counting writes
+    private void awaitUnreadCount(String conversationId, String uid, long expected) throws Exception {
+        DocumentReference entry = ConversationInbox.entryRef(uid, conversationId);
+        long deadline = System.currentTimeMillis() + 10_000;
+        Long unread = null;
+        while (System.currentTimeMillis() < deadline) {
+            DocumentSnapshot doc = Tasks.await(entry.get(Source.SERVER), 10, TimeUnit.SECONDS);
+            unread = doc.getLong("unreadCount");
+            if (unread != null && unread == expected) return;
+            Thread.sleep(100);
+        }
+        assertEquals(Long.valueOf(expected), unread);
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.workconnect.repository.chat;
+
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.example.workconnect.models.ChatMessage;
+import com.example.workconnect.utils.SystemMessageHelper;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Source;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+/**
+ * Documents read and written per system message through {@link SystemMessageHelper}
+ * (message, conversation last message, inbox fan-out), and what the members' entries end up with.
+ * Requires the Firestore emulator: firebase emulators:start --only firestore
+ */
+@RunWith(AndroidJUnit4.class)
+public class SystemMessageFanOutEmulatorTest {
+
+    private static final String TAG = "SystemMessageFanOutTest";
+    private static final int MESSAGES = 20;
+    private static final String ACTOR = "actor";
+    private static final List<String> MEMBERS = Arrays.asList(ACTOR, "member1", "member2", "member3");
+
+    private static FirebaseFirestore db;
+
+    @BeforeClass
+    public static void connectToEmulator() {
+        db = FirebaseFirestore.getInstance();
+        try {
+            db.useEmulator("10.0.2.2", 8080);
+        } catch (IllegalStateException e) {
+            // Already connected by a previous test class
+        }
+    }
+
+    @Test
+    public void systemMessages_cachedParticipants_noReadsAndOneWritePerMember() throws Exception {
+        String conversationId = createConversation();
+        MessageRepository.cacheParticipants(conversationId, MEMBERS);
+
+        long readsBefore = SystemMessageHelper.documentReads.get();
+        long writesBefore = SystemMessageHelper.documentWrites.get();
+        long start = System.nanoTime();
+        for (int i = 0; i < MESSAGES; i++) {
+            Tasks.await(SystemMessageHelper.createSystemMessage(conversationId,
+                    ChatMessage.SystemMessageType.CALL_ENDED, null, null, "Call " + i),
+                    10, TimeUnit.SECONDS);
+        }
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        long reads = SystemMessageHelper.documentReads.get() - readsBefore;
+        long writes = SystemMessageHelper.documentWrites.get() - writesBefore;
+        Log.i(TAG, MESSAGES + " system messages in " + elapsedMs + "ms; per message: "
+                + (double) writes / MESSAGES + " writes, " + (double) reads / MESSAGES + " reads");
+
+        // Message + conversation last message + one inbox entry per member, nothing read
+        assertEquals(0, reads);
+        assertEquals(MESSAGES * (2L + MEMBERS.size()), writes);
+
+        // No actor: every member has every message unread, and sees the newest one in the list
+        for (String uid : MEMBERS) {
+            DocumentSnapshot entry = readEntry(uid, conversationId);
+            assertEquals(Long.valueOf(MESSAGES), entry.getLong("unreadCount"));
+            assertEquals("Call " + (MESSAGES - 1), entry.getString("lastMessageText"));
+        }
+    }
+
+    @Test
+    public void memberAdded_readsConversationOnce_andFansOutToEveryone() throws Exception {
+        String conversationId = createConversation();
+        MessageRepository.invalidateParticipants(conversationId);
+
+        long readsBefore = SystemMessageHelper.documentReads.get();
+        Tasks.await(SystemMessageHelper.createSystemMessage(conversationId,
+                ChatMessage.SystemMessageType.USER_ADDED, "member3", ACTOR, null),
+                10, TimeUnit.SECONDS);
+
+        // The added member's entry needs the conversation summary
+        assertEquals(1, SystemMessageHelper.documentReads.get() - readsBefore);
+
+        DocumentSnapshot added = readEntry("member3", conversationId);
+        assertEquals("group", added.getString("type"));
+        assertEquals(Long.valueOf(1), added.getLong("unreadCount"));
+        assertEquals(ACTOR, added.getString("lastMessageSenderId"));
+
+        // The actor's count is reset like a sender's, the others see the message as unread
+        assertEquals(Long.valueOf(0), readEntry(ACTOR, conversationId).getLong("unreadCount"));
+        DocumentSnapshot other = readEntry("member1", conversationId);
+        assertEquals(Long.valueOf(1), other.getLong("unreadCount"));
+        assertNotNull(other.getString("lastMessageText"));
+    }
+
+    private String createConversation() throws Exception {
+        String conversationId = "system_test_" + System.nanoTime();
+        Map<String, Object> conversation = new HashMap<>();
+        conversation.put("type", "group");
+        conversation.put("title", "Fan-out test");
+        conversation.put("participantIds", MEMBERS);
+        Tasks.await(db.collection("conversations").document(conversationId).set(conversation),
+                10, TimeUnit.SECONDS);
+        return conversationId;
+    }
+
+    private DocumentSnapshot readEntry(String uid, String conversationId) throws Exception {
+        return Tasks.await(ConversationInbox.entryRef(uid, conversationId).get(Source.SERVER),
+                10, TimeUnit.SECONDS);
+    }
+}
@@ -1,7 +1,16 @@
 package com.example.workconnect;
 
 import android.app.Application;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
 
+import com.example.workconnect.repository.CallSignalingHub;
+import com.example.workconnect.repository.chat.MessageOutbox;
+import com.example.workconnect.ui.chat.CallActivity;
+import com.example.workconnect.utils.CallEngineHolder;
+import com.example.workconnect.utils.DateHelper;
 import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.firestore.FirebaseFirestoreSettings;
 
@@ -17,5 +26,36 @@ public class WorkConnectApplication extends Application {
                 .setPersistenceEnabled(true)
                 .build();
         FirebaseFirestore.getInstance().setFirestoreSettings(settings);
+
+        // Resume sending whatever was left in the outbox by a previous process
+        MessageOutbox.getInstance(this).flushNow();
+
+        // One incoming call listener for the whole process, whatever screen is shown
+        CallSignalingHub.getInstance().start(() -> CallActivity.isInCall);
+
+        // Cached time/date labels depend on the time zone and locale
+        IntentFilter filter = new IntentFilter();
+        filter.addAction(Intent.ACTION_TIMEZONE_CHANGED);
+        filter.addAction(Intent.ACTION_TIME_CHANGED);
+        filter.addAction(Intent.ACTION_LOCALE_CHANGED);
+        registerReceiver(new BroadcastReceiver() {
+            @Override
+            public void onReceive(Context context, Intent intent) {
+                DateHelper.onTimeZoneChanged();
+            }
+        }, filter);
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        // The pre-warmed call engine is the first thing to give back when no call runs
+        CallEngineHolder.getInstance().onTrimMemory(level);
+    }
+
+    @Override
+    public void onLowMemory() {
+        super.onLowMemory();
+        CallEngineHolder.getInstance().onLowMemory();
     }
 }
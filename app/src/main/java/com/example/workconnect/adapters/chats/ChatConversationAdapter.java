@@ -6,19 +6,21 @@ import android.view.ViewGroup;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.AsyncListDiffer;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.workconnect.R;
 import com.example.workconnect.models.ChatConversation;
-import com.example.workconnect.repository.authAndUsers.UserRepository;
-import com.example.workconnect.utils.UserUtils;
-import com.google.firebase.firestore.DocumentSnapshot;
-import com.google.firebase.firestore.FirebaseFirestore;
+import com.example.workconnect.repository.authAndUsers.UserDirectory;
 
 import java.text.DateFormat;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
-import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 
 public class ChatConversationAdapter extends RecyclerView.Adapter<ChatConversationAdapter.ConversationViewHolder> {
 
@@ -26,20 +28,38 @@ public class ChatConversationAdapter extends RecyclerView.Adapter<ChatConversati
         void onConversationClick(ChatConversation conversation);
     }
 
-    private final List<ChatConversation> conversations;
+    // Partial rebinds: only the part of the row that changed is bound again
+    static final String PAYLOAD_NAME = "name";
+    static final String PAYLOAD_LAST_MESSAGE = "lastMessage";
+    static final String PAYLOAD_UNREAD = "unread";
+
+    private final AsyncListDiffer<ChatConversation> differ;
     private final OnConversationClickListener listener;
 
     private final String currentUserId;
 
-    private final Map<String, String> nameCache = new HashMap<>();
-    private final FirebaseFirestore db = FirebaseFirestore.getInstance();
+    // Shared uid -> profile cache; only rows showing a loaded user are rebound
+    private final UserDirectory userDirectory = UserDirectory.getInstance();
+    private final UserDirectory.Listener usersListener = this::onUsersLoaded;
+
+    private final DateFormat timeFormat = DateFormat.getDateTimeInstance(DateFormat.SHORT, DateFormat.SHORT);
 
-    public ChatConversationAdapter(List<ChatConversation> conversations,
-                                   String currentUserId,
+    public ChatConversationAdapter(String currentUserId,
                                    OnConversationClickListener listener) {
-        this.conversations = conversations;
         this.currentUserId = currentUserId;
         this.listener = listener;
+        this.differ = new AsyncListDiffer<>(this, new ConversationDiffCallback());
+    }
+
+    /**
+     * Show a new list (newest conversation first). The list must not be modified afterwards.
+     */
+    public void submitList(List<ChatConversation> conversations) {
+        differ.submitList(conversations);
+    }
+
+    public List<ChatConversation> getCurrentList() {
+        return differ.getCurrentList();
     }
 
     @NonNull
@@ -47,56 +67,92 @@ public class ChatConversationAdapter extends RecyclerView.Adapter<ChatConversati
     public ConversationViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
         View v = LayoutInflater.from(parent.getContext())
                 .inflate(R.layout.item_chat_conversation, parent, false);
-        return new ConversationViewHolder(v);
+        ConversationViewHolder holder = new ConversationViewHolder(v);
+        holder.itemView.setOnClickListener(view -> {
+            int position = holder.getBindingAdapterPosition();
+            if (listener != null && position != RecyclerView.NO_POSITION) {
+                listener.onConversationClick(differ.getCurrentList().get(position));
+            }
+        });
+        return holder;
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull ConversationViewHolder holder, int position,
+                                 @NonNull List<Object> payloads) {
+        if (payloads.isEmpty()) {
+            onBindViewHolder(holder, position);
+            return;
+        }
+
+        ChatConversation conv = differ.getCurrentList().get(position);
+        for (Object payload : payloads) {
+            // The diff callback sends a list of changed parts, name lookups a single part
+            Collection<?> parts = payload instanceof Collection
+                    ? (Collection<?>) payload : Collections.singletonList(payload);
+            for (Object part : parts) {
+                if (PAYLOAD_NAME.equals(part)) {
+                    bindTitle(holder, conv);
+                    bindLastMessage(holder, conv);
+                } else if (PAYLOAD_LAST_MESSAGE.equals(part)) {
+                    bindLastMessage(holder, conv);
+                    bindTime(holder, conv);
+                } else if (PAYLOAD_UNREAD.equals(part)) {
+                    bindUnread(holder, conv);
+                }
+            }
+        }
     }
 
     @Override
     public void onBindViewHolder(@NonNull ConversationViewHolder holder, int position) {
-        ChatConversation conv = conversations.get(position);
+        ChatConversation conv = differ.getCurrentList().get(position);
 
-        // -----------------------------
-        // TITLE: group title vs other user
-        // -----------------------------
-        holder.tvTitle.setText("Loading...");
+        bindTitle(holder, conv);
+        bindLastMessage(holder, conv);
+        bindTime(holder, conv);
+        bindUnread(holder, conv);
+    }
 
-        String type = conv.getType();
-        boolean isGroup = "group".equals(type);
+    // -----------------------------
+    // TITLE: group title vs other user
+    // -----------------------------
+    private void bindTitle(ConversationViewHolder holder, ChatConversation conv) {
+        holder.tvTitle.setTextColor(
+                holder.itemView.getContext().getColor(R.color.navyBlue)
+        );
 
-        if (isGroup) {
+        if (conv.isGroup()) {
             String title = conv.getTitle();
             if (title == null || title.trim().isEmpty()) title = "Group";
-
             holder.tvTitle.setText(title);
-            holder.tvTitle.setTextColor(
-                    holder.itemView.getContext().getColor(R.color.navyBlue)
-            );
-        } else {
-            holder.tvTitle.setTextColor(
-                    holder.itemView.getContext().getColor(R.color.navyBlue)
-            );
-
-            String otherUserId = getOtherParticipantId(conv);
-            if (otherUserId != null) {
-                String cached = nameCache.get(otherUserId);
-                if (cached != null) {
-                    holder.tvTitle.setText(cached);
-                } else {
-                    loadUserName(otherUserId, holder, false);
-                }
+            return;
+        }
+
+        String otherUserId = getOtherParticipantId(conv);
+        if (otherUserId != null) {
+            String cached = getName(otherUserId);
+            if (cached != null) {
+                holder.tvTitle.setText(cached);
             } else {
-                holder.tvTitle.setText("Conversation");
+                holder.tvTitle.setText("Loading...");
+                userDirectory.prefetch(Collections.singletonList(otherUserId));
             }
+        } else {
+            holder.tvTitle.setText("Conversation");
         }
+    }
 
-        // -----------------------------
-        // LAST MESSAGE
-        // Group: if empty => show members preview
-        // Direct: just last text (no prefix)
-        // -----------------------------
+    // -----------------------------
+    // LAST MESSAGE
+    // Group: if empty => show members preview
+    // Direct: just last text (no prefix)
+    // -----------------------------
+    private void bindLastMessage(ConversationViewHolder holder, ChatConversation conv) {
         String lastText = conv.getLastMessageText() != null ? conv.getLastMessageText() : "";
         String senderId = conv.getLastMessageSenderId();
 
-        if (!isGroup) {
+        if (!conv.isGroup()) {
             // Direct message: no prefix
             holder.tvLastMessage.setText(lastText);
         } else {
@@ -111,48 +167,40 @@ public class ChatConversationAdapter extends RecyclerView.Adapter<ChatConversati
                 } else if (senderId.equals(currentUserId)) {
                     holder.tvLastMessage.setText("You: " + lastText);
                 } else {
-                    String cachedSender = nameCache.get(senderId);
+                    String cachedSender = getName(senderId);
                     if (cachedSender != null) {
                         holder.tvLastMessage.setText(cachedSender + ": " + lastText);
                     } else {
                         holder.tvLastMessage.setText("...: " + lastText);
-                        loadUserName(senderId, holder, true);
+                        userDirectory.prefetch(Collections.singletonList(senderId));
                     }
                 }
             }
         }
+    }
 
-
-        // -----------------------------
-        // DATE
-        // -----------------------------
+    // -----------------------------
+    // DATE
+    // -----------------------------
+    private void bindTime(ConversationViewHolder holder, ChatConversation conv) {
         if (conv.getLastMessageAt() != null) {
-            holder.tvLastMessageTime.setText(
-                    DateFormat.getDateTimeInstance(DateFormat.SHORT, DateFormat.SHORT)
-                            .format(conv.getLastMessageAt())
-            );
+            holder.tvLastMessageTime.setText(timeFormat.format(conv.getLastMessageAt()));
         } else {
             holder.tvLastMessageTime.setText("");
         }
+    }
 
-        // -----------------------------
-        // UNREAD BADGE
-        // -----------------------------
-        long unread = 0;
-        try {
-            unread = conv.getUnreadCountFor(currentUserId);
-        } catch (Exception ignored) {}
-
+    // -----------------------------
+    // UNREAD BADGE
+    // -----------------------------
+    private void bindUnread(ConversationViewHolder holder, ChatConversation conv) {
+        long unread = conv.getUnreadCountFor(currentUserId);
         if (unread > 0) {
             holder.tvUnreadBadge.setVisibility(View.VISIBLE);
             holder.tvUnreadBadge.setText(String.valueOf(unread));
         } else {
             holder.tvUnreadBadge.setVisibility(View.GONE);
         }
-
-        holder.itemView.setOnClickListener(v -> {
-            if (listener != null) listener.onConversationClick(conv);
-        });
     }
 
     private String getOtherParticipantId(ChatConversation conv) {
@@ -182,7 +230,7 @@ public class ChatConversationAdapter extends RecyclerView.Adapter<ChatConversati
 
             if (added >= maxNames) break;
 
-            String name = nameCache.get(uid);
+            String name = getName(uid);
             if (name != null) {
                 if (sb.length() > 0) sb.append(", ");
                 sb.append(name);
@@ -197,63 +245,94 @@ public class ChatConversationAdapter extends RecyclerView.Adapter<ChatConversati
 
         holder.tvLastMessage.setText(sb.toString());
 
-        // Load missing names and refresh display
-        preloadNamesForGroup(ids, holder);
+        // Load missing names in one batch; usersListener refreshes the rows
+        userDirectory.prefetch(ids);
     }
 
-    private void preloadNamesForGroup(List<String> ids, ConversationViewHolder holder) {
-        int count = 0;
-        for (String uid : ids) {
-            if (uid == null) continue;
-            if (nameCache.containsKey(uid)) continue;
-
-            // Avoid spamming Firestore
-            count++;
-            if (count > 6) break;
-
-            db.collection("users").document(uid)
-                    .get()
-                    .addOnSuccessListener((DocumentSnapshot doc) -> {
-                        String full = UserUtils.getDisplayNameFromSnapshot(doc, uid);
-                        nameCache.put(uid, full);
-
-                        // refresh visible row safely
-                        notifyDataSetChanged();
-                    });
-        }
+    // Cached display name, uid if the user has no name, null if not loaded yet
+    private String getName(String uid) {
+        String name = userDirectory.peekName(uid);
+        if (name == null) return null;
+        return name.isEmpty() ? uid : name;
     }
 
     /**
-     * @param updateLastMessagePrefix if true, we refresh tvLastMessage using the loaded name
+     * Rebind only the rows that display one of the loaded users
      */
-    private void loadUserName(String uid, ConversationViewHolder holder, boolean updateLastMessagePrefix) {
-        UserRepository.loadUserName(uid, full -> {
-            if (full != null && !full.isEmpty()) {
-                nameCache.put(uid, full);
-
-                if (updateLastMessagePrefix) {
-                    String current = holder.tvLastMessage.getText().toString();
-                    if (current.startsWith("...:")) {
-                        holder.tvLastMessage.setText(full + current.substring(3)); // keeps ": message"
-                    } else if (current.startsWith("...")) {
-                        holder.tvLastMessage.setText(full + ": " + current);
-                    } else {
-                        // if something else, do nothing (avoid corrupting text)
-                    }
-                } else {
-                    holder.tvTitle.setText(full);
-                }
-            } else {
-                // Fallback to uid if name not found
-                nameCache.put(uid, uid);
-                if (!updateLastMessagePrefix) holder.tvTitle.setText(uid);
+    private void onUsersLoaded(Set<String> uids) {
+        List<ChatConversation> list = differ.getCurrentList();
+        for (int i = 0; i < list.size(); i++) {
+            if (showsAnyUser(list.get(i), uids)) {
+                notifyItemChanged(i, PAYLOAD_NAME);
             }
-        });
+        }
+    }
+
+    private boolean showsAnyUser(ChatConversation conv, Set<String> uids) {
+        if (!conv.isGroup()) {
+            String other = getOtherParticipantId(conv);
+            return other != null && uids.contains(other);
+        }
+        String lastText = conv.getLastMessageText();
+        if (lastText == null || lastText.trim().isEmpty()) {
+            // Members preview
+            if (conv.getParticipantIds() == null) return false;
+            for (String uid : conv.getParticipantIds()) {
+                if (uids.contains(uid)) return true;
+            }
+            return false;
+        }
+        return conv.getLastMessageSenderId() != null && uids.contains(conv.getLastMessageSenderId());
+    }
+
+    @Override
+    public void onAttachedToRecyclerView(@NonNull RecyclerView recyclerView) {
+        super.onAttachedToRecyclerView(recyclerView);
+        userDirectory.addListener(usersListener);
+    }
+
+    @Override
+    public void onDetachedFromRecyclerView(@NonNull RecyclerView recyclerView) {
+        super.onDetachedFromRecyclerView(recyclerView);
+        userDirectory.removeListener(usersListener);
     }
 
     @Override
     public int getItemCount() {
-        return conversations.size();
+        return differ.getCurrentList().size();
+    }
+
+    // ===== DiffUtil Callback =====
+    // Decoded conversations are never mutated in place, so old and new items can be compared field by field
+    private class ConversationDiffCallback extends DiffUtil.ItemCallback<ChatConversation> {
+        @Override
+        public boolean areItemsTheSame(@NonNull ChatConversation oldItem, @NonNull ChatConversation newItem) {
+            return Objects.equals(oldItem.getId(), newItem.getId());
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull ChatConversation oldItem, @NonNull ChatConversation newItem) {
+            return getChangePayload(oldItem, newItem) == null;
+        }
+
+        @Override
+        public Object getChangePayload(@NonNull ChatConversation oldItem, @NonNull ChatConversation newItem) {
+            List<String> parts = new ArrayList<>(3);
+            if (!Objects.equals(oldItem.getTitle(), newItem.getTitle())
+                    || !Objects.equals(oldItem.getType(), newItem.getType())
+                    || !Objects.equals(oldItem.getParticipantIds(), newItem.getParticipantIds())) {
+                parts.add(PAYLOAD_NAME);
+            }
+            if (!Objects.equals(oldItem.getLastMessageText(), newItem.getLastMessageText())
+                    || !Objects.equals(oldItem.getLastMessageSenderId(), newItem.getLastMessageSenderId())
+                    || !Objects.equals(oldItem.getLastMessageAt(), newItem.getLastMessageAt())) {
+                parts.add(PAYLOAD_LAST_MESSAGE);
+            }
+            if (oldItem.getUnreadCountFor(currentUserId) != newItem.getUnreadCountFor(currentUserId)) {
+                parts.add(PAYLOAD_UNREAD);
+            }
+            return parts.isEmpty() ? null : parts;
+        }
     }
 
     static class ConversationViewHolder extends RecyclerView.ViewHolder {
@@ -0,0 +1,109 @@
+package com.example.workconnect.adapters.chats;
+
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.ColorDrawable;
+import android.graphics.drawable.Drawable;
+import android.view.ViewGroup;
+import android.widget.ImageView;
+
+import com.bumptech.glide.Glide;
+import com.bumptech.glide.RequestBuilder;
+import com.bumptech.glide.load.model.GlideUrl;
+import com.example.workconnect.R;
+import com.example.workconnect.models.ChatMessage;
+import com.example.workconnect.utils.ImageSizing;
+
+/**
+ * Glide requests for chat images.
+ *
+ * - Bubbles are sized from the image's width/height before anything loads (no relayout
+ *   when the image arrives) and load the thumbnail decoded at exactly that size
+ * - The BlurHash placeholder is shown until the thumbnail is there
+ * - The full image is only requested when the image is opened
+ *
+ * Firebase Storage download URLs carry an access token that can be rotated; disk cache
+ * entries are keyed by the object path so the same image is never downloaded twice.
+ */
+public final class ChatImageLoader {
+
+    private static final int PLACEHOLDER_COLOR = 0xFFE0E0E0;
+
+    private ChatImageLoader() {
+    }
+
+    /**
+     * Size an image bubble and load the message's thumbnail into it
+     * @param placeholder Decoded BlurHash of the image, null to show a plain color
+     */
+    static void loadThumbnail(ImageView view, ChatMessage msg, Bitmap placeholder) {
+        Resources res = view.getResources();
+        int[] size = ImageSizing.bubbleSize(msg.getImageWidth(), msg.getImageHeight(),
+                res.getDimensionPixelSize(R.dimen.chat_image_max_width),
+                res.getDimensionPixelSize(R.dimen.chat_image_max_height),
+                res.getDimensionPixelSize(R.dimen.chat_image_min_edge));
+
+        ViewGroup.LayoutParams params = view.getLayoutParams();
+        if (params.width != size[0] || params.height != size[1]) {
+            params.width = size[0];
+            params.height = size[1];
+            view.setLayoutParams(params);
+        }
+
+        Drawable placeholderDrawable = placeholder != null
+                ? new BitmapDrawable(res, placeholder)
+                : new ColorDrawable(PLACEHOLDER_COLOR);
+
+        // Messages sent before thumbnails existed only have the full image
+        String url = msg.getThumbnailUrl() != null ? msg.getThumbnailUrl() : msg.getFileUrl();
+        Glide.with(view)
+                .load(cacheableUrl(url))
+                .override(size[0], size[1])
+                .centerCrop()
+                .placeholder(placeholderDrawable)
+                .into(view);
+    }
+
+    /**
+     * Load a message's full image (image viewer), with its thumbnail shown meanwhile
+     */
+    public static void loadFull(ImageView view, ChatMessage msg) {
+        RequestBuilder<Drawable> request = Glide.with(view)
+                .load(cacheableUrl(msg.getFileUrl()))
+                .fitCenter();
+        if (msg.getThumbnailUrl() != null) {
+            request = request.thumbnail(Glide.with(view)
+                    .load(cacheableUrl(msg.getThumbnailUrl()))
+                    .fitCenter());
+        }
+        request.into(view);
+    }
+
+    static void clear(ImageView view) {
+        Glide.with(view).clear(view);
+    }
+
+    private static Object cacheableUrl(String url) {
+        return url != null ? new StorageUrl(url) : null;
+    }
+
+    /**
+     * Download URL whose cache key ignores the query string (alt=media&token=...)
+     */
+    private static class StorageUrl extends GlideUrl {
+
+        private final String cacheKey;
+
+        StorageUrl(String url) {
+            super(url);
+            int query = url.indexOf('?');
+            this.cacheKey = query >= 0 ? url.substring(0, query) : url;
+        }
+
+        @Override
+        public String getCacheKey() {
+            return cacheKey;
+        }
+    }
+}
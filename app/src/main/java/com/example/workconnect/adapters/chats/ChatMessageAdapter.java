@@ -7,9 +7,9 @@ import android.widget.ImageView;
 import android.widget.LinearLayout;
 import android.widget.TextView;
 
-import com.bumptech.glide.Glide;
-
 import androidx.annotation.NonNull;
+import androidx.core.text.PrecomputedTextCompat;
+import androidx.core.widget.TextViewCompat;
 import androidx.recyclerview.widget.AsyncListDiffer;
 import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
@@ -17,18 +17,28 @@ import androidx.recyclerview.widget.RecyclerView;
 import com.example.workconnect.R;
 import com.example.workconnect.models.ChatMessage;
 import com.example.workconnect.models.ChatItem;
-import com.example.workconnect.repository.authAndUsers.UserRepository;
+import com.example.workconnect.repository.authAndUsers.UserDirectory;
+import com.example.workconnect.repository.decode.SnapshotDecoder;
+import com.example.workconnect.utils.ChatUtils;
 import com.example.workconnect.utils.DateHelper;
-import com.google.firebase.firestore.FirebaseFirestore;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
 public class ChatMessageAdapter extends RecyclerView.Adapter<ChatMessageAdapter.MessageViewHolder> {
 
+    // Partial rebinds: only the views of that part are updated (image previews are not reloaded)
+    static final String PAYLOAD_NAME = "name";
+    static final String PAYLOAD_READ_STATUS = "readStatus";
+    static final String PAYLOAD_REACTIONS = "reactions";
+    static final String PAYLOAD_TEXT = "text";
+
     public interface OnRetryClickListener {
         void onRetryClick(ChatMessage message);
     }
@@ -41,6 +51,10 @@ public class ChatMessageAdapter extends RecyclerView.Adapter<ChatMessageAdapter.
         void onReactionsClick(ChatMessage message);
     }
 
+    public interface OnImageClickListener {
+        void onImageClick(ChatMessage message);
+    }
+
     private final String currentUserId;
 
     // Use AsyncListDiffer for incremental updates
@@ -49,20 +63,42 @@ public class ChatMessageAdapter extends RecyclerView.Adapter<ChatMessageAdapter.
 
     private boolean isGroup = false;
     private List<String> participantIds; // For calculating read status in groups
-
-    // Cache uid -> name (only used when isGroup)
-    private final Map<String, String> nameCache = new HashMap<>();
-    private final FirebaseFirestore db = FirebaseFirestore.getInstance();
+    private Map<String, Date> readCursors = new HashMap<>(); // uid -> sentAt of newest message read
+
+    // Shared uid -> profile cache (sender names, system message names)
+    private final UserDirectory userDirectory = UserDirectory.getInstance();
+    private final UserDirectory.Listener usersListener = uids -> {
+        notifyRanges(rowIndex.rowsShowing(uids), PAYLOAD_NAME);
+        // System sentences built with a placeholder name are rendered again
+        if (hasUnresolvedNames()) submitItems(differ.getCurrentList());
+    };
+
+    // Which rows show which user's name / read receipts, for the displayed list
+    private MessageRowIndex rowIndex = MessageRowIndex.build(Collections.emptyList(), null);
+
+    // Text layout, system sentences and reaction chips are built in the background when a
+    // list is submitted; binding only attaches them
+    private final SnapshotDecoder renderQueue = SnapshotDecoder.latestOnly();
+    private Map<String, MessageRenderer.Rendered> renders = new HashMap<>();
+    // Text metrics of the "me" and "other" bubbles, needed to precompute their text.
+    // Seeded from template bubbles when the adapter is attached, so the first list is precomputed too
+    private final PrecomputedTextCompat.Params[] textParams = new PrecomputedTextCompat.Params[2];
+    private final List<Runnable> pendingCommitCallbacks = new ArrayList<>();
+    // Last list handed to submitItems (may still be rendering)
+    private List<ChatItem> submittedItems;
     
     private OnRetryClickListener retryClickListener;
     private OnMessageLongClickListener longClickListener;
     private OnReactionsClickListener reactionsClickListener;
+    private OnImageClickListener imageClickListener;
 
     public ChatMessageAdapter(String currentUserId) {
         this.currentUserId = currentUserId;
         
         // Initialize AsyncListDiffer with ItemDiffCallback
         this.differ = new AsyncListDiffer<>(this, new ItemDiffCallback());
+        this.differ.addListListener((previous, current) ->
+                rowIndex = MessageRowIndex.build(current, currentUserId));
     }
     
     public void setOnRetryClickListener(OnRetryClickListener listener) {
@@ -77,54 +113,123 @@ public class ChatMessageAdapter extends RecyclerView.Adapter<ChatMessageAdapter.
         this.reactionsClickListener = listener;
     }
 
+    public void setOnImageClickListener(OnImageClickListener listener) {
+        this.imageClickListener = listener;
+    }
+
     /**
-     * Submit a list of messages and automatically insert date separators
+     * Submit the rows of a {@link com.example.workconnect.models.ChatItemList} (messages + date separators)
      */
-    public void submitList(List<ChatMessage> newMessages) {
-        List<ChatItem> itemsWithSeparators = insertDateSeparators(newMessages);
-        differ.submitList(itemsWithSeparators);
+    public void submitItems(List<ChatItem> items) {
+        submitItems(items, null);
     }
-    
+
     /**
-     * Insert date separators between messages from different days (WhatsApp style)
+     * Render the rows in the background, then diff them in
+     * @param onCommitted Run once the rows are displayed (e.g. to restore the scroll position), may be null
      */
-    private List<ChatItem> insertDateSeparators(List<ChatMessage> messages) {
-        List<ChatItem> items = new ArrayList<>();
-        
-        if (messages.isEmpty()) {
-            return items;
+    public void submitItems(List<ChatItem> items, Runnable onCommitted) {
+        // Names are read here: the directory is main-thread only
+        Map<String, String> names = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (String uid : MessageRenderer.systemMessageUserIds(items)) {
+            String name = userDirectory.peekName(uid);
+            if (name != null) names.put(uid, name);
+            else missing.add(uid);
         }
-        
-        // Always add a separator for the first message's date
-        items.add(new ChatItem(messages.get(0).getSentAt()));
-        items.add(new ChatItem(messages.get(0)));
-        
-        // Check for date changes between consecutive messages
-        for (int i = 1; i < messages.size(); i++) {
-            ChatMessage current = messages.get(i);
-            ChatMessage previous = messages.get(i - 1);
-            
-            // If different day, add a date separator
-            if (current.getSentAt() != null && previous.getSentAt() != null &&
-                DateHelper.isDifferentDay(previous.getSentAt(), current.getSentAt())) {
-                items.add(new ChatItem(current.getSentAt()));
+        if (!missing.isEmpty()) userDirectory.prefetch(missing);
+
+        if (onCommitted != null) pendingCommitCallbacks.add(onCommitted);
+        submittedItems = items;
+        Map<String, MessageRenderer.Rendered> previous = renders;
+        PrecomputedTextCompat.Params[] params = textParams.clone();
+
+        renderQueue.submit(
+                () -> MessageRenderer.renderAll(items, currentUserId, previous, names, params),
+                rendered -> onRendered(items, rendered));
+    }
+
+    private void onRendered(List<ChatItem> items, Map<String, MessageRenderer.Rendered> rendered) {
+        Map<String, MessageRenderer.Rendered> old = renders;
+        renders = rendered;
+
+        // Callbacks of superseded submissions run with this one
+        List<Runnable> callbacks = new ArrayList<>(pendingCommitCallbacks);
+        pendingCommitCallbacks.clear();
+
+        if (items == differ.getCurrentList()) {
+            // Same rows rendered again (names arrived, or text metrics became known): rebind the ones that changed
+            for (int i = 0; i < items.size(); i++) {
+                ChatItem item = items.get(i);
+                if (!item.isMessage()) continue;
+                String id = item.getMessage().getId();
+                if (id != null && old.get(id) != rendered.get(id)) {
+                    notifyItemChanged(i, item.getMessage().isSystemMessage() ? PAYLOAD_NAME : PAYLOAD_TEXT);
+                }
             }
-            
-            items.add(new ChatItem(current));
+            for (Runnable r : callbacks) r.run();
+            return;
         }
-        
-        return items;
+
+        differ.submitList(items, () -> {
+            for (Runnable r : callbacks) r.run();
+        });
+    }
+
+    // Names a system message needs, from the directory (fallback when it changed after rendering)
+    private Map<String, String> cachedNames(ChatMessage msg) {
+        Map<String, String> names = new HashMap<>();
+        for (String uid : MessageRenderer.systemMessageUserIds(Collections.singletonList(new ChatItem(msg)))) {
+            String name = userDirectory.peekName(uid);
+            if (name != null) names.put(uid, name);
+        }
+        return names;
+    }
+
+    private boolean hasUnresolvedNames() {
+        for (MessageRenderer.Rendered r : renders.values()) {
+            if (!r.namesResolved) return true;
+        }
+        return false;
+    }
+
+    // Render for a message, or null if it changed since the list was rendered
+    private MessageRenderer.Rendered renderFor(ChatMessage msg, PrecomputedTextCompat.Params params) {
+        MessageRenderer.Rendered r = msg.getId() != null ? renders.get(msg.getId()) : null;
+        return r != null && r.isUpToDate(msg, params) ? r : null;
     }
 
     public void setGroup(boolean group) {
+        if (isGroup == group) return;
         this.isGroup = group;
-        notifyDataSetChanged();
+        // Sender names are shown in groups only; read receipts count members differently
+        notifyRanges(rowIndex.otherRows(), PAYLOAD_NAME);
+        notifyRanges(rowIndex.myRows(), PAYLOAD_READ_STATUS);
     }
     
     public void setParticipantIds(List<String> participantIds) {
         this.participantIds = participantIds;
     }
 
+    /**
+     * Update members' read cursors and refresh the checkmarks
+     */
+    public void setReadCursors(Map<String, Date> readCursors) {
+        Map<String, Date> cursors = readCursors != null ? new HashMap<>(readCursors) : new HashMap<>();
+        if (cursors.equals(this.readCursors)) return;
+        this.readCursors = cursors;
+        notifyRanges(rowIndex.myRows(), PAYLOAD_READ_STATUS);
+    }
+
+    private void notifyRanges(List<int[]> ranges, Object payload) {
+        int count = getItemCount();
+        for (int[] range : ranges) {
+            // The index belongs to the displayed list, but stay inside it regardless
+            if (range[0] >= count) continue;
+            notifyItemRangeChanged(range[0], Math.min(range[1], count - range[0]), payload);
+        }
+    }
+
     @Override
     public int getItemViewType(int position) {
         ChatItem item = differ.getCurrentList().get(position);
@@ -133,12 +238,8 @@ public class ChatMessageAdapter extends RecyclerView.Adapter<ChatMessageAdapter.
             return 3; // Date separator
         }
         
-        ChatMessage msg = item.getMessage();
-        // System messages have their own view type
-        if (msg.isSystemMessage()) {
-            return 2; // System message
-        }
-        return msg.getSenderId().equals(currentUserId) ? 0 : 1;
+        // 0 = me, 1 = other, 2 = system message
+        return MessageRenderer.viewTypeOf(item.getMessage(), currentUserId);
     }
 
     @NonNull
@@ -156,7 +257,74 @@ public class ChatMessageAdapter extends RecyclerView.Adapter<ChatMessageAdapter.
         }
 
         View view = LayoutInflater.from(parent.getContext()).inflate(layout, parent, false);
-        return new MessageViewHolder(view, viewType);
+        MessageViewHolder holder = new MessageViewHolder(view, viewType);
+        if (holder.textMessage != null) {
+            holder.textParams = TextViewCompat.getTextMetricsParams(holder.textMessage);
+            updateTextParams(viewType, holder.textParams);
+        }
+        return holder;
+    }
+
+    /**
+     * Record a bubble's text metrics. If they differ from the ones the displayed list was
+     * rendered with (not seeded yet, or resolved differently), the list is rendered again
+     * so its rows get precomputed text instead of laying it out while binding.
+     */
+    private void updateTextParams(int viewType, PrecomputedTextCompat.Params params) {
+        if (Objects.equals(textParams[viewType], params)) return;
+        textParams[viewType] = params;
+        if (submittedItems != null && !submittedItems.isEmpty()) submitItems(submittedItems);
+    }
+
+    // Text metrics of the "me" and "other" bubbles, read from template bubbles before any row exists
+    private void seedTextParams(RecyclerView recyclerView) {
+        LayoutInflater inflater = LayoutInflater.from(recyclerView.getContext());
+        int[] layouts = {R.layout.item_chat_message_me, R.layout.item_chat_message_other};
+        for (int viewType = 0; viewType < layouts.length; viewType++) {
+            if (textParams[viewType] != null) continue;
+            View template = inflater.inflate(layouts[viewType], recyclerView, false);
+            TextView text = template.findViewById(R.id.textMessage);
+            if (text != null) {
+                updateTextParams(viewType, TextViewCompat.getTextMetricsParams(text));
+            }
+        }
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull MessageViewHolder holder, int position,
+                                 @NonNull List<Object> payloads) {
+        ChatItem item = differ.getCurrentList().get(position);
+        if (payloads.isEmpty() || !item.isMessage()) {
+            onBindViewHolder(holder, position);
+            return;
+        }
+
+        ChatMessage msg = item.getMessage();
+        boolean isOtherBubble = getItemViewType(position) == 1;
+        for (Object payload : payloads) {
+            // The diff callback sends a list of changed parts, targeted rebinds a single part
+            Collection<?> parts = payload instanceof Collection
+                    ? (Collection<?>) payload : Collections.singletonList(payload);
+            for (Object part : parts) {
+                if (PAYLOAD_NAME.equals(part)) {
+                    if (msg.isSystemMessage()) {
+                        bindSystemText(holder, msg);
+                    } else {
+                        bindSenderName(holder, msg, isOtherBubble);
+                    }
+                } else if (PAYLOAD_READ_STATUS.equals(part)) {
+                    if (holder.textReadStatus != null && !isOtherBubble) {
+                        updateReadStatus(holder, msg);
+                    }
+                } else if (PAYLOAD_REACTIONS.equals(part)) {
+                    displayReactions(holder, msg, renderFor(msg, holder.textParams));
+                } else if (PAYLOAD_TEXT.equals(part)) {
+                    if (holder.textMessage != null) {
+                        bindMessageText(holder, msg, renderFor(msg, holder.textParams));
+                    }
+                }
+            }
+        }
     }
 
     @Override
@@ -166,7 +334,7 @@ public class ChatMessageAdapter extends RecyclerView.Adapter<ChatMessageAdapter.
         // Handle date separators
         if (item.isDateSeparator()) {
             if (holder.textDateSeparator != null && item.getSeparatorDate() != null) {
-                String dateText = DateHelper.getDateSeparatorText(item.getSeparatorDate());
+                String dateText = DateHelper.getDateSeparatorText(item.getDayKey());
                 holder.textDateSeparator.setText(dateText);
             }
             return;
@@ -176,10 +344,7 @@ public class ChatMessageAdapter extends RecyclerView.Adapter<ChatMessageAdapter.
         
         // Handle system messages
         if (msg.isSystemMessage()) {
-            if (holder.textSystemMessage != null) {
-                String systemText = generateSystemMessageText(msg);
-                holder.textSystemMessage.setText(systemText);
-            }
+            bindSystemText(holder, msg);
             // Add time for system messages
             if (holder.textSystemTime != null && msg.getSentAt() != null) {
                 holder.textSystemTime.setText(DateHelper.formatTime(msg.getSentAt()));
@@ -190,16 +355,23 @@ public class ChatMessageAdapter extends RecyclerView.Adapter<ChatMessageAdapter.
             return; // Don't process further for system messages
         }
 
+        MessageRenderer.Rendered rendered = renderFor(msg, holder.textParams);
+
         // Handle file/image messages
         if (msg.hasFile()) {
             if (holder.imagePreview != null) {
                 if (msg.isImage()) {
-                    // Show image
+                    // Thumbnail at the bubble's size; the full image loads when opened
                     holder.imagePreview.setVisibility(View.VISIBLE);
-                    Glide.with(holder.itemView.getContext())
-                            .load(msg.getFileUrl())
-                            .into(holder.imagePreview);
+                    ChatImageLoader.loadThumbnail(holder.imagePreview, msg,
+                            rendered != null ? rendered.placeholder : null);
+                    holder.imagePreview.setOnClickListener(v -> {
+                        if (imageClickListener != null) {
+                            imageClickListener.onImageClick(msg);
+                        }
+                    });
                 } else {
+                    ChatImageLoader.clear(holder.imagePreview);
                     holder.imagePreview.setVisibility(View.GONE);
                 }
             }
@@ -215,7 +387,9 @@ public class ChatMessageAdapter extends RecyclerView.Adapter<ChatMessageAdapter.
                 }
             }
         } else {
-            if (holder.imagePreview != null) {
+            if (holder.imagePreview != null && holder.imagePreview.getVisibility() != View.GONE) {
+                // Stop a load started for the message this row showed before
+                ChatImageLoader.clear(holder.imagePreview);
                 holder.imagePreview.setVisibility(View.GONE);
             }
             if (holder.fileInfo != null) {
@@ -223,7 +397,10 @@ public class ChatMessageAdapter extends RecyclerView.Adapter<ChatMessageAdapter.
             }
         }
         
-        holder.textMessage.setText(msg.getText());
+        // Images sent without a caption have no text
+        boolean hasText = msg.getText() != null && !msg.getText().isEmpty();
+        holder.textMessage.setVisibility(hasText || !msg.hasFile() ? View.VISIBLE : View.GONE);
+        bindMessageText(holder, msg, rendered);
 
         // Time - use DateHelper for consistent formatting (HH:mm)
         // Always show time if available (below the bubble for "me" messages, same as "other")
@@ -244,34 +421,16 @@ public class ChatMessageAdapter extends RecyclerView.Adapter<ChatMessageAdapter.
         // Sender name in group (only for "other" bubbles)
         boolean isOtherBubble = getItemViewType(position) == 1;
 
-        if (holder.textSenderName != null) {
-            if (isGroup && isOtherBubble) {
-                holder.textSenderName.setVisibility(View.VISIBLE);
-                String senderId = msg.getSenderId();
-
-                if (senderId == null || senderId.trim().isEmpty()) {
-                    holder.textSenderName.setText("");
-                } else {
-                    String cached = nameCache.get(senderId);
-                    if (cached != null) {
-                        holder.textSenderName.setText(cached);
-                    } else {
-                        holder.textSenderName.setText("...");
-                        loadUserName(senderId, holder);
-                    }
-                }
-            } else {
-                holder.textSenderName.setVisibility(View.GONE);
-            }
-        }
+        bindSenderName(holder, msg, isOtherBubble);
         
         // Show error icon for failed messages (only for "me" bubbles)
         if (holder.iconError != null && !isOtherBubble) {
             if (msg.getStatus() == ChatMessage.MessageStatus.FAILED) {
                 holder.iconError.setVisibility(View.VISIBLE);
                 holder.itemView.setOnClickListener(v -> {
-                    if (retryClickListener != null) {
-                        retryClickListener.onRetryClick(msg);
+                    ChatMessage current = messageAt(holder);
+                    if (retryClickListener != null && current != null) {
+                        retryClickListener.onRetryClick(current);
                     }
                 });
             } else {
@@ -286,13 +445,15 @@ public class ChatMessageAdapter extends RecyclerView.Adapter<ChatMessageAdapter.
         }
         
         // Display reactions
-        displayReactions(holder, msg);
+        displayReactions(holder, msg, rendered);
         
         // Long-press listener for context menu (skip for system messages and date separators)
         if (holder.itemView != null && !msg.isSystemMessage()) {
+            // Looked up on click: partial rebinds keep the listener of an older copy of the message
             holder.itemView.setOnLongClickListener(v -> {
-                if (longClickListener != null) {
-                    longClickListener.onMessageLongClick(msg, holder.itemView);
+                ChatMessage current = messageAt(holder);
+                if (longClickListener != null && current != null) {
+                    longClickListener.onMessageLongClick(current, holder.itemView);
                     return true;
                 }
                 return false;
@@ -300,77 +461,62 @@ public class ChatMessageAdapter extends RecyclerView.Adapter<ChatMessageAdapter.
         }
     }
     
-    private String generateSystemMessageText(ChatMessage msg) {
-        if (msg.getSystemType() == null || msg.getSystemUserId() == null) {
-            return msg.getText() != null ? msg.getText() : "System message";
-        }
-        
-        String userId = msg.getSystemUserId();
-        String userName = nameCache.get(userId);
-        
-        // If name not cached, try to load it (but return placeholder for now)
-        if (userName == null) {
-            loadUserNameForSystemMessage(userId);
-            userName = "Someone";
+    private void bindSystemText(MessageViewHolder holder, ChatMessage msg) {
+        if (holder.textSystemMessage == null) return;
+        MessageRenderer.Rendered rendered = renderFor(msg, null);
+        holder.textSystemMessage.setText(rendered != null
+                ? rendered.text
+                : MessageRenderer.generateSystemMessageText(msg, cachedNames(msg), new boolean[1]));
+    }
+
+    // Sender name in group (only for "other" bubbles)
+    private void bindSenderName(MessageViewHolder holder, ChatMessage msg, boolean isOtherBubble) {
+        if (holder.textSenderName == null) return;
+        if (!isGroup || !isOtherBubble) {
+            holder.textSenderName.setVisibility(View.GONE);
+            return;
         }
-        
-        // For actions with an actor (who performed the action)
-        String actorName = null;
-        if (msg.getSystemActorId() != null && !msg.getSystemActorId().isEmpty()) {
-            actorName = nameCache.get(msg.getSystemActorId());
-            if (actorName == null) {
-                loadUserNameForSystemMessage(msg.getSystemActorId());
-                actorName = "Someone";
+
+        holder.textSenderName.setVisibility(View.VISIBLE);
+        String senderId = msg.getSenderId();
+
+        if (senderId == null || senderId.trim().isEmpty()) {
+            holder.textSenderName.setText("");
+        } else {
+            String cached = userDirectory.peekName(senderId);
+            if (cached != null) {
+                holder.textSenderName.setText(cached.isEmpty() ? senderId : cached);
+            } else {
+                // Rebound with PAYLOAD_NAME by usersListener once the batch arrives
+                holder.textSenderName.setText("...");
+                userDirectory.prefetch(Collections.singletonList(senderId));
             }
         }
-        
-        switch (msg.getSystemType()) {
-            case USER_JOINED:
-                return userName + " joined the group";
-            case USER_LEFT:
-                return userName + " left the group";
-            case GROUP_CREATED:
-                // Use the text from the message (e.g., "Raphael created this group")
-                if (msg.getText() != null && !msg.getText().isEmpty()) {
-                    return msg.getText();
-                }
-                return userName + " created this group";
-            case USER_ADDED:
-                if (actorName != null) {
-                    return actorName + " added " + userName + " to the group";
-                }
-                return userName + " was added to the group";
-            case USER_REMOVED:
-                if (actorName != null) {
-                    return actorName + " removed " + userName + " from the group";
-                }
-                return userName + " was removed from the group";
-            case GROUP_OPENED:
-                return userName + " opened this group";
-            case CALL_ENDED:
-            case CALL_MISSED:
-                // For call messages, use the text directly (contains duration or "Missed call")
-                return msg.getText() != null ? msg.getText() : 
-                    (msg.getSystemType() == ChatMessage.SystemMessageType.CALL_MISSED ? 
-                        "Missed call" : "Call ended");
-            default:
-                return msg.getText() != null ? msg.getText() : "System message";
-        }
     }
-    
-    private void loadUserNameForSystemMessage(String uid) {
-        if (nameCache.containsKey(uid)) return;
-        
-        UserRepository.loadUserName(uid, full -> {
-            if (full != null && !full.isEmpty()) {
-                nameCache.put(uid, full);
-            } else {
-                nameCache.put(uid, uid); // Fallback to uid
+
+    // Message currently bound to a row, null if the row is being removed
+    private ChatMessage messageAt(MessageViewHolder holder) {
+        int position = holder.getBindingAdapterPosition();
+        List<ChatItem> items = differ.getCurrentList();
+        if (position == RecyclerView.NO_POSITION || position >= items.size()) return null;
+        return items.get(position).getMessage();
+    }
+
+    private void bindMessageText(MessageViewHolder holder, ChatMessage msg, MessageRenderer.Rendered rendered) {
+        if (rendered != null && rendered.text instanceof PrecomputedTextCompat) {
+            try {
+                TextViewCompat.setPrecomputedText(holder.textMessage, (PrecomputedTextCompat) rendered.text);
+                return;
+            } catch (IllegalArgumentException e) {
+                // The bubble's metrics differ from the ones the text was measured with
+                // (e.g. text direction resolved on attach): use them for the next lists
+                holder.textParams = TextViewCompat.getTextMetricsParams(holder.textMessage);
+                updateTextParams(holder.getItemViewType(), holder.textParams);
             }
-            notifyDataSetChanged(); // Refresh to show correct name
-        });
+        }
+        holder.textMessage.setText(msg.getText());
     }
-    
+
     private void updateReadStatus(MessageViewHolder holder, ChatMessage msg) {
         if (msg.getStatus() == ChatMessage.MessageStatus.PENDING || 
             msg.getStatus() == ChatMessage.MessageStatus.FAILED) {
@@ -388,13 +534,13 @@ public class ChatMessageAdapter extends RecyclerView.Adapter<ChatMessageAdapter.
                 holder.textReadStatus.setTextColor(holder.itemView.getContext().getColor(android.R.color.darker_gray));
             } else {
                 int totalRecipients = participantIds.size() - 1; // Exclude sender
-                int readCount = msg.getReadCount();
+                int readCount = ChatUtils.getReaders(msg, participantIds, readCursors).size();
                 
                 if (readCount == 0) {
                     // Not read by anyone yet - single checkmark (sent)
                     holder.textReadStatus.setText("✓");
                     holder.textReadStatus.setTextColor(holder.itemView.getContext().getColor(android.R.color.darker_gray));
-                } else if (readCount == totalRecipients) {
+                } else if (readCount >= totalRecipients) {
                     // Read by all - double checkmarks blue
                     holder.textReadStatus.setText("✓✓");
                     holder.textReadStatus.setTextColor(holder.itemView.getContext().getColor(R.color.readCheckmarkBlue));
@@ -405,9 +551,10 @@ public class ChatMessageAdapter extends RecyclerView.Adapter<ChatMessageAdapter.
                 }
             }
         } else {
-            // Direct message: WhatsApp style
-            List<String> readBy = msg.getReadBy();
-            boolean isRead = readBy != null && !readBy.isEmpty();
+            // Direct message: WhatsApp style (read once the other participant's cursor passes it)
+            boolean isRead = participantIds != null
+                    ? !ChatUtils.getReaders(msg, participantIds, readCursors).isEmpty()
+                    : msg.getReadBy() != null && !msg.getReadBy().isEmpty();
             
             if (isRead) {
                 // Read (blue double checkmarks) - WhatsApp style
@@ -422,30 +569,17 @@ public class ChatMessageAdapter extends RecyclerView.Adapter<ChatMessageAdapter.
         }
     }
 
-    private void loadUserName(String uid, MessageViewHolder holder) {
-        db.collection("users").document(uid)
-                .get()
-                .addOnSuccessListener(doc -> {
-                    String first = doc.getString("firstName");
-                    String last  = doc.getString("lastName");
-
-                    String full = ((first != null ? first : "") + " " + (last != null ? last : "")).trim();
-                    if (full.isEmpty()) full = doc.getString("fullName");
-                    if (full == null || full.trim().isEmpty()) full = doc.getString("name");
-                    if (full == null || full.trim().isEmpty()) full = uid;
-
-                    nameCache.put(uid, full);
+    @Override
+    public void onAttachedToRecyclerView(@NonNull RecyclerView recyclerView) {
+        super.onAttachedToRecyclerView(recyclerView);
+        userDirectory.addListener(usersListener);
+        seedTextParams(recyclerView);
+    }
 
-                    if (holder.textSenderName != null) {
-                        holder.textSenderName.setText(full);
-                    }
-                })
-                .addOnFailureListener(e -> {
-                    nameCache.put(uid, uid);
-                    if (holder.textSenderName != null) {
-                        holder.textSenderName.setText(uid);
-                    }
-                });
+    @Override
+    public void onDetachedFromRecyclerView(@NonNull RecyclerView recyclerView) {
+        super.onDetachedFromRecyclerView(recyclerView);
+        userDirectory.removeListener(usersListener);
     }
 
     @Override
@@ -457,51 +591,55 @@ public class ChatMessageAdapter extends RecyclerView.Adapter<ChatMessageAdapter.
     private static class ItemDiffCallback extends DiffUtil.ItemCallback<ChatItem> {
         @Override
         public boolean areItemsTheSame(@NonNull ChatItem oldItem, @NonNull ChatItem newItem) {
-            if (oldItem.getType() != newItem.getType()) {
-                return false;
-            }
-            
-            if (oldItem.isDateSeparator()) {
-                // Compare dates for separators - same if same day
-                Date oldDate = oldItem.getSeparatorDate();
-                Date newDate = newItem.getSeparatorDate();
-                return oldDate != null && newDate != null && 
-                       !DateHelper.isDifferentDay(oldDate, newDate);
-            } else {
-                // Compare by message ID
-                ChatMessage oldMsg = oldItem.getMessage();
-                ChatMessage newMsg = newItem.getMessage();
-                return oldMsg != null && newMsg != null &&
-                       oldMsg.getId() != null && oldMsg.getId().equals(newMsg.getId());
-            }
+            // Separators: same day key; messages: same id
+            return oldItem.isSameItem(newItem);
         }
 
         @Override
         public boolean areContentsTheSame(@NonNull ChatItem oldItem, @NonNull ChatItem newItem) {
-            if (oldItem.getType() != newItem.getType()) {
-                return false;
-            }
-            
-            if (oldItem.isDateSeparator()) {
-                // For separators, compare dates
-                Date oldDate = oldItem.getSeparatorDate();
-                Date newDate = newItem.getSeparatorDate();
-                if (oldDate == null || newDate == null) {
-                    return oldDate.equals(newDate);
-                }
-                return !DateHelper.isDifferentDay(oldDate, newDate);
-            } else {
-                // Compare message contents
-                ChatMessage oldMsg = oldItem.getMessage();
-                ChatMessage newMsg = newItem.getMessage();
-                return oldMsg != null && newMsg != null && oldMsg.equals(newMsg);
-            }
+            // Compare message revisions (every write bumps the version) and send status
+            return oldItem.hasSameContent(newItem);
+        }
+
+        @Override
+        public Object getChangePayload(@NonNull ChatItem oldItem, @NonNull ChatItem newItem) {
+            return changedParts(oldItem, newItem);
         }
     }
 
+    /**
+     * Parts of a message row that changed between two revisions
+     * @return List of PAYLOAD_ parts (possibly empty), or null if the row needs a full bind
+     */
+    static List<Object> changedParts(ChatItem oldItem, ChatItem newItem) {
+        ChatMessage a = oldItem.getMessage();
+        ChatMessage b = newItem.getMessage();
+        // Same object mutated in place (send status), or a status change: full bind
+        if (a == null || b == null || a == b || !oldItem.hasSameStatus(newItem)) return null;
+
+        boolean sameBody = Objects.equals(a.getText(), b.getText())
+                && Objects.equals(a.getSenderId(), b.getSenderId())
+                && Objects.equals(a.getSentAt(), b.getSentAt())
+                && a.getMessageType() == b.getMessageType()
+                && Objects.equals(a.getFileUrl(), b.getFileUrl())
+                && Objects.equals(a.getThumbnailUrl(), b.getThumbnailUrl())
+                && Objects.equals(a.getFileName(), b.getFileName())
+                && a.getSystemType() == b.getSystemType()
+                && Objects.equals(a.getSystemUserId(), b.getSystemUserId())
+                && Objects.equals(a.getSystemActorId(), b.getSystemActorId());
+        if (!sameBody) return null;
+
+        List<Object> parts = new ArrayList<>();
+        if (!Objects.equals(a.getReactions(), b.getReactions())) parts.add(PAYLOAD_REACTIONS);
+        if (!Objects.equals(a.getReadBy(), b.getReadBy())) parts.add(PAYLOAD_READ_STATUS);
+        return parts;
+    }
+
     static class MessageViewHolder extends RecyclerView.ViewHolder {
 
         TextView textMessage, textTime;
+        // Metrics textMessage's text must be precomputed with
+        PrecomputedTextCompat.Params textParams;
 
         // Only exists in item_chat_message_other
         TextView textSenderName;
@@ -558,92 +696,100 @@ public class ChatMessageAdapter extends RecyclerView.Adapter<ChatMessageAdapter.
         }
     }
     
-    // Helper method to display reactions
-    private void displayReactions(MessageViewHolder holder, ChatMessage msg) {
+    // Helper method to display reactions (chip views are reused across binds)
+    private void displayReactions(MessageViewHolder holder, ChatMessage msg, MessageRenderer.Rendered rendered) {
         if (holder.reactionsContainer == null) {
             return;
         }
-        
-        Map<String, List<String>> reactions = msg.getReactions();
-        if (reactions == null || reactions.isEmpty()) {
+
+        List<MessageRenderer.Reaction> reactions = rendered != null
+                ? rendered.reactions
+                : MessageRenderer.summarizeReactions(msg.getReactions());
+        if (reactions.isEmpty()) {
             holder.reactionsContainer.setVisibility(View.GONE);
             return;
         }
-        
-        // Remove all existing views
-        holder.reactionsContainer.removeAllViews();
-        
+
         // Display each reaction (emoji + count)
-        for (Map.Entry<String, List<String>> entry : reactions.entrySet()) {
-            String emoji = entry.getKey();
-            List<String> userIds = entry.getValue();
-            
-            if (userIds == null || userIds.isEmpty()) {
-                continue;
+        LinearLayout container = holder.reactionsContainer;
+        for (int i = 0; i < reactions.size(); i++) {
+            LinearLayout chip;
+            if (i < container.getChildCount()) {
+                chip = (LinearLayout) container.getChildAt(i);
+                chip.setVisibility(View.VISIBLE);
+            } else {
+                chip = createReactionChip(container);
+                container.addView(chip);
             }
-            
-            // Create horizontal layout for this reaction (emoji + count)
-            LinearLayout reactionLayout = new LinearLayout(holder.itemView.getContext());
-            reactionLayout.setOrientation(LinearLayout.HORIZONTAL);
-            reactionLayout.setGravity(android.view.Gravity.CENTER_VERTICAL);
-            
-            // Add padding and margin
-            int padding = (int) (4 * holder.itemView.getContext().getResources().getDisplayMetrics().density);
-            reactionLayout.setPadding(padding, padding / 2, padding, padding / 2);
-            
-            int margin = (int) (2 * holder.itemView.getContext().getResources().getDisplayMetrics().density);
-            LinearLayout.LayoutParams layoutParams = new LinearLayout.LayoutParams(
-                LinearLayout.LayoutParams.WRAP_CONTENT,
-                LinearLayout.LayoutParams.WRAP_CONTENT
-            );
-            layoutParams.setMargins(0, 0, margin, 0);
-            reactionLayout.setLayoutParams(layoutParams);
-            
-            // Background for reaction chip
-            int cornerRadius = (int) (12 * holder.itemView.getContext().getResources().getDisplayMetrics().density);
-            android.graphics.drawable.GradientDrawable bg = new android.graphics.drawable.GradientDrawable();
-            bg.setShape(android.graphics.drawable.GradientDrawable.RECTANGLE);
-            bg.setCornerRadius(cornerRadius);
-            bg.setColor(0xFFE8E8E8); // Light gray background
-            reactionLayout.setBackground(bg);
-            
-            // Emoji TextView
-            TextView emojiView = new TextView(holder.itemView.getContext());
-            emojiView.setText(emoji);
-            emojiView.setTextSize(14);
-            emojiView.setPadding(padding / 2, 0, padding / 4, 0);
-            reactionLayout.addView(emojiView);
-            
-            // Count TextView
-            TextView countView = new TextView(holder.itemView.getContext());
-            countView.setText(String.valueOf(userIds.size()));
-            countView.setTextSize(12);
-            countView.setTextColor(0xFF666666);
-            countView.setPadding(0, 0, padding / 2, 0);
-            reactionLayout.addView(countView);
-            
-            // Add to container
-            holder.reactionsContainer.addView(reactionLayout);
+            MessageRenderer.Reaction reaction = reactions.get(i);
+            ((TextView) chip.getChildAt(0)).setText(reaction.emoji);
+            ((TextView) chip.getChildAt(1)).setText(reaction.count);
         }
-        
+        for (int i = reactions.size(); i < container.getChildCount(); i++) {
+            container.getChildAt(i).setVisibility(View.GONE);
+        }
+
         // Set click listener
         if (reactionsClickListener != null) {
-            holder.reactionsContainer.setOnClickListener(v -> {
-                reactionsClickListener.onReactionsClick(msg);
+            container.setOnClickListener(v -> {
+                ChatMessage current = messageAt(holder);
+                if (current != null) reactionsClickListener.onReactionsClick(current);
             });
         }
-        
-        holder.reactionsContainer.setVisibility(View.VISIBLE);
+
+        container.setVisibility(View.VISIBLE);
     }
-    
-    // Helper method to get sender name from cache
-    public String getSenderName(String userId) {
-        return nameCache.get(userId);
+
+    // Horizontal layout for one reaction: emoji + count
+    private static LinearLayout createReactionChip(LinearLayout container) {
+        android.content.Context context = container.getContext();
+        float density = context.getResources().getDisplayMetrics().density;
+
+        LinearLayout reactionLayout = new LinearLayout(context);
+        reactionLayout.setOrientation(LinearLayout.HORIZONTAL);
+        reactionLayout.setGravity(android.view.Gravity.CENTER_VERTICAL);
+
+        // Add padding and margin
+        int padding = (int) (4 * density);
+        reactionLayout.setPadding(padding, padding / 2, padding, padding / 2);
+
+        int margin = (int) (2 * density);
+        LinearLayout.LayoutParams layoutParams = new LinearLayout.LayoutParams(
+            LinearLayout.LayoutParams.WRAP_CONTENT,
+            LinearLayout.LayoutParams.WRAP_CONTENT
+        );
+        layoutParams.setMargins(0, 0, margin, 0);
+        reactionLayout.setLayoutParams(layoutParams);
+
+        // Background for reaction chip
+        int cornerRadius = (int) (12 * density);
+        android.graphics.drawable.GradientDrawable bg = new android.graphics.drawable.GradientDrawable();
+        bg.setShape(android.graphics.drawable.GradientDrawable.RECTANGLE);
+        bg.setCornerRadius(cornerRadius);
+        bg.setColor(0xFFE8E8E8); // Light gray background
+        reactionLayout.setBackground(bg);
+
+        // Emoji TextView
+        TextView emojiView = new TextView(context);
+        emojiView.setTextSize(14);
+        emojiView.setPadding(padding / 2, 0, padding / 4, 0);
+        reactionLayout.addView(emojiView);
+
+        // Count TextView
+        TextView countView = new TextView(context);
+        countView.setTextSize(12);
+        countView.setTextColor(0xFF666666);
+        countView.setPadding(0, 0, padding / 2, 0);
+        reactionLayout.addView(countView);
+
+        return reactionLayout;
     }
-    
-    // Helper method to get name cache (for ReactionsDetailAdapter)
-    public Map<String, String> getNameCache() {
-        return nameCache;
+
+    // Helper method to get sender name from cache (uid if the user has no name, null if not loaded yet)
+    public String getSenderName(String userId) {
+        String name = userDirectory.peekName(userId);
+        if (name == null) return null;
+        return name.isEmpty() ? userId : name;
     }
     
     // Helper method to get current list (for scrolling to messages)
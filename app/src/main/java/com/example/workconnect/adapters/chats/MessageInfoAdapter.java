@@ -10,10 +10,9 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.workconnect.R;
 import com.example.workconnect.ui.chat.ChatActivity;
+import com.example.workconnect.utils.DateHelper;
 
-import java.text.SimpleDateFormat;
 import java.util.List;
-import java.util.Locale;
 
 public class MessageInfoAdapter extends RecyclerView.Adapter<MessageInfoAdapter.ParticipantViewHolder> {
     
@@ -55,8 +54,7 @@ public class MessageInfoAdapter extends RecyclerView.Adapter<MessageInfoAdapter.
         
         // Show read time if available
         if (status.readAt != null) {
-            SimpleDateFormat sdf = new SimpleDateFormat("HH:mm", Locale.getDefault());
-            holder.textReadTime.setText(sdf.format(status.readAt));
+            holder.textReadTime.setText(DateHelper.formatTime(status.readAt));
             holder.textReadTime.setVisibility(View.VISIBLE);
         } else {
             holder.textReadTime.setVisibility(View.GONE);
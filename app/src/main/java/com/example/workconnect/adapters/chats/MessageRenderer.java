@@ -0,0 +1,247 @@
+package com.example.workconnect.adapters.chats;
+
+import android.graphics.Bitmap;
+import android.util.Log;
+
+import androidx.core.text.PrecomputedTextCompat;
+
+import com.example.workconnect.models.ChatItem;
+import com.example.workconnect.models.ChatMessage;
+import com.example.workconnect.utils.BlurHash;
+import com.example.workconnect.utils.ImageSizing;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Builds what {@link ChatMessageAdapter} displays for each message, off the main thread:
+ * - message text with its glyph measurement done ({@link PrecomputedTextCompat})
+ * - system message sentences ("Dana added Noam to the group")
+ * - reaction chips (emoji + count)
+ * - image placeholders (BlurHash decoded to a tiny bitmap)
+ *
+ * Renders are reused across submissions while the message is unchanged, so a new list
+ * only pays for the messages that are new or edited.
+ */
+class MessageRenderer {
+
+    private static final String TAG = "MessageRenderer";
+
+    // Long edge of decoded placeholders (scaled up by the bubble, they are blurry anyway)
+    private static final int PLACEHOLDER_EDGE = 24;
+
+    static final int VIEW_TYPE_ME = 0;
+    static final int VIEW_TYPE_OTHER = 1;
+    static final int VIEW_TYPE_SYSTEM = 2;
+
+    /**
+     * One reaction chip
+     */
+    static class Reaction {
+        final String emoji;
+        final String count;
+
+        Reaction(String emoji, int count) {
+            this.emoji = emoji;
+            this.count = String.valueOf(count);
+        }
+    }
+
+    /**
+     * Ready-to-bind content of one message
+     */
+    static class Rendered {
+        // What the render was built from (reuse check)
+        final long version;
+        final String sourceText;
+        final Map<String, List<String>> sourceReactions;
+        final PrecomputedTextCompat.Params params;
+
+        // Bubble text (precomputed when params were known) or system sentence
+        final CharSequence text;
+        // False if a system message was built with "Someone" for a name not loaded yet
+        final boolean namesResolved;
+        final List<Reaction> reactions;
+        // Drawn while an image message's thumbnail loads, null if there is none
+        final Bitmap placeholder;
+
+        Rendered(ChatMessage msg, PrecomputedTextCompat.Params params, CharSequence text,
+                 boolean namesResolved, List<Reaction> reactions, Bitmap placeholder) {
+            this.version = msg.getVersion();
+            this.sourceText = msg.getText();
+            this.sourceReactions = msg.getReactions();
+            this.params = params;
+            this.text = text;
+            this.namesResolved = namesResolved;
+            this.reactions = reactions;
+            this.placeholder = placeholder;
+        }
+
+        boolean isUpToDate(ChatMessage msg, PrecomputedTextCompat.Params current) {
+            return namesResolved
+                    && version == msg.getVersion()
+                    && Objects.equals(sourceText, msg.getText())
+                    && Objects.equals(sourceReactions, msg.getReactions())
+                    && Objects.equals(params, current);
+        }
+    }
+
+    private MessageRenderer() {
+    }
+
+    /**
+     * Render every message of a list (runs in the background)
+     * @param previous Renders of the last submission, reused while still up to date
+     * @param names uid -> display name for the users known when the list was submitted
+     * @param paramsByViewType Text metrics of the "me" and "other" bubbles (entries may be null)
+     * @return message id -> render
+     */
+    static Map<String, Rendered> renderAll(List<ChatItem> items, String currentUserId,
+                                           Map<String, Rendered> previous, Map<String, String> names,
+                                           PrecomputedTextCompat.Params[] paramsByViewType) {
+        Map<String, Rendered> out = new HashMap<>();
+        for (ChatItem item : items) {
+            if (!item.isMessage()) continue;
+            ChatMessage msg = item.getMessage();
+            if (msg == null || msg.getId() == null) continue;
+
+            int viewType = viewTypeOf(msg, currentUserId);
+            PrecomputedTextCompat.Params params = viewType == VIEW_TYPE_SYSTEM ? null : paramsByViewType[viewType];
+
+            Rendered old = previous.get(msg.getId());
+            out.put(msg.getId(), old != null && old.isUpToDate(msg, params)
+                    ? old
+                    : render(msg, viewType, params, names));
+        }
+        return out;
+    }
+
+    static int viewTypeOf(ChatMessage msg, String currentUserId) {
+        if (msg.isSystemMessage()) return VIEW_TYPE_SYSTEM;
+        return msg.getSenderId() != null && msg.getSenderId().equals(currentUserId) ? VIEW_TYPE_ME : VIEW_TYPE_OTHER;
+    }
+
+    /**
+     * Users whose names the system messages of a list need
+     */
+    static List<String> systemMessageUserIds(List<ChatItem> items) {
+        List<String> uids = new ArrayList<>();
+        for (ChatItem item : items) {
+            if (!item.isMessage() || !item.getMessage().isSystemMessage()) continue;
+            ChatMessage msg = item.getMessage();
+            if (msg.getSystemUserId() != null) uids.add(msg.getSystemUserId());
+            if (msg.getSystemActorId() != null && !msg.getSystemActorId().isEmpty()) uids.add(msg.getSystemActorId());
+        }
+        return uids;
+    }
+
+    private static Rendered render(ChatMessage msg, int viewType, PrecomputedTextCompat.Params params,
+                                   Map<String, String> names) {
+        if (viewType == VIEW_TYPE_SYSTEM) {
+            boolean[] resolved = {true};
+            String text = generateSystemMessageText(msg, names, resolved);
+            return new Rendered(msg, null, text, resolved[0], Collections.emptyList(), null);
+        }
+
+        CharSequence text = msg.getText() != null ? msg.getText() : "";
+        if (params != null && text.length() > 0) {
+            try {
+                text = PrecomputedTextCompat.create(text, params);
+            } catch (RuntimeException e) {
+                // Fall back to measuring at bind time
+                Log.w(TAG, "Could not precompute text of " + msg.getId(), e);
+            }
+        }
+        return new Rendered(msg, params, text, true, summarizeReactions(msg.getReactions()),
+                decodePlaceholder(msg));
+    }
+
+    private static Bitmap decodePlaceholder(ChatMessage msg) {
+        if (!msg.isImage() || !BlurHash.isValid(msg.getPlaceholder())) return null;
+        // Same aspect ratio as the bubble, so the placeholder is cropped like the image
+        int[] size = msg.getImageWidth() > 0 && msg.getImageHeight() > 0
+                ? ImageSizing.fit(msg.getImageWidth(), msg.getImageHeight(), PLACEHOLDER_EDGE)
+                : new int[]{PLACEHOLDER_EDGE, PLACEHOLDER_EDGE};
+        int[] pixels = BlurHash.decode(msg.getPlaceholder(), size[0], size[1], 1.0);
+        return Bitmap.createBitmap(pixels, size[0], size[1], Bitmap.Config.ARGB_8888);
+    }
+
+    static List<Reaction> summarizeReactions(Map<String, List<String>> reactions) {
+        if (reactions == null || reactions.isEmpty()) return Collections.emptyList();
+        List<Reaction> out = new ArrayList<>(reactions.size());
+        for (Map.Entry<String, List<String>> entry : reactions.entrySet()) {
+            List<String> userIds = entry.getValue();
+            if (userIds == null || userIds.isEmpty()) continue;
+            out.add(new Reaction(entry.getKey(), userIds.size()));
+        }
+        return out;
+    }
+
+    // Name from the snapshot (uid if the user has no name), null if not loaded yet
+    private static String nameOf(String userId, Map<String, String> names) {
+        String name = names.get(userId);
+        if (name == null) return null;
+        return name.isEmpty() ? userId : name;
+    }
+
+    static String generateSystemMessageText(ChatMessage msg, Map<String, String> names, boolean[] resolved) {
+        if (msg.getSystemType() == null || msg.getSystemUserId() == null) {
+            return msg.getText() != null ? msg.getText() : "System message";
+        }
+
+        String userName = nameOf(msg.getSystemUserId(), names);
+
+        // If name not loaded yet, use a placeholder (rendered again once it arrives)
+        if (userName == null) {
+            resolved[0] = false;
+            userName = "Someone";
+        }
+
+        // For actions with an actor (who performed the action)
+        String actorName = null;
+        if (msg.getSystemActorId() != null && !msg.getSystemActorId().isEmpty()) {
+            actorName = nameOf(msg.getSystemActorId(), names);
+            if (actorName == null) {
+                resolved[0] = false;
+                actorName = "Someone";
+            }
+        }
+
+        switch (msg.getSystemType()) {
+            case USER_JOINED:
+                return userName + " joined the group";
+            case USER_LEFT:
+                return userName + " left the group";
+            case GROUP_CREATED:
+                // Use the text from the message (e.g., "Raphael created this group")
+                if (msg.getText() != null && !msg.getText().isEmpty()) {
+                    return msg.getText();
+                }
+                return userName + " created this group";
+            case USER_ADDED:
+                if (actorName != null) {
+                    return actorName + " added " + userName + " to the group";
+                }
+                return userName + " was added to the group";
+            case USER_REMOVED:
+                if (actorName != null) {
+                    return actorName + " removed " + userName + " from the group";
+                }
+                return userName + " was removed from the group";
+            case GROUP_OPENED:
+                return userName + " opened this group";
+            case CALL_ENDED:
+            case CALL_MISSED:
+                // For call messages, use the text directly (contains duration or "Missed call")
+                return msg.getText() != null ? msg.getText() :
+                    (msg.getSystemType() == ChatMessage.SystemMessageType.CALL_MISSED ?
+                        "Missed call" : "Call ended");
+            default:
+                return msg.getText() != null ? msg.getText() : "System message";
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.workconnect.adapters.chats;
+
+import com.example.workconnect.models.ChatItem;
+import com.example.workconnect.models.ChatMessage;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Which rows of a message list depend on what, so a change can rebind only those rows:
+ * - user names: "other" bubbles by sender, system messages by the users they mention
+ * - read receipts: the current user's bubbles
+ *
+ * Built once per displayed list. Positions are returned as (start, count) ranges for
+ * notifyItemRangeChanged().
+ */
+public class MessageRowIndex {
+
+    private final Map<String, List<Integer>> rowsByUser;
+    private final List<Integer> myRows;
+    private final List<Integer> otherRows;
+
+    private MessageRowIndex(Map<String, List<Integer>> rowsByUser, List<Integer> myRows, List<Integer> otherRows) {
+        this.rowsByUser = rowsByUser;
+        this.myRows = myRows;
+        this.otherRows = otherRows;
+    }
+
+    public static MessageRowIndex build(List<ChatItem> items, String currentUserId) {
+        Map<String, List<Integer>> rowsByUser = new HashMap<>();
+        List<Integer> myRows = new ArrayList<>();
+        List<Integer> otherRows = new ArrayList<>();
+
+        for (int i = 0; i < items.size(); i++) {
+            ChatItem item = items.get(i);
+            if (!item.isMessage() || item.getMessage() == null) continue;
+            ChatMessage msg = item.getMessage();
+
+            if (msg.isSystemMessage()) {
+                addRow(rowsByUser, msg.getSystemUserId(), i);
+                if (!equalsNullable(msg.getSystemActorId(), msg.getSystemUserId())) {
+                    addRow(rowsByUser, msg.getSystemActorId(), i);
+                }
+            } else if (currentUserId != null && currentUserId.equals(msg.getSenderId())) {
+                myRows.add(i);
+            } else {
+                otherRows.add(i);
+                addRow(rowsByUser, msg.getSenderId(), i);
+            }
+        }
+        return new MessageRowIndex(rowsByUser, myRows, otherRows);
+    }
+
+    /**
+     * Rows showing the name of any of these users
+     */
+    public List<int[]> rowsShowing(Collection<String> uids) {
+        List<Integer> rows = new ArrayList<>();
+        for (String uid : uids) {
+            List<Integer> userRows = rowsByUser.get(uid);
+            if (userRows != null) rows.addAll(userRows);
+        }
+        return toRanges(rows);
+    }
+
+    /**
+     * Current user's bubbles (read receipts)
+     */
+    public List<int[]> myRows() {
+        return toRanges(myRows);
+    }
+
+    /**
+     * Other members' bubbles (sender names in groups)
+     */
+    public List<int[]> otherRows() {
+        return toRanges(otherRows);
+    }
+
+    /**
+     * Merge positions into sorted {start, count} ranges of consecutive rows
+     */
+    static List<int[]> toRanges(List<Integer> positions) {
+        List<int[]> ranges = new ArrayList<>();
+        if (positions.isEmpty()) return ranges;
+
+        List<Integer> sorted = new ArrayList<>(positions);
+        sorted.sort(null);
+        int start = sorted.get(0);
+        int end = start;
+        for (int i = 1; i < sorted.size(); i++) {
+            int p = sorted.get(i);
+            if (p <= end + 1) {
+                end = Math.max(end, p);
+            } else {
+                ranges.add(new int[]{start, end - start + 1});
+                start = p;
+                end = p;
+            }
+        }
+        ranges.add(new int[]{start, end - start + 1});
+        return ranges;
+    }
+
+    private static void addRow(Map<String, List<Integer>> rowsByUser, String uid, int row) {
+        if (uid == null || uid.trim().isEmpty()) return;
+        List<Integer> rows = rowsByUser.get(uid);
+        if (rows == null) {
+            rows = new ArrayList<>();
+            rowsByUser.put(uid, rows);
+        }
+        rows.add(row);
+    }
+
+    private static boolean equalsNullable(String a, String b) {
+        return a == null ? b == null : a.equals(b);
+    }
+}
@@ -9,12 +9,11 @@ import androidx.annotation.NonNull;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.workconnect.R;
+import com.example.workconnect.repository.authAndUsers.UserDirectory;
 import com.example.workconnect.ui.chat.ChatActivity;
-import com.google.firebase.firestore.FirebaseFirestore;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 
 public class ReactionsDetailAdapter extends RecyclerView.Adapter<ReactionsDetailAdapter.ReactionDetailViewHolder> {
     
@@ -22,15 +21,11 @@ public class ReactionsDetailAdapter extends RecyclerView.Adapter<ReactionsDetail
     private ChatActivity activity;
     private ChatMessageAdapter messageAdapter; // To access name cache
     
-    // Map to cache user names
-    private Map<String, String> nameCache;
-    
-    private FirebaseFirestore db = FirebaseFirestore.getInstance();
+    private final UserDirectory userDirectory = UserDirectory.getInstance();
     
     public ReactionsDetailAdapter(List<ChatActivity.ReactionDetail> reactions, ChatActivity activity, ChatMessageAdapter messageAdapter) {
         this.activity = activity;
         this.messageAdapter = messageAdapter;
-        this.nameCache = messageAdapter != null ? messageAdapter.getNameCache() : new java.util.HashMap<>();
         
         // Convert to display items
         this.reactionDetails = new ArrayList<>();
@@ -69,7 +64,7 @@ public class ReactionsDetailAdapter extends RecyclerView.Adapter<ReactionsDetail
         
         // First, check cache
         for (String userId : userIds) {
-            String cachedName = nameCache.get(userId);
+            String cachedName = messageAdapter != null ? messageAdapter.getSenderName(userId) : null;
             if (cachedName != null) {
                 names.add(cachedName);
             } else {
@@ -79,44 +74,17 @@ public class ReactionsDetailAdapter extends RecyclerView.Adapter<ReactionsDetail
         
         // Display what we have so far
         updateUserNamesDisplay(holder, names, toLoad.size(), userIds);
+        if (toLoad.isEmpty()) return;
         
-        // Load remaining names
-        for (String userId : toLoad) {
-            db.collection("users").document(userId)
-                    .get()
-                    .addOnSuccessListener(doc -> {
-                        String first = doc.getString("firstName");
-                        String last = doc.getString("lastName");
-                        String full = ((first != null ? first : "") + " " + (last != null ? last : "")).trim();
-                        if (full.isEmpty()) full = doc.getString("fullName");
-                        if (full == null || full.trim().isEmpty()) full = doc.getString("name");
-                        if (full == null || full.trim().isEmpty()) full = userId;
-                        
-                        nameCache.put(userId, full);
-                        
-                        // Rebuild list and update display
-                        List<String> allNames = new ArrayList<>();
-                        for (String uid : userIds) {
-                            String name = nameCache.get(uid);
-                            if (name != null) {
-                                allNames.add(name);
-                            }
-                        }
-                        updateUserNamesDisplay(holder, allNames, userIds.size() - allNames.size(), userIds);
-                    })
-                    .addOnFailureListener(e -> {
-                        // On error, just use user ID
-                        nameCache.put(userId, userId);
-                        List<String> allNames = new ArrayList<>();
-                        for (String uid : userIds) {
-                            String name = nameCache.get(uid);
-                            if (name != null) {
-                                allNames.add(name);
-                            }
-                        }
-                        updateUserNamesDisplay(holder, allNames, userIds.size() - allNames.size(), userIds);
-                    });
-        }
+        // Load remaining names in one batch, then rebuild list and update display
+        userDirectory.loadUsers(toLoad, loaded -> {
+            List<String> allNames = new ArrayList<>();
+            for (String uid : userIds) {
+                String name = userDirectory.peekName(uid);
+                allNames.add(name == null || name.isEmpty() ? uid : name);
+            }
+            updateUserNamesDisplay(holder, allNames, 0, userIds);
+        });
     }
     
     private void updateUserNamesDisplay(ReactionDetailViewHolder holder, List<String> names, int remaining, List<String> userIds) {
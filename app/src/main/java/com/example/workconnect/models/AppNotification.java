@@ -61,6 +61,8 @@ public class AppNotification {
         return read;
     }
 
+    public void setRead(boolean read) { this.read = read; }
+
     public String getType() {
         return type;
     }
@@ -20,6 +20,8 @@ public class ChatConversation {
     private String createdBy;             // uid
     private String lastMessageSenderId;
     private Map<String, Long> unreadCounts;
+    // Read cursors: uid -> sentAt of the newest message that user has read
+    private Map<String, Date> lastReadAt;
     public ChatConversation() {
         // Required for Firebase deserialization
     }
@@ -51,6 +53,9 @@ public class ChatConversation {
     public Map<String, Long> getUnreadCounts() { return unreadCounts; }
     public void setUnreadCounts(Map<String, Long> unreadCounts) { this.unreadCounts = unreadCounts; }
 
+    public Map<String, Date> getLastReadAt() { return lastReadAt; }
+    public void setLastReadAt(Map<String, Date> lastReadAt) { this.lastReadAt = lastReadAt; }
+
     // helper
     public long getUnreadCountFor(String uid) {
         if (unreadCounts == null || uid == null) return 0;
@@ -1,5 +1,7 @@
 package com.example.workconnect.models;
 
+import com.example.workconnect.utils.DateHelper;
+
 import java.util.Date;
 
 /**
@@ -7,45 +9,105 @@ import java.util.Date;
  * This allows us to insert date separators between messages like WhatsApp
  */
 public class ChatItem {
-    
+
     public enum ItemType {
         MESSAGE,
         DATE_SEPARATOR
     }
-    
+
+    // Day key of an item without a date
+    public static final long NO_DAY = Long.MIN_VALUE;
+    private static final long DAY_NOT_COMPUTED = Long.MAX_VALUE;
+
     private ItemType type;
     private ChatMessage message;
     private Date separatorDate;
-    
+
+    // Local epoch day, computed once (see DateHelper.toEpochDay)
+    private long dayKey = DAY_NOT_COMPUTED;
+
+    // Message state when this item was created: the message object may be mutated in place
+    // (send status), so diffing compares these instead of the live message
+    private long renderedVersion;
+    private int renderedLocalRevision;
+    private ChatMessage.MessageStatus renderedStatus;
+
     // Constructor for a message item
     public ChatItem(ChatMessage message) {
         this.type = ItemType.MESSAGE;
         this.message = message;
+        if (message != null) {
+            this.renderedVersion = message.getVersion();
+            this.renderedLocalRevision = message.getLocalRevision();
+            this.renderedStatus = message.getStatus();
+        }
     }
-    
+
     // Constructor for a date separator item
     public ChatItem(Date date) {
         this.type = ItemType.DATE_SEPARATOR;
         this.separatorDate = date;
     }
-    
+
     public ItemType getType() {
         return type;
     }
-    
+
     public ChatMessage getMessage() {
         return message;
     }
-    
+
     public Date getSeparatorDate() {
         return separatorDate;
     }
-    
+
+    /**
+     * Local calendar day of the separator date or message sentAt, {@link #NO_DAY} if unknown
+     */
+    public long getDayKey() {
+        if (dayKey == DAY_NOT_COMPUTED) {
+            Date date = isDateSeparator() ? separatorDate : (message != null ? message.getSentAt() : null);
+            dayKey = date != null ? DateHelper.toEpochDay(date.getTime()) : NO_DAY;
+        }
+        return dayKey;
+    }
+
     public boolean isMessage() {
         return type == ItemType.MESSAGE;
     }
-    
+
     public boolean isDateSeparator() {
         return type == ItemType.DATE_SEPARATOR;
     }
+
+    /**
+     * Same row: same separator day, or same message id
+     */
+    public boolean isSameItem(ChatItem other) {
+        if (other == null || type != other.type) return false;
+        if (isDateSeparator()) {
+            return getDayKey() == other.getDayKey();
+        }
+        return message != null && other.message != null
+                && message.getId() != null && message.getId().equals(other.message.getId());
+    }
+
+    /**
+     * Same send status when the items were created
+     */
+    public boolean hasSameStatus(ChatItem other) {
+        return other != null && renderedStatus == other.renderedStatus;
+    }
+
+    /**
+     * Same rendering: for messages, same version, local revision (optimistic copies) and send
+     * status when the items were created
+     */
+    public boolean hasSameContent(ChatItem other) {
+        if (!isSameItem(other)) return false;
+        if (isDateSeparator()) return true;
+        return renderedVersion == other.renderedVersion
+                && renderedLocalRevision == other.renderedLocalRevision
+                && renderedStatus == other.renderedStatus;
+    }
 }
@@ -0,0 +1,275 @@
+package com.example.workconnect.models;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Messages of an open chat (ordered by sentAt, oldest first) together with the
+ * RecyclerView rows derived from them: the messages plus a date separator before
+ * the first message of each day.
+ *
+ * Rows are maintained incrementally: appending, prepending an older page, replacing
+ * or removing a message only touches the separators next to it, and day comparisons
+ * use each item's cached epoch-day key. Unchanged messages keep their ChatItem instance,
+ * so diffing the rows is cheap.
+ */
+public class ChatItemList {
+
+    private final List<ChatMessage> messages = new ArrayList<>();
+    private final List<ChatItem> items = new ArrayList<>();
+    // id -> message, so appending a new message doesn't scan the whole list
+    private final Map<String, ChatMessage> byId = new HashMap<>();
+
+    // ===== Messages =====
+
+    public int size() {
+        return messages.size();
+    }
+
+    public boolean isEmpty() {
+        return messages.isEmpty();
+    }
+
+    public ChatMessage get(int index) {
+        return messages.get(index);
+    }
+
+    /**
+     * Read-only view of the messages (oldest first)
+     */
+    public List<ChatMessage> getMessages() {
+        return Collections.unmodifiableList(messages);
+    }
+
+    public int indexOf(String messageId) {
+        ChatMessage m = messageId != null ? byId.get(messageId) : null;
+        if (m == null) return -1;
+        // Recent messages change most often - search from the end
+        for (int i = messages.size() - 1; i >= 0; i--) {
+            if (messages.get(i) == m) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Rows for the adapter (a new list each call, as AsyncListDiffer requires)
+     */
+    public List<ChatItem> snapshot() {
+        return new ArrayList<>(items);
+    }
+
+    // ===== Updates =====
+
+    /**
+     * Insert or replace a message, keeping the list ordered by sentAt.
+     * @return true if the message was not in the list before
+     */
+    public boolean upsert(ChatMessage m) {
+        int existing = indexOf(m.getId());
+        if (existing >= 0) {
+            ChatMessage old = messages.get(existing);
+            if (sameTime(old.getSentAt(), m.getSentAt())) {
+                items.set(itemPosition(existing), new ChatItem(m));
+                messages.set(existing, m);
+                index(m);
+                return false;
+            }
+            // sentAt changed (e.g. server timestamp resolved): move it
+            removeAt(existing);
+            insert(m);
+            return false;
+        }
+
+        insert(m);
+        return true;
+    }
+
+    /**
+     * Re-create the row of a message that was mutated in place (e.g. its send status)
+     */
+    public void refresh(ChatMessage m) {
+        int index = indexOf(m.getId());
+        if (index < 0 || messages.get(index) != m) {
+            index = messages.indexOf(m);
+        }
+        if (index >= 0) {
+            items.set(itemPosition(index), new ChatItem(m));
+        }
+    }
+
+    public boolean remove(String messageId) {
+        int index = indexOf(messageId);
+        if (index < 0) return false;
+        removeAt(index);
+        return true;
+    }
+
+    /**
+     * Add a page of older messages in front of the loaded ones
+     * @param older Messages ordered oldest first, all sent before the current first message
+     */
+    public void prepend(List<ChatMessage> older) {
+        if (older == null || older.isEmpty()) return;
+
+        List<ChatItem> rows = new ArrayList<>(older.size() * 2);
+        ChatItem previous = null;
+        for (ChatMessage m : older) {
+            ChatItem row = new ChatItem(m);
+            if (previous == null || needsSeparator(previous, row)) {
+                rows.add(new ChatItem(m.getSentAt()));
+            }
+            rows.add(row);
+            previous = row;
+        }
+
+        messages.addAll(0, older);
+        items.addAll(0, rows);
+        for (ChatMessage m : older) {
+            index(m);
+        }
+        // Only the boundary with the previously first message can change
+        if (messages.size() > older.size()) {
+            fixSeparatorBefore(older.size());
+        }
+    }
+
+    /**
+     * Drop every message sent before a given time
+     * @return true if something was removed
+     */
+    public boolean removeBefore(Date before) {
+        int count = 0;
+        while (count < messages.size()) {
+            Date sentAt = messages.get(count).getSentAt();
+            if (sentAt == null || !sentAt.before(before)) break;
+            count++;
+        }
+        if (count == 0) return false;
+
+        if (count == messages.size()) {
+            clear();
+            return true;
+        }
+        int firstKept = itemPosition(count);
+        for (int i = 0; i < count; i++) {
+            unindex(messages.get(i));
+        }
+        messages.subList(0, count).clear();
+        items.subList(0, firstKept).clear();
+        fixSeparatorBefore(0);
+        return true;
+    }
+
+    public void clear() {
+        messages.clear();
+        items.clear();
+        byId.clear();
+    }
+
+    // ===== Internals =====
+
+    private void insert(ChatMessage m) {
+        // New messages almost always belong at the end - scan backwards from there
+        int insertAt = messages.size();
+        Date sentAt = m.getSentAt();
+        if (sentAt != null) {
+            while (insertAt > 0) {
+                Date prev = messages.get(insertAt - 1).getSentAt();
+                if (prev == null || !prev.after(sentAt)) break;
+                insertAt--;
+            }
+        }
+
+        int row = insertAt > 0 ? itemPosition(insertAt - 1) + 1 : 0;
+        messages.add(insertAt, m);
+        items.add(row, new ChatItem(m));
+        index(m);
+
+        fixSeparatorBefore(insertAt);
+        if (insertAt + 1 < messages.size()) {
+            fixSeparatorBefore(insertAt + 1);
+        }
+    }
+
+    private void removeAt(int index) {
+        items.remove(itemPosition(index));
+        unindex(messages.remove(index));
+
+        if (index < messages.size()) {
+            fixSeparatorBefore(index);
+        } else {
+            // Removed the last message: drop separators left dangling at the end
+            while (!items.isEmpty() && items.get(items.size() - 1).isDateSeparator()) {
+                items.remove(items.size() - 1);
+            }
+        }
+    }
+
+    /**
+     * Make the rows between message index-1 and message index hold exactly the separator they need
+     */
+    private void fixSeparatorBefore(int index) {
+        int start = index > 0 ? itemPosition(index - 1) + 1 : 0;
+        int end = start;
+        while (end < items.size() && items.get(end).isDateSeparator()) {
+            end++;
+        }
+
+        ChatItem current = items.get(end);
+        boolean needed = index == 0 || needsSeparator(items.get(start - 1), current);
+
+        if (needed && end - start == 1 && items.get(start).getDayKey() == current.getDayKey()) {
+            return; // already correct
+        }
+        if (!needed && end == start) {
+            return;
+        }
+
+        items.subList(start, end).clear();
+        if (needed) {
+            items.add(start, new ChatItem(current.getMessage().getSentAt()));
+        }
+    }
+
+    // Same rule as ChatUtils.insertDateSeparators: a new day starts a section, unknown dates don't
+    private static boolean needsSeparator(ChatItem previous, ChatItem current) {
+        long prevDay = previous.getDayKey();
+        long day = current.getDayKey();
+        return prevDay != ChatItem.NO_DAY && day != ChatItem.NO_DAY && prevDay != day;
+    }
+
+    /**
+     * Row position of a message, scanning from whichever end of the list is closer
+     */
+    private int itemPosition(int messageIndex) {
+        ChatMessage m = messages.get(messageIndex);
+        if (messageIndex >= messages.size() / 2) {
+            for (int i = items.size() - 1; i >= 0; i--) {
+                if (items.get(i).getMessage() == m) return i;
+            }
+        } else {
+            for (int i = 0; i < items.size(); i++) {
+                if (items.get(i).getMessage() == m) return i;
+            }
+        }
+        throw new IllegalStateException("Message row not found");
+    }
+
+    private void index(ChatMessage m) {
+        if (m.getId() != null) byId.put(m.getId(), m);
+    }
+
+    private void unindex(ChatMessage m) {
+        if (m.getId() != null && byId.get(m.getId()) == m) byId.remove(m.getId());
+    }
+
+    private static boolean sameTime(Date a, Date b) {
+        return a == null ? b == null : a.equals(b);
+    }
+}
@@ -66,6 +66,20 @@ public class ChatMessage {
     private String fileType;            // MIME type (image/jpeg, application/pdf, etc.)
     private Long fileSize;              // File size in bytes
 
+    // Image attachments (see ChatImageUploader)
+    private String thumbnailUrl;        // Downscaled copy shown in the bubble (fileUrl is loaded when opened)
+    private int imageWidth;             // Size of the uploaded image in pixels (0 = unknown)
+    private int imageHeight;
+    private String placeholder;         // BlurHash of the image, drawn while the thumbnail loads
+
+    // Change detection: 1 on creation, incremented by every write to the message document
+    private long version;
+    // Server time of the last write to the message document (creation, reactions), drives delta sync
+    private Date updatedAt;
+    // Local only, never written: bumped by optimistic copies (e.g. a queued reaction) that change
+    // what is shown while the document, and so its version, stays the same
+    private int localRevision;
+
     public ChatMessage() {
         // Required for Firebase deserialization
     }
@@ -328,6 +342,62 @@ public class ChatMessage {
     public void setFileSize(Long fileSize) {
         this.fileSize = fileSize;
     }
+
+    public String getThumbnailUrl() {
+        return thumbnailUrl;
+    }
+
+    public void setThumbnailUrl(String thumbnailUrl) {
+        this.thumbnailUrl = thumbnailUrl;
+    }
+
+    public int getImageWidth() {
+        return imageWidth;
+    }
+
+    public void setImageWidth(int imageWidth) {
+        this.imageWidth = imageWidth;
+    }
+
+    public int getImageHeight() {
+        return imageHeight;
+    }
+
+    public void setImageHeight(int imageHeight) {
+        this.imageHeight = imageHeight;
+    }
+
+    public String getPlaceholder() {
+        return placeholder;
+    }
+
+    public void setPlaceholder(String placeholder) {
+        this.placeholder = placeholder;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    public Date getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Date updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    public int getLocalRevision() {
+        return localRevision;
+    }
+
+    public void setLocalRevision(int localRevision) {
+        this.localRevision = localRevision;
+    }
     
     // Helper to check if message has file/image
     public boolean hasFile() {
@@ -340,7 +410,20 @@ public class ChatMessage {
                (fileType != null && fileType.startsWith("image/"));
     }
 
-    // ===== Equals & HashCode for DiffUtil =====
+    /**
+     * Cheap content check for diffing: same document at the same version, same local send status
+     * and local revision. Replaces a deep {@link #equals} over text, reactions and readBy on every snapshot.
+     */
+    public boolean isSameRevision(ChatMessage other) {
+        if (other == null) return false;
+        if (this == other) return true;
+        return version == other.version
+                && localRevision == other.localRevision
+                && status == other.status
+                && id != null && id.equals(other.id);
+    }
+
+    // ===== Equals & HashCode =====
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -0,0 +1,32 @@
+package com.example.workconnect.models;
+
+import java.util.Date;
+
+/**
+ * One member's state in a conversation, stored in users/{uid}/inbox/{conversationId}.
+ * Kept out of the conversation document so a message only writes the small
+ * per-member documents instead of one large shared document.
+ */
+public class InboxEntry {
+
+    private String conversationId;  // Same as the document id
+    private String uid;             // Owner of the inbox (for cross-member reads of a conversation)
+    private long unreadCount;       // Messages received since the owner last read the conversation
+    private Date lastReadAt;        // sentAt of the newest message the owner has read
+
+    public InboxEntry() {
+        // Required for Firebase deserialization
+    }
+
+    public String getConversationId() { return conversationId; }
+    public void setConversationId(String conversationId) { this.conversationId = conversationId; }
+
+    public String getUid() { return uid; }
+    public void setUid(String uid) { this.uid = uid; }
+
+    public long getUnreadCount() { return unreadCount; }
+    public void setUnreadCount(long unreadCount) { this.unreadCount = unreadCount; }
+
+    public Date getLastReadAt() { return lastReadAt; }
+    public void setLastReadAt(Date lastReadAt) { this.lastReadAt = lastReadAt; }
+}
@@ -147,6 +147,19 @@ public class CallRepository {
                 .addOnFailureListener(e -> Log.e(TAG, "Failed to update audioEnabled", e));
     }
 
+    /**
+     * Acknowledge that a ringing call reached this participant's device
+     * (lets the caller measure how long signaling takes)
+     */
+    public void markRinging(String callId, String userId) {
+        if (callId == null || userId == null) return;
+
+        db.collection(COLLECTION_CALLS)
+                .document(callId)
+                .update("ringingAt." + userId, FieldValue.serverTimestamp())
+                .addOnFailureListener(e -> Log.e(TAG, "Failed to update ringingAt", e));
+    }
+
     /**
      * Listen to a specific call
      */
@@ -171,33 +184,6 @@ public class CallRepository {
                 });
     }
 
-    /**
-     * Listen to incoming calls for a user
-     */
-    public ListenerRegistration listenToIncomingCalls(String userId, CallListener listener) {
-        if (userId == null || listener == null) return null;
-
-        return db.collection(COLLECTION_CALLS)
-                .whereArrayContains("participants", userId)
-                .whereEqualTo("status", "ringing")
-                .addSnapshotListener((snapshot, e) -> {
-                    if (e != null) {
-                        Log.e(TAG, "Error listening to incoming calls", e);
-                        return;
-                    }
-
-                    if (snapshot != null && !snapshot.isEmpty()) {
-                        for (DocumentSnapshot doc : snapshot.getDocuments()) {
-                            Call call = doc.toObject(Call.class);
-                            if (call != null && !call.getCallerId().equals(userId)) {
-                                call.setCallId(doc.getId());
-                                listener.onCallChanged(call);
-                            }
-                        }
-                    }
-                });
-    }
-
     /**
      * Get a call by ID
      */
@@ -312,6 +298,8 @@ public class CallRepository {
                             messageData.put("status", "SENT");
                             messageData.put("messageType", "TEXT");
                             messageData.put("readBy", new ArrayList<String>());
+                            messageData.put("version", 1L);
+                            messageData.put("updatedAt", FieldValue.serverTimestamp());
 
                             db.collection("conversations")
                                     .document(conversationId)
@@ -0,0 +1,142 @@
+package com.example.workconnect.repository;
+
+import com.example.workconnect.models.Call;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Turns call document changes into incoming call dialogs for {@link CallSignalingHub}.
+ *
+ * - Updates that repeat a call's last status (media toggles, cache then server copies)
+ *   are ignored, so each state transition is handled once
+ * - A call the user has not answered or declined stays pending while it rings, and while
+ *   it is active (a group call answered by someone else can still be joined)
+ * - Only the foreground surface shows a dialog, one call at a time in ringing order: a
+ *   dialog stays until its call is answered, declined or over, then the next one shows.
+ *   Leaving a screen closes it and the next screen shows it again
+ *
+ * Pure logic (main thread only), kept apart from the Firestore listener so it can be unit tested.
+ */
+final class CallSignalRouter {
+
+    static final String STATUS_RINGING = "ringing";
+    static final String STATUS_ACTIVE = "active";
+
+    // Checked before showing a dialog: no incoming call dialog during a call
+    private final BooleanSupplier inCall;
+
+    private String userId;
+    // Calls waiting for this user's answer, oldest first
+    private final Map<String, Call> pending = new LinkedHashMap<>();
+    // Last status handled per call
+    private final Map<String, String> lastStatus = new HashMap<>();
+
+    private IncomingCallSurface surface;
+    private String presentedCallId;
+
+    CallSignalRouter(BooleanSupplier inCall) {
+        this.inCall = inCall;
+    }
+
+    /**
+     * Switch to another signed-in user (null when signed out): everything pending is dropped
+     */
+    void setUser(String userId) {
+        if (presentedCallId != null && surface != null) {
+            surface.dismissIncomingCall(presentedCallId);
+        }
+        presentedCallId = null;
+        pending.clear();
+        lastStatus.clear();
+        this.userId = userId;
+    }
+
+    /**
+     * A call document was added or changed while ringing or active
+     */
+    void onCallChanged(Call call) {
+        String callId = call.getCallId();
+        String status = call.getStatus();
+        if (callId == null || status == null || userId == null) return;
+        if (status.equals(lastStatus.put(callId, status))) return;
+
+        if (!STATUS_RINGING.equals(status) && !STATUS_ACTIVE.equals(status)) {
+            onCallRemoved(callId);
+            return;
+        }
+        // Calls this user started are shown by CallActivity
+        if (userId.equals(call.getCallerId())) return;
+
+        if (STATUS_RINGING.equals(status)) {
+            pending.put(callId, call);
+            presentNext();
+        } else if (pending.containsKey(callId)) {
+            pending.put(callId, call);
+        }
+    }
+
+    /**
+     * A call left the ringing/active set (ended, cancelled, missed or deleted)
+     */
+    void onCallRemoved(String callId) {
+        lastStatus.remove(callId);
+        if (pending.remove(callId) == null) return;
+        if (callId.equals(presentedCallId)) {
+            surface.dismissIncomingCall(callId);
+            presentedCallId = null;
+            presentNext();
+        }
+    }
+
+    /**
+     * The user accepted a call: no other dialog is shown while the call screen opens
+     */
+    void onAnswered(String callId) {
+        pending.remove(callId);
+        if (callId.equals(presentedCallId)) presentedCallId = null;
+    }
+
+    /**
+     * The user declined a call: the next pending call, if any, is shown
+     */
+    void onDeclined(String callId) {
+        pending.remove(callId);
+        if (callId.equals(presentedCallId)) {
+            presentedCallId = null;
+            presentNext();
+        }
+    }
+
+    /**
+     * A screen came to the foreground
+     */
+    void attach(IncomingCallSurface next) {
+        if (surface == next) return;
+        if (surface != null) detach(surface);
+        surface = next;
+        presentNext();
+    }
+
+    /**
+     * A screen left the foreground (ignored if another one already replaced it)
+     */
+    void detach(IncomingCallSurface previous) {
+        if (surface != previous) return;
+        if (presentedCallId != null) {
+            surface.dismissIncomingCall(presentedCallId);
+            presentedCallId = null;
+        }
+        surface = null;
+    }
+
+    private void presentNext() {
+        if (surface == null || presentedCallId != null || pending.isEmpty() || inCall.getAsBoolean()) return;
+
+        Call next = pending.values().iterator().next();
+        presentedCallId = next.getCallId();
+        surface.showIncomingCall(next);
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.workconnect.repository;
+
+import android.util.Log;
+
+import com.example.workconnect.models.Call;
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.auth.FirebaseUser;
+import com.google.firebase.firestore.DocumentChange;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.ListenerRegistration;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Process-wide source of incoming calls.
+ *
+ * Holds a single listener for the signed-in user, on calls that are ringing or active
+ * (filtered by Firestore, see the composite index in firestore.indexes.json), from the
+ * first sign-in to sign-out. Screens only attach while in the foreground
+ * ({@link IncomingCallSurface}); changing screens never re-registers the listener.
+ * Ended, cancelled and missed calls leave the result set, which closes their dialog.
+ *
+ * Main thread only.
+ */
+public final class CallSignalingHub {
+
+    private static final String TAG = "CallSignalingHub";
+
+    private static final List<String> LIVE_STATUSES =
+            Arrays.asList(CallSignalRouter.STATUS_RINGING, CallSignalRouter.STATUS_ACTIVE);
+
+    private static CallSignalingHub instance;
+
+    private final FirebaseFirestore db = FirebaseFirestore.getInstance();
+    private final CallRepository callRepository = new CallRepository();
+    private BooleanSupplier inCall = () -> false;
+    private final CallSignalRouter router = new CallSignalRouter(() -> inCall.getAsBoolean());
+
+    private boolean started = false;
+    private String userId;
+    private ListenerRegistration registration;
+
+    private CallSignalingHub() {
+    }
+
+    public static CallSignalingHub getInstance() {
+        if (instance == null) {
+            instance = new CallSignalingHub();
+        }
+        return instance;
+    }
+
+    /**
+     * Follow the signed-in user (call once, when the process starts)
+     * @param inCall Whether a call is running (minimized or not): no dialog is shown meanwhile
+     */
+    public void start(BooleanSupplier inCall) {
+        if (started) return;
+        started = true;
+        this.inCall = inCall;
+        FirebaseAuth.getInstance().addAuthStateListener(auth -> {
+            FirebaseUser user = auth.getCurrentUser();
+            onUserChanged(user != null ? user.getUid() : null);
+        });
+    }
+
+    /**
+     * A screen came to the foreground: it shows the dialog of the oldest pending call
+     */
+    public void attach(IncomingCallSurface surface) {
+        router.attach(surface);
+    }
+
+    /**
+     * A screen left the foreground: its dialog is closed (shown again by the next screen)
+     */
+    public void detach(IncomingCallSurface surface) {
+        router.detach(surface);
+    }
+
+    /**
+     * The user accepted a call from its dialog
+     */
+    public void onCallAnswered(String callId) {
+        router.onAnswered(callId);
+    }
+
+    /**
+     * The user declined a call from its dialog
+     */
+    public void onCallDeclined(String callId) {
+        router.onDeclined(callId);
+    }
+
+    private void onUserChanged(String uid) {
+        if (Objects.equals(uid, userId)) return;
+
+        if (registration != null) {
+            registration.remove();
+            registration = null;
+        }
+        userId = uid;
+        router.setUser(uid);
+        if (uid == null) return;
+
+        Log.d(TAG, "Listening to calls of " + uid);
+        registration = db.collection("calls")
+                .whereArrayContains("participants", uid)
+                .whereIn("status", LIVE_STATUSES)
+                .addSnapshotListener((snapshot, e) -> {
+                    if (e != null) {
+                        Log.e(TAG, "Error listening to calls", e);
+                        return;
+                    }
+                    if (snapshot == null) return;
+
+                    for (DocumentChange change : snapshot.getDocumentChanges()) {
+                        DocumentSnapshot doc = change.getDocument();
+                        if (change.getType() == DocumentChange.Type.REMOVED) {
+                            router.onCallRemoved(doc.getId());
+                            continue;
+                        }
+                        Call call = doc.toObject(Call.class);
+                        if (call == null) continue;
+                        call.setCallId(doc.getId());
+                        if (change.getType() == DocumentChange.Type.ADDED
+                                && CallSignalRouter.STATUS_RINGING.equals(call.getStatus())
+                                && !uid.equals(call.getCallerId())) {
+                            // The caller traces setup latency up to the moment callees are reached
+                            callRepository.markRinging(call.getCallId(), uid);
+                        }
+                        router.onCallChanged(call);
+                    }
+                });
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.workconnect.repository;
+
+import com.example.workconnect.models.Call;
+
+/**
+ * Screen able to show the incoming call dialog, attached to {@link CallSignalingHub}
+ * while it is in the foreground. The hub shows at most one dialog at a time.
+ */
+public interface IncomingCallSurface {
+
+    /**
+     * Show the dialog of a ringing call, replacing any dialog shown before
+     */
+    void showIncomingCall(Call call);
+
+    /**
+     * Close a call's dialog without answering (call over, newer call, screen left)
+     */
+    void dismissIncomingCall(String callId);
+}
@@ -0,0 +1,201 @@
+package com.example.workconnect.repository.authAndUsers;
+
+import android.util.Log;
+
+import com.example.workconnect.models.User;
+import com.example.workconnect.models.enums.RegisterStatus;
+import com.example.workconnect.repository.decode.SnapshotDecoder;
+import com.example.workconnect.utils.EmployeeSearchIndex;
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.auth.FirebaseUser;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.ListenerRegistration;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Approved employees of the current company, kept in a local search index.
+ *
+ * - Loaded once per company and kept current by a single snapshot listener
+ * - The index is rebuilt in the background on every snapshot, then swapped in
+ * - Screens search locally instead of querying users on every keystroke
+ * - Dropped when the signed-in user changes (sign-out, other account)
+ *
+ * Must be used from the main thread (Firestore delivers its callbacks there).
+ */
+public class CompanyDirectory {
+
+    private static final String TAG = "CompanyDirectory";
+
+    public interface Listener {
+        /**
+         * Called on the main thread after a new index was swapped in
+         */
+        void onDirectoryChanged();
+    }
+
+    private static CompanyDirectory instance;
+
+    private final FirebaseFirestore db = FirebaseFirestore.getInstance();
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final List<Consumer<CompanyDirectory>> waiters = new ArrayList<>();
+
+    private String companyId;
+    private ListenerRegistration registration;
+    private SnapshotDecoder decoder;
+    private EmployeeSearchIndex index;
+    // Signed-in user the directory belongs to
+    private String userId;
+
+    private CompanyDirectory() {
+        FirebaseUser current = FirebaseAuth.getInstance().getCurrentUser();
+        userId = current != null ? current.getUid() : null;
+        FirebaseAuth.getInstance().addAuthStateListener(auth -> {
+            FirebaseUser user = auth.getCurrentUser();
+            String uid = user != null ? user.getUid() : null;
+            if (Objects.equals(uid, userId)) return;
+            userId = uid;
+            stop();
+        });
+    }
+
+    public static CompanyDirectory getInstance() {
+        if (instance == null) {
+            instance = new CompanyDirectory();
+        }
+        return instance;
+    }
+
+    /**
+     * Start listening to a company's employees (no-op if already listening to it).
+     * After a listener error, starting the same company again re-listens and keeps the last index.
+     */
+    public void start(String companyId) {
+        if (companyId == null || companyId.trim().isEmpty()) return;
+        if (companyId.equals(this.companyId) && registration != null) return;
+
+        if (!companyId.equals(this.companyId)) {
+            stop();
+            this.companyId = companyId;
+        }
+        SnapshotDecoder decoder = SnapshotDecoder.latestOnly();
+        this.decoder = decoder;
+
+        registration = db.collection("users")
+                .whereEqualTo("companyId", companyId)
+                .whereEqualTo("status", RegisterStatus.APPROVED.name())
+                .addSnapshotListener((snap, e) -> {
+                    if (e != null || snap == null) {
+                        Log.e(TAG, "Company users listener failed: " + companyId, e);
+                        // Firestore does not recover a failed listener: let the next start() listen again
+                        if (this.decoder == decoder) {
+                            detach();
+                        }
+                        return;
+                    }
+                    List<DocumentSnapshot> docs = snap.getDocuments();
+                    decoder.submit(() -> buildIndex(docs), this::onIndexBuilt);
+                });
+    }
+
+    /**
+     * Detach the listener and drop the index (e.g. on sign-out)
+     */
+    public void stop() {
+        detach();
+        companyId = null;
+        index = null;
+        waiters.clear();
+    }
+
+    private void detach() {
+        if (registration != null) {
+            registration.remove();
+            registration = null;
+        }
+        if (decoder != null) {
+            decoder.release();
+            decoder = null;
+        }
+    }
+
+    /**
+     * Run callback once the company's index is available (immediately if it already is)
+     */
+    public void whenLoaded(String companyId, Consumer<CompanyDirectory> callback) {
+        start(companyId);
+        if (index != null) {
+            callback.accept(this);
+        } else if (this.companyId != null) {
+            waiters.add(callback);
+        }
+    }
+
+    public boolean isLoaded() {
+        return index != null;
+    }
+
+    /**
+     * All employees, sorted by display name (empty until loaded)
+     */
+    public List<User> getUsers() {
+        return index != null ? index.getUsers() : Collections.emptyList();
+    }
+
+    /**
+     * Ranked prefix search over first name, last name and email
+     * @param excludedUids Users left out of the results (e.g. the current user), may be null
+     */
+    public List<User> search(String query, int limit, Set<String> excludedUids) {
+        if (index == null) return Collections.emptyList();
+        int extra = excludedUids != null ? excludedUids.size() : 0;
+        List<User> found = index.search(query, limit + extra);
+        List<User> out = new ArrayList<>(Math.min(limit, found.size()));
+        for (User u : found) {
+            if (out.size() == limit) break;
+            if (excludedUids == null || !excludedUids.contains(u.getUid())) out.add(u);
+        }
+        return out;
+    }
+
+    public void addListener(Listener listener) {
+        if (listener != null && !listeners.contains(listener)) listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    // Runs on the decode pool
+    private static EmployeeSearchIndex buildIndex(List<DocumentSnapshot> docs) {
+        List<User> users = new ArrayList<>(docs.size());
+        for (DocumentSnapshot doc : docs) {
+            User user = doc.toObject(User.class);
+            if (user == null) continue;
+            user.setUid(doc.getId());
+            users.add(user);
+        }
+        return EmployeeSearchIndex.build(users);
+    }
+
+    private void onIndexBuilt(EmployeeSearchIndex built) {
+        index = built;
+        Log.d(TAG, "Index ready: " + built.size() + " employees");
+
+        List<Consumer<CompanyDirectory>> pending = new ArrayList<>(waiters);
+        waiters.clear();
+        for (Consumer<CompanyDirectory> callback : pending) {
+            callback.accept(this);
+        }
+        for (Listener l : listeners) {
+            l.onDirectoryChanged();
+        }
+    }
+}
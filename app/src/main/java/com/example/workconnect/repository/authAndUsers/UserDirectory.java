@@ -0,0 +1,308 @@
+package com.example.workconnect.repository.authAndUsers;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.example.workconnect.models.User;
+import com.example.workconnect.utils.UserUtils;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.FirebaseFirestore;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Process-wide cache of user profiles (users/{uid}) used to resolve display names.
+ *
+ * - Bounded LRU with a TTL, so long sessions see renames and memory stays flat
+ * - Concurrent requests for the same uid share one fetch
+ * - Misses requested in the same main-loop pass are fetched together with
+ *   whereIn(documentId) queries of up to 30 ids (Firestore's limit)
+ * - Listeners are told which uids were (re)loaded, so lists can rebind once per batch
+ *
+ * Must be used from the main thread (Firestore delivers its callbacks there).
+ */
+public class UserDirectory {
+
+    private static final String TAG = "UserDirectory";
+
+    private static final int MAX_ENTRIES = 1000;
+    private static final long TTL_MS = 10 * 60 * 1000L;
+    private static final int WHERE_IN_LIMIT = 30;
+
+    public interface Listener {
+        /**
+         * Called on the main thread after a batch of profiles was loaded
+         * @param uids Users whose entry changed (including users that do not exist)
+         */
+        void onUsersLoaded(Set<String> uids);
+    }
+
+    private static UserDirectory instance;
+
+    private final FirebaseFirestore db = FirebaseFirestore.getInstance();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    // Access-ordered map: iteration starts at the least recently used entry
+    private final LinkedHashMap<String, Entry> cache = new LinkedHashMap<String, Entry>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    private final Set<String> queued = new LinkedHashSet<>();
+    private final Set<String> inFlight = new HashSet<>();
+    private final Map<String, List<Consumer<User>>> waiters = new HashMap<>();
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private boolean flushScheduled = false;
+
+    private UserDirectory() {
+    }
+
+    public static UserDirectory getInstance() {
+        if (instance == null) {
+            instance = new UserDirectory();
+        }
+        return instance;
+    }
+
+    // ===== Lookups =====
+
+    /**
+     * Cached display name without triggering a fetch
+     * @return Name, "" if the user does not exist or has no name, null if not cached (or expired)
+     */
+    public String peekName(String uid) {
+        Entry e = fresh(uid);
+        return e != null ? e.name : null;
+    }
+
+    /**
+     * Cached profile without triggering a fetch
+     * @return User, or null if not cached, expired or the user does not exist
+     */
+    public User peekUser(String uid) {
+        Entry e = fresh(uid);
+        return e != null ? e.user : null;
+    }
+
+    /**
+     * Load a display name
+     * @param callback Name, or null if the user does not exist, has no name or could not be loaded
+     */
+    public void loadName(String uid, Consumer<String> callback) {
+        loadUser(uid, user -> {
+            Entry e = uid != null ? cache.get(uid) : null;
+            String name = e != null ? e.name : null;
+            callback.accept(name == null || name.isEmpty() ? null : name);
+        });
+    }
+
+    /**
+     * Load a profile
+     * @param callback User, or null if it does not exist or could not be loaded
+     */
+    public void loadUser(String uid, Consumer<User> callback) {
+        if (uid == null || uid.trim().isEmpty()) {
+            callback.accept(null);
+            return;
+        }
+
+        Entry e = fresh(uid);
+        if (e != null) {
+            callback.accept(e.user);
+            return;
+        }
+
+        List<Consumer<User>> list = waiters.get(uid);
+        if (list == null) {
+            list = new ArrayList<>();
+            waiters.put(uid, list);
+        }
+        list.add(callback);
+        request(uid);
+    }
+
+    /**
+     * Load several profiles at once
+     * @param callback uid -> User for every user that exists, called once all are resolved
+     */
+    public void loadUsers(Collection<String> uids, Consumer<Map<String, User>> callback) {
+        Map<String, User> result = new LinkedHashMap<>();
+        Set<String> missing = new LinkedHashSet<>();
+        for (String uid : uids) {
+            if (uid == null || uid.trim().isEmpty()) continue;
+            Entry e = fresh(uid);
+            if (e == null) {
+                missing.add(uid);
+            } else if (e.user != null) {
+                result.put(uid, e.user);
+            }
+        }
+
+        if (missing.isEmpty()) {
+            callback.accept(result);
+            return;
+        }
+
+        int[] remaining = {missing.size()};
+        for (String uid : missing) {
+            loadUser(uid, user -> {
+                if (user != null) result.put(uid, user);
+                if (--remaining[0] == 0) {
+                    callback.accept(orderedBy(uids, result));
+                }
+            });
+        }
+    }
+
+    /**
+     * Warm the cache for ids about to be displayed; listeners are told when they arrive
+     */
+    public void prefetch(Collection<String> uids) {
+        if (uids == null) return;
+        for (String uid : uids) {
+            if (uid != null && !uid.trim().isEmpty() && fresh(uid) == null) {
+                request(uid);
+            }
+        }
+    }
+
+    /**
+     * Drop a cached profile after the user's own profile was edited
+     */
+    public void invalidate(String uid) {
+        if (uid != null) cache.remove(uid);
+    }
+
+    public void addListener(Listener listener) {
+        if (listener != null && !listeners.contains(listener)) listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    // ===== Batching =====
+
+    private void request(String uid) {
+        if (inFlight.contains(uid) || !queued.add(uid)) return;
+        if (!flushScheduled) {
+            flushScheduled = true;
+            // Everything requested while binding the current frame goes out together
+            mainHandler.post(this::flush);
+        }
+    }
+
+    private void flush() {
+        flushScheduled = false;
+        if (queued.isEmpty()) return;
+
+        List<String> ids = new ArrayList<>(queued);
+        queued.clear();
+        inFlight.addAll(ids);
+
+        for (int i = 0; i < ids.size(); i += WHERE_IN_LIMIT) {
+            List<String> chunk = ids.subList(i, Math.min(i + WHERE_IN_LIMIT, ids.size()));
+            fetchChunk(new ArrayList<>(chunk));
+        }
+    }
+
+    private void fetchChunk(List<String> chunk) {
+        db.collection("users")
+                .whereIn(FieldPath.documentId(), chunk)
+                .get()
+                .addOnSuccessListener(snap -> {
+                    Set<String> loaded = new HashSet<>();
+                    for (DocumentSnapshot doc : snap.getDocuments()) {
+                        User user = doc.toObject(User.class);
+                        if (user == null) user = new User();
+                        user.setUid(doc.getId());
+                        put(doc.getId(), user, UserUtils.getDisplayNameFromSnapshot(doc, ""));
+                        loaded.add(doc.getId());
+                    }
+                    // Ids with no document: cache the miss so we don't ask again
+                    for (String uid : chunk) {
+                        if (!loaded.contains(uid)) put(uid, null, "");
+                    }
+                    complete(chunk, true);
+                })
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "Failed to load users " + chunk, e);
+                    // Not cached: the next request retries
+                    complete(chunk, false);
+                });
+    }
+
+    private void complete(List<String> chunk, boolean notifyListeners) {
+        inFlight.removeAll(chunk);
+
+        for (String uid : chunk) {
+            List<Consumer<User>> list = waiters.remove(uid);
+            if (list == null) continue;
+            Entry e = cache.get(uid);
+            User user = e != null ? e.user : null;
+            for (Consumer<User> callback : list) {
+                callback.accept(user);
+            }
+        }
+
+        if (notifyListeners) {
+            Set<String> uids = new HashSet<>(chunk);
+            for (Listener l : listeners) {
+                l.onUsersLoaded(uids);
+            }
+        }
+    }
+
+    // ===== Cache =====
+
+    private void put(String uid, User user, String name) {
+        cache.put(uid, new Entry(user, name != null ? name : "", SystemClock.elapsedRealtime()));
+    }
+
+    private Entry fresh(String uid) {
+        if (uid == null) return null;
+        Entry e = cache.get(uid);
+        if (e == null) return null;
+        if (SystemClock.elapsedRealtime() - e.loadedAt > TTL_MS) {
+            cache.remove(uid);
+            return null;
+        }
+        return e;
+    }
+
+    private static Map<String, User> orderedBy(Collection<String> uids, Map<String, User> users) {
+        Map<String, User> ordered = new LinkedHashMap<>();
+        for (String uid : uids) {
+            User u = users.get(uid);
+            if (u != null) ordered.put(uid, u);
+        }
+        return ordered;
+    }
+
+    private static class Entry {
+        final User user;
+        final String name;
+        final long loadedAt;
+
+        Entry(User user, String name, long loadedAt) {
+            this.user = user;
+            this.name = name;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
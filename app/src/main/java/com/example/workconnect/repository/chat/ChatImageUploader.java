@@ -0,0 +1,257 @@
+package com.example.workconnect.repository.chat;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Matrix;
+import android.media.ExifInterface;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.example.workconnect.utils.BlurHash;
+import com.example.workconnect.utils.ImageSizing;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.storage.FirebaseStorage;
+import com.google.firebase.storage.StorageMetadata;
+import com.google.firebase.storage.StorageReference;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Chat image attachments. The picked image is downscaled and re-encoded on the device,
+ * then uploaded as two objects under chat_images/{conversationId}/:
+ * - {messageId}.jpg: long edge at most FULL_MAX_EDGE, loaded only when the image is opened
+ * - {messageId}_thumb.jpg: long edge at most THUMB_MAX_EDGE, shown in the bubble
+ *
+ * The message also carries the image size (bubbles are laid out before anything loads)
+ * and a {@link BlurHash} placeholder drawn while the thumbnail downloads.
+ */
+public class ChatImageUploader {
+
+    private static final String TAG = "ChatImageUploader";
+
+    static final int FULL_MAX_EDGE = 1600;
+    static final int FULL_QUALITY = 80;
+    static final int THUMB_MAX_EDGE = 320;
+    static final int THUMB_QUALITY = 70;
+    // The placeholder only keeps a few color components: a tiny copy is enough to compute them
+    static final int PLACEHOLDER_MAX_EDGE = 32;
+    static final int PLACEHOLDER_COMPONENTS_X = 4;
+    static final int PLACEHOLDER_COMPONENTS_Y = 3;
+
+    private static final String CONTENT_TYPE = "image/jpeg";
+    // One object per message, never rewritten: caches may keep it forever
+    private static final String CACHE_CONTROL = "public, max-age=31536000, immutable";
+
+    // Decoding and encoding are memory heavy: one image at a time
+    private static final ExecutorService encoder = Executors.newSingleThreadExecutor();
+    private static final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    private final Context appContext;
+    private final FirebaseStorage storage = FirebaseStorage.getInstance();
+
+    public interface UploadCallback {
+        void onSuccess(Attachment attachment);
+        void onFailure(String error);
+    }
+
+    /**
+     * What an uploaded image adds to its message
+     */
+    public static class Attachment {
+        public final String fileUrl;
+        public final String thumbnailUrl;
+        public final String fileType = CONTENT_TYPE;
+        public final long fileSize;
+        public final int width;
+        public final int height;
+        public final String placeholder;
+
+        Attachment(String fileUrl, String thumbnailUrl, long fileSize, int width, int height, String placeholder) {
+            this.fileUrl = fileUrl;
+            this.thumbnailUrl = thumbnailUrl;
+            this.fileSize = fileSize;
+            this.width = width;
+            this.height = height;
+            this.placeholder = placeholder;
+        }
+    }
+
+    // Re-encoded image, ready to upload
+    private static class Encoded {
+        byte[] full;
+        byte[] thumbnail;
+        int width;
+        int height;
+        String placeholder;
+    }
+
+    public ChatImageUploader(Context context) {
+        this.appContext = context.getApplicationContext();
+    }
+
+    /**
+     * Re-encode and upload an image picked for a message
+     * @param messageId Client-generated id of the message (names the objects, so a retry overwrites them)
+     * @param callback Called on the main thread
+     */
+    public void upload(Uri source, String conversationId, String messageId, UploadCallback callback) {
+        encoder.execute(() -> {
+            Encoded encoded;
+            try {
+                encoded = encode(source);
+            } catch (IOException | RuntimeException | OutOfMemoryError e) {
+                Log.e(TAG, "Failed to encode " + source, e);
+                mainHandler.post(() -> callback.onFailure("Could not read the image"));
+                return;
+            }
+            mainHandler.post(() -> uploadEncoded(encoded, conversationId, messageId, callback));
+        });
+    }
+
+    private void uploadEncoded(Encoded encoded, String conversationId, String messageId, UploadCallback callback) {
+        StorageReference folder = storage.getReference()
+                .child("chat_images")
+                .child(conversationId);
+        Task<Uri> fullUrl = put(folder.child(messageId + ".jpg"), encoded.full);
+        Task<Uri> thumbnailUrl = put(folder.child(messageId + "_thumb.jpg"), encoded.thumbnail);
+
+        Tasks.whenAllSuccess(fullUrl, thumbnailUrl)
+                .addOnSuccessListener(results -> callback.onSuccess(new Attachment(
+                        fullUrl.getResult().toString(),
+                        thumbnailUrl.getResult().toString(),
+                        encoded.full.length,
+                        encoded.width,
+                        encoded.height,
+                        encoded.placeholder)))
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "Upload failed for message " + messageId, e);
+                    callback.onFailure(e.getMessage() != null ? e.getMessage() : "Upload failed");
+                });
+    }
+
+    private static Task<Uri> put(StorageReference ref, byte[] bytes) {
+        StorageMetadata metadata = new StorageMetadata.Builder()
+                .setContentType(CONTENT_TYPE)
+                .setCacheControl(CACHE_CONTROL)
+                .build();
+        return ref.putBytes(bytes, metadata)
+                .continueWithTask(task -> {
+                    if (!task.isSuccessful() && task.getException() != null) throw task.getException();
+                    return ref.getDownloadUrl();
+                });
+    }
+
+    // Runs on the encoder thread
+    private Encoded encode(Uri source) throws IOException {
+        ContentResolver resolver = appContext.getContentResolver();
+
+        BitmapFactory.Options bounds = new BitmapFactory.Options();
+        bounds.inJustDecodeBounds = true;
+        try (InputStream in = resolver.openInputStream(source)) {
+            BitmapFactory.decodeStream(in, null, bounds);
+        }
+        if (bounds.outWidth <= 0 || bounds.outHeight <= 0) {
+            throw new IOException("Not an image: " + source);
+        }
+
+        // Subsampled decode: a 12 MP photo is never held in memory at full size
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inSampleSize = ImageSizing.sampleSize(bounds.outWidth, bounds.outHeight, FULL_MAX_EDGE);
+        Bitmap decoded;
+        try (InputStream in = resolver.openInputStream(source)) {
+            decoded = BitmapFactory.decodeStream(in, null, options);
+        }
+        if (decoded == null) {
+            throw new IOException("Could not decode " + source);
+        }
+
+        Bitmap full = scale(decoded, FULL_MAX_EDGE, readRotation(resolver, source));
+        Bitmap thumbnail = scale(full, THUMB_MAX_EDGE, 0);
+        Bitmap tiny = scale(thumbnail, PLACEHOLDER_MAX_EDGE, 0);
+
+        Encoded encoded = new Encoded();
+        encoded.width = full.getWidth();
+        encoded.height = full.getHeight();
+        encoded.full = compress(full, FULL_QUALITY);
+        encoded.thumbnail = compress(thumbnail, THUMB_QUALITY);
+
+        int[] pixels = new int[tiny.getWidth() * tiny.getHeight()];
+        tiny.getPixels(pixels, 0, tiny.getWidth(), 0, 0, tiny.getWidth(), tiny.getHeight());
+        encoded.placeholder = BlurHash.encode(pixels, tiny.getWidth(), tiny.getHeight(),
+                PLACEHOLDER_COMPONENTS_X, PLACEHOLDER_COMPONENTS_Y);
+
+        recycle(decoded, full, thumbnail, tiny);
+        return encoded;
+    }
+
+    // Scale down so the long edge is at most maxEdge, then apply the EXIF rotation
+    private static Bitmap scale(Bitmap source, int maxEdge, int rotation) {
+        int[] size = ImageSizing.fit(source.getWidth(), source.getHeight(), maxEdge);
+        Bitmap scaled = source;
+        if (size[0] != source.getWidth() || size[1] != source.getHeight()) {
+            scaled = Bitmap.createScaledBitmap(source, size[0], size[1], true);
+        }
+        if (rotation == 0) return scaled;
+
+        Matrix matrix = new Matrix();
+        matrix.postRotate(rotation);
+        Bitmap rotated = Bitmap.createBitmap(scaled, 0, 0, scaled.getWidth(), scaled.getHeight(), matrix, true);
+        if (scaled != source && scaled != rotated) scaled.recycle();
+        return rotated;
+    }
+
+    private static byte[] compress(Bitmap bitmap, int quality) {
+        Bitmap opaque = bitmap;
+        if (bitmap.hasAlpha()) {
+            // JPEG has no alpha: transparent areas would turn black
+            opaque = Bitmap.createBitmap(bitmap.getWidth(), bitmap.getHeight(), Bitmap.Config.ARGB_8888);
+            Canvas canvas = new Canvas(opaque);
+            canvas.drawColor(Color.WHITE);
+            canvas.drawBitmap(bitmap, 0, 0, null);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        opaque.compress(Bitmap.CompressFormat.JPEG, quality, out);
+        if (opaque != bitmap) opaque.recycle();
+        return out.toByteArray();
+    }
+
+    // Camera photos are stored sideways with an orientation tag; the re-encoded copy has none
+    private static int readRotation(ContentResolver resolver, Uri source) {
+        try (InputStream in = resolver.openInputStream(source)) {
+            if (in == null) return 0;
+            int orientation = new ExifInterface(in).getAttributeInt(
+                    ExifInterface.TAG_ORIENTATION, ExifInterface.ORIENTATION_NORMAL);
+            switch (orientation) {
+                case ExifInterface.ORIENTATION_ROTATE_90: return 90;
+                case ExifInterface.ORIENTATION_ROTATE_180: return 180;
+                case ExifInterface.ORIENTATION_ROTATE_270: return 270;
+                default: return 0;
+            }
+        } catch (IOException | RuntimeException e) {
+            // Not a JPEG/HEIF with EXIF data
+            return 0;
+        }
+    }
+
+    private static void recycle(Bitmap... bitmaps) {
+        for (int i = 0; i < bitmaps.length; i++) {
+            boolean shared = false;
+            // scale() returns its input when nothing changes
+            for (int j = 0; j < i; j++) {
+                if (bitmaps[j] == bitmaps[i]) shared = true;
+            }
+            if (!shared) bitmaps[i].recycle();
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.workconnect.repository.chat;
+
+import com.example.workconnect.models.ChatMessage;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JSON codec for ChatMessage rows kept on disk (message store and outbox).
+ * id, conversationId and sentAt are stored in their own columns and are not part of the JSON.
+ */
+class ChatMessageCodec {
+
+    private ChatMessageCodec() {
+    }
+
+    static JSONObject encode(ChatMessage m) throws JSONException {
+        JSONObject o = new JSONObject();
+        o.put("senderId", m.getSenderId());
+        o.put("text", m.getText());
+        o.put("isRead", m.isRead());
+        if (m.getReadAt() != null) o.put("readAt", m.getReadAt().getTime());
+        if (m.getReadBy() != null) o.put("readBy", new JSONArray(m.getReadBy()));
+        if (m.getReactions() != null) {
+            JSONObject reactions = new JSONObject();
+            for (Map.Entry<String, List<String>> entry : m.getReactions().entrySet()) {
+                if (entry.getValue() != null) {
+                    reactions.put(entry.getKey(), new JSONArray(entry.getValue()));
+                }
+            }
+            o.put("reactions", reactions);
+        }
+        o.put("replyToMessageId", m.getReplyToMessageId());
+        o.put("replyToText", m.getReplyToText());
+        o.put("replyToSenderId", m.getReplyToSenderId());
+        o.put("replyToSenderName", m.getReplyToSenderName());
+        o.put("messageType", m.getMessageType().name());
+        if (m.getSystemType() != null) o.put("systemType", m.getSystemType().name());
+        o.put("systemUserId", m.getSystemUserId());
+        o.put("systemActorId", m.getSystemActorId());
+        o.put("fileUrl", m.getFileUrl());
+        o.put("fileName", m.getFileName());
+        o.put("fileType", m.getFileType());
+        if (m.getFileSize() != null) o.put("fileSize", m.getFileSize());
+        o.put("thumbnailUrl", m.getThumbnailUrl());
+        if (m.getImageWidth() > 0) o.put("imageWidth", m.getImageWidth());
+        if (m.getImageHeight() > 0) o.put("imageHeight", m.getImageHeight());
+        o.put("placeholder", m.getPlaceholder());
+        o.put("version", m.getVersion());
+        return o;
+    }
+
+    static ChatMessage decode(JSONObject o) throws JSONException {
+        ChatMessage m = new ChatMessage();
+        m.setSenderId(o.optString("senderId", null));
+        m.setText(o.optString("text", null));
+        m.setRead(o.optBoolean("isRead", false));
+        if (o.has("readAt")) m.setReadAt(new Date(o.getLong("readAt")));
+        if (o.has("readBy")) m.setReadBy(toStringList(o.getJSONArray("readBy")));
+        if (o.has("reactions")) {
+            JSONObject reactions = o.getJSONObject("reactions");
+            Map<String, List<String>> map = new HashMap<>();
+            Iterator<String> keys = reactions.keys();
+            while (keys.hasNext()) {
+                String emoji = keys.next();
+                map.put(emoji, toStringList(reactions.getJSONArray(emoji)));
+            }
+            m.setReactions(map);
+        }
+        m.setReplyToMessageId(o.optString("replyToMessageId", null));
+        m.setReplyToText(o.optString("replyToText", null));
+        m.setReplyToSenderId(o.optString("replyToSenderId", null));
+        m.setReplyToSenderName(o.optString("replyToSenderName", null));
+        m.setMessageType(ChatMessage.MessageType.valueOf(o.optString("messageType", "TEXT")));
+        if (o.has("systemType")) {
+            m.setSystemType(ChatMessage.SystemMessageType.valueOf(o.getString("systemType")));
+        }
+        m.setSystemUserId(o.optString("systemUserId", null));
+        m.setSystemActorId(o.optString("systemActorId", null));
+        m.setFileUrl(o.optString("fileUrl", null));
+        m.setFileName(o.optString("fileName", null));
+        m.setFileType(o.optString("fileType", null));
+        if (o.has("fileSize")) m.setFileSize(o.getLong("fileSize"));
+        m.setThumbnailUrl(o.optString("thumbnailUrl", null));
+        m.setImageWidth(o.optInt("imageWidth", 0));
+        m.setImageHeight(o.optInt("imageHeight", 0));
+        m.setPlaceholder(o.optString("placeholder", null));
+        m.setVersion(o.optLong("version", 0));
+        m.setStatus(ChatMessage.MessageStatus.SENT);
+        return m;
+    }
+
+    private static List<String> toStringList(JSONArray array) throws JSONException {
+        List<String> list = new ArrayList<>(array.length());
+        for (int i = 0; i < array.length(); i++) {
+            list.add(array.getString(i));
+        }
+        return list;
+    }
+}
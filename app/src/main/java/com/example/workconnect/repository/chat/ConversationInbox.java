@@ -0,0 +1,354 @@
+package com.example.workconnect.repository.chat;
+
+import android.util.Log;
+
+import com.example.workconnect.models.InboxEntry;
+import com.example.workconnect.repository.decode.ModelMappers;
+import com.example.workconnect.repository.decode.SnapshotDecoder;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.ListenerRegistration;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Per-member conversation state in users/{uid}/inbox/{conversationId}:
+ * unread count (see {@link InboxEntry}), plus a projection of the conversation summary
+ * the chat list shows (type, title, peer, last message). Entries are read by their owner only.
+ * Read cursors, which every member reads (receipts), live in conversations/{id}/members/{uid}.
+ *
+ * - A message increments one small document per recipient instead of rewriting an
+ *   unreadCounts map on the shared conversation document
+ * - Reading a conversation only writes the reader's own document (through the outbox,
+ *   see {@link MessageRepository#markRead})
+ * - The chat list listens to the current user's inbox only, ordered by lastMessageAt,
+ *   instead of querying conversations by participantIds
+ *
+ * The conversation document keeps the summary fields only (last message, participants).
+ */
+public final class ConversationInbox {
+
+    private static final String TAG = "ConversationInbox";
+
+    static final String COLLECTION = "inbox";
+    // conversations/{conversationId}/members/{uid}: per-member state other members may read
+    static final String MEMBERS_COLLECTION = "members";
+
+    // Firestore limit of writes per batch
+    private static final int MAX_BATCH_OPS = 500;
+    // Fan-outs remembered per entry to skip replays (a replay follows its first commit closely)
+    private static final int MAX_COUNTED_IDS = 20;
+
+    private ConversationInbox() {
+    }
+
+    /**
+     * A member's read cursor: kept on the conversation, so read receipts never read other
+     * members' private inbox entries
+     */
+    public static DocumentReference memberRef(String conversationId, String uid) {
+        return FirebaseFirestore.getInstance()
+                .collection("conversations")
+                .document(conversationId)
+                .collection(MEMBERS_COLLECTION)
+                .document(uid);
+    }
+
+    public static DocumentReference entryRef(String uid, String conversationId) {
+        return FirebaseFirestore.getInstance()
+                .collection("users")
+                .document(uid)
+                .collection(COLLECTION)
+                .document(conversationId);
+    }
+
+    /**
+     * Record sent messages in members' entries: last message preview for all,
+     * unread count incremented for everyone except the sender, whose count is reset.
+     * One write per member: callers keep batches under the 500-op limit.
+     * Not idempotent: a batch committed twice counts the messages twice, see {@link #countMessagesSent}
+     * for writes that can be replayed.
+     * @param uids Members to update
+     * @param count Number of messages sent
+     * @param lastText Text of the newest message sent
+     * @param lastSentAt sentAt of the newest message sent
+     */
+    public static void putMessagesSent(WriteBatch batch, String conversationId, Collection<String> uids,
+                                       String senderId, long count, String lastText, Date lastSentAt) {
+        if (conversationId == null || uids == null) return;
+
+        for (String uid : uids) {
+            if (uid == null) continue;
+            Map<String, Object> data = entryData(uid, conversationId);
+            data.put("lastMessageText", lastText);
+            data.put("lastMessageAt", lastSentAt);
+            data.put("lastMessageSenderId", senderId);
+            data.put("unreadCount", uid.equals(senderId) ? (Object) 0 : FieldValue.increment(count));
+            batch.set(entryRef(uid, conversationId), data, SetOptions.merge());
+        }
+    }
+
+    /**
+     * {@link #putMessagesSent} that can be replayed (the outbox commits a fan-out again if the
+     * process died before it was removed from the queue, see {@link MessageOutbox#OP_INBOX}):
+     * in a transaction, each entry records the fan-out's id and skips fan-outs it already counted.
+     * Reads then writes each member's entry (max 500 members per call).
+     * @param fanOutId Id of the fan-out (e.g. the newest message it counts)
+     */
+    public static Task<Void> countMessagesSent(String conversationId, List<String> uids, String senderId,
+                                               String fanOutId, long count, String lastText, Date lastSentAt) {
+        FirebaseFirestore db = FirebaseFirestore.getInstance();
+        return db.runTransaction(tx -> {
+            List<DocumentReference> refs = new ArrayList<>();
+            List<DocumentSnapshot> docs = new ArrayList<>();
+            for (String uid : uids) {
+                DocumentReference ref = entryRef(uid, conversationId);
+                refs.add(ref);
+                docs.add(tx.get(ref));
+            }
+
+            for (int i = 0; i < uids.size(); i++) {
+                String uid = uids.get(i);
+                List<String> counted = countedIdsOf(docs.get(i));
+                if (counted.contains(fanOutId)) continue;
+                counted.add(fanOutId);
+                while (counted.size() > MAX_COUNTED_IDS) counted.remove(0);
+
+                Map<String, Object> data = entryData(uid, conversationId);
+                data.put("lastMessageText", lastText);
+                data.put("lastMessageAt", lastSentAt);
+                data.put("lastMessageSenderId", senderId);
+                data.put("unreadCount", uid.equals(senderId) ? (Object) 0 : FieldValue.increment(count));
+                data.put("countedMessageIds", counted);
+                tx.set(refs.get(i), data, SetOptions.merge());
+            }
+            return null;
+        });
+    }
+
+    private static List<String> countedIdsOf(DocumentSnapshot doc) {
+        List<String> out = new ArrayList<>();
+        Object ids = doc.exists() ? doc.get("countedMessageIds") : null;
+        if (ids instanceof List) {
+            for (Object id : (List<?>) ids) {
+                if (id instanceof String) out.add((String) id);
+            }
+        }
+        return out;
+    }
+
+    /**
+     * One-off migration: create the inbox entries of a user's existing conversations.
+     * Counts and cursors still stored on the conversation documents are carried over
+     * for entries that do not exist yet; existing entries only get the summary.
+     * @param onDone Called on the main thread once every entry was written
+     */
+    public static void backfill(String uid, Runnable onDone) {
+        FirebaseFirestore db = FirebaseFirestore.getInstance();
+        Task<QuerySnapshot> existingRead = db.collection("users")
+                .document(uid)
+                .collection(COLLECTION)
+                .get();
+        Task<QuerySnapshot> conversationsRead = db.collection("conversations")
+                .whereArrayContains("participantIds", uid)
+                .get();
+
+        Tasks.whenAllSuccess(existingRead, conversationsRead)
+                .addOnSuccessListener(results -> {
+                    Set<String> existing = new HashSet<>();
+                    for (DocumentSnapshot doc : existingRead.getResult().getDocuments()) {
+                        existing.add(doc.getId());
+                    }
+
+                    List<DocumentReference> refs = new ArrayList<>();
+                    List<Map<String, Object>> writes = new ArrayList<>();
+                    for (DocumentSnapshot doc : conversationsRead.getResult().getDocuments()) {
+                        Map<String, Object> conversation = doc.getData();
+                        if (conversation == null) continue;
+
+                        Map<String, Object> data = entryData(uid, doc.getId());
+                        data.putAll(summaryOf(conversation, uid));
+                        if (!existing.contains(doc.getId())) {
+                            Long unread = doc.getLong("unreadCounts." + uid);
+                            data.put("unreadCount", unread != null ? unread : 0L);
+                            Date lastReadAt = doc.getDate("lastReadAt." + uid);
+                            if (lastReadAt != null) {
+                                refs.add(memberRef(doc.getId(), uid));
+                                writes.add(readCursorData(uid, lastReadAt));
+                            }
+                        }
+                        refs.add(entryRef(uid, doc.getId()));
+                        writes.add(data);
+                    }
+
+                    Log.d(TAG, "Backfilling " + writes.size() + " inbox entries of " + uid);
+                    Tasks.whenAll(commitAll(refs, writes, "Inbox backfill failed for " + uid))
+                            .addOnSuccessListener(v -> onDone.run());
+                })
+                .addOnFailureListener(e -> Log.e(TAG, "Inbox backfill failed for " + uid, e));
+    }
+
+    /**
+     * Create a member's entry (new conversation, added member)
+     * @param conversation Conversation fields to project (as written to the conversation document),
+     *                     null if the summary is synced later
+     * @param unreadCount Initial unread count (e.g. 1 for the "group created" message)
+     */
+    public static void putEntry(WriteBatch batch, String uid, String conversationId,
+                                Map<String, Object> conversation, long unreadCount) {
+        Map<String, Object> data = entryData(uid, conversationId);
+        if (conversation != null) {
+            data.putAll(summaryOf(conversation, uid));
+        }
+        data.put("unreadCount", unreadCount);
+        batch.set(entryRef(uid, conversationId), data, SetOptions.merge());
+    }
+
+    /**
+     * Copy a conversation's summary (type, title, last message) into a member's entry,
+     * leaving the unread count and read cursor alone
+     * @param conversation Conversation fields, as read from the conversation document
+     */
+    public static void putSummary(WriteBatch batch, String uid, String conversationId,
+                                  Map<String, Object> conversation) {
+        Map<String, Object> data = entryData(uid, conversationId);
+        data.putAll(summaryOf(conversation, uid));
+        batch.set(entryRef(uid, conversationId), data, SetOptions.merge());
+    }
+
+    /**
+     * Delete a member's entry and read cursor (member removed or left)
+     */
+    public static void removeEntry(WriteBatch batch, String uid, String conversationId) {
+        batch.delete(entryRef(uid, conversationId));
+        batch.delete(memberRef(conversationId, uid));
+    }
+
+    /**
+     * Fields of a read mark in the reader's entry: unread count reset (written by the outbox,
+     * the cursor goes to {@link #memberRef}, see {@link #readCursorData})
+     */
+    static Map<String, Object> readMarkData(String uid, String conversationId) {
+        Map<String, Object> data = entryData(uid, conversationId);
+        data.put("unreadCount", 0);
+        return data;
+    }
+
+    /**
+     * Fields of a member's read cursor document
+     * @param readUpTo sentAt of the newest message read
+     */
+    static Map<String, Object> readCursorData(String uid, Date readUpTo) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("uid", uid);
+        data.put("lastReadAt", readUpTo);
+        return data;
+    }
+
+    /**
+     * Listen to the read cursors of every member of a conversation (read receipts)
+     * @param callback Called on the main thread with uid -> sentAt of the newest message read
+     * @return Registration that also stops background decoding when removed
+     */
+    public static ListenerRegistration listenReadCursors(String conversationId, Consumer<Map<String, Date>> callback) {
+        SnapshotDecoder decoder = SnapshotDecoder.latestOnly();
+        ListenerRegistration registration = FirebaseFirestore.getInstance()
+                .collection("conversations")
+                .document(conversationId)
+                .collection(MEMBERS_COLLECTION)
+                .addSnapshotListener((snap, e) -> {
+                    if (e != null || snap == null) {
+                        Log.e(TAG, "Read cursors listener failed: " + conversationId, e);
+                        return;
+                    }
+                    decoder.submit(snap.getDocuments(), ModelMappers.READ_CURSOR, entries -> {
+                        Map<String, Date> cursors = new HashMap<>();
+                        for (InboxEntry entry : entries) {
+                            if (entry.getUid() != null && entry.getLastReadAt() != null) {
+                                cursors.put(entry.getUid(), entry.getLastReadAt());
+                            }
+                        }
+                        callback.accept(cursors);
+                    });
+                });
+        return () -> {
+            registration.remove();
+            decoder.release();
+        };
+    }
+
+    // Fields every entry carries, so partial writes still create a queryable document
+    private static Map<String, Object> entryData(String uid, String conversationId) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("conversationId", conversationId);
+        data.put("uid", uid);
+        return data;
+    }
+
+    // What the chat list shows for a conversation, from the owner's point of view
+    static Map<String, Object> summaryOf(Map<String, Object> conversation, String uid) {
+        Map<String, Object> summary = new HashMap<>();
+        summary.put("type", conversation.get("type"));
+        summary.put("title", conversation.get("title"));
+        summary.put("lastMessageText", conversation.get("lastMessageText"));
+        summary.put("lastMessageAt", conversation.get("lastMessageAt"));
+        summary.put("lastMessageSenderId", conversation.get("lastMessageSenderId"));
+
+        // Direct chats are titled by the other member
+        String peerId = null;
+        if (!"group".equals(conversation.get("type"))) {
+            for (String member : participantsOf(conversation)) {
+                if (!member.equals(uid)) {
+                    peerId = member;
+                    break;
+                }
+            }
+        }
+        summary.put("peerId", peerId);
+        return summary;
+    }
+
+    private static List<String> participantsOf(Map<String, Object> conversation) {
+        List<String> out = new ArrayList<>();
+        Object ids = conversation.get("participantIds");
+        if (ids instanceof List) {
+            for (Object id : (List<?>) ids) {
+                if (id instanceof String) out.add((String) id);
+            }
+        }
+        return out;
+    }
+
+    // Merge writes, split into batches of at most MAX_BATCH_OPS
+    private static List<Task<Void>> commitAll(List<DocumentReference> refs, List<Map<String, Object>> writes,
+                                              String failureMessage) {
+        FirebaseFirestore db = FirebaseFirestore.getInstance();
+        List<Task<Void>> commits = new ArrayList<>();
+        for (int start = 0; start < refs.size(); start += MAX_BATCH_OPS) {
+            WriteBatch batch = db.batch();
+            int end = Math.min(start + MAX_BATCH_OPS, refs.size());
+            for (int i = start; i < end; i++) {
+                batch.set(refs.get(i), writes.get(i), SetOptions.merge());
+            }
+            Task<Void> commit = batch.commit();
+            commit.addOnFailureListener(e -> Log.e(TAG, failureMessage, e));
+            commits.add(commit);
+        }
+        return commits;
+    }
+}
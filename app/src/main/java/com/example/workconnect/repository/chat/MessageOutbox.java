@@ -0,0 +1,758 @@
+package com.example.workconnect.repository.chat;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.example.workconnect.models.ChatMessage;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.FirebaseFirestoreException;
+import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.WriteBatch;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Disk-backed queue of pending chat writes (message sends, reactions, read marks and the
+ * inbox fan-out of sent messages).
+ * Entries survive process death and are drained by a background scheduler: each conversation's
+ * entries are packed into WriteBatch commits (max 500 ops), sends share one conversation-metadata
+ * update per batch, and failures are retried per entry with exponential backoff plus jitter
+ * (see {@link OutboxDrainPolicy}). A drain is also triggered when connectivity returns
+ * (see {@link #flushNow()}).
+ *
+ * A committed send queues its inbox fan-out (previews and unread counts of the members, see
+ * {@link ConversationInbox}) in the same transaction that removes it from the queue, so the
+ * fan-out survives process death and failures like any other entry. A fan-out is committed on
+ * its own, in a transaction that skips members who already counted it: it can be committed again
+ * if the process dies before it leaves the queue.
+ *
+ * Sends drain right away. Reactions and read marks wait up to {@link #COALESCE_WINDOW_MS}
+ * so a burst of taps is folded (see {@link MutationFolding}) and committed as one batch.
+ */
+public class MessageOutbox {
+
+    private static final String TAG = "MessageOutbox";
+
+    public static final String OP_SEND = "SEND";
+    public static final String OP_REACTION_ADD = "REACTION_ADD";
+    public static final String OP_REACTION_REMOVE = "REACTION_REMOVE";
+    public static final String OP_READ = "READ";
+    // Inbox entries of up to MAX_BATCH_OPS members for messages that were committed.
+    // Committed alone, in an idempotent transaction (see ConversationInbox#countMessagesSent)
+    public static final String OP_INBOX = "INBOX";
+
+    // How long reactions and read marks wait for more mutations before being written
+    private static final long COALESCE_WINDOW_MS = 300;
+
+    private static final int MAX_BATCH_OPS = 500;
+    private static final int MAX_AUTO_ATTEMPTS = 8;
+    private static final long INITIAL_RETRY_DELAY_MS = 1000; // 1 second
+    private static final long MAX_RETRY_DELAY_MS = 60000; // 1 minute
+    private static final long PARKED = OutboxDrainPolicy.PARKED; // waits for a manual retry
+
+    private static final String DB_NAME = "chat_outbox.db";
+    private static final int DB_VERSION = 1;
+    private static final String TABLE = "outbox";
+    private static final String COL_SEQ = "seq";
+    private static final String COL_OP_ID = "op_id";
+    private static final String COL_OP = "op";
+    private static final String COL_CONVERSATION = "conversation_id";
+    private static final String COL_MESSAGE_ID = "message_id";
+    private static final String COL_SENT_AT = "sent_at";
+    private static final String COL_DATA = "data";
+    private static final String COL_ATTEMPTS = "attempts";
+    private static final String COL_NEXT_ATTEMPT_AT = "next_attempt_at";
+
+    // Documents read and written by drains since the process started (send benchmark)
+    static final AtomicLong documentReads = new AtomicLong();
+    static final AtomicLong documentWrites = new AtomicLong();
+
+    private static volatile MessageOutbox instance;
+
+    private final DbHelper helper;
+    private final FirebaseFirestore db;
+    // Single thread for disk I/O, batch building and commit callbacks: drains never overlap
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Random jitter = new Random();
+    private final OutboxDrainPolicy policy =
+            new OutboxDrainPolicy(MAX_BATCH_OPS, MAX_AUTO_ATTEMPTS, this::backoffWithJitter);
+
+    // In-memory only: callbacks of sends started by this process
+    private final Map<String, MessageRepository.SendMessageCallback> sendCallbacks = new ConcurrentHashMap<>();
+
+    private boolean draining = false;
+    private ScheduledFuture<?> scheduledDrain;
+    // Entries of the batch being committed (executor thread only): they can no longer be folded
+    private final Set<Long> inFlight = new HashSet<>();
+
+    private MessageOutbox(Context context) {
+        this.helper = new DbHelper(context.getApplicationContext());
+        this.db = FirebaseFirestore.getInstance();
+    }
+
+    public static MessageOutbox getInstance(Context context) {
+        if (instance == null) {
+            synchronized (MessageOutbox.class) {
+                if (instance == null) {
+                    instance = new MessageOutbox(context);
+                }
+            }
+        }
+        return instance;
+    }
+
+    // ===== Enqueue =====
+
+    /**
+     * Queue a message send. The message id must already be set (client-generated),
+     * it is the outbox key, so enqueuing the same message twice is a no-op.
+     */
+    public void enqueueSend(ChatMessage message, String currentUserId, MessageRepository.SendMessageCallback callback) {
+        if (callback != null) {
+            sendCallbacks.put(message.getId(), callback);
+        }
+
+        JSONObject data;
+        try {
+            data = ChatMessageCodec.encode(message);
+            data.put("currentUserId", currentUserId);
+        } catch (JSONException e) {
+            Log.e(TAG, "Failed to encode message " + message.getId(), e);
+            if (callback != null) callback.onFailure(e.getMessage());
+            return;
+        }
+
+        ContentValues values = new ContentValues();
+        values.put(COL_OP_ID, OP_SEND + ":" + message.getId());
+        values.put(COL_OP, OP_SEND);
+        values.put(COL_CONVERSATION, message.getConversationId());
+        values.put(COL_MESSAGE_ID, message.getId());
+        values.put(COL_SENT_AT, message.getSentAt().getTime());
+        values.put(COL_DATA, data.toString());
+        insert(values);
+    }
+
+    /**
+     * Queue a reaction toggle. Toggles of the same (message, emoji, user) that have not been
+     * sent yet are folded, so only the final state is written (or nothing, if it is unchanged).
+     */
+    public void enqueueReaction(String conversationId, String messageId, String emoji, String userId, boolean add) {
+        JSONObject data = new JSONObject();
+        try {
+            data.put("emoji", emoji);
+            data.put("userId", userId);
+        } catch (JSONException e) {
+            Log.e(TAG, "Failed to encode reaction", e);
+            return;
+        }
+
+        String reactionKey = "REACTION:" + messageId + ":" + emoji + ":" + userId;
+        executor.execute(() -> {
+            Entry pending = findEntry(reactionKey);
+            MutationFolding.Action action = MutationFolding.foldReaction(
+                    pending != null ? OP_REACTION_ADD.equals(pending.op) : null,
+                    pending != null && inFlight.contains(pending.seq),
+                    add);
+
+            ContentValues values = new ContentValues();
+            values.put(COL_OP_ID, reactionKey);
+            values.put(COL_OP, add ? OP_REACTION_ADD : OP_REACTION_REMOVE);
+            values.put(COL_CONVERSATION, conversationId);
+            values.put(COL_MESSAGE_ID, messageId);
+            values.put(COL_SENT_AT, System.currentTimeMillis());
+            values.put(COL_DATA, data.toString());
+            applyFold(action, reactionKey, values);
+        });
+    }
+
+    /**
+     * Queue a read mark: reset the user's unread count and move their read cursor.
+     * Marks of the same conversation that have not been sent yet are folded into the newest.
+     * @param readUpTo sentAt of the newest message read, null to only reset the count
+     */
+    public void enqueueReadMark(String conversationId, String userId, Date readUpTo) {
+        JSONObject data = new JSONObject();
+        try {
+            data.put("userId", userId);
+        } catch (JSONException e) {
+            Log.e(TAG, "Failed to encode read mark", e);
+            return;
+        }
+
+        String readKey = "READ:" + conversationId + ":" + userId;
+        long readUpToMs = readUpTo != null ? readUpTo.getTime() : 0;
+        executor.execute(() -> {
+            Entry pending = findEntry(readKey);
+            MutationFolding.Action action = MutationFolding.foldReadMark(
+                    pending != null ? pending.sentAt : null,
+                    pending != null && inFlight.contains(pending.seq),
+                    readUpToMs);
+
+            ContentValues values = new ContentValues();
+            values.put(COL_OP_ID, readKey);
+            values.put(COL_OP, OP_READ);
+            values.put(COL_CONVERSATION, conversationId);
+            values.put(COL_MESSAGE_ID, "");
+            values.put(COL_SENT_AT, readUpToMs); // the read cursor (0 = count reset only)
+            values.put(COL_DATA, data.toString());
+            applyFold(action, readKey, values);
+        });
+    }
+
+    // Runs on executor
+    private void applyFold(MutationFolding.Action action, String opId, ContentValues values) {
+        if (action == MutationFolding.Action.KEEP_PENDING) return;
+
+        // A pending entry in flight is deleted too: its commit still lands, and the
+        // success path only deletes by seq
+        helper.getWritableDatabase().delete(TABLE, COL_OP_ID + " = ?", new String[]{opId});
+        if (action == MutationFolding.Action.REPLACE) {
+            helper.getWritableDatabase().insert(TABLE, null, values);
+            drainSoon();
+        }
+    }
+
+    // Runs on executor
+    private Entry findEntry(String opId) {
+        try (Cursor c = helper.getReadableDatabase().query(TABLE, null,
+                COL_OP_ID + " = ?", new String[]{opId}, null, null, null)) {
+            return c.moveToFirst() ? Entry.from(c) : null;
+        }
+    }
+
+    private void insert(ContentValues values) {
+        executor.execute(() -> {
+            helper.getWritableDatabase().insertWithOnConflict(TABLE, null, values, SQLiteDatabase.CONFLICT_IGNORE);
+            drain();
+        });
+    }
+
+    // ===== Triggers =====
+
+    /**
+     * Make every waiting entry due and drain now (connectivity returned, app start).
+     * Sends parked after too many failed attempts get a fresh set of attempts too.
+     */
+    public void flushNow() {
+        executor.execute(() -> {
+            ContentValues unpark = new ContentValues();
+            unpark.put(COL_ATTEMPTS, 0);
+            helper.getWritableDatabase().update(TABLE, unpark,
+                    COL_NEXT_ATTEMPT_AT + " = ?", new String[]{String.valueOf(PARKED)});
+
+            ContentValues values = new ContentValues();
+            values.put(COL_NEXT_ATTEMPT_AT, 0);
+            helper.getWritableDatabase().update(TABLE, values, null, null);
+            drain();
+        });
+    }
+
+    /**
+     * Manual retry of one message (also un-parks it after too many automatic attempts)
+     */
+    public void retryNow(String messageId, MessageRepository.SendMessageCallback callback) {
+        if (callback != null) {
+            sendCallbacks.put(messageId, callback);
+        }
+        executor.execute(() -> {
+            ContentValues values = new ContentValues();
+            values.put(COL_NEXT_ATTEMPT_AT, 0);
+            values.put(COL_ATTEMPTS, 0);
+            helper.getWritableDatabase().update(TABLE, values,
+                    COL_OP_ID + " = ?", new String[]{OP_SEND + ":" + messageId});
+            drain();
+        });
+    }
+
+    /**
+     * Load sends of a conversation that have not been committed yet (e.g. queued before the
+     * app was killed), so the chat can show them as pending
+     */
+    public void loadPendingMessages(String conversationId, Consumer<List<ChatMessage>> callback) {
+        executor.execute(() -> {
+            List<ChatMessage> pending = new ArrayList<>();
+            try (Cursor c = helper.getReadableDatabase().query(TABLE,
+                    new String[]{COL_MESSAGE_ID, COL_SENT_AT, COL_DATA, COL_NEXT_ATTEMPT_AT},
+                    COL_OP + " = ? AND " + COL_CONVERSATION + " = ?",
+                    new String[]{OP_SEND, conversationId}, null, null, COL_SEQ + " ASC")) {
+                while (c.moveToNext()) {
+                    try {
+                        ChatMessage m = ChatMessageCodec.decode(new JSONObject(c.getString(2)));
+                        m.setId(c.getString(0));
+                        m.setConversationId(conversationId);
+                        m.setSentAt(new Date(c.getLong(1)));
+                        m.setStatus(c.getLong(3) == PARKED
+                                ? ChatMessage.MessageStatus.FAILED
+                                : ChatMessage.MessageStatus.PENDING);
+                        pending.add(m);
+                    } catch (JSONException e) {
+                        Log.w(TAG, "Skipping unreadable outbox entry " + c.getString(0), e);
+                    }
+                }
+            }
+            mainHandler.post(() -> callback.accept(pending));
+        });
+    }
+
+    // ===== Drain (runs on executor) =====
+
+    private void drain() {
+        if (draining) return;
+
+        List<Entry> queue = loadQueue();
+        long now = System.currentTimeMillis();
+        List<Entry> due = policy.nextBatch(queue, now);
+        if (due.isEmpty()) {
+            scheduleNextDrain(OutboxDrainPolicy.nextDueAt(queue, now));
+            return;
+        }
+
+        draining = true;
+        for (Entry e : due) {
+            inFlight.add(e.seq);
+        }
+        if (OP_INBOX.equals(due.get(0).op)) {
+            commitInbox(due.get(0));
+            return;
+        }
+        resolveParticipants(due,
+                participants -> commitBatch(due, participants),
+                err -> onBatchFailed(due, err));
+    }
+
+    private List<Entry> loadQueue() {
+        List<Entry> entries = new ArrayList<>();
+        try (Cursor c = helper.getReadableDatabase().query(TABLE, null, null, null,
+                null, null, COL_SEQ + " ASC")) {
+            while (c.moveToNext()) {
+                entries.add(Entry.from(c));
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Participant lists of the conversations receiving sends (cached, else read from the conversation)
+     * @param onError Called if a conversation could not be read: the batch is retried like a failed commit
+     */
+    private void resolveParticipants(List<Entry> entries, Consumer<Map<String, List<String>>> onReady,
+                                     Consumer<Exception> onError) {
+        Map<String, List<String>> participants = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (Entry e : entries) {
+            if (!OP_SEND.equals(e.op) || participants.containsKey(e.conversationId)) continue;
+            List<String> cached = MessageRepository.getCachedParticipants(e.conversationId);
+            if (cached != null) {
+                participants.put(e.conversationId, cached);
+            } else if (!missing.contains(e.conversationId)) {
+                missing.add(e.conversationId);
+            }
+        }
+
+        if (missing.isEmpty()) {
+            onReady.accept(participants);
+            return;
+        }
+
+        List<Task<DocumentSnapshot>> reads = new ArrayList<>();
+        for (String conversationId : missing) {
+            reads.add(db.collection("conversations").document(conversationId).get());
+        }
+        Tasks.whenAllComplete(reads).addOnCompleteListener(executor, t -> {
+            for (Task<DocumentSnapshot> read : reads) {
+                if (!read.isSuccessful()) {
+                    Exception err = read.getException();
+                    onError.accept(err != null ? err : new IllegalStateException("Conversation read failed"));
+                    return;
+                }
+                if (read.getResult() == null) continue;
+                documentReads.incrementAndGet();
+                DocumentSnapshot doc = read.getResult();
+                @SuppressWarnings("unchecked")
+                List<String> ids = (List<String>) doc.get("participantIds");
+                if (ids != null) {
+                    MessageRepository.cacheParticipants(doc.getId(), ids);
+                    participants.put(doc.getId(), ids);
+                }
+            }
+            onReady.accept(participants);
+        });
+    }
+
+    private void commitBatch(List<Entry> entries, Map<String, List<String>> participants) {
+        WriteBatch batch = db.batch();
+
+        // Sends of the same conversation are folded into one conversation update (last-message
+        // fields from the newest send) and one unread increment per member (by the send count)
+        Map<String, List<Entry>> sendsByConversation = new LinkedHashMap<>();
+
+        for (Entry e : entries) {
+            DocumentReference messageRef = db.collection("conversations")
+                    .document(e.conversationId)
+                    .collection("messages")
+                    .document(e.messageId);
+
+            switch (e.op) {
+                case OP_SEND:
+                    // Merge: a replay after a lost ack keeps reactions and read receipts
+                    batch.set(messageRef, e.toMessageData(), SetOptions.merge());
+                    List<Entry> sends = sendsByConversation.get(e.conversationId);
+                    if (sends == null) {
+                        sends = new ArrayList<>();
+                        sendsByConversation.put(e.conversationId, sends);
+                    }
+                    sends.add(e);
+                    break;
+                case OP_REACTION_ADD:
+                    batch.update(messageRef, "reactions." + e.data.optString("emoji"),
+                            FieldValue.arrayUnion(e.data.optString("userId")),
+                            "version", FieldValue.increment(1),
+                            "updatedAt", FieldValue.serverTimestamp());
+                    break;
+                case OP_REACTION_REMOVE:
+                    batch.update(messageRef, "reactions." + e.data.optString("emoji"),
+                            FieldValue.arrayRemove(e.data.optString("userId")),
+                            "version", FieldValue.increment(1),
+                            "updatedAt", FieldValue.serverTimestamp());
+                    break;
+                case OP_READ:
+                    String readerId = e.data.optString("userId");
+                    batch.set(ConversationInbox.entryRef(readerId, e.conversationId),
+                            ConversationInbox.readMarkData(readerId, e.conversationId),
+                            SetOptions.merge());
+                    if (e.sentAt > 0) {
+                        batch.set(ConversationInbox.memberRef(e.conversationId, readerId),
+                                ConversationInbox.readCursorData(readerId, new Date(e.sentAt)),
+                                SetOptions.merge());
+                    }
+                    break;
+            }
+        }
+
+        for (Map.Entry<String, List<Entry>> conv : sendsByConversation.entrySet()) {
+            List<Entry> sends = conv.getValue();
+            Entry last = sends.get(sends.size() - 1);
+            String senderId = last.data.optString("currentUserId");
+
+            Map<String, Object> convUpdates = new HashMap<>();
+            convUpdates.put("lastMessageText", previewText(last.data));
+            convUpdates.put("lastMessageAt", new Date(last.sentAt));
+            convUpdates.put("lastMessageSenderId", senderId);
+
+            batch.update(db.collection("conversations").document(conv.getKey()), convUpdates);
+        }
+
+        batch.commit()
+                .addOnSuccessListener(executor, aVoid -> {
+                    inFlight.clear();
+                    policy.onCommitted(entries);
+                    int writes = sendsByConversation.size();
+                    for (Entry e : entries) {
+                        writes += e.cost;
+                    }
+                    documentWrites.addAndGet(writes);
+                    // Unread counters and list previews live in the members' inbox documents: queued
+                    // once the messages exist, as entries of their own (a group may need more than one)
+                    List<ContentValues> fanOut = new ArrayList<>();
+                    for (Map.Entry<String, List<Entry>> conv : sendsByConversation.entrySet()) {
+                        fanOut.addAll(inboxFanOut(conv.getValue(), participants.get(conv.getKey())));
+                    }
+                    completeEntries(entries, fanOut);
+                    for (Entry e : entries) {
+                        if (OP_SEND.equals(e.op)) notifySent(e.messageId);
+                    }
+                    draining = false;
+                    drain(); // keep going until the queue is empty
+                })
+                .addOnFailureListener(executor, err -> onBatchFailed(entries, err));
+    }
+
+    // An inbox fan-out entry (always alone in its batch): the transaction skips members that
+    // already counted it, so committing it again after a crash does not inflate unread counts
+    private void commitInbox(Entry e) {
+        List<String> uids = e.inboxUids();
+        ConversationInbox.countMessagesSent(e.conversationId, uids, e.data.optString("senderId"),
+                        e.messageId, e.data.optLong("count"),
+                        e.data.optString("text"), new Date(e.sentAt))
+                .addOnSuccessListener(executor, aVoid -> {
+                    inFlight.clear();
+                    List<Entry> entries = Collections.singletonList(e);
+                    policy.onCommitted(entries);
+                    documentReads.addAndGet(uids.size());
+                    documentWrites.addAndGet(e.cost);
+                    completeEntries(entries, Collections.emptyList());
+                    draining = false;
+                    drain();
+                })
+                .addOnFailureListener(executor, err -> onBatchFailed(Collections.singletonList(e), err));
+    }
+
+    // Runs on executor
+    private void onBatchFailed(List<Entry> entries, Exception err) {
+        inFlight.clear();
+        boolean permanent = isRejected(err);
+        Log.e(TAG, "Outbox batch of " + entries.size() + " entries failed"
+                + (permanent ? " (rejected)" : ""), err);
+
+        OutboxDrainPolicy.Outcome<Entry> outcome =
+                policy.onFailed(entries, permanent, System.currentTimeMillis());
+        SQLiteDatabase w = helper.getWritableDatabase();
+        w.beginTransaction();
+        try {
+            for (Entry e : outcome.updated) {
+                ContentValues values = new ContentValues();
+                values.put(COL_ATTEMPTS, e.attempts);
+                values.put(COL_NEXT_ATTEMPT_AT, e.nextAttemptAt);
+                w.update(TABLE, values, COL_SEQ + " = ?", new String[]{String.valueOf(e.seq)});
+            }
+            for (Entry e : outcome.dropped) {
+                Log.w(TAG, "Dropping outbox entry " + e.op + " of " + e.conversationId);
+                w.delete(TABLE, COL_SEQ + " = ?", new String[]{String.valueOf(e.seq)});
+            }
+            w.setTransactionSuccessful();
+        } finally {
+            w.endTransaction();
+        }
+
+        String error = err != null ? err.getMessage() : null;
+        for (Entry e : outcome.failedSends) {
+            notifyFailed(e.messageId, error);
+        }
+        draining = false;
+        // Other conversations are not held back by this failure
+        drain();
+    }
+
+    // Whether the server refused the writes themselves: retrying the same batch can't succeed
+    private static boolean isRejected(Exception err) {
+        if (!(err instanceof FirebaseFirestoreException)) return false;
+        switch (((FirebaseFirestoreException) err).getCode()) {
+            case NOT_FOUND:
+            case PERMISSION_DENIED:
+            case INVALID_ARGUMENT:
+            case FAILED_PRECONDITION:
+            case OUT_OF_RANGE:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Inbox fan-out entries of the sends of one conversation committed together
+     * @param members Participants of the conversation, null if unknown (nothing is queued)
+     */
+    private static List<ContentValues> inboxFanOut(List<Entry> sends, List<String> members) {
+        List<ContentValues> out = new ArrayList<>();
+        if (members == null || members.isEmpty()) return out;
+
+        Entry last = sends.get(sends.size() - 1);
+        for (int start = 0; start < members.size(); start += MAX_BATCH_OPS) {
+            List<String> chunk = members.subList(start, Math.min(start + MAX_BATCH_OPS, members.size()));
+            JSONObject data = new JSONObject();
+            try {
+                data.put("uids", new JSONArray(chunk));
+                data.put("senderId", last.data.optString("currentUserId"));
+                data.put("count", sends.size());
+                data.put("text", previewText(last.data));
+            } catch (JSONException e) {
+                Log.e(TAG, "Failed to encode inbox fan-out of " + last.conversationId, e);
+                continue;
+            }
+
+            ContentValues values = new ContentValues();
+            values.put(COL_OP_ID, OP_INBOX + ":" + last.messageId + ":" + start);
+            values.put(COL_OP, OP_INBOX);
+            values.put(COL_CONVERSATION, last.conversationId);
+            values.put(COL_MESSAGE_ID, last.messageId);
+            values.put(COL_SENT_AT, last.sentAt);
+            values.put(COL_DATA, data.toString());
+            out.add(values);
+        }
+        return out;
+    }
+
+    // Remove committed entries and queue what they lead to, in one transaction
+    private void completeEntries(List<Entry> entries, List<ContentValues> followUps) {
+        SQLiteDatabase w = helper.getWritableDatabase();
+        w.beginTransaction();
+        try {
+            for (Entry e : entries) {
+                w.delete(TABLE, COL_SEQ + " = ?", new String[]{String.valueOf(e.seq)});
+            }
+            for (ContentValues values : followUps) {
+                w.insertWithOnConflict(TABLE, null, values, SQLiteDatabase.CONFLICT_IGNORE);
+            }
+            w.setTransactionSuccessful();
+        } finally {
+            w.endTransaction();
+        }
+    }
+
+    // Exponential backoff (1s, 2s, 4s ... max 1 min), randomized in [delay/2, delay]
+    private long backoffWithJitter(int attempts) {
+        long delay = Math.min(INITIAL_RETRY_DELAY_MS * (1L << Math.min(attempts - 1, 16)), MAX_RETRY_DELAY_MS);
+        return delay / 2 + (long) (jitter.nextDouble() * (delay / 2));
+    }
+
+    // Drain once the coalescing window has passed (or sooner if a drain is already due)
+    private void drainSoon() {
+        if (scheduledDrain != null && !scheduledDrain.isDone()
+                && scheduledDrain.getDelay(TimeUnit.MILLISECONDS) <= COALESCE_WINDOW_MS) {
+            return;
+        }
+        if (scheduledDrain != null) {
+            scheduledDrain.cancel(false);
+        }
+        scheduledDrain = executor.schedule(this::drain, COALESCE_WINDOW_MS, TimeUnit.MILLISECONDS);
+    }
+
+    // @param next Time of the next due entry, PARKED for none
+    private void scheduleNextDrain(long next) {
+        if (next == PARKED) return;
+        if (scheduledDrain != null) {
+            scheduledDrain.cancel(false);
+        }
+        long delay = Math.max(0, next - System.currentTimeMillis());
+        scheduledDrain = executor.schedule(this::drain, delay, TimeUnit.MILLISECONDS);
+    }
+
+    private void notifySent(String messageId) {
+        MessageRepository.SendMessageCallback callback = sendCallbacks.remove(messageId);
+        if (callback != null) {
+            mainHandler.post(() -> callback.onSuccess(messageId));
+        }
+    }
+
+    private void notifyFailed(String messageId, String error) {
+        MessageRepository.SendMessageCallback callback = sendCallbacks.get(messageId);
+        if (callback != null) {
+            mainHandler.post(() -> callback.onFailure(error));
+        }
+    }
+
+    // Chat list preview of a queued message (image messages have no text)
+    private static String previewText(JSONObject data) {
+        String text = data.optString("text");
+        if (text.isEmpty() && data.optString("fileType").startsWith("image/")) {
+            return "📷 Photo";
+        }
+        return text;
+    }
+
+    // ===== Entry =====
+
+    private static class Entry extends OutboxDrainPolicy.Item {
+        String op;
+        long sentAt;
+        JSONObject data;
+
+        static Entry from(Cursor c) {
+            Entry e = new Entry();
+            e.seq = c.getLong(c.getColumnIndexOrThrow(COL_SEQ));
+            e.op = c.getString(c.getColumnIndexOrThrow(COL_OP));
+            e.send = OP_SEND.equals(e.op);
+            e.conversationId = c.getString(c.getColumnIndexOrThrow(COL_CONVERSATION));
+            e.messageId = c.getString(c.getColumnIndexOrThrow(COL_MESSAGE_ID));
+            e.sentAt = c.getLong(c.getColumnIndexOrThrow(COL_SENT_AT));
+            e.attempts = c.getInt(c.getColumnIndexOrThrow(COL_ATTEMPTS));
+            e.nextAttemptAt = c.getLong(c.getColumnIndexOrThrow(COL_NEXT_ATTEMPT_AT));
+            try {
+                e.data = new JSONObject(c.getString(c.getColumnIndexOrThrow(COL_DATA)));
+            } catch (JSONException ex) {
+                e.data = new JSONObject();
+            }
+            if (OP_INBOX.equals(e.op)) {
+                e.cost = Math.max(1, e.inboxUids().size());
+                e.exclusive = true;
+            } else if (OP_READ.equals(e.op) && e.sentAt > 0) {
+                // Unread count reset + read cursor
+                e.cost = 2;
+            }
+            return e;
+        }
+
+        // Members an inbox fan-out entry writes to
+        List<String> inboxUids() {
+            List<String> uids = new ArrayList<>();
+            JSONArray array = data.optJSONArray("uids");
+            if (array != null) {
+                for (int i = 0; i < array.length(); i++) {
+                    uids.add(array.optString(i));
+                }
+            }
+            return uids;
+        }
+
+        Map<String, Object> toMessageData() {
+            ChatMessage m;
+            try {
+                m = ChatMessageCodec.decode(data);
+            } catch (JSONException ex) {
+                m = new ChatMessage();
+            }
+            m.setId(messageId);
+            m.setConversationId(conversationId);
+            m.setSentAt(new Date(sentAt));
+            return MessageRepository.buildMessageData(m);
+        }
+    }
+
+    private static class DbHelper extends SQLiteOpenHelper {
+
+        DbHelper(Context context) {
+            super(context, DB_NAME, null, DB_VERSION);
+        }
+
+        @Override
+        public void onCreate(SQLiteDatabase db) {
+            db.execSQL("CREATE TABLE " + TABLE + " ("
+                    + COL_SEQ + " INTEGER PRIMARY KEY AUTOINCREMENT, "
+                    + COL_OP_ID + " TEXT NOT NULL UNIQUE, "
+                    + COL_OP + " TEXT NOT NULL, "
+                    + COL_CONVERSATION + " TEXT NOT NULL, "
+                    + COL_MESSAGE_ID + " TEXT NOT NULL, "
+                    + COL_SENT_AT + " INTEGER NOT NULL, "
+                    + COL_DATA + " TEXT NOT NULL, "
+                    + COL_ATTEMPTS + " INTEGER NOT NULL DEFAULT 0, "
+                    + COL_NEXT_ATTEMPT_AT + " INTEGER NOT NULL DEFAULT 0)");
+        }
+
+        @Override
+        public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+            // Keep pending writes: future schema changes must migrate, not drop
+        }
+    }
+}
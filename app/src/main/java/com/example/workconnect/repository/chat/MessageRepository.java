@@ -1,11 +1,14 @@
 package com.example.workconnect.repository.chat;
 
+import android.content.Context;
+import android.net.Uri;
 import android.util.Log;
 
 import com.example.workconnect.models.ChatMessage;
 import com.google.firebase.firestore.FieldValue;
 import com.google.firebase.firestore.FirebaseFirestore;
-import com.google.firebase.firestore.WriteBatch;
+
+import org.json.JSONException;
 
 import java.util.ArrayList;
 import java.util.Date;
@@ -18,16 +21,17 @@ import java.util.function.Consumer;
 public class MessageRepository {
 
     private static final String TAG = "MessageRepository";
-    private static final int MAX_RETRY_ATTEMPTS = 5;
-    private static final long INITIAL_RETRY_DELAY_MS = 1000; // 1 second
-    private static final long MAX_RETRY_DELAY_MS = 30000; // 30 seconds
-
     private final FirebaseFirestore db;
-    private final Map<String, RetryTask> retryQueue = new ConcurrentHashMap<>();
-    private final Map<String, Integer> retryAttempts = new ConcurrentHashMap<>();
+    private final MessageOutbox outbox;
+    private final ChatImageUploader imageUploader;
 
-    public MessageRepository() {
+    // conversationId -> participantIds, shared by all repository instances
+    private static final Map<String, List<String>> participantsCache = new ConcurrentHashMap<>();
+
+    public MessageRepository(Context context) {
         this.db = FirebaseFirestore.getInstance();
+        this.outbox = MessageOutbox.getInstance(context);
+        this.imageUploader = new ChatImageUploader(context);
     }
 
     public interface SendMessageCallback {
@@ -35,6 +39,37 @@ public class MessageRepository {
         void onFailure(String error);
     }
 
+    /**
+     * Cache the participant list of a conversation for the send pipeline
+     * Call whenever a fresh conversation snapshot is received.
+     */
+    public static void cacheParticipants(String conversationId, List<String> participantIds) {
+        if (conversationId == null || participantIds == null) return;
+        participantsCache.put(conversationId, new ArrayList<>(participantIds));
+    }
+
+    /**
+     * Drop the cached participant list after members were added or removed
+     */
+    public static void invalidateParticipants(String conversationId) {
+        if (conversationId == null) return;
+        participantsCache.remove(conversationId);
+    }
+
+    public static List<String> getCachedParticipants(String conversationId) {
+        return conversationId != null ? participantsCache.get(conversationId) : null;
+    }
+
+    /**
+     * Send a message through the durable outbox.
+     * The message gets a client-generated id before it is queued; the id is the outbox key
+     * and the document id, so retries (automatic or manual, even after process death)
+     * can only overwrite the same document, never create a duplicate.
+     * The outbox commits the message and the conversation metadata in one batch. The members'
+     * inbox fan-out (preview and unread counters, {@link ConversationInbox}) is a separate,
+     * idempotent outbox commit afterwards, so the two are not atomic: a reader can briefly
+     * see the message before its unread count.
+     */
     public void sendMessage(ChatMessage message, String conversationId, String currentUserId, SendMessageCallback callback) {
         if (message == null || conversationId == null || currentUserId == null) {
             if (callback != null) {
@@ -43,153 +78,124 @@ public class MessageRepository {
             return;
         }
 
+        assignId(message, conversationId);
+        if (message.getSentAt() == null) {
+            message.setSentAt(new Date());
+        }
+        message.setConversationId(conversationId);
+
         // Set status to PENDING
         message.setStatus(ChatMessage.MessageStatus.PENDING);
 
-        // Create message data
-        Map<String, Object> messageData = new HashMap<>();
-        messageData.put("conversationId", message.getConversationId());
-        messageData.put("senderId", message.getSenderId());
-        messageData.put("text", message.getText());
-        messageData.put("sentAt", message.getSentAt() != null ? message.getSentAt() : new Date());
-        messageData.put("isRead", false);
-        messageData.put("readAt", null);
-        messageData.put("readBy", new ArrayList<String>()); // Initialize empty list for read receipts
-        messageData.put("messageType", message.getMessageType() != null ? message.getMessageType().name() : "TEXT");
-
-        // Add reply data if present
-        if (message.isReply()) {
-            messageData.put("replyToMessageId", message.getReplyToMessageId());
-            messageData.put("replyToText", message.getReplyToText());
-            messageData.put("replyToSenderId", message.getReplyToSenderId());
-            messageData.put("replyToSenderName", message.getReplyToSenderName());
-        }
-
-        // Add file data if present
-        if (message.hasFile()) {
-            messageData.put("fileUrl", message.getFileUrl());
-            messageData.put("fileName", message.getFileName());
-            messageData.put("fileType", message.getFileType());
-            if (message.getFileSize() != null) {
-                messageData.put("fileSize", message.getFileSize());
+        outbox.enqueueSend(message, currentUserId, new SendMessageCallback() {
+            @Override
+            public void onSuccess(String messageId) {
+                message.setStatus(ChatMessage.MessageStatus.SENT);
+                if (callback != null) {
+                    callback.onSuccess(messageId);
+                }
             }
-        }
-
-        // 1) Add message
-        db.collection("conversations")
-                .document(conversationId)
-                .collection("messages")
-                .add(messageData)
-                .addOnSuccessListener(documentReference -> {
-                    String messageId = documentReference.getId();
-                    message.setId(messageId);
-                    message.setStatus(ChatMessage.MessageStatus.SENT);
-
-                    // 2) Update conversation metadata
-                    updateConversationMetadata(conversationId, message.getText(), currentUserId);
-
-                    // 3) Update unread counts
-                    updateUnreadCounts(conversationId, currentUserId);
 
-                    // Remove from retry queue if it was there
-                    retryQueue.remove(messageId);
-                    retryAttempts.remove(messageId);
+            @Override
+            public void onFailure(String error) {
+                message.setStatus(ChatMessage.MessageStatus.FAILED);
+                if (callback != null) {
+                    callback.onFailure(error);
+                }
+            }
+        });
+    }
 
-                    if (callback != null) {
-                        callback.onSuccess(messageId);
-                    }
-                })
-                .addOnFailureListener(e -> {
-                    Log.e(TAG, "Failed to send message", e);
-                    message.setStatus(ChatMessage.MessageStatus.FAILED);
+    /**
+     * Build an image message: the image is downscaled, re-encoded and uploaded with its
+     * thumbnail first (see {@link ChatImageUploader}), then the message is handed back
+     * ready for {@link #sendMessage}. Nothing is queued if the upload fails.
+     * @param onReady Called on the main thread with the message (id, file and thumbnail set)
+     * @param onFailure Called on the main thread with an error message
+     */
+    public void prepareImageMessage(Uri image, String conversationId, String currentUserId,
+                                    Consumer<ChatMessage> onReady, Consumer<String> onFailure) {
+        if (image == null || conversationId == null || currentUserId == null) {
+            onFailure.accept("Invalid parameters");
+            return;
+        }
 
-                    // Add to retry queue
-                    String tempId = "temp_" + System.currentTimeMillis() + "_" + message.hashCode();
-                    message.setId(tempId);
-                    scheduleRetry(message, conversationId, currentUserId, callback);
+        ChatMessage message = new ChatMessage(null, conversationId, currentUserId, "", new Date(),
+                false, null, ChatMessage.MessageStatus.PENDING);
+        message.setMessageType(ChatMessage.MessageType.IMAGE);
+        // The id names the uploaded objects
+        assignId(message, conversationId);
+
+        imageUploader.upload(image, conversationId, message.getId(), new ChatImageUploader.UploadCallback() {
+            @Override
+            public void onSuccess(ChatImageUploader.Attachment attachment) {
+                message.setFileUrl(attachment.fileUrl);
+                message.setFileType(attachment.fileType);
+                message.setFileSize(attachment.fileSize);
+                message.setThumbnailUrl(attachment.thumbnailUrl);
+                message.setImageWidth(attachment.width);
+                message.setImageHeight(attachment.height);
+                message.setPlaceholder(attachment.placeholder);
+                // Sent once uploaded: ordered by the time it became ready
+                message.setSentAt(new Date());
+                onReady.accept(message);
+            }
 
-                    if (callback != null) {
-                        callback.onFailure(e.getMessage());
-                    }
-                });
+            @Override
+            public void onFailure(String error) {
+                onFailure.accept(error);
+            }
+        });
     }
 
-    private void updateConversationMetadata(String conversationId, String text, String currentUserId) {
-        db.collection("conversations")
-                .document(conversationId)
-                .update(
-                        "lastMessageText", text,
-                        "lastMessageAt", new Date(),
-                        "lastMessageSenderId", currentUserId
-                );
+    // Client-generated id (stable across retries)
+    private void assignId(ChatMessage message, String conversationId) {
+        if (message.getId() == null || message.getId().isEmpty()) {
+            message.setId(db.collection("conversations")
+                    .document(conversationId)
+                    .collection("messages")
+                    .document()
+                    .getId());
+        }
     }
 
-    private void updateUnreadCounts(String conversationId, String currentUserId) {
-        db.collection("conversations")
-                .document(conversationId)
-                .get()
-                .addOnSuccessListener(convDoc -> {
-                    List<String> participants = (List<String>) convDoc.get("participantIds");
-                    if (participants == null) return;
-
-                    WriteBatch batch = db.batch();
-                    for (String uid : participants) {
-                        if (uid == null) continue;
-
-                        if (uid.equals(currentUserId)) {
-                            batch.update(
-                                    db.collection("conversations").document(conversationId),
-                                    "unreadCounts." + uid, 0
-                            );
-                        } else {
-                            batch.update(
-                                    db.collection("conversations").document(conversationId),
-                                    "unreadCounts." + uid, FieldValue.increment(1)
-                            );
-                        }
-                    }
-                    batch.commit();
-                });
+    /**
+     * Flush queued writes now (connectivity returned)
+     */
+    public void flushOutbox() {
+        outbox.flushNow();
     }
 
-    private void scheduleRetry(ChatMessage message, String conversationId, String currentUserId, SendMessageCallback callback) {
-        String messageId = message.getId();
-        int attempts = retryAttempts.getOrDefault(messageId, 0);
-
-        if (attempts >= MAX_RETRY_ATTEMPTS) {
-            Log.w(TAG, "Max retry attempts reached for message: " + messageId);
-            retryQueue.remove(messageId);
-            retryAttempts.remove(messageId);
-            return;
-        }
-
-        // Calculate backoff delay (exponential: 1s, 2s, 4s, 8s, 16s, max 30s)
-        long delay = Math.min(INITIAL_RETRY_DELAY_MS * (1L << attempts), MAX_RETRY_DELAY_MS);
-
-        RetryTask retryTask = new RetryTask(message, conversationId, currentUserId, callback, delay);
-        retryQueue.put(messageId, retryTask);
-
-        // Schedule retry
-        new android.os.Handler(android.os.Looper.getMainLooper()).postDelayed(() -> {
-            if (retryQueue.containsKey(messageId)) {
-                retryAttempts.put(messageId, attempts + 1);
-                retryMessage(message, conversationId, currentUserId, callback);
-            }
-        }, delay);
+    /**
+     * Load this conversation's sends still waiting in the outbox
+     */
+    public void loadPendingMessages(String conversationId, Consumer<List<ChatMessage>> callback) {
+        outbox.loadPendingMessages(conversationId, callback);
     }
 
-    private void retryMessage(ChatMessage message, String conversationId, String currentUserId, SendMessageCallback callback) {
-        message.setStatus(ChatMessage.MessageStatus.PENDING);
-
+    /**
+     * Fields the sender owns, merged into the message document (SetOptions.merge()).
+     * A replayed send must not reset what others changed since the first commit, so read
+     * receipts and reactions are left out and the version is incremented: 1 on create, and
+     * only ever forward on a replay.
+     */
+    static Map<String, Object> buildMessageData(ChatMessage message) {
         Map<String, Object> messageData = new HashMap<>();
         messageData.put("conversationId", message.getConversationId());
         messageData.put("senderId", message.getSenderId());
         messageData.put("text", message.getText());
-        messageData.put("sentAt", message.getSentAt() != null ? message.getSentAt() : new Date());
-        messageData.put("isRead", false);
-        messageData.put("readAt", null);
-        messageData.put("readBy", new ArrayList<String>()); // Initialize empty list for read receipts
+        messageData.put("sentAt", message.getSentAt());
         messageData.put("messageType", message.getMessageType() != null ? message.getMessageType().name() : "TEXT");
+        messageData.put("version", FieldValue.increment(1));
+        messageData.put("updatedAt", FieldValue.serverTimestamp());
+
+        // Add reply data if present
+        if (message.isReply()) {
+            messageData.put("replyToMessageId", message.getReplyToMessageId());
+            messageData.put("replyToText", message.getReplyToText());
+            messageData.put("replyToSenderId", message.getReplyToSenderId());
+            messageData.put("replyToSenderName", message.getReplyToSenderName());
+        }
 
         // Add file data if present
         if (message.hasFile()) {
@@ -199,69 +205,93 @@ public class MessageRepository {
             if (message.getFileSize() != null) {
                 messageData.put("fileSize", message.getFileSize());
             }
+            if (message.getThumbnailUrl() != null) {
+                messageData.put("thumbnailUrl", message.getThumbnailUrl());
+            }
+            if (message.getImageWidth() > 0 && message.getImageHeight() > 0) {
+                messageData.put("imageWidth", message.getImageWidth());
+                messageData.put("imageHeight", message.getImageHeight());
+            }
+            if (message.getPlaceholder() != null) {
+                messageData.put("placeholder", message.getPlaceholder());
+            }
         }
-
-        db.collection("conversations")
-                .document(conversationId)
-                .collection("messages")
-                .add(messageData)
-                .addOnSuccessListener(documentReference -> {
-                    String messageId = documentReference.getId();
-                    message.setId(messageId);
-                    message.setStatus(ChatMessage.MessageStatus.SENT);
-
-                    updateConversationMetadata(conversationId, message.getText(), currentUserId);
-                    updateUnreadCounts(conversationId, currentUserId);
-
-                    retryQueue.remove(message.getId());
-                    retryAttempts.remove(message.getId());
-
-                    if (callback != null) {
-                        callback.onSuccess(messageId);
-                    }
-                })
-                .addOnFailureListener(e -> {
-                    Log.e(TAG, "Retry failed for message", e);
-                    message.setStatus(ChatMessage.MessageStatus.FAILED);
-                    scheduleRetry(message, conversationId, currentUserId, callback);
-                });
+        return messageData;
     }
 
     public void retryMessageManually(ChatMessage message, String conversationId, String currentUserId, SendMessageCallback callback) {
-        String messageId = message.getId();
-        retryAttempts.remove(messageId); // Reset attempts for manual retry
-        retryQueue.remove(messageId);
-        retryMessage(message, conversationId, currentUserId, callback);
+        if (message == null || message.getId() == null) {
+            return;
+        }
+        message.setStatus(ChatMessage.MessageStatus.PENDING);
+
+        // Re-enqueue is a no-op if the entry is still queued (same id); retryNow makes it due
+        sendMessage(message, conversationId, currentUserId, callback);
+        outbox.retryNow(message.getId(), null);
     }
 
-    // Add reaction to a message
+    // Add reaction to a message (queued, survives going offline)
     public void addReaction(String messageId, String emoji, String userId, String conversationId) {
         if (messageId == null || emoji == null || userId == null || conversationId == null) {
             return;
         }
-
-        db.collection("conversations")
-                .document(conversationId)
-                .collection("messages")
-                .document(messageId)
-                .update("reactions." + emoji, FieldValue.arrayUnion(userId))
-                .addOnSuccessListener(aVoid -> Log.d(TAG, "Reaction added: " + emoji))
-                .addOnFailureListener(e -> Log.e(TAG, "Failed to add reaction", e));
+        outbox.enqueueReaction(conversationId, messageId, emoji, userId, true);
     }
 
-    // Remove reaction from a message
+    // Remove reaction from a message (queued, survives going offline)
     public void removeReaction(String messageId, String emoji, String userId, String conversationId) {
         if (messageId == null || emoji == null || userId == null || conversationId == null) {
             return;
         }
+        outbox.enqueueReaction(conversationId, messageId, emoji, userId, false);
+    }
+
+    /**
+     * Mark a conversation as read for a user (queued; bursts are folded into one write)
+     * @param readUpTo sentAt of the newest message read, null to only reset the unread count
+     */
+    public void markRead(String conversationId, String userId, Date readUpTo) {
+        if (conversationId == null || userId == null) {
+            return;
+        }
+        outbox.enqueueReadMark(conversationId, userId, readUpTo);
+    }
 
-        db.collection("conversations")
-                .document(conversationId)
-                .collection("messages")
-                .document(messageId)
-                .update("reactions." + emoji, FieldValue.arrayRemove(userId))
-                .addOnSuccessListener(aVoid -> Log.d(TAG, "Reaction removed: " + emoji))
-                .addOnFailureListener(e -> Log.e(TAG, "Failed to remove reaction", e));
+    /**
+     * Copy of a message with one reaction added or removed, shown right away while the
+     * queued write is pending (the server copy replaces it once it arrives)
+     */
+    public static ChatMessage withReaction(ChatMessage message, String emoji, String userId, boolean add) {
+        ChatMessage copy;
+        try {
+            copy = ChatMessageCodec.decode(ChatMessageCodec.encode(message));
+        } catch (JSONException e) {
+            Log.w(TAG, "Could not copy message " + message.getId(), e);
+            return message;
+        }
+        copy.setId(message.getId());
+        copy.setConversationId(message.getConversationId());
+        copy.setSentAt(message.getSentAt());
+        copy.setStatus(message.getStatus());
+        // Same document version as the message: the local revision makes the list rebind the row
+        copy.setLocalRevision(message.getLocalRevision() + 1);
+
+        Map<String, List<String>> reactions = copy.getReactions() != null
+                ? new HashMap<>(copy.getReactions()) : new HashMap<>();
+        List<String> users = reactions.get(emoji) != null
+                ? new ArrayList<>(reactions.get(emoji)) : new ArrayList<>();
+        if (add) {
+            if (!users.contains(userId)) users.add(userId);
+        } else {
+            users.remove(userId);
+        }
+        if (users.isEmpty()) {
+            reactions.remove(emoji);
+        } else {
+            reactions.put(emoji, users);
+        }
+        copy.setReactions(reactions);
+        return copy;
     }
 
     /**
@@ -314,20 +344,4 @@ public class MessageRepository {
                     callback.accept("Group");
                 });
     }
-
-    private static class RetryTask {
-        final ChatMessage message;
-        final String conversationId;
-        final String currentUserId;
-        final SendMessageCallback callback;
-        final long delay;
-
-        RetryTask(ChatMessage message, String conversationId, String currentUserId, SendMessageCallback callback, long delay) {
-            this.message = message;
-            this.conversationId = conversationId;
-            this.currentUserId = currentUserId;
-            this.callback = callback;
-            this.delay = delay;
-        }
-    }
-}
\ No newline at end of file
+}
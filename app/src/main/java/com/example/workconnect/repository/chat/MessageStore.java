@@ -0,0 +1,73 @@
+package com.example.workconnect.repository.chat;
+
+import com.example.workconnect.models.ChatMessage;
+
+import java.util.Date;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * On-device store of chat messages already synced from Firestore.
+ * Lets a chat render from disk immediately and only fetch documents newer than what is stored.
+ *
+ * Implementations run disk I/O off the main thread and deliver callbacks on the main thread.
+ * Every page is returned oldest first (same order as ChatActivity's message list).
+ */
+public interface MessageStore {
+
+    /**
+     * Load the newest stored messages of a conversation
+     * @param conversationId Conversation ID
+     * @param limit Max number of messages
+     * @param callback Callback with messages ordered by sentAt (oldest first), empty if nothing stored
+     */
+    void loadLatest(String conversationId, int limit, Consumer<List<ChatMessage>> callback);
+
+    /**
+     * Load a page of stored messages sent strictly before a message, in (sentAt, id) order
+     * so messages sharing a sentAt at a page edge are not skipped
+     * @param conversationId Conversation ID
+     * @param before sentAt of the oldest loaded message
+     * @param beforeId Its id
+     * @param limit Max number of messages
+     * @param callback Callback with messages ordered by sentAt (oldest first)
+     */
+    void loadBefore(String conversationId, Date before, String beforeId, int limit,
+                    Consumer<List<ChatMessage>> callback);
+
+    /**
+     * Delta sync watermark: newest updatedAt among the stored messages of a conversation
+     * (a message's updatedAt moves on every server write, so edits to stored history are caught too)
+     * @param callback Callback with the watermark, null if nothing with an updatedAt is stored
+     */
+    void loadSyncWatermark(String conversationId, Consumer<Date> callback);
+
+    /**
+     * Insert or replace synced messages (messages without an id are ignored)
+     */
+    void saveMessages(String conversationId, List<ChatMessage> messages);
+
+    /**
+     * Replace synced messages that are already stored, ignoring the others.
+     * Used for writes to history the chat has not loaded: inserting them could leave a gap
+     * in the stored range, but stored copies must not go stale behind the watermark.
+     */
+    void updateMessages(String conversationId, List<ChatMessage> messages);
+
+    /**
+     * Remove a message that was deleted on the server
+     */
+    void removeMessage(String conversationId, String messageId);
+
+    /**
+     * Drop every stored message sent before a given time.
+     * Used when a sync leaves a gap between stored history and the fresh window,
+     * so the store always holds one contiguous range per conversation.
+     */
+    void removeMessagesBefore(String conversationId, Date before);
+
+    /**
+     * Drop every stored message of a conversation (a delta sync fell too far behind)
+     */
+    void removeConversation(String conversationId);
+}
@@ -0,0 +1,40 @@
+package com.example.workconnect.repository.chat;
+
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Query;
+
+import java.util.Date;
+
+/**
+ * Query behind a chat's tail listener (ChatActivity), kept here so the emulator tests run the same one.
+ *
+ * - Without a watermark (nothing stored): the newest page of messages by sentAt
+ * - With a watermark ({@link MessageStore#loadSyncWatermark}): every message written after it,
+ *   newest write first. New messages and reactions to stored history both move updatedAt,
+ *   so one listener keeps the whole stored range current.
+ */
+public final class MessageSyncQuery {
+
+    public static final String SENT_AT = "sentAt";
+    public static final String UPDATED_AT = "updatedAt";
+
+    private MessageSyncQuery() {
+    }
+
+    public static Query tail(FirebaseFirestore db, String conversationId, Date watermark, int limit) {
+        Query query = db.collection("conversations")
+                .document(conversationId)
+                .collection("messages");
+        if (watermark != null) {
+            query = query.whereGreaterThan(UPDATED_AT, watermark);
+        }
+        return query.orderBy(orderField(watermark), Query.Direction.DESCENDING).limit(limit);
+    }
+
+    /**
+     * Field the tail window is ordered by: a document pushed out of the window is older on this field
+     */
+    public static String orderField(Date watermark) {
+        return watermark != null ? UPDATED_AT : SENT_AT;
+    }
+}
@@ -0,0 +1,160 @@
+package com.example.workconnect.repository.chat;
+
+import android.util.Log;
+
+import com.example.workconnect.models.ChatMessage;
+import com.example.workconnect.repository.decode.ModelMappers;
+import com.example.workconnect.repository.decode.SnapshotDecoder;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Random-access pages of a conversation's history, keyed by (sentAt, message id).
+ *
+ * - {@link #loadAround} loads a window centred on any message (reply jumps, search hits):
+ *   one read for the anchor, then half a page on each side of it
+ * - {@link #loadBefore} / {@link #loadAfter} extend a window in either direction
+ *
+ * Messages are ordered by sentAt then document id, and cursors carry both: messages sharing
+ * a sentAt at a page edge (batched sends, imports) are neither skipped nor repeated.
+ *
+ * Pages are decoded off the main thread and delivered oldest first, on the main thread.
+ */
+public class MessageWindowSource {
+
+    private static final String TAG = "MessageWindowSource";
+
+    private final FirebaseFirestore db = FirebaseFirestore.getInstance();
+
+    public interface PageCallback {
+        void onSuccess(Page page);
+        void onFailure(String error);
+    }
+
+    /**
+     * One page of history
+     */
+    public static class Page {
+        // Ordered by sentAt, oldest first
+        public final List<ChatMessage> messages;
+        // Whether more messages exist before / after this page
+        public final boolean hasOlder;
+        public final boolean hasNewer;
+
+        Page(List<ChatMessage> messages, boolean hasOlder, boolean hasNewer) {
+            this.messages = messages;
+            this.hasOlder = hasOlder;
+            this.hasNewer = hasNewer;
+        }
+    }
+
+    /**
+     * Load a page centred on a message
+     * @param pageSize Messages in the page (the anchor included)
+     */
+    public void loadAround(String conversationId, String messageId, int pageSize, PageCallback callback) {
+        CollectionReference ref = messagesRef(conversationId);
+        ref.document(messageId).get()
+                .addOnSuccessListener(anchorDoc -> {
+                    Date anchor = anchorDoc.exists() ? anchorDoc.getDate("sentAt") : null;
+                    if (anchor == null) {
+                        callback.onFailure("Message not found");
+                        return;
+                    }
+
+                    int newerCount = pageSize / 2;
+                    int olderCount = pageSize - newerCount; // anchor included
+
+                    Task<QuerySnapshot> older = ordered(ref, Query.Direction.DESCENDING)
+                            .startAt(anchor, messageId)
+                            .limit(olderCount)
+                            .get();
+                    Task<QuerySnapshot> newer = ordered(ref, Query.Direction.ASCENDING)
+                            .startAfter(anchor, messageId)
+                            .limit(newerCount)
+                            .get();
+
+                    Tasks.whenAllSuccess(older, newer)
+                            .addOnSuccessListener(results -> {
+                                List<DocumentSnapshot> olderDocs = older.getResult().getDocuments();
+                                List<DocumentSnapshot> newerDocs = newer.getResult().getDocuments();
+
+                                List<DocumentSnapshot> docs = new ArrayList<>(olderDocs);
+                                Collections.reverse(docs); // Oldest first
+                                docs.addAll(newerDocs);
+
+                                deliver(docs, olderDocs.size() >= olderCount, newerDocs.size() >= newerCount, callback);
+                            })
+                            .addOnFailureListener(e -> fail("loadAround", e, callback));
+                })
+                .addOnFailureListener(e -> fail("loadAround", e, callback));
+    }
+
+    /**
+     * Load the page sent strictly before a message
+     * @param before sentAt of the oldest loaded message
+     * @param beforeId Its id
+     */
+    public void loadBefore(String conversationId, Date before, String beforeId, int limit, PageCallback callback) {
+        ordered(messagesRef(conversationId), Query.Direction.DESCENDING)
+                .startAfter(before, beforeId)
+                .limit(limit)
+                .get()
+                .addOnSuccessListener(snap -> {
+                    List<DocumentSnapshot> docs = new ArrayList<>(snap.getDocuments());
+                    Collections.reverse(docs); // Oldest first
+                    deliver(docs, docs.size() >= limit, true, callback);
+                })
+                .addOnFailureListener(e -> fail("loadBefore", e, callback));
+    }
+
+    /**
+     * Load the page sent strictly after a message
+     * @param after sentAt of the newest loaded message
+     * @param afterId Its id
+     */
+    public void loadAfter(String conversationId, Date after, String afterId, int limit, PageCallback callback) {
+        ordered(messagesRef(conversationId), Query.Direction.ASCENDING)
+                .startAfter(after, afterId)
+                .limit(limit)
+                .get()
+                .addOnSuccessListener(snap -> {
+                    List<DocumentSnapshot> docs = snap.getDocuments();
+                    deliver(docs, true, docs.size() >= limit, callback);
+                })
+                .addOnFailureListener(e -> fail("loadAfter", e, callback));
+    }
+
+    private CollectionReference messagesRef(String conversationId) {
+        return db.collection("conversations")
+                .document(conversationId)
+                .collection("messages");
+    }
+
+    // sentAt, then document id to break ties (served by the single-field sentAt index)
+    private static Query ordered(CollectionReference ref, Query.Direction direction) {
+        return ref.orderBy("sentAt", direction)
+                .orderBy(FieldPath.documentId(), direction);
+    }
+
+    private static void deliver(List<DocumentSnapshot> docs, boolean hasOlder, boolean hasNewer, PageCallback callback) {
+        SnapshotDecoder.decode(docs, ModelMappers.CHAT_MESSAGE,
+                messages -> callback.onSuccess(new Page(messages, hasOlder, hasNewer)));
+    }
+
+    private static void fail(String operation, Exception e, PageCallback callback) {
+        Log.e(TAG, operation + " failed", e);
+        callback.onFailure(e.getMessage() != null ? e.getMessage() : "Error loading messages");
+    }
+}
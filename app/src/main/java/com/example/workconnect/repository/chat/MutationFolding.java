@@ -0,0 +1,46 @@
+package com.example.workconnect.repository.chat;
+
+/**
+ * Decides how a new outbox mutation combines with a pending one for the same target
+ * (same message/emoji/user for reactions, same conversation/user for read marks).
+ *
+ * Pure logic, kept apart from {@link MessageOutbox} so it can be unit tested.
+ */
+final class MutationFolding {
+
+    enum Action {
+        // Queue the new mutation (a pending one is deleted first)
+        REPLACE,
+        // The new mutation undoes the pending one: delete it and queue nothing
+        DROP_BOTH,
+        // The pending mutation already writes the same state
+        KEEP_PENDING
+    }
+
+    private MutationFolding() {
+    }
+
+    /**
+     * Reaction add/remove
+     * @param pendingAdd Whether the pending entry adds the reaction, null if there is none
+     * @param pendingInFlight Whether the pending entry is part of a batch being committed
+     */
+    static Action foldReaction(Boolean pendingAdd, boolean pendingInFlight, boolean add) {
+        // A batch in flight can't be recalled: the new state must be written after it
+        if (pendingAdd == null || pendingInFlight) return Action.REPLACE;
+        // Same toggle twice: nothing new to write
+        if (pendingAdd == add) return Action.KEEP_PENDING;
+        // Add then remove (or the reverse) before anything was written: back to the server state
+        return Action.DROP_BOTH;
+    }
+
+    /**
+     * Read mark (read cursor moves forward only)
+     * @param pendingReadUpTo Cursor of the pending entry (0 = only resets the count), null if there is none
+     * @param pendingInFlight Whether the pending entry is part of a batch being committed
+     */
+    static Action foldReadMark(Long pendingReadUpTo, boolean pendingInFlight, long readUpTo) {
+        if (pendingReadUpTo == null || pendingInFlight) return Action.REPLACE;
+        return readUpTo > pendingReadUpTo ? Action.REPLACE : Action.KEEP_PENDING;
+    }
+}
@@ -0,0 +1,211 @@
+package com.example.workconnect.repository.chat;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Decides what the outbox commits next and what happens to entries of a failed commit.
+ *
+ * - A batch holds the entries of one conversation (the one with the oldest due entry), in queue
+ *   order, up to {@code maxOps} writes. The first send of a batch also carries the conversation
+ *   metadata update.
+ * - Sends are delivered in order: a send waiting for a retry (backoff or parked) holds back the
+ *   later sends of its conversation. Reactions, read marks and inbox fan-outs never hold anything
+ *   back, they only wait for the send of their own message.
+ * - An exclusive entry (one committed by a transaction instead of a batch) is always alone.
+ * - A batch rejected for good (e.g. a reaction to a deleted message) is split in halves until the
+ *   entry at fault is found: a send is parked until a manual retry, anything else is dropped.
+ * - A batch that failed for a transient reason counts one attempt per entry, each entry backing
+ *   off from its own count. After {@code maxAttempts} a send is parked, anything else is dropped.
+ *
+ * Pure logic, kept apart from {@link MessageOutbox} so it can be unit tested.
+ */
+final class OutboxDrainPolicy {
+
+    // nextAttemptAt of a send that waits for a manual retry
+    static final long PARKED = Long.MAX_VALUE;
+
+    /**
+     * What the policy needs to know about one queued entry
+     */
+    static class Item {
+        long seq;
+        boolean send;
+        String conversationId;
+        String messageId;
+        int attempts;
+        long nextAttemptAt;
+        // Documents the entry writes
+        int cost = 1;
+        // Committed on its own (e.g. in a transaction), never batched with other entries
+        boolean exclusive;
+    }
+
+    interface Backoff {
+        /**
+         * @return Delay before the next attempt of an entry that failed {@code attempts} times
+         */
+        long delayMs(int attempts);
+    }
+
+    /**
+     * Changes to apply to the entries of a failed batch
+     */
+    static final class Outcome<T extends Item> {
+        // Entries whose attempts / nextAttemptAt changed (parked sends included)
+        final List<T> updated = new ArrayList<>();
+        // Entries to delete from the queue
+        final List<T> dropped = new ArrayList<>();
+        // Sends that failed an attempt (their callers are told)
+        final List<T> failedSends = new ArrayList<>();
+        // Nothing was counted: the batch is being split, drain again right away
+        boolean retryNow;
+    }
+
+    private final int maxOps;
+    private final int maxAttempts;
+    private final Backoff backoff;
+
+    // conversationId -> max entries per batch while a rejected batch is being split
+    private final Map<String, Integer> splitLimits = new HashMap<>();
+
+    OutboxDrainPolicy(int maxOps, int maxAttempts, Backoff backoff) {
+        this.maxOps = maxOps;
+        this.maxAttempts = maxAttempts;
+        this.backoff = backoff;
+    }
+
+    /**
+     * Pick the next batch
+     * @param queue Every queued entry, in queue (seq) order
+     * @return Entries to commit together, empty if nothing is due
+     */
+    <T extends Item> List<T> nextBatch(List<T> queue, long now) {
+        String conversationId = null;
+        Waiting waiting = new Waiting();
+        for (T item : queue) {
+            if (waiting.isDue(item, now)) {
+                conversationId = item.conversationId;
+                break;
+            }
+        }
+        List<T> batch = new ArrayList<>();
+        if (conversationId == null) return batch;
+
+        Integer limit = splitLimits.get(conversationId);
+        waiting = new Waiting();
+        boolean hasSend = false;
+        int ops = 0;
+        for (T item : queue) {
+            if (!conversationId.equals(item.conversationId) || !waiting.isDue(item, now)) continue;
+
+            if (item.exclusive) {
+                if (batch.isEmpty()) batch.add(item);
+                break;
+            }
+            int cost = item.cost + (item.send && !hasSend ? 1 : 0);
+            if (ops + cost > maxOps || (limit != null && batch.size() >= limit)) break;
+            ops += cost;
+            hasSend |= item.send;
+            batch.add(item);
+        }
+        return batch;
+    }
+
+    /**
+     * The batch was committed
+     */
+    <T extends Item> void onCommitted(List<T> batch) {
+        if (batch.isEmpty()) return;
+        String conversationId = batch.get(0).conversationId;
+        Integer limit = splitLimits.get(conversationId);
+        // Everything left in the conversation went through: the rejected entry is gone (e.g. folded away)
+        if (limit != null && batch.size() < limit) {
+            splitLimits.remove(conversationId);
+        }
+    }
+
+    /**
+     * The batch failed
+     * @param permanent Whether retrying the same writes can't succeed (rejected by the server)
+     */
+    <T extends Item> Outcome<T> onFailed(List<T> batch, boolean permanent, long now) {
+        Outcome<T> outcome = new Outcome<>();
+        if (batch.isEmpty()) return outcome;
+        String conversationId = batch.get(0).conversationId;
+
+        if (permanent && batch.size() > 1) {
+            // One entry is at fault: retry with half the batch until it is alone
+            splitLimits.put(conversationId, batch.size() / 2);
+            outcome.retryNow = true;
+            return outcome;
+        }
+
+        if (permanent) {
+            splitLimits.remove(conversationId);
+            giveUp(batch.get(0), outcome);
+            return outcome;
+        }
+
+        for (T item : batch) {
+            item.attempts++;
+            if (item.attempts >= maxAttempts) {
+                giveUp(item, outcome);
+            } else {
+                item.nextAttemptAt = now + backoff.delayMs(item.attempts);
+                outcome.updated.add(item);
+                if (item.send) outcome.failedSends.add(item);
+            }
+        }
+        return outcome;
+    }
+
+    private <T extends Item> void giveUp(T item, Outcome<T> outcome) {
+        if (item.send) {
+            item.nextAttemptAt = PARKED;
+            outcome.updated.add(item);
+            outcome.failedSends.add(item);
+        } else {
+            outcome.dropped.add(item);
+        }
+    }
+
+    /**
+     * When to drain again after {@link #nextBatch} found nothing due: entries due now are held back
+     * by a waiting send, so only an entry coming out of backoff can change that
+     * @return {@link #PARKED} if nothing will become due without a manual retry
+     */
+    static <T extends Item> long nextDueAt(List<T> queue, long now) {
+        long next = PARKED;
+        for (T item : queue) {
+            if (item.nextAttemptAt > now) {
+                next = Math.min(next, item.nextAttemptAt);
+            }
+        }
+        return next;
+    }
+
+    // Sends waiting for a retry seen so far in a queue scan, and what they hold back
+    private static final class Waiting {
+        private final Set<String> conversations = new HashSet<>();
+        private final Set<String> messages = new HashSet<>();
+
+        // Call in queue order: whether an entry could be committed now (ignoring batch size)
+        boolean isDue(Item item, long now) {
+            if (item.send) {
+                if (item.nextAttemptAt > now || conversations.contains(item.conversationId)) {
+                    conversations.add(item.conversationId);
+                    messages.add(item.messageId);
+                    return false;
+                }
+                return true;
+            }
+            // A reaction to a message that is not written yet would be rejected
+            return item.nextAttemptAt <= now && !messages.contains(item.messageId);
+        }
+    }
+}
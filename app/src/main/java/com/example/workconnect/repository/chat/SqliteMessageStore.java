@@ -0,0 +1,236 @@
+package com.example.workconnect.repository.chat;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.example.workconnect.models.ChatMessage;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * SQLite-backed {@link MessageStore}.
+ * One row per message: indexed columns for lookups (conversation, sentAt, updatedAt) and the
+ * remaining fields as a JSON blob, so model changes don't need a schema migration.
+ */
+public class SqliteMessageStore implements MessageStore {
+
+    private static final String TAG = "SqliteMessageStore";
+
+    private static final String DB_NAME = "chat_messages.db";
+    private static final int DB_VERSION = 2;
+
+    private static final String TABLE = "messages";
+    private static final String COL_ID = "id";
+    private static final String COL_CONVERSATION = "conversation_id";
+    private static final String COL_SENT_AT = "sent_at";
+    // Null for documents written before messages carried an updatedAt
+    private static final String COL_UPDATED_AT = "updated_at";
+    private static final String COL_DATA = "data";
+
+    private static volatile SqliteMessageStore instance;
+
+    private final DbHelper helper;
+    // Single writer thread keeps reads and writes ordered per conversation
+    private final ExecutorService ioExecutor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    private SqliteMessageStore(Context context) {
+        this.helper = new DbHelper(context.getApplicationContext());
+    }
+
+    public static SqliteMessageStore getInstance(Context context) {
+        if (instance == null) {
+            synchronized (SqliteMessageStore.class) {
+                if (instance == null) {
+                    instance = new SqliteMessageStore(context);
+                }
+            }
+        }
+        return instance;
+    }
+
+    @Override
+    public void loadLatest(String conversationId, int limit, Consumer<List<ChatMessage>> callback) {
+        ioExecutor.execute(() -> {
+            List<ChatMessage> result = query(conversationId,
+                    COL_CONVERSATION + " = ?", new String[]{conversationId}, limit);
+            mainHandler.post(() -> callback.accept(result));
+        });
+    }
+
+    @Override
+    public void loadBefore(String conversationId, Date before, String beforeId, int limit,
+                           Consumer<List<ChatMessage>> callback) {
+        if (before == null || beforeId == null) {
+            mainHandler.post(() -> callback.accept(new ArrayList<>()));
+            return;
+        }
+        ioExecutor.execute(() -> {
+            String sentAt = String.valueOf(before.getTime());
+            List<ChatMessage> result = query(conversationId,
+                    COL_CONVERSATION + " = ? AND (" + COL_SENT_AT + " < ? OR ("
+                            + COL_SENT_AT + " = ? AND " + COL_ID + " < ?))",
+                    new String[]{conversationId, sentAt, sentAt, beforeId}, limit);
+            mainHandler.post(() -> callback.accept(result));
+        });
+    }
+
+    @Override
+    public void loadSyncWatermark(String conversationId, Consumer<Date> callback) {
+        ioExecutor.execute(() -> {
+            Date watermark = null;
+            try (Cursor c = helper.getReadableDatabase().rawQuery(
+                    "SELECT MAX(" + COL_UPDATED_AT + ") FROM " + TABLE + " WHERE " + COL_CONVERSATION + " = ?",
+                    new String[]{conversationId})) {
+                if (c.moveToFirst() && !c.isNull(0)) {
+                    watermark = new Date(c.getLong(0));
+                }
+            }
+            final Date result = watermark;
+            mainHandler.post(() -> callback.accept(result));
+        });
+    }
+
+    @Override
+    public void saveMessages(String conversationId, List<ChatMessage> messages) {
+        write(conversationId, messages, true);
+    }
+
+    @Override
+    public void updateMessages(String conversationId, List<ChatMessage> messages) {
+        write(conversationId, messages, false);
+    }
+
+    // @param insert Whether messages that are not stored yet are inserted, or skipped
+    private void write(String conversationId, List<ChatMessage> messages, boolean insert) {
+        if (conversationId == null || messages == null || messages.isEmpty()) return;
+        List<ChatMessage> snapshot = new ArrayList<>(messages);
+
+        ioExecutor.execute(() -> {
+            SQLiteDatabase db = helper.getWritableDatabase();
+            db.beginTransaction();
+            try {
+                for (ChatMessage m : snapshot) {
+                    if (m == null || m.getId() == null || m.getSentAt() == null) continue;
+
+                    ContentValues values = new ContentValues();
+                    values.put(COL_ID, m.getId());
+                    values.put(COL_CONVERSATION, conversationId);
+                    values.put(COL_SENT_AT, m.getSentAt().getTime());
+                    if (m.getUpdatedAt() != null) {
+                        values.put(COL_UPDATED_AT, m.getUpdatedAt().getTime());
+                    } else {
+                        values.putNull(COL_UPDATED_AT);
+                    }
+                    values.put(COL_DATA, ChatMessageCodec.encode(m).toString());
+                    if (insert) {
+                        db.insertWithOnConflict(TABLE, null, values, SQLiteDatabase.CONFLICT_REPLACE);
+                    } else {
+                        db.update(TABLE, values, COL_CONVERSATION + " = ? AND " + COL_ID + " = ?",
+                                new String[]{conversationId, m.getId()});
+                    }
+                }
+                db.setTransactionSuccessful();
+            } catch (JSONException e) {
+                Log.e(TAG, "Failed to encode messages", e);
+            } finally {
+                db.endTransaction();
+            }
+        });
+    }
+
+    @Override
+    public void removeMessage(String conversationId, String messageId) {
+        if (conversationId == null || messageId == null) return;
+        ioExecutor.execute(() -> helper.getWritableDatabase().delete(TABLE,
+                COL_CONVERSATION + " = ? AND " + COL_ID + " = ?",
+                new String[]{conversationId, messageId}));
+    }
+
+    @Override
+    public void removeMessagesBefore(String conversationId, Date before) {
+        if (conversationId == null || before == null) return;
+        ioExecutor.execute(() -> helper.getWritableDatabase().delete(TABLE,
+                COL_CONVERSATION + " = ? AND " + COL_SENT_AT + " < ?",
+                new String[]{conversationId, String.valueOf(before.getTime())}));
+    }
+
+    @Override
+    public void removeConversation(String conversationId) {
+        if (conversationId == null) return;
+        ioExecutor.execute(() -> helper.getWritableDatabase().delete(TABLE,
+                COL_CONVERSATION + " = ?", new String[]{conversationId}));
+    }
+
+    // Runs on ioExecutor. Reads newest-first with LIMIT, returns oldest-first.
+    private List<ChatMessage> query(String conversationId, String selection, String[] args, int limit) {
+        List<ChatMessage> result = new ArrayList<>();
+        if (conversationId == null) return result;
+
+        try (Cursor c = helper.getReadableDatabase().query(TABLE,
+                new String[]{COL_ID, COL_SENT_AT, COL_DATA, COL_UPDATED_AT},
+                selection, args, null, null,
+                COL_SENT_AT + " DESC, " + COL_ID + " DESC", String.valueOf(limit))) {
+            while (c.moveToNext()) {
+                try {
+                    ChatMessage m = ChatMessageCodec.decode(new JSONObject(c.getString(2)));
+                    m.setId(c.getString(0));
+                    m.setConversationId(conversationId);
+                    m.setSentAt(new Date(c.getLong(1)));
+                    if (!c.isNull(3)) {
+                        m.setUpdatedAt(new Date(c.getLong(3)));
+                    }
+                    result.add(m);
+                } catch (JSONException e) {
+                    Log.w(TAG, "Skipping unreadable stored message " + c.getString(0), e);
+                }
+            }
+        }
+        Collections.reverse(result);
+        return result;
+    }
+
+    private static class DbHelper extends SQLiteOpenHelper {
+
+        DbHelper(Context context) {
+            super(context, DB_NAME, null, DB_VERSION);
+        }
+
+        @Override
+        public void onCreate(SQLiteDatabase db) {
+            db.execSQL("CREATE TABLE " + TABLE + " ("
+                    + COL_ID + " TEXT NOT NULL, "
+                    + COL_CONVERSATION + " TEXT NOT NULL, "
+                    + COL_SENT_AT + " INTEGER NOT NULL, "
+                    + COL_UPDATED_AT + " INTEGER, "
+                    + COL_DATA + " TEXT NOT NULL, "
+                    + "PRIMARY KEY (" + COL_CONVERSATION + ", " + COL_ID + "))");
+            db.execSQL("CREATE INDEX idx_messages_conv_sent ON " + TABLE
+                    + " (" + COL_CONVERSATION + ", " + COL_SENT_AT + ")");
+            db.execSQL("CREATE INDEX idx_messages_conv_updated ON " + TABLE
+                    + " (" + COL_CONVERSATION + ", " + COL_UPDATED_AT + ")");
+        }
+
+        @Override
+        public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+            // The store is only a cache of Firestore - rebuild it
+            db.execSQL("DROP TABLE IF EXISTS " + TABLE);
+            onCreate(db);
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.example.workconnect.repository.chat;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.example.workconnect.utils.TypingThrottle;
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentChange;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.ListenerRegistration;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Typing indicator channel of one conversation: conversations/{id}/presence/{uid}.
+ *
+ * Kept out of the conversation document so keystrokes don't push a full conversation
+ * snapshot to every listener (chat list included) or hit the per-document write limit.
+ * Writes go through a {@link TypingThrottle}; readers expire a typist on their own clock
+ * when no heartbeat arrived for EXPIRY_MS, so idle users are never deleted explicitly.
+ */
+public class TypingPresence {
+
+    private static final String TAG = "TypingPresence";
+
+    public static final long HEARTBEAT_MS = 4000;
+    public static final long EXPIRY_MS = 6500;
+    // On first load, ignore heartbeats older than this (covers small clock differences)
+    private static final long INITIAL_MAX_AGE_MS = 10000;
+
+    private final String currentUserId;
+    private final CollectionReference presenceRef;
+    private final TypingThrottle throttle;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    // uid -> local time the last heartbeat was received
+    private final Map<String, Long> lastHeard = new HashMap<>();
+    private ListenerRegistration registration;
+    private Consumer<List<String>> typingCallback;
+    private final Runnable expireRunnable = this::expireAndNotify;
+
+    public TypingPresence(String conversationId, String currentUserId) {
+        this.currentUserId = currentUserId;
+        this.presenceRef = FirebaseFirestore.getInstance()
+                .collection("conversations")
+                .document(conversationId)
+                .collection("presence");
+        this.throttle = new TypingThrottle(HEARTBEAT_MS, EXPIRY_MS,
+                SystemClock::elapsedRealtime, this::publish);
+    }
+
+    // ===== Writer =====
+
+    /**
+     * Call on every text change of the message input
+     */
+    public void onTextChanged(boolean hasText) {
+        if (hasText) {
+            throttle.onKeystroke();
+        } else {
+            throttle.onStopped();
+        }
+    }
+
+    /**
+     * Call when the message was sent or the chat is left
+     */
+    public void stopTyping() {
+        throttle.onStopped();
+    }
+
+    private void publish(boolean typing) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("typing", typing);
+        data.put("typingAt", FieldValue.serverTimestamp());
+        presenceRef.document(currentUserId).set(data)
+                .addOnFailureListener(e -> Log.w(TAG, "Failed to publish typing state", e));
+    }
+
+    // ===== Reader =====
+
+    /**
+     * Listen to other members typing
+     * @param callback Called on the main thread with the uids currently typing (excluding current user)
+     */
+    public void listen(Consumer<List<String>> callback) {
+        release();
+        typingCallback = callback;
+
+        registration = presenceRef.addSnapshotListener((snap, e) -> {
+            if (e != null) {
+                Log.e(TAG, "Error listening to typing presence", e);
+                return;
+            }
+            if (snap == null) return;
+
+            long now = SystemClock.elapsedRealtime();
+            for (DocumentChange change : snap.getDocumentChanges()) {
+                DocumentSnapshot doc = change.getDocument();
+                String uid = doc.getId();
+                if (uid.equals(currentUserId)) continue;
+
+                if (change.getType() == DocumentChange.Type.REMOVED
+                        || !Boolean.TRUE.equals(doc.getBoolean("typing"))) {
+                    lastHeard.remove(uid);
+                    continue;
+                }
+
+                // Initial snapshot may carry heartbeats from long ago
+                if (change.getType() == DocumentChange.Type.ADDED) {
+                    Date typingAt = doc.getDate("typingAt");
+                    if (typingAt == null || System.currentTimeMillis() - typingAt.getTime() > INITIAL_MAX_AGE_MS) {
+                        continue;
+                    }
+                }
+                lastHeard.put(uid, now);
+            }
+            expireAndNotify();
+        });
+    }
+
+    private void expireAndNotify() {
+        mainHandler.removeCallbacks(expireRunnable);
+
+        long now = SystemClock.elapsedRealtime();
+        long nextExpiry = Long.MAX_VALUE;
+        Iterator<Map.Entry<String, Long>> it = lastHeard.entrySet().iterator();
+        while (it.hasNext()) {
+            long expiresAt = it.next().getValue() + EXPIRY_MS;
+            if (expiresAt <= now) {
+                it.remove();
+            } else {
+                nextExpiry = Math.min(nextExpiry, expiresAt);
+            }
+        }
+
+        if (nextExpiry != Long.MAX_VALUE) {
+            mainHandler.postDelayed(expireRunnable, nextExpiry - now);
+        }
+        if (typingCallback != null) {
+            typingCallback.accept(new ArrayList<>(lastHeard.keySet()));
+        }
+    }
+
+    /**
+     * Stop typing and listening (chat closed or switched)
+     */
+    public void release() {
+        throttle.onStopped();
+        if (registration != null) {
+            registration.remove();
+            registration = null;
+        }
+        mainHandler.removeCallbacks(expireRunnable);
+        lastHeard.clear();
+    }
+}
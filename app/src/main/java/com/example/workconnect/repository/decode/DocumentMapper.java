@@ -0,0 +1,25 @@
+package com.example.workconnect.repository.decode;
+
+import com.google.firebase.firestore.DocumentSnapshot;
+
+import java.util.Map;
+
+/**
+ * Explicit document -> model conversion, used instead of reflection-based
+ * {@link DocumentSnapshot#toObject(Class)}. Mappers are stateless and safe to call from any thread.
+ */
+public interface DocumentMapper<T> {
+
+    /**
+     * @param id   Firestore document id
+     * @param data Document fields as returned by {@link DocumentSnapshot#getData()}
+     * @return The model, or null if the document can't be mapped
+     */
+    T map(String id, Map<String, Object> data);
+
+    default T map(DocumentSnapshot doc) {
+        if (doc == null) return null;
+        Map<String, Object> data = doc.getData();
+        return data != null ? map(doc.getId(), data) : null;
+    }
+}
@@ -0,0 +1,307 @@
+package com.example.workconnect.repository.decode;
+
+import com.example.workconnect.models.AppNotification;
+import com.example.workconnect.models.ChatConversation;
+import com.example.workconnect.models.ChatMessage;
+import com.example.workconnect.models.InboxEntry;
+import com.example.workconnect.models.ShiftAssignment;
+import com.example.workconnect.models.ShiftSwapRequest;
+import com.example.workconnect.models.VacationRequest;
+import com.example.workconnect.models.enums.VacationStatus;
+import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.DocumentSnapshot;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hand-written mappers for the models decoded by listeners on hot screens.
+ *
+ * Field names follow what toObject() used to bind (bean property names), and the readers
+ * are lenient: a field with an unexpected type is treated as missing instead of throwing.
+ */
+public final class ModelMappers {
+
+    private ModelMappers() {
+    }
+
+    public static final DocumentMapper<ChatMessage> CHAT_MESSAGE = (id, d) -> {
+        ChatMessage m = new ChatMessage();
+        m.setId(id);
+        m.setConversationId(getString(d, "conversationId"));
+        m.setSenderId(getString(d, "senderId"));
+        m.setText(getString(d, "text"));
+        m.setSentAt(getDate(d, "sentAt"));
+        // Bean property is "read"; older writers store "isRead"
+        m.setRead(d.containsKey("read") ? getBoolean(d, "read") : getBoolean(d, "isRead"));
+        m.setReadAt(getDate(d, "readAt"));
+        m.setStatus(getEnum(d, "status", ChatMessage.MessageStatus.class, ChatMessage.MessageStatus.SENT));
+        m.setReadBy(getStringList(d, "readBy"));
+        m.setDeliveredTo(getStringList(d, "deliveredTo"));
+        m.setReactions(getStringListMap(d, "reactions"));
+        m.setReplyToMessageId(getString(d, "replyToMessageId"));
+        m.setReplyToText(getString(d, "replyToText"));
+        m.setReplyToSenderId(getString(d, "replyToSenderId"));
+        m.setReplyToSenderName(getString(d, "replyToSenderName"));
+        m.setMessageType(getEnum(d, "messageType", ChatMessage.MessageType.class, ChatMessage.MessageType.TEXT));
+        m.setSystemType(getEnum(d, "systemType", ChatMessage.SystemMessageType.class, null));
+        m.setSystemUserId(getString(d, "systemUserId"));
+        m.setSystemActorId(getString(d, "systemActorId"));
+        m.setFileUrl(getString(d, "fileUrl"));
+        m.setFileName(getString(d, "fileName"));
+        m.setFileType(getString(d, "fileType"));
+        Object fileSize = d.get("fileSize");
+        m.setFileSize(fileSize instanceof Number ? ((Number) fileSize).longValue() : null);
+        m.setThumbnailUrl(getString(d, "thumbnailUrl"));
+        m.setImageWidth((int) getLong(d, "imageWidth"));
+        m.setImageHeight((int) getLong(d, "imageHeight"));
+        m.setPlaceholder(getString(d, "placeholder"));
+        m.setVersion(getLong(d, "version"));
+        m.setUpdatedAt(getDate(d, "updatedAt"));
+        return m;
+    };
+
+    public static final DocumentMapper<ChatConversation> CHAT_CONVERSATION = (id, d) -> {
+        ChatConversation c = new ChatConversation();
+        c.setId(id);
+        c.setParticipantIds(getStringList(d, "participantIds"));
+        c.setCreatedAt(getDate(d, "createdAt"));
+        c.setLastMessageText(getString(d, "lastMessageText"));
+        c.setLastMessageAt(getDate(d, "lastMessageAt"));
+        c.setType(getString(d, "type"));
+        c.setTitle(getString(d, "title"));
+        c.setCreatedBy(getString(d, "createdBy"));
+        c.setLastMessageSenderId(getString(d, "lastMessageSenderId"));
+
+        Map<String, Object> counts = getMap(d, "unreadCounts");
+        if (counts != null) {
+            Map<String, Long> unread = new HashMap<>();
+            for (Map.Entry<String, Object> e : counts.entrySet()) {
+                if (e.getValue() instanceof Number) {
+                    unread.put(e.getKey(), ((Number) e.getValue()).longValue());
+                }
+            }
+            c.setUnreadCounts(unread);
+        }
+
+        Map<String, Object> cursors = getMap(d, "lastReadAt");
+        if (cursors != null) {
+            Map<String, Date> lastReadAt = new HashMap<>();
+            for (Map.Entry<String, Object> e : cursors.entrySet()) {
+                Date date = toDate(e.getValue());
+                if (date != null) {
+                    lastReadAt.put(e.getKey(), date);
+                }
+            }
+            c.setLastReadAt(lastReadAt);
+        }
+        return c;
+    };
+
+    public static final DocumentMapper<InboxEntry> INBOX_ENTRY = (id, d) -> {
+        InboxEntry e = new InboxEntry();
+        // Inbox docs are keyed by conversation id
+        String conversationId = getString(d, "conversationId");
+        e.setConversationId(conversationId != null ? conversationId : id);
+        e.setUid(getString(d, "uid"));
+        e.setUnreadCount(getLong(d, "unreadCount"));
+        e.setLastReadAt(getDate(d, "lastReadAt"));
+        return e;
+    };
+
+    /**
+     * A member's read cursor, from conversations/{conversationId}/members/{uid}
+     * (only the uid and lastReadAt are set)
+     */
+    public static final DocumentMapper<InboxEntry> READ_CURSOR = (id, d) -> {
+        InboxEntry e = new InboxEntry();
+        // Member docs are keyed by uid
+        String uid = getString(d, "uid");
+        e.setUid(uid != null ? uid : id);
+        e.setLastReadAt(getDate(d, "lastReadAt"));
+        return e;
+    };
+
+    /**
+     * A row of the chat list, read from the owner's users/{uid}/inbox entry
+     * (summary projection of the conversation + the owner's unread count)
+     */
+    public static final DocumentMapper<ChatConversation> INBOX_CONVERSATION = (id, d) -> {
+        ChatConversation c = new ChatConversation();
+        String conversationId = getString(d, "conversationId");
+        c.setId(conversationId != null ? conversationId : id);
+        c.setType(getString(d, "type"));
+        c.setTitle(getString(d, "title"));
+        c.setLastMessageText(getString(d, "lastMessageText"));
+        c.setLastMessageAt(getDate(d, "lastMessageAt"));
+        c.setLastMessageSenderId(getString(d, "lastMessageSenderId"));
+
+        // Rows only need the owner and, for direct chats, the other member
+        String uid = getString(d, "uid");
+        String peerId = getString(d, "peerId");
+        List<String> members = new ArrayList<>(2);
+        if (uid != null) members.add(uid);
+        if (peerId != null) members.add(peerId);
+        c.setParticipantIds(members);
+
+        if (uid != null) {
+            Map<String, Long> unread = new HashMap<>();
+            unread.put(uid, getLong(d, "unreadCount"));
+            c.setUnreadCounts(unread);
+        }
+        return c;
+    };
+
+    public static final DocumentMapper<ShiftAssignment> SHIFT_ASSIGNMENT = (id, d) -> {
+        // Assignment docs are keyed by user id, so the doc id stands in for a missing userId
+        String userId = getString(d, "userId");
+        if (userId == null || userId.trim().isEmpty()) {
+            userId = id;
+        }
+        ShiftAssignment a = new ShiftAssignment(
+                userId,
+                getString(d, "templateId"),
+                getString(d, "templateTitle"),
+                (int) getLong(d, "startHour"),
+                (int) getLong(d, "endHour"));
+        a.setId(id);
+        return a;
+    };
+
+    public static final DocumentMapper<ShiftSwapRequest> SHIFT_SWAP_REQUEST = (id, d) -> {
+        ShiftSwapRequest r = new ShiftSwapRequest();
+        r.setId(id);
+        r.setCompanyId(getString(d, "companyId"));
+        r.setTeamId(getString(d, "teamId"));
+        r.setDateKey(getString(d, "dateKey"));
+        r.setTemplateId(getString(d, "templateId"));
+        r.setTemplateTitle(getString(d, "templateTitle"));
+        r.setRequesterUid(getString(d, "requesterUid"));
+        r.setRequesterName(getString(d, "requesterName"));
+        r.setType(getString(d, "type"));
+        r.setStatus(getString(d, "status"));
+        r.setSelectedOfferId(getString(d, "selectedOfferId"));
+        r.setCreatedAt(getLong(d, "createdAt"));
+        return r;
+    };
+
+    public static final DocumentMapper<VacationRequest> VACATION_REQUEST = (id, d) -> {
+        VacationRequest r = new VacationRequest();
+        r.setId(id);
+        r.setEmployeeId(getString(d, "employeeId"));
+        r.setEmployeeName(getString(d, "employeeName"));
+        r.setEmployeeEmail(getString(d, "employeeEmail"));
+        r.setManagerId(getString(d, "managerId"));
+        r.setStartDate(getDate(d, "startDate"));
+        r.setEndDate(getDate(d, "endDate"));
+        r.setReason(getString(d, "reason"));
+        r.setStatus(getEnum(d, "status", VacationStatus.class, null));
+        r.setDaysRequested((int) getLong(d, "daysRequested"));
+        r.setCreatedAt(getDate(d, "createdAt"));
+        r.setDecisionAt(getDate(d, "decisionAt"));
+        r.setManagerComment(getString(d, "managerComment"));
+        Object deducted = d.get("balanceDeducted");
+        r.setBalanceDeducted(deducted instanceof Boolean ? (Boolean) deducted : null);
+        return r;
+    };
+
+    public static final DocumentMapper<AppNotification> APP_NOTIFICATION = (id, d) -> {
+        AppNotification n = new AppNotification(
+                getString(d, "type"),
+                getString(d, "title"),
+                getString(d, "body"),
+                getMap(d, "data"));
+        n.setId(id);
+        n.setRead(getBoolean(d, "read"));
+        return n;
+    };
+
+    /**
+     * Map every document, skipping the ones the mapper rejects
+     */
+    public static <T> List<T> mapAll(List<DocumentSnapshot> docs, DocumentMapper<T> mapper) {
+        List<T> out = new ArrayList<>(docs.size());
+        for (DocumentSnapshot doc : docs) {
+            T item = mapper.map(doc);
+            if (item != null) {
+                out.add(item);
+            }
+        }
+        return out;
+    }
+
+    // ===== Field readers =====
+
+    static String getString(Map<String, Object> d, String field) {
+        Object v = d.get(field);
+        return v instanceof String ? (String) v : null;
+    }
+
+    static long getLong(Map<String, Object> d, String field) {
+        Object v = d.get(field);
+        return v instanceof Number ? ((Number) v).longValue() : 0L;
+    }
+
+    static boolean getBoolean(Map<String, Object> d, String field) {
+        Object v = d.get(field);
+        return v instanceof Boolean && (Boolean) v;
+    }
+
+    static Date getDate(Map<String, Object> d, String field) {
+        return toDate(d.get(field));
+    }
+
+    static Date toDate(Object v) {
+        if (v instanceof Timestamp) return ((Timestamp) v).toDate();
+        if (v instanceof Date) return (Date) v;
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    static Map<String, Object> getMap(Map<String, Object> d, String field) {
+        Object v = d.get(field);
+        return v instanceof Map ? (Map<String, Object>) v : null;
+    }
+
+    static List<String> getStringList(Map<String, Object> d, String field) {
+        return toStringList(d.get(field));
+    }
+
+    static Map<String, List<String>> getStringListMap(Map<String, Object> d, String field) {
+        Map<String, Object> raw = getMap(d, field);
+        if (raw == null) return null;
+        Map<String, List<String>> out = new HashMap<>();
+        for (Map.Entry<String, Object> e : raw.entrySet()) {
+            List<String> list = toStringList(e.getValue());
+            if (list != null) {
+                out.put(e.getKey(), list);
+            }
+        }
+        return out;
+    }
+
+    static <E extends Enum<E>> E getEnum(Map<String, Object> d, String field, Class<E> type, E fallback) {
+        String name = getString(d, field);
+        if (name == null) return fallback;
+        try {
+            return Enum.valueOf(type, name);
+        } catch (IllegalArgumentException e) {
+            return fallback;
+        }
+    }
+
+    private static List<String> toStringList(Object v) {
+        if (!(v instanceof List)) return null;
+        List<?> raw = (List<?>) v;
+        List<String> out = new ArrayList<>(raw.size());
+        for (Object o : raw) {
+            if (o instanceof String) {
+                out.add((String) o);
+            }
+        }
+        return out;
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.workconnect.repository.decode;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.util.Log;
+
+import com.google.firebase.firestore.DocumentSnapshot;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Moves snapshot -> model conversion off the main thread.
+ *
+ * All decoders share one small thread pool. Each listener owns its own decoder, which runs
+ * that listener's work one task at a time, so results reach the main thread in snapshot order:
+ * - {@link #inOrder()} runs every task (delta listeners, where every snapshot matters)
+ * - {@link #latestOnly()} drops snapshots superseded before they were decoded (full-list listeners)
+ *
+ * Results are delivered on the main thread. Call {@link #release()} with the listener's
+ * remove() so late results are dropped.
+ */
+public final class SnapshotDecoder {
+
+    private static final String TAG = "SnapshotDecoder";
+    private static final int THREADS = 2;
+
+    private static final ExecutorService POOL = Executors.newFixedThreadPool(THREADS, new DecodeThreadFactory());
+    private static final Handler MAIN = new Handler(Looper.getMainLooper());
+
+    private final boolean latestOnly;
+    private final ArrayDeque<Runnable> queue = new ArrayDeque<>();
+    private boolean running;
+    private int submitted;
+    private volatile boolean released;
+
+    private SnapshotDecoder(boolean latestOnly) {
+        this.latestOnly = latestOnly;
+    }
+
+    public static SnapshotDecoder inOrder() {
+        return new SnapshotDecoder(false);
+    }
+
+    public static SnapshotDecoder latestOnly() {
+        return new SnapshotDecoder(true);
+    }
+
+    /**
+     * Map documents in the background and deliver them as an unmodifiable list on the main thread
+     */
+    public <T> void submit(List<DocumentSnapshot> docs, DocumentMapper<T> mapper, Consumer<List<T>> onResult) {
+        submit(() -> Collections.unmodifiableList(ModelMappers.mapAll(docs, mapper)), onResult);
+    }
+
+    /**
+     * Run work in the background (decode, filter, sort...) and deliver its result on the main thread
+     */
+    public <R> void submit(Supplier<R> work, Consumer<R> onResult) {
+        if (released) return;
+
+        synchronized (queue) {
+            final int generation = ++submitted;
+            if (latestOnly) {
+                // Snapshots not started yet are superseded by this one
+                queue.clear();
+            }
+            queue.add(() -> {
+                R result = runSafely(work);
+                if (result == null) return;
+                MAIN.post(() -> {
+                    if (released || (latestOnly && generation != currentGeneration())) return;
+                    onResult.accept(result);
+                });
+            });
+            if (running) return;
+            running = true;
+        }
+        POOL.execute(this::runNext);
+    }
+
+    /**
+     * Stop delivering results; queued work is discarded
+     */
+    public void release() {
+        released = true;
+        synchronized (queue) {
+            queue.clear();
+        }
+    }
+
+    /**
+     * One-off decode (e.g. a get() page) on the shared pool
+     */
+    public static <T> void decode(List<DocumentSnapshot> docs, DocumentMapper<T> mapper, Consumer<List<T>> onResult) {
+        POOL.execute(() -> {
+            List<T> result = runSafely(() -> Collections.unmodifiableList(ModelMappers.mapAll(docs, mapper)));
+            if (result != null) {
+                MAIN.post(() -> onResult.accept(result));
+            }
+        });
+    }
+
+    // One task per pool turn, so a busy listener doesn't hold a thread the others need
+    private void runNext() {
+        Runnable next;
+        synchronized (queue) {
+            next = queue.poll();
+            if (next == null) {
+                running = false;
+                return;
+            }
+        }
+        next.run();
+
+        synchronized (queue) {
+            if (queue.isEmpty()) {
+                running = false;
+                return;
+            }
+        }
+        POOL.execute(this::runNext);
+    }
+
+    private int currentGeneration() {
+        synchronized (queue) {
+            return submitted;
+        }
+    }
+
+    private static <R> R runSafely(Supplier<R> work) {
+        try {
+            return work.get();
+        } catch (RuntimeException e) {
+            Log.e(TAG, "Decoding snapshot failed", e);
+            return null;
+        }
+    }
+
+    private static class DecodeThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(() -> {
+                Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                r.run();
+            }, "snapshot-decode-" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }
+    }
+}
@@ -7,9 +7,10 @@ import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
 
 import com.example.workconnect.models.AppNotification;
+import com.example.workconnect.repository.decode.ModelMappers;
+import com.example.workconnect.repository.decode.SnapshotDecoder;
 import com.google.android.gms.tasks.OnFailureListener;
 import com.google.firebase.firestore.DocumentReference;
-import com.google.firebase.firestore.DocumentSnapshot;
 import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.firestore.ListenerRegistration;
 import com.google.firebase.firestore.Query;
@@ -24,6 +25,7 @@ public class NotificationsRepository {
 
     public LiveData<List<AppNotification>> listenNotifications(@NonNull String uid) {
         MutableLiveData<List<AppNotification>> live = new MutableLiveData<>(new ArrayList<>());
+        SnapshotDecoder decoder = SnapshotDecoder.latestOnly();
 
         db.collection("users")
                 .document(uid)
@@ -36,17 +38,10 @@ public class NotificationsRepository {
                         return;
                     }
 
-                    List<AppNotification> list = new ArrayList<>();
-                    for (DocumentSnapshot d : snap.getDocuments()) {
-                        AppNotification n = d.toObject(AppNotification.class);
-                        if (n != null) {
-                            n.setId(d.getId());
-                            list.add(n);
-                        }
-                    }
-
-                    Log.d(TAG, "listenNotifications size=" + list.size());
-                    live.postValue(list);
+                    decoder.submit(snap.getDocuments(), ModelMappers.APP_NOTIFICATION, list -> {
+                        Log.d(TAG, "listenNotifications size=" + list.size());
+                        live.setValue(list);
+                    });
                 });
 
         return live;
@@ -8,6 +8,8 @@ import com.example.workconnect.models.MyShiftItem;
 import com.example.workconnect.models.ShiftAssignment;
 import com.example.workconnect.models.ShiftTemplate;
 import com.example.workconnect.models.Team;
+import com.example.workconnect.repository.decode.ModelMappers;
+import com.example.workconnect.repository.decode.SnapshotDecoder;
 import com.google.firebase.firestore.DocumentSnapshot;
 import com.google.firebase.firestore.FirebaseFirestore;
 
@@ -47,6 +49,7 @@ public class MyShiftsRepository {
             listenTemplatesForTeam(companyId, teamId);
 
             for (String dateKey : dateKeysInRange) {
+                SnapshotDecoder decoder = SnapshotDecoder.latestOnly();
                 db.collection("companies").document(companyId)
                         .collection("teams").document(teamId)
                         .collection("assignments").document(dateKey)
@@ -56,16 +59,25 @@ public class MyShiftsRepository {
 
                             if (e != null || snap == null) {
                                 bucket.put(key, new ArrayList<>());
-                            } else {
-                                List<MyShiftItem> mine = new ArrayList<>();
-
-                                for (DocumentSnapshot doc : snap.getDocuments()) {
-                                    ShiftAssignment a = doc.toObject(ShiftAssignment.class);
-                                    if (a == null) continue;
+                                postMerged(live, bucket);
+                                return;
+                            }
 
-                                    String uid = a.getUserId();
-                                    if (uid == null || !uid.equals(userUid)) continue;
+                            // Decode and keep only this user's assignments off the main thread
+                            List<DocumentSnapshot> docs = snap.getDocuments();
+                            decoder.submit(() -> {
+                                List<ShiftAssignment> own = new ArrayList<>();
+                                for (DocumentSnapshot doc : docs) {
+                                    ShiftAssignment a = ModelMappers.SHIFT_ASSIGNMENT.map(doc);
+                                    if (a != null && userUid.equals(a.getUserId())) {
+                                        own.add(a);
+                                    }
+                                }
+                                return own;
+                            }, own -> {
+                                List<MyShiftItem> mine = new ArrayList<>();
 
+                                for (ShiftAssignment a : own) {
                                     String templateId = a.getTemplateId();
                                     ShiftTemplate t = getTemplateFromCache(teamId, templateId);
 
@@ -87,22 +99,8 @@ public class MyShiftsRepository {
                                     ));
                                 }
                                 bucket.put(key, mine);
-                            }
-
-                            // Merge all buckets into one list and post
-                            ArrayList<MyShiftItem> merged = new ArrayList<>();
-                            for (List<MyShiftItem> list : bucket.values()) merged.addAll(list);
-
-                            // Sort by date then start hour (simple stable ordering)
-                            merged.sort((a, b) -> {
-                                int d = safeStr(a.getDateKey()).compareTo(safeStr(b.getDateKey()));
-                                if (d != 0) return d;
-                                int s = Integer.compare(a.getStartHour(), b.getStartHour());
-                                if (s != 0) return s;
-                                return safeStr(a.getTeamName()).compareTo(safeStr(b.getTeamName()));
+                                postMerged(live, bucket);
                             });
-
-                            live.postValue(merged);
                         });
             }
         }
@@ -110,6 +108,23 @@ public class MyShiftsRepository {
         return live;
     }
 
+    private void postMerged(MutableLiveData<List<MyShiftItem>> live, Map<String, List<MyShiftItem>> bucket) {
+        // Merge all buckets into one list and post
+        ArrayList<MyShiftItem> merged = new ArrayList<>();
+        for (List<MyShiftItem> list : bucket.values()) merged.addAll(list);
+
+        // Sort by date then start hour (simple stable ordering)
+        merged.sort((a, b) -> {
+            int d = safeStr(a.getDateKey()).compareTo(safeStr(b.getDateKey()));
+            if (d != 0) return d;
+            int s = Integer.compare(a.getStartHour(), b.getStartHour());
+            if (s != 0) return s;
+            return safeStr(a.getTeamName()).compareTo(safeStr(b.getTeamName()));
+        });
+
+        live.postValue(merged);
+    }
+
     private void listenTemplatesForTeam(String companyId, String teamId) {
         if (teamTemplateCache.containsKey(teamId)) return;
 
@@ -5,6 +5,8 @@ import androidx.lifecycle.MutableLiveData;
 
 import com.example.workconnect.models.ShiftAssignment;
 import com.example.workconnect.models.ShiftTemplate;
+import com.example.workconnect.repository.decode.ModelMappers;
+import com.example.workconnect.repository.decode.SnapshotDecoder;
 import com.google.firebase.firestore.DocumentReference;
 import com.google.firebase.firestore.DocumentSnapshot;
 import com.google.firebase.firestore.FieldValue;
@@ -25,6 +27,7 @@ public class ShiftAssignmentRepository {
 
     public LiveData<List<ShiftAssignment>> listenAssignmentsForDate(String companyId, String teamId, String dateKey) {
         MutableLiveData<List<ShiftAssignment>> live = new MutableLiveData<>(new ArrayList<>());
+        SnapshotDecoder decoder = SnapshotDecoder.latestOnly();
 
         db.collection("companies").document(companyId)
                 .collection("teams").document(teamId)
@@ -37,19 +40,8 @@ public class ShiftAssignmentRepository {
                         return;
                     }
 
-                    List<ShiftAssignment> list = new ArrayList<>();
-                    for (DocumentSnapshot doc : snap.getDocuments()) {
-                        ShiftAssignment a = doc.toObject(ShiftAssignment.class);
-                        if (a != null) {
-                            // doc id is the userId (but keep it anyway)
-                            a.setId(doc.getId());
-                            if (a.getUserId() == null || a.getUserId().trim().isEmpty()) {
-                                a.setUserId(doc.getId());
-                            }
-                            list.add(a);
-                        }
-                    }
-                    live.postValue(list);
+                    // doc id is the userId; the mapper also uses it when userId is missing
+                    decoder.submit(snap.getDocuments(), ModelMappers.SHIFT_ASSIGNMENT, live::setValue);
                 });
 
         return live;
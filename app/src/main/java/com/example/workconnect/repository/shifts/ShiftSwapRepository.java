@@ -7,6 +7,8 @@ import androidx.lifecycle.MutableLiveData;
 import com.example.workconnect.models.ShiftAssignment;
 import com.example.workconnect.models.ShiftSwapOffer;
 import com.example.workconnect.models.ShiftSwapRequest;
+import com.example.workconnect.repository.decode.ModelMappers;
+import com.example.workconnect.repository.decode.SnapshotDecoder;
 import com.google.firebase.firestore.CollectionReference;
 import com.google.firebase.firestore.DocumentReference;
 import com.google.firebase.firestore.DocumentSnapshot;
@@ -19,6 +21,7 @@ import com.google.firebase.firestore.WriteBatch;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -47,6 +50,10 @@ public class ShiftSwapRepository {
                 .collection("items").document(userUid);
     }
 
+    // Newest first
+    private static final Comparator<ShiftSwapRequest> BY_CREATED_DESC =
+            (a, b) -> Long.compare(b.getCreatedAt(), a.getCreatedAt());
+
     public interface SimpleCallback {
         void onDone(boolean success, String msg);
     }
@@ -57,23 +64,19 @@ public class ShiftSwapRepository {
 
     public LiveData<List<ShiftSwapRequest>> listenMyRequests(String companyId, String teamId, String myUid) {
         MutableLiveData<List<ShiftSwapRequest>> live = new MutableLiveData<>(new ArrayList<>());
+        SnapshotDecoder decoder = SnapshotDecoder.latestOnly();
 
         reqCol(companyId, teamId)
                 .whereEqualTo("requesterUid", myUid)
                 .addSnapshotListener((snap, e) -> {
                     if (e != null || snap == null) return;
 
-                    List<ShiftSwapRequest> out = new ArrayList<>();
-                    for (DocumentSnapshot d : snap.getDocuments()) {
-                        ShiftSwapRequest r = d.toObject(ShiftSwapRequest.class);
-                        if (r != null) {
-                            r.setId(d.getId());
-                            out.add(r);
-                        }
-                    }
-
-                    Collections.sort(out, (a, b) -> Long.compare(b.getCreatedAt(), a.getCreatedAt()));
-                    live.postValue(out);
+                    List<DocumentSnapshot> docs = snap.getDocuments();
+                    decoder.submit(() -> {
+                        List<ShiftSwapRequest> out = ModelMappers.mapAll(docs, ModelMappers.SHIFT_SWAP_REQUEST);
+                        Collections.sort(out, BY_CREATED_DESC);
+                        return Collections.unmodifiableList(out);
+                    }, live::setValue);
                 });
 
         return live;
@@ -81,24 +84,26 @@ public class ShiftSwapRepository {
 
     public LiveData<List<ShiftSwapRequest>> listenOpenRequests(String companyId, String teamId, String myUid) {
         MutableLiveData<List<ShiftSwapRequest>> live = new MutableLiveData<>(new ArrayList<>());
+        SnapshotDecoder decoder = SnapshotDecoder.latestOnly();
 
         reqCol(companyId, teamId)
                 .whereEqualTo("status", ShiftSwapRequest.OPEN)
                 .addSnapshotListener((snap, e) -> {
                     if (e != null || snap == null) return;
 
-                    List<ShiftSwapRequest> out = new ArrayList<>();
-                    for (DocumentSnapshot d : snap.getDocuments()) {
-                        ShiftSwapRequest r = d.toObject(ShiftSwapRequest.class);
-                        if (r == null) continue;
-
-                        r.setId(d.getId());
-                        if (myUid != null && myUid.equals(r.getRequesterUid())) continue;
-                        out.add(r);
-                    }
+                    List<DocumentSnapshot> docs = snap.getDocuments();
+                    decoder.submit(() -> {
+                        List<ShiftSwapRequest> out = new ArrayList<>();
+                        for (DocumentSnapshot d : docs) {
+                            ShiftSwapRequest r = ModelMappers.SHIFT_SWAP_REQUEST.map(d);
+                            if (r == null) continue;
+                            if (myUid != null && myUid.equals(r.getRequesterUid())) continue;
+                            out.add(r);
+                        }
 
-                    Collections.sort(out, (a, b) -> Long.compare(b.getCreatedAt(), a.getCreatedAt()));
-                    live.postValue(out);
+                        Collections.sort(out, BY_CREATED_DESC);
+                        return Collections.unmodifiableList(out);
+                    }, live::setValue);
                 });
 
         return live;
@@ -106,23 +111,19 @@ public class ShiftSwapRepository {
 
     public LiveData<List<ShiftSwapRequest>> listenPendingApprovals(String companyId, String teamId) {
         MutableLiveData<List<ShiftSwapRequest>> live = new MutableLiveData<>(new ArrayList<>());
+        SnapshotDecoder decoder = SnapshotDecoder.latestOnly();
 
         reqCol(companyId, teamId)
                 .whereEqualTo("status", ShiftSwapRequest.PENDING_APPROVAL)
                 .addSnapshotListener((snap, e) -> {
                     if (e != null || snap == null) return;
 
-                    List<ShiftSwapRequest> out = new ArrayList<>();
-                    for (DocumentSnapshot d : snap.getDocuments()) {
-                        ShiftSwapRequest r = d.toObject(ShiftSwapRequest.class);
-                        if (r != null) {
-                            r.setId(d.getId());
-                            out.add(r);
-                        }
-                    }
-
-                    Collections.sort(out, (a, b) -> Long.compare(b.getCreatedAt(), a.getCreatedAt()));
-                    live.postValue(out);
+                    List<DocumentSnapshot> docs = snap.getDocuments();
+                    decoder.submit(() -> {
+                        List<ShiftSwapRequest> out = ModelMappers.mapAll(docs, ModelMappers.SHIFT_SWAP_REQUEST);
+                        Collections.sort(out, BY_CREATED_DESC);
+                        return Collections.unmodifiableList(out);
+                    }, live::setValue);
                 });
 
         return live;
@@ -7,6 +7,8 @@ import androidx.lifecycle.MutableLiveData;
 
 import com.example.workconnect.models.VacationRequest;
 import com.example.workconnect.models.enums.VacationStatus;
+import com.example.workconnect.repository.decode.ModelMappers;
+import com.example.workconnect.repository.decode.SnapshotDecoder;
 import com.example.workconnect.services.NotificationService;
 import com.google.android.gms.tasks.Task;
 import com.google.firebase.auth.FirebaseAuth;
@@ -103,6 +105,7 @@ public class VacationRepository {
      */
     public LiveData<List<VacationRequest>> getPendingRequestsForManager(String managerId) {
         MutableLiveData<List<VacationRequest>> live = new MutableLiveData<>(new ArrayList<>());
+        SnapshotDecoder decoder = SnapshotDecoder.latestOnly();
 
         db.collection("vacation_requests")
                 .whereEqualTo("managerId", managerId)
@@ -113,16 +116,8 @@ public class VacationRepository {
                         return;
                     }
 
-                    List<VacationRequest> list = new ArrayList<>();
-                    for (DocumentSnapshot d : snap.getDocuments()) {
-                        VacationRequest r = d.toObject(VacationRequest.class);
-                        if (r != null) {
-                            // Keep model id consistent with Firestore document id
-                            r.setId(d.getId());
-                            list.add(r);
-                        }
-                    }
-                    live.postValue(list);
+                    // The mapper keeps the model id consistent with the Firestore document id
+                    decoder.submit(snap.getDocuments(), ModelMappers.VACATION_REQUEST, live::setValue);
                 });
 
         return live;
@@ -133,6 +128,7 @@ public class VacationRepository {
      */
     public LiveData<List<VacationRequest>> getRequestsForEmployee(String employeeId) {
         MutableLiveData<List<VacationRequest>> live = new MutableLiveData<>(new ArrayList<>());
+        SnapshotDecoder decoder = SnapshotDecoder.latestOnly();
 
         db.collection("vacation_requests")
                 .whereEqualTo("employeeId", employeeId)
@@ -143,15 +139,7 @@ public class VacationRepository {
                         return;
                     }
 
-                    List<VacationRequest> list = new ArrayList<>();
-                    for (DocumentSnapshot d : snap.getDocuments()) {
-                        VacationRequest r = d.toObject(VacationRequest.class);
-                        if (r != null) {
-                            r.setId(d.getId());
-                            list.add(r);
-                        }
-                    }
-                    live.postValue(list);
+                    decoder.submit(snap.getDocuments(), ModelMappers.VACATION_REQUEST, live::setValue);
                 });
 
         return live;
@@ -24,6 +24,7 @@ public class CallForegroundService extends Service {
     private String remoteUserName;
     private boolean isMuted;
     private boolean isSpeakerEnabled;
+    private long callStartedAt;
     
     @Override
     public void onCreate() {
@@ -67,6 +68,7 @@ public class CallForegroundService extends Service {
             remoteUserName = intent.getStringExtra("remote_user_name");
             isMuted = intent.getBooleanExtra("is_muted", false);
             isSpeakerEnabled = intent.getBooleanExtra("is_speaker_enabled", false);
+            callStartedAt = intent.getLongExtra("call_started_at", 0);
             
             // Start as foreground service
             startForeground(NOTIFICATION_ID, createNotification());
@@ -169,6 +171,13 @@ public class CallForegroundService extends Service {
                 R.drawable.ic_end_call,
                 "End Call",
                 endCallPendingIntent);
+
+        // Elapsed time rendered by the system: the app runs no timer while minimized
+        if (callStartedAt > 0) {
+            builder.setWhen(callStartedAt)
+                .setShowWhen(true)
+                .setUsesChronometer(true);
+        }
         
         return builder.build();
     }
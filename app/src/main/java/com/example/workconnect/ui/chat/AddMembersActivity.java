@@ -16,9 +16,11 @@ import com.example.workconnect.R;
 import com.example.workconnect.adapters.chats.GroupMemberAdapter;
 import com.example.workconnect.models.ChatMessage;
 import com.example.workconnect.models.User;
+import com.example.workconnect.repository.authAndUsers.CompanyDirectory;
+import com.example.workconnect.repository.chat.ConversationInbox;
+import com.example.workconnect.repository.chat.MessageRepository;
 import com.example.workconnect.utils.SystemMessageHelper;
 import com.google.firebase.auth.FirebaseAuth;
-import com.google.firebase.firestore.DocumentSnapshot;
 import com.google.firebase.firestore.FieldValue;
 import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.firestore.WriteBatch;
@@ -27,12 +29,13 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 
 public class AddMembersActivity extends AppCompatActivity {
 
+    private static final long SEARCH_DEBOUNCE_MS = 150;
+
     private FirebaseFirestore db;
 
     private String conversationId;
@@ -51,6 +54,8 @@ public class AddMembersActivity extends AppCompatActivity {
     // ids already in the group (to exclude from list)
     private final Set<String> existingParticipantIds = new HashSet<>();
 
+    private final Runnable filterRunnable = () -> filterEmployees(etSearch.getText().toString());
+
     @Override
     protected void onCreate(@Nullable Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -88,7 +93,9 @@ public class AddMembersActivity extends AppCompatActivity {
 
             @Override
             public void afterTextChanged(Editable s) {
-                filterEmployees(s.toString());
+                // Filter once typing pauses
+                rvEmployees.removeCallbacks(filterRunnable);
+                rvEmployees.postDelayed(filterRunnable, SEARCH_DEBOUNCE_MS);
             }
         });
 
@@ -131,71 +138,44 @@ public class AddMembersActivity extends AppCompatActivity {
     }
 
     private void loadEmployees() {
-        db.collection("users")
-                .whereEqualTo("companyId", companyId)
-                .whereEqualTo("status", com.example.workconnect.models.enums.RegisterStatus.APPROVED.name())
-                .get()
-                .addOnSuccessListener(snap -> {
-                    employees.clear();
-                    selectedUids.clear();
-
-                    for (DocumentSnapshot d : snap.getDocuments()) {
-                        String uid = d.getId();
-
-                        // exclude me + already in group
-                        if (uid.equals(currentUserId)) continue;
-                        if (existingParticipantIds.contains(uid)) continue;
-
-                        User u = d.toObject(User.class);
-                        if (u == null) continue;
-
-                        u.setUid(uid);
-                        employees.add(u);
-                    }
+        // Served from the shared company index (one listener for the whole app)
+        CompanyDirectory.getInstance().whenLoaded(companyId, directory -> {
+            if (isFinishing()) return;
+            employees.clear();
+            selectedUids.clear();
+
+            for (User u : directory.getUsers()) {
+                // exclude me + already in group
+                if (isExcluded(u.getUid())) continue;
+                employees.add(u);
+            }
 
-                    // Apply current search filter
-                    filterEmployees(etSearch.getText().toString());
-                })
-                .addOnFailureListener(e ->
-                        Toast.makeText(this, "Error: " + e.getMessage(), Toast.LENGTH_SHORT).show()
-                );
+            // Apply current search filter
+            filterEmployees(etSearch.getText().toString());
+        });
     }
 
     private void filterEmployees(String query) {
         filteredEmployees.clear();
-        
-        if (query == null || query.trim().isEmpty()) {
+
+        CompanyDirectory directory = CompanyDirectory.getInstance();
+        if (query == null || query.trim().isEmpty() || !directory.isLoaded()) {
             // No filter - show all
             filteredEmployees.addAll(employees);
         } else {
-            // Filter by name, email
-            String lowerQuery = query.toLowerCase(Locale.getDefault());
-            
-            for (User user : employees) {
-                String fullName = user.getFullName();
-                if (fullName == null || fullName.trim().isEmpty()) {
-                    // Build full name from firstName and lastName
-                    String firstName = user.getFirstName() != null ? user.getFirstName() : "";
-                    String lastName = user.getLastName() != null ? user.getLastName() : "";
-                    fullName = (firstName + " " + lastName).trim();
-                }
-                
-                String firstName = user.getFirstName() != null ? user.getFirstName().toLowerCase(Locale.getDefault()) : "";
-                String lastName = user.getLastName() != null ? user.getLastName().toLowerCase(Locale.getDefault()) : "";
-                String email = user.getEmail() != null ? user.getEmail().toLowerCase(Locale.getDefault()) : "";
-                
-                if (fullName.toLowerCase(Locale.getDefault()).contains(lowerQuery) ||
-                    firstName.contains(lowerQuery) ||
-                    lastName.contains(lowerQuery) ||
-                    email.contains(lowerQuery)) {
-                    filteredEmployees.add(user);
-                }
+            // Ranked prefix match on first name, last name and email
+            for (User user : directory.search(query, directory.getUsers().size(), null)) {
+                if (!isExcluded(user.getUid())) filteredEmployees.add(user);
             }
         }
-        
+
         adapter.notifyDataSetChanged();
     }
 
+    private boolean isExcluded(String uid) {
+        return uid.equals(currentUserId) || existingParticipantIds.contains(uid);
+    }
+
     private void addSelectedMembers() {
         if (selectedUids.isEmpty()) {
             Toast.makeText(this, "Select at least 1 user", Toast.LENGTH_SHORT).show();
@@ -209,15 +189,17 @@ public class AddMembersActivity extends AppCompatActivity {
         Map<String, Object> convUpdates = new HashMap<>();
         convUpdates.put("participantIds", FieldValue.arrayUnion(selectedUids.toArray()));
 
-        // 2) init unreadCounts for each added user
+        batch.update(db.collection("conversations").document(conversationId), convUpdates);
+
+        // 2) inbox entry for each added user (the summary is copied with the "added" system message)
         for (String uid : selectedUids) {
-            convUpdates.put("unreadCounts." + uid, 0);
+            ConversationInbox.putEntry(batch, uid, conversationId, null, 0);
         }
 
-        batch.update(db.collection("conversations").document(conversationId), convUpdates);
-
         batch.commit()
                 .addOnSuccessListener(v -> {
+                    MessageRepository.invalidateParticipants(conversationId);
+
                     // Create system messages for each added member
                     for (String uid : selectedUids) {
                         SystemMessageHelper.createSystemMessage(
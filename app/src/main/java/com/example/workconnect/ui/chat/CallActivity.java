@@ -6,6 +6,7 @@ import android.content.pm.PackageManager;
 import android.os.Bundle;
 import android.os.Handler;
 import android.os.Looper;
+import android.os.SystemClock;
 import android.util.Log;
 import android.view.View;
 import android.view.ViewGroup;
@@ -26,12 +27,15 @@ import androidx.recyclerview.widget.RecyclerView;
 import com.google.android.material.bottomsheet.BottomSheetDialog;
 
 import com.example.workconnect.R;
-import com.example.workconnect.config.AgoraConfig;
 import com.example.workconnect.models.Call;
 import com.example.workconnect.repository.CallRepository;
+import com.example.workconnect.repository.authAndUsers.UserDirectory;
 import com.example.workconnect.repository.chat.MessageRepository;
 import com.example.workconnect.repository.authAndUsers.UserRepository;
 import com.example.workconnect.utils.AgoraErrorHandler;
+import com.example.workconnect.utils.CallEngineHolder;
+import com.example.workconnect.utils.CallSetupMetrics;
+import com.example.workconnect.utils.CallSetupTrace;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.firestore.ListenerRegistration;
@@ -46,8 +50,8 @@ import io.agora.rtc2.ChannelMediaOptions;
 import io.agora.rtc2.Constants;
 import io.agora.rtc2.IRtcEngineEventHandler;
 import io.agora.rtc2.RtcEngine;
-import io.agora.rtc2.RtcEngineConfig;
 import io.agora.rtc2.video.VideoCanvas;
+import io.agora.rtc2.video.VideoEncoderConfiguration;
 
 public class CallActivity extends AppCompatActivity {
 
@@ -106,6 +110,14 @@ public class CallActivity extends AppCompatActivity {
     private RecyclerView recyclerThumbnails;
     private GroupCallVideoAdapter thumbnailAdapter;
 
+    // Group calls: high stream for the main view, low stream for visible thumbnails only
+    private static final int MAX_LOW_STREAMS = 6;
+    private final VideoSubscriptions videoSubscriptions =
+            new VideoSubscriptions(MAX_LOW_STREAMS, this::applyVideoQuality);
+
+    // Resources kept while the call is minimized or in picture-in-picture
+    private final CallPowerMode powerMode = new CallPowerMode(this::applyPowerMode);
+
     // Network quality
     private ImageView ivNetworkQuality;
     private int localNetworkQuality = 0; // 0-6 (0=unknown, 1=excellent, 6=down)
@@ -113,9 +125,13 @@ public class CallActivity extends AppCompatActivity {
     // Network error handling
     private Handler reconnectHandler;
     private Runnable reconnectRunnable;
-    private int reconnectAttempts = 0;
     private static final int MAX_RECONNECT_ATTEMPTS = 5;
-    private static final long RECONNECT_DELAY_MS = 3000; // 3 seconds
+    private final ReconnectBackoff reconnectBackoff = new ReconnectBackoff(MAX_RECONNECT_ATTEMPTS, Math::random);
+    // Retries a pending reconnect as soon as a network is available again
+    private android.content.BroadcastReceiver networkChangeReceiver;
+
+    // Encoder profile from network telemetry (created when joining the channel)
+    private CallQualityController qualityController;
 
     // Ringing animation
     private android.animation.AnimatorSet ringingAnimator;
@@ -182,6 +198,8 @@ public class CallActivity extends AppCompatActivity {
         // Initialize UI
         initializeViews();
 
+        registerNetworkChangeReceiver();
+
         // Check permissions
         if (checkPermissions()) {
             initializeCall();
@@ -329,7 +347,46 @@ public class CallActivity extends AppCompatActivity {
             recyclerThumbnails.setLayoutManager(
                     new LinearLayoutManager(this, LinearLayoutManager.HORIZONTAL, false));
             recyclerThumbnails.setAdapter(thumbnailAdapter);
+            // Also called after each layout pass (dx = dy = 0), e.g. when thumbnails are added
+            recyclerThumbnails.addOnScrollListener(new RecyclerView.OnScrollListener() {
+                @Override
+                public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                    updateVisibleThumbnails();
+                }
+            });
+        }
+    }
+
+    /**
+     * Report the thumbnails on screen: off-screen participants stop being received
+     */
+    private void updateVisibleThumbnails() {
+        if (recyclerThumbnails == null || thumbnailAdapter == null) return;
+        LinearLayoutManager layoutManager = (LinearLayoutManager) recyclerThumbnails.getLayoutManager();
+        if (layoutManager == null) return;
+
+        List<Integer> visible = new ArrayList<>();
+        int first = layoutManager.findFirstVisibleItemPosition();
+        int last = layoutManager.findLastVisibleItemPosition();
+        if (first != RecyclerView.NO_POSITION) {
+            for (int position = first; position <= last && position < thumbnailAdapter.getItemCount(); position++) {
+                visible.add(thumbnailAdapter.getUidAt(position));
+            }
         }
+        videoSubscriptions.setVisibleThumbnails(visible);
+    }
+
+    private void applyVideoQuality(int uid, VideoSubscriptions.Quality quality) {
+        // While remote video is off as a whole, choices are applied when it resumes
+        if (agoraEngine == null || !isRemoteVideoAllowed()) return;
+        if (quality == VideoSubscriptions.Quality.NONE) {
+            agoraEngine.muteRemoteVideoStream(uid, true);
+        } else {
+            agoraEngine.muteRemoteVideoStream(uid, false);
+            agoraEngine.setRemoteVideoStreamType(uid, quality == VideoSubscriptions.Quality.HIGH
+                    ? Constants.VIDEO_STREAM_HIGH : Constants.VIDEO_STREAM_LOW);
+        }
+        Log.d(TAG, "Video of " + uid + ": " + quality);
     }
 
     private void resizeCallButtons() {
@@ -411,14 +468,18 @@ public class CallActivity extends AppCompatActivity {
     }
 
     private void initializeCall() {
-        try {
-            // Initialize Agora Engine
-            RtcEngineConfig config = new RtcEngineConfig();
-            config.mContext = getApplicationContext();
-            config.mAppId = AgoraConfig.APP_ID;
-            config.mEventHandler = agoraEventHandler;
+        // Usually pre-warmed when the chat opened, created in the background otherwise
+        CallEngineHolder.getInstance().acquire(this, agoraEventHandler, this::onEngineReady);
+    }
 
-            agoraEngine = RtcEngine.create(config);
+    private void onEngineReady(RtcEngine engine) {
+        if (isFinishing || isDestroyed()) return;
+        try {
+            if (engine == null) {
+                throw new IllegalStateException("Agora engine unavailable");
+            }
+            agoraEngine = engine;
+            CallSetupMetrics.mark(callId, CallSetupTrace.Milestone.ENGINE_READY);
 
             // Enable video and start preview immediately (even during ringing)
             agoraEngine.enableVideo();
@@ -456,6 +517,10 @@ public class CallActivity extends AppCompatActivity {
                     return;
                 }
 
+                if (isCaller && call.getRingingAt() != null && !call.getRingingAt().isEmpty()) {
+                    CallSetupMetrics.mark(callId, CallSetupTrace.Milestone.REMOTE_RINGING);
+                }
+
                 // Update UI with call info (only if views are available)
                 try {
                     updateCallUI(call);
@@ -597,18 +662,26 @@ public class CallActivity extends AppCompatActivity {
         if (currentCall == null || currentCall.getParticipants() == null) return;
         participantNameQueue.clear();
 
+        List<String> others = new ArrayList<>();
         for (String participantId : currentCall.getParticipants()) {
             if (!participantId.equals(currentUserId)) {
-                UserRepository.loadUserName(participantId, name -> {
-                    if (name != null && !name.trim().isEmpty()) {
-                        participantNameQueue.add(name);
-                        Log.d(TAG, "Loaded participant name: " + name);
-                        // Try to assign queued names to connected UIDs
-                        assignNamesToConnectedUids();
-                    }
-                });
+                others.add(participantId);
             }
         }
+
+        // One batched lookup for the whole group, names queued in participant order
+        UserDirectory directory = UserDirectory.getInstance();
+        directory.loadUsers(others, users -> {
+            for (String participantId : users.keySet()) {
+                String name = directory.peekName(participantId);
+                if (name != null && !name.trim().isEmpty()) {
+                    participantNameQueue.add(name);
+                    Log.d(TAG, "Loaded participant name: " + name);
+                }
+            }
+            // Try to assign queued names to connected UIDs
+            assignNamesToConnectedUids();
+        });
     }
 
     /**
@@ -671,6 +744,21 @@ public class CallActivity extends AppCompatActivity {
             // Enable audio
             agoraEngine.enableAudio();
 
+            // Start at the best profile for this kind of call (kept across reconnects)
+            if (qualityController == null) {
+                qualityController = new CallQualityController(
+                        isGroupCall ? CallQualityController.Profile.SD : CallQualityController.Profile.HD,
+                        this::applyQualityProfile);
+                applyQualityProfile(qualityController.getProfile());
+            }
+
+            // Group calls: also publish a small stream for the others' thumbnails, and receive
+            // small streams by default (VideoSubscriptions upgrades the main view).
+            // The engine is reused across calls: set both ways.
+            agoraEngine.enableDualStreamMode(isGroupCall);
+            agoraEngine.setRemoteDefaultVideoStreamType(isGroupCall
+                    ? Constants.VIDEO_STREAM_LOW : Constants.VIDEO_STREAM_HIGH);
+
             // Configure channel options
             ChannelMediaOptions options = new ChannelMediaOptions();
             options.channelProfile = Constants.CHANNEL_PROFILE_COMMUNICATION;
@@ -843,6 +931,7 @@ public class CallActivity extends AppCompatActivity {
             runOnUiThread(() -> {
                 localUid = uid;
                 Log.d(TAG, "Joined channel successfully. Local UID: " + uid);
+                CallSetupMetrics.mark(callId, CallSetupTrace.Milestone.JOINED);
                 tvCallStatus.setText("Connected");
             });
         }
@@ -861,6 +950,7 @@ public class CallActivity extends AppCompatActivity {
 
                 // Setup remote video immediately (unified for all call types)
                 setupRemoteVideo(uid);
+                if (isGroupCall) videoSubscriptions.onParticipantJoined(uid);
 
                 // Update call status to active if not already
                 if (currentCall != null && "ringing".equals(currentCall.getStatus())) {
@@ -879,6 +969,7 @@ public class CallActivity extends AppCompatActivity {
                     connectedRemoteUids.remove(uid);
                     uidToName.remove(uid);
                     remoteAudioStates.remove(uid);
+                    videoSubscriptions.onParticipantLeft(uid);
                     if (thumbnailAdapter != null) thumbnailAdapter.removeVideo(uid);
                     // If this was the active speaker, switch to next participant
                     if (uid == currentActiveSpeakerUid) {
@@ -902,6 +993,9 @@ public class CallActivity extends AppCompatActivity {
                         state == Constants.REMOTE_VIDEO_STATE_DECODING);
                 boolean videoOff = (state == Constants.REMOTE_VIDEO_STATE_STOPPED ||
                         state == Constants.REMOTE_VIDEO_STATE_FROZEN);
+                if (state == Constants.REMOTE_VIDEO_STATE_DECODING) {
+                    CallSetupMetrics.mark(callId, CallSetupTrace.Milestone.FIRST_REMOTE_FRAME);
+                }
 
                 if (isGroupCall) {
                     Log.d(TAG, "Group remote video " + (videoOn ? "ON" : "OFF") + " for uid: " + uid);
@@ -955,6 +1049,10 @@ public class CallActivity extends AppCompatActivity {
                 boolean isAudioEnabled = (state == Constants.REMOTE_AUDIO_STATE_STARTING ||
                         state == Constants.REMOTE_AUDIO_STATE_DECODING);
                 remoteAudioStates.put(uid, isAudioEnabled);
+                if (state == Constants.REMOTE_AUDIO_STATE_DECODING) {
+                    // The other side is heard (voice calls have no video frame)
+                    CallSetupMetrics.mark(callId, CallSetupTrace.Milestone.FIRST_REMOTE_FRAME);
+                }
 
                 Log.d(TAG, "Remote audio state changed for uid: " + uid + ", enabled: " + isAudioEnabled);
 
@@ -972,6 +1070,9 @@ public class CallActivity extends AppCompatActivity {
                     // Local network quality (use worst of tx/rx)
                     localNetworkQuality = Math.max(txQuality, rxQuality);
                     updateNetworkQualityIndicator(localNetworkQuality);
+                    if (qualityController != null) {
+                        qualityController.onQualitySample(SystemClock.elapsedRealtime(), txQuality, rxQuality);
+                    }
                 } else {
                     // Remote network quality (can be displayed per participant in group calls)
                     Log.d(TAG, "Remote network quality for uid " + uid + ": tx=" + txQuality + ", rx=" + rxQuality);
@@ -979,6 +1080,15 @@ public class CallActivity extends AppCompatActivity {
             });
         }
 
+        @Override
+        public void onRtcStats(RtcStats stats) {
+            int lossPercent = Math.max(stats.txPacketLossRate, stats.rxPacketLossRate);
+            int rttMs = stats.gatewayRtt;
+            runOnUiThread(() -> {
+                if (qualityController != null) qualityController.onStats(lossPercent, rttMs);
+            });
+        }
+
         @Override
         public void onConnectionStateChanged(int state, int reason) {
             runOnUiThread(() -> {
@@ -995,7 +1105,7 @@ public class CallActivity extends AppCompatActivity {
                         break;
                     case Constants.CONNECTION_STATE_CONNECTED:
                         Log.d(TAG, "Connection established");
-                        reconnectAttempts = 0; // Reset on successful connection
+                        reconnectBackoff.reset(); // Reset on successful connection
                         if (currentCall != null && "active".equals(currentCall.getStatus())) {
                             tvCallStatus.setText("Connected");
                         }
@@ -1025,9 +1135,9 @@ public class CallActivity extends AppCompatActivity {
                     Toast.makeText(CallActivity.this, errorMessage, Toast.LENGTH_SHORT).show();
                 }
 
-                if (shouldReconnect && reconnectAttempts < MAX_RECONNECT_ATTEMPTS) {
+                if (shouldReconnect && !reconnectBackoff.isExhausted()) {
                     scheduleReconnect();
-                } else if (reconnectAttempts >= MAX_RECONNECT_ATTEMPTS) {
+                } else if (reconnectBackoff.isExhausted()) {
                     Toast.makeText(CallActivity.this,
                             "Failed to reconnect after " + MAX_RECONNECT_ATTEMPTS + " attempts",
                             Toast.LENGTH_LONG).show();
@@ -1137,9 +1247,9 @@ public class CallActivity extends AppCompatActivity {
     private void handleNetworkError(String message, boolean shouldReconnect) {
         Log.w(TAG, "Network error: " + message);
 
-        if (shouldReconnect && reconnectAttempts < MAX_RECONNECT_ATTEMPTS) {
+        if (shouldReconnect && !reconnectBackoff.isExhausted()) {
             scheduleReconnect();
-        } else if (reconnectAttempts >= MAX_RECONNECT_ATTEMPTS) {
+        } else if (reconnectBackoff.isExhausted()) {
             Toast.makeText(this,
                     "Connection lost. Please check your network.",
                     Toast.LENGTH_LONG).show();
@@ -1147,7 +1257,7 @@ public class CallActivity extends AppCompatActivity {
     }
 
     /**
-     * Schedule a reconnection attempt
+     * Schedule a reconnection attempt (exponential backoff with jitter)
      */
     private void scheduleReconnect() {
         if (reconnectHandler == null) {
@@ -1159,17 +1269,140 @@ public class CallActivity extends AppCompatActivity {
             reconnectHandler.removeCallbacks(reconnectRunnable);
         }
 
-        reconnectAttempts++;
-        Log.d(TAG, "Scheduling reconnect attempt " + reconnectAttempts + "/" + MAX_RECONNECT_ATTEMPTS);
+        long delayMs = reconnectBackoff.nextDelayMs();
+        if (delayMs < 0) return;
+        Log.d(TAG, "Scheduling reconnect attempt " + reconnectBackoff.getAttempts() + "/" + MAX_RECONNECT_ATTEMPTS
+                + " in " + delayMs + "ms");
 
         reconnectRunnable = () -> {
+            reconnectRunnable = null;
             if (agoraEngine != null && channelName != null) {
                 Log.d(TAG, "Attempting to reconnect...");
                 joinChannel();
             }
         };
 
-        reconnectHandler.postDelayed(reconnectRunnable, RECONNECT_DELAY_MS);
+        reconnectHandler.postDelayed(reconnectRunnable, delayMs);
+    }
+
+    /**
+     * Network changed: a reconnect waiting for its backoff delay runs right away
+     */
+    private void registerNetworkChangeReceiver() {
+        networkChangeReceiver = new android.content.BroadcastReceiver() {
+            @Override
+            public void onReceive(android.content.Context context, Intent intent) {
+                android.net.ConnectivityManager cm = (android.net.ConnectivityManager)
+                        getSystemService(android.content.Context.CONNECTIVITY_SERVICE);
+                android.net.NetworkInfo activeNetwork = cm != null ? cm.getActiveNetworkInfo() : null;
+                boolean isConnected = activeNetwork != null && activeNetwork.isConnected();
+
+                if (isConnected && reconnectHandler != null && reconnectRunnable != null) {
+                    Log.d(TAG, "Network available: reconnecting now");
+                    Runnable pending = reconnectRunnable;
+                    reconnectHandler.removeCallbacks(pending);
+                    pending.run();
+                }
+            }
+        };
+        registerReceiver(networkChangeReceiver,
+                new android.content.IntentFilter(android.net.ConnectivityManager.CONNECTIVITY_ACTION));
+    }
+
+    private void unregisterNetworkChangeReceiver() {
+        if (networkChangeReceiver != null) {
+            try {
+                unregisterReceiver(networkChangeReceiver);
+            } catch (Exception e) {
+                Log.e(TAG, "Error unregistering network receiver", e);
+            }
+            networkChangeReceiver = null;
+        }
+    }
+
+    /**
+     * Apply the encoder profile chosen by the quality controller
+     */
+    private void applyQualityProfile(CallQualityController.Profile profile) {
+        if (agoraEngine == null) return;
+        Log.d(TAG, "Call quality profile: " + profile);
+
+        if (!profile.hasVideo()) {
+            // Keep the call going on audio: stop sending and receiving video
+            agoraEngine.muteLocalVideoStream(true);
+            applyRemoteVideoReception();
+            if (isCameraEnabled) {
+                Toast.makeText(this, "Weak connection: video paused", Toast.LENGTH_SHORT).show();
+            }
+            return;
+        }
+
+        agoraEngine.setVideoEncoderConfiguration(new VideoEncoderConfiguration(
+                new VideoEncoderConfiguration.VideoDimensions(profile.width, profile.height),
+                frameRate(profile.fps),
+                profile.bitrateKbps,
+                VideoEncoderConfiguration.ORIENTATION_MODE.ORIENTATION_MODE_ADAPTIVE));
+        agoraEngine.muteLocalVideoStream(false);
+        applyRemoteVideoReception();
+    }
+
+    /**
+     * Remote video is received unless the network is too weak or nothing shows it
+     */
+    private boolean isRemoteVideoAllowed() {
+        boolean networkAllows = qualityController == null || qualityController.getProfile().hasVideo();
+        return networkAllows && powerMode.getMode().receivesRemoteVideo();
+    }
+
+    private void applyRemoteVideoReception() {
+        if (agoraEngine == null) return;
+        boolean allowed = isRemoteVideoAllowed();
+        agoraEngine.muteAllRemoteVideoStreams(!allowed);
+        if (allowed) {
+            // Per-participant choices of group calls (muted thumbnails, low streams) apply again
+            videoSubscriptions.resend();
+        }
+    }
+
+    /**
+     * Release what the screen no longer shows (preview, thumbnails, remote streams, timer)
+     */
+    private void applyPowerMode(CallPowerMode.Mode mode) {
+        Log.d(TAG, "Call power mode: " + mode);
+        if (isFinishing) return;
+
+        if (agoraEngine != null && !channelLeft) {
+            // Preview rendering only: capture and publishing go on
+            if (mode.rendersLocalPreview()) {
+                agoraEngine.startPreview();
+            } else {
+                agoraEngine.stopPreview();
+            }
+        }
+
+        if (isGroupCall && recyclerThumbnails != null && thumbnailAdapter != null) {
+            if (mode.bindsThumbnails()) {
+                // Visible thumbnails are reported again after the next layout pass
+                if (recyclerThumbnails.getAdapter() == null) recyclerThumbnails.setAdapter(thumbnailAdapter);
+            } else {
+                recyclerThumbnails.setAdapter(null);
+                videoSubscriptions.setVisibleThumbnails(new ArrayList<>());
+            }
+        }
+        videoSubscriptions.setSpeakerOnly(mode.speakerOnly());
+        applyRemoteVideoReception();
+
+        if (callDurationHandler != null && callDurationRunnable != null) {
+            callDurationHandler.removeCallbacks(callDurationRunnable);
+            // Refreshed right away on return; the notification shows its own chronometer meanwhile
+            if (mode.ticksDuration()) callDurationHandler.post(callDurationRunnable);
+        }
+    }
+
+    private static VideoEncoderConfiguration.FRAME_RATE frameRate(int fps) {
+        if (fps >= 30) return VideoEncoderConfiguration.FRAME_RATE.FRAME_RATE_FPS_30;
+        if (fps >= 24) return VideoEncoderConfiguration.FRAME_RATE.FRAME_RATE_FPS_24;
+        return VideoEncoderConfiguration.FRAME_RATE.FRAME_RATE_FPS_15;
     }
 
     /**
@@ -1523,6 +1756,7 @@ public class CallActivity extends AppCompatActivity {
         if (mainSpeakerVideoContainer == null) return;
 
         currentActiveSpeakerUid = speakerUid;
+        videoSubscriptions.setActiveSpeaker(speakerUid);
 
         // Determine if this is the local user (UID 0 in adapter maps to localUid in Agora)
         boolean isLocalSpeaker = (speakerUid == 0 || speakerUid == localUid);
@@ -1709,6 +1943,7 @@ public class CallActivity extends AppCompatActivity {
 
         // Leave Agora channel for old call (do NOT destroy engine — it will be reused)
         leaveChannel();
+        CallSetupMetrics.finish(callId);
 
         // ── 2. Reset ALL instance state ───────────────────────────────────
         callStartTime    = null;
@@ -1721,11 +1956,13 @@ public class CallActivity extends AppCompatActivity {
         isGroupCallUIInitialized = false;
         isFinishing      = false;
         channelLeft      = false; // allow leaveChannel() for the new call
-        reconnectAttempts = 0;
+        reconnectBackoff.reset();
+        qualityController = null; // created again, for the new call, when joining
         connectedRemoteUids.clear();
         uidToName.clear();
         remoteAudioStates.clear();
         participantNameQueue.clear();
+        videoSubscriptions.reset();
         if (thumbnailAdapter != null) thumbnailAdapter.clear();
 
         // ── 3. Load new call params ───────────────────────────────────────
@@ -1773,7 +2010,9 @@ public class CallActivity extends AppCompatActivity {
                 if (callStartTime != null) {
                     long duration = new Date().getTime() - callStartTime.getTime();
                     updateCallDuration(duration);
-                    callDurationHandler.postDelayed(this, 1000);
+                    if (powerMode.getMode().ticksDuration()) {
+                        callDurationHandler.postDelayed(this, 1000);
+                    }
                 }
             }
         };
@@ -1841,6 +2080,7 @@ public class CallActivity extends AppCompatActivity {
     @Override
     public void onPictureInPictureModeChanged(boolean isInPictureInPictureMode, android.content.res.Configuration newConfig) {
         super.onPictureInPictureModeChanged(isInPictureInPictureMode, newConfig);
+        powerMode.setInPip(isInPictureInPictureMode);
 
         if (isInPictureInPictureMode) {
             Log.d(TAG, "Entered Picture-in-Picture mode");
@@ -1882,6 +2122,19 @@ public class CallActivity extends AppCompatActivity {
         }
     }
 
+    @Override
+    protected void onStart() {
+        super.onStart();
+        powerMode.setVisible(true);
+    }
+
+    @Override
+    protected void onStop() {
+        super.onStop();
+        // Minimized or sent to the background (in picture-in-picture the activity stays started)
+        powerMode.setVisible(false);
+    }
+
     @Override
     protected void onResume() {
         super.onResume();
@@ -1919,6 +2172,9 @@ public class CallActivity extends AppCompatActivity {
         serviceIntent.putExtra("remote_user_name", tvRemoteUserName != null ? tvRemoteUserName.getText().toString() : null);
         serviceIntent.putExtra("is_muted", isMuted);
         serviceIntent.putExtra("is_speaker_enabled", isSpeakerEnabled);
+        if (callStartTime != null) {
+            serviceIntent.putExtra("call_started_at", callStartTime.getTime());
+        }
 
         if (android.os.Build.VERSION.SDK_INT >= android.os.Build.VERSION_CODES.O) {
             startForegroundService(serviceIntent);
@@ -2002,6 +2258,8 @@ public class CallActivity extends AppCompatActivity {
         // Unregister broadcast receiver
         unregisterCallActionReceiver();
 
+        unregisterNetworkChangeReceiver();
+
         // Cancel reconnect attempts
         if (reconnectHandler != null && reconnectRunnable != null) {
             reconnectHandler.removeCallbacks(reconnectRunnable);
@@ -2020,11 +2278,12 @@ public class CallActivity extends AppCompatActivity {
         }
 
         // Leave Agora channel if not already done (e.g. unexpected Activity kill).
-        // Do NOT call RtcEngine.destroy() here: it's a static singleton and a new
-        // CallActivity may have already called RtcEngine.create() for the next call.
-        // Destroying it would silently cut the new call. leaveChannel() is enough.
+        // The engine itself stays in CallEngineHolder for the next call: only stop
+        // receiving its events. It is destroyed there under memory pressure.
         leaveChannel();
+        CallEngineHolder.getInstance().release(agoraEventHandler);
         agoraEngine = null;
+        CallSetupMetrics.finish(callId);
 
         // Always release the "in call" lock on destroy (safety net)
         isInCall = false;
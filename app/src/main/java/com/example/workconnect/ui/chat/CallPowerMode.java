@@ -0,0 +1,98 @@
+package com.example.workconnect.ui.chat;
+
+/**
+ * How much of the call is on screen, and so which resources it needs.
+ *
+ * - FULL: the call screen is shown
+ * - PIP: the call screen is a small picture-in-picture window
+ * - BACKGROUND: the call screen is not visible (minimized to the chat, home screen...):
+ *   only the CallForegroundService notification remains, which renders its own timer
+ *
+ * Audio, capture and publishing never depend on the mode: the other participants
+ * still see and hear us.
+ *
+ * Pure Java (no Android/Agora) so the transitions can be unit tested.
+ */
+class CallPowerMode {
+
+    enum Mode {
+        FULL,
+        PIP,
+        BACKGROUND;
+
+        /**
+         * Local camera preview rendered on screen
+         */
+        boolean rendersLocalPreview() {
+            return this == FULL;
+        }
+
+        /**
+         * Thumbnail strip of group calls bound to its surfaces
+         */
+        boolean bindsThumbnails() {
+            return this == FULL;
+        }
+
+        /**
+         * Remote video received at all
+         */
+        boolean receivesRemoteVideo() {
+            return this != BACKGROUND;
+        }
+
+        /**
+         * Only the main participant's video, as a low stream
+         */
+        boolean speakerOnly() {
+            return this == PIP;
+        }
+
+        /**
+         * On-screen call duration refreshed every second
+         */
+        boolean ticksDuration() {
+            return this == FULL;
+        }
+    }
+
+    interface Listener {
+        void onModeChanged(Mode mode);
+    }
+
+    private final Listener listener;
+
+    private boolean visible = false;
+    private boolean inPip = false;
+    private Mode mode = Mode.BACKGROUND;
+
+    CallPowerMode(Listener listener) {
+        this.listener = listener;
+    }
+
+    Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * The activity started (true) or stopped (false)
+     */
+    void setVisible(boolean visible) {
+        this.visible = visible;
+        update();
+    }
+
+    void setInPip(boolean inPip) {
+        this.inPip = inPip;
+        update();
+    }
+
+    private void update() {
+        // A stopped activity shows nothing, whatever its PiP flag says (the PiP window
+        // was closed, or Android has not reported leaving PiP yet)
+        Mode next = !visible ? Mode.BACKGROUND : inPip ? Mode.PIP : Mode.FULL;
+        if (next == mode) return;
+        mode = next;
+        listener.onModeChanged(next);
+    }
+}
@@ -0,0 +1,170 @@
+package com.example.workconnect.ui.chat;
+
+/**
+ * Turns network telemetry of a call into video encoder decisions.
+ *
+ * Inputs, every ~2 seconds from the engine:
+ * - local network quality (Agora scale: 0=unknown, 1=excellent, 2=good, 3=poor, 4=bad,
+ *   5=very bad, 6=down), the worst of uplink and downlink
+ * - packet loss and round trip time, which can make a sample count as worse
+ *
+ * Decisions, with hysteresis so a single bad sample never changes anything and the
+ * profile does not flap:
+ * - DOWN_SAMPLES poor samples in a row: one profile down (not below the lowest video one)
+ * - AUDIO_ONLY_SAMPLES very bad samples in a row: audio only (no video sent or received)
+ * - UP_SAMPLES good samples in a row, and UP_HOLD_MS since the last step down:
+ *   one profile up (audio only goes back to the lowest video profile), never above the
+ *   starting profile
+ *
+ * Pure Java (no Android/Agora) so it can be unit tested with recorded quality traces.
+ */
+class CallQualityController {
+
+    /**
+     * Encoder profiles, best first
+     */
+    enum Profile {
+        HD(960, 540, 24, 1000),
+        SD(640, 360, 15, 550),
+        LOW(320, 180, 15, 160),
+        AUDIO_ONLY(0, 0, 0, 0);
+
+        final int width;
+        final int height;
+        final int fps;
+        final int bitrateKbps;
+
+        Profile(int width, int height, int fps, int bitrateKbps) {
+            this.width = width;
+            this.height = height;
+            this.fps = fps;
+            this.bitrateKbps = bitrateKbps;
+        }
+
+        boolean hasVideo() {
+            return this != AUDIO_ONLY;
+        }
+    }
+
+    interface Listener {
+        void onProfileChanged(Profile profile);
+    }
+
+    static final int QUALITY_UNKNOWN = 0;
+    static final int QUALITY_GOOD = 2;
+    static final int QUALITY_POOR = 3;
+    static final int QUALITY_VERY_BAD = 5;
+
+    static final int DOWN_SAMPLES = 2;
+    static final int AUDIO_ONLY_SAMPLES = 3;
+    static final int UP_SAMPLES = 5;
+    static final long UP_HOLD_MS = 20_000;
+
+    // Loss and latency thresholds that make a sample count as poor / very bad
+    static final int LOSS_POOR_PERCENT = 8;
+    static final int LOSS_VERY_BAD_PERCENT = 25;
+    static final int RTT_POOR_MS = 400;
+    static final int RTT_VERY_BAD_MS = 1200;
+
+    private final Profile best;
+    private final Listener listener;
+
+    private Profile profile;
+    private int poorStreak = 0;
+    private int veryBadStreak = 0;
+    private int goodStreak = 0;
+    private long lastStepDownAt = Long.MIN_VALUE / 2;
+
+    private int lossPercent = 0;
+    private int rttMs = 0;
+
+    /**
+     * @param best Profile used when the network is good (the call starts with it)
+     */
+    CallQualityController(Profile best, Listener listener) {
+        this.best = best;
+        this.profile = best;
+        this.listener = listener;
+    }
+
+    Profile getProfile() {
+        return profile;
+    }
+
+    /**
+     * Latest transport statistics (used with the next quality sample)
+     * @param lossPercent Worst of sent/received packet loss, 0-100
+     */
+    void onStats(int lossPercent, int rttMs) {
+        this.lossPercent = lossPercent;
+        this.rttMs = rttMs;
+    }
+
+    /**
+     * A local network quality sample
+     * @param now Monotonic time in ms
+     */
+    void onQualitySample(long now, int txQuality, int rxQuality) {
+        int quality = Math.max(txQuality, rxQuality);
+        if (quality == QUALITY_UNKNOWN) return; // first seconds of a call
+
+        quality = Math.max(quality, statsQuality());
+
+        if (quality >= QUALITY_VERY_BAD) {
+            veryBadStreak++;
+        } else {
+            veryBadStreak = 0;
+        }
+        if (quality >= QUALITY_POOR) {
+            poorStreak++;
+            goodStreak = 0;
+        } else if (quality <= QUALITY_GOOD) {
+            goodStreak++;
+            poorStreak = 0;
+        }
+
+        if (veryBadStreak >= AUDIO_ONLY_SAMPLES && profile != Profile.AUDIO_ONLY) {
+            stepDownTo(now, Profile.AUDIO_ONLY);
+        } else if (poorStreak >= DOWN_SAMPLES && profile.hasVideo() && profile != lowestVideo()) {
+            stepDownTo(now, next(profile));
+        } else if (goodStreak >= UP_SAMPLES && profile != best && now - lastStepDownAt >= UP_HOLD_MS) {
+            stepUpTo(previous(profile));
+        }
+    }
+
+    private int statsQuality() {
+        if (lossPercent >= LOSS_VERY_BAD_PERCENT || rttMs >= RTT_VERY_BAD_MS) return QUALITY_VERY_BAD;
+        if (lossPercent >= LOSS_POOR_PERCENT || rttMs >= RTT_POOR_MS) return QUALITY_POOR;
+        return QUALITY_UNKNOWN;
+    }
+
+    private void stepDownTo(long now, Profile lower) {
+        lastStepDownAt = now;
+        profile = lower;
+        // The next step down is judged on fresh samples, but a very bad streak keeps
+        // counting: it goes on to audio only instead of stepping through every profile
+        poorStreak = 0;
+        goodStreak = 0;
+        listener.onProfileChanged(lower);
+    }
+
+    private void stepUpTo(Profile higher) {
+        profile = higher;
+        poorStreak = 0;
+        veryBadStreak = 0;
+        goodStreak = 0;
+        listener.onProfileChanged(higher);
+    }
+
+    private static Profile lowestVideo() {
+        return Profile.LOW;
+    }
+
+    private static Profile next(Profile profile) {
+        return Profile.values()[profile.ordinal() + 1];
+    }
+
+    private static Profile previous(Profile profile) {
+        return Profile.values()[profile.ordinal() - 1];
+    }
+}
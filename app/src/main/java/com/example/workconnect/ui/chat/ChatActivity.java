@@ -1,6 +1,7 @@
 package com.example.workconnect.ui.chat;
 
 import android.Manifest;
+import android.app.Dialog;
 import android.content.ClipData;
 import android.content.ClipboardManager;
 import android.content.BroadcastReceiver;
@@ -10,6 +11,7 @@ import android.content.IntentFilter;
 import android.content.pm.PackageManager;
 import android.net.ConnectivityManager;
 import android.net.NetworkInfo;
+import android.net.Uri;
 import android.os.Bundle;
 import android.util.Log;
 import android.text.Editable;
@@ -26,6 +28,8 @@ import android.widget.ProgressBar;
 import android.widget.TextView;
 import android.widget.Toast;
 
+import androidx.activity.result.ActivityResultLauncher;
+import androidx.activity.result.contract.ActivityResultContracts;
 import androidx.core.app.ActivityCompat;
 import androidx.core.content.ContextCompat;
 
@@ -36,58 +40,95 @@ import androidx.recyclerview.widget.RecyclerView;
 import com.google.android.material.bottomsheet.BottomSheetDialog;
 
 import com.example.workconnect.R;
+import com.example.workconnect.adapters.chats.ChatImageLoader;
 import com.example.workconnect.adapters.chats.ChatMessageAdapter;
 import com.example.workconnect.adapters.chats.MessageInfoAdapter;
 import com.example.workconnect.adapters.chats.ReactionsDetailAdapter;
 import com.example.workconnect.models.Call;
+import com.example.workconnect.models.ChatItem;
+import com.example.workconnect.models.ChatItemList;
 import com.example.workconnect.models.ChatMessage;
 import com.example.workconnect.repository.CallRepository;
+import com.example.workconnect.repository.authAndUsers.UserDirectory;
 import com.example.workconnect.repository.chat.MessageRepository;
+import com.example.workconnect.repository.chat.ConversationInbox;
+import com.example.workconnect.repository.chat.MessageStore;
+import com.example.workconnect.repository.chat.MessageSyncQuery;
+import com.example.workconnect.repository.chat.MessageWindowSource;
+import com.example.workconnect.repository.chat.SqliteMessageStore;
+import com.example.workconnect.repository.chat.TypingPresence;
+import com.example.workconnect.repository.decode.ModelMappers;
+import com.example.workconnect.repository.decode.SnapshotDecoder;
 import com.example.workconnect.ui.home.BaseDrawerActivity;
+import com.example.workconnect.utils.CallEngineHolder;
+import com.example.workconnect.utils.CallSetupMetrics;
+import com.example.workconnect.utils.CallSetupTrace;
+import com.example.workconnect.utils.ChatUtils;
 import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.firestore.DocumentChange;
 import com.google.firebase.firestore.DocumentSnapshot;
-import com.google.firebase.firestore.FieldValue;
 import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.firestore.ListenerRegistration;
-import com.google.firebase.firestore.Query;
-import com.google.firebase.firestore.WriteBatch;
 
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 public class ChatActivity extends BaseDrawerActivity {
 
     private RecyclerView recyclerMessages;
     private EditText inputMessage;
     private ImageButton buttonSend;
+    private ImageButton buttonAttach;
     private TextView textCharCount;
     private TextView typingIndicator;
     private ProgressBar progressBarPagination;
 
-    private final List<ChatMessage> messages = new ArrayList<>();
+    private final ChatItemList messages = new ChatItemList(); // messages + date separator rows
     private ChatMessageAdapter adapter;
 
     private String conversationId;
     private String currentUserId;
 
     private MessageRepository messageRepository;
+    private MessageStore messageStore;
+    private MessageWindowSource messageWindowSource;
 
     private LinearLayout offlineIndicator;
     private BroadcastReceiver networkStateReceiver;
 
     // Pagination
     private ListenerRegistration messagesListener;
-    private DocumentSnapshot lastDocument;
+    // Decodes tail snapshots off the main thread, in snapshot order
+    private SnapshotDecoder messagesDecoder;
+    private Date syncWatermark; // updatedAt of the newest write served from the local store (null = nothing stored)
     private boolean isLoadingOlderMessages = false;
     private boolean hasMoreMessages = true;
+    private boolean isTailWindowLoaded = false; // first snapshot of the live tail listener received
     private static final int MESSAGES_PER_PAGE = 50;
-
-    // Typing indicator
-    private ListenerRegistration typingListener;
-    private android.os.Handler typingHandler;
-    private static final long TYPING_TIMEOUT_MS = 3000; // 3 seconds
+    private static final int LOAD_NEWER_THRESHOLD = 5;
+
+    // Jumped to an old message: the list holds a window of history, the live tail listener is
+    // paused, and newer pages are loaded on scroll until the window reaches the newest message
+    private boolean isDetachedFromTail = false;
+    private boolean isLoadingNewerMessages = false;
+
+    // Typing indicator (separate presence channel, throttled heartbeats)
+    private TypingPresence typingPresence;
+
+    // Conversation document: members' read cursors (sentAt of the newest message they have read)
+    // and the participant list used by the send pipeline
+    private ListenerRegistration conversationListener;
+    private ListenerRegistration readCursorsListener;
+    // Cursors still stored on the conversation document (written before the per-member inbox)
+    private Map<String, Date> legacyReadCursors = new HashMap<>();
+    private Map<String, Date> inboxReadCursors = new HashMap<>();
+    private final Map<String, Date> readCursors = new HashMap<>();
+    private Date myReadCursor;
 
     private static final int MAX_MESSAGE_LENGTH = 2000;
     private static final int WARNING_THRESHOLD = 1800;
@@ -109,6 +150,11 @@ public class ChatActivity extends BaseDrawerActivity {
     private static final int PERMISSION_REQUEST_AUDIO = 100;
     private static final int PERMISSION_REQUEST_VIDEO = 101;
 
+    private final ActivityResultLauncher<String> pickImageLauncher =
+            registerForActivityResult(new ActivityResultContracts.GetContent(), uri -> {
+                if (uri != null) sendImage(uri);
+            });
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -117,6 +163,7 @@ public class ChatActivity extends BaseDrawerActivity {
         recyclerMessages = findViewById(R.id.recyclerMessages);
         inputMessage = findViewById(R.id.inputMessage);
         buttonSend = findViewById(R.id.buttonSend);
+        buttonAttach = findViewById(R.id.buttonAttach);
         textCharCount = findViewById(R.id.textCharCount);
         typingIndicator = findViewById(R.id.typingIndicator);
         offlineIndicator = findViewById(R.id.offlineIndicator);
@@ -139,7 +186,9 @@ public class ChatActivity extends BaseDrawerActivity {
         setupCallBanner();
         // db and mAuth are already initialized in BaseDrawerActivity
         currentUserId = mAuth.getCurrentUser() != null ? mAuth.getCurrentUser().getUid() : null;
-        messageRepository = new MessageRepository();
+        messageRepository = new MessageRepository(this);
+        messageStore = SqliteMessageStore.getInstance(this);
+        messageWindowSource = new MessageWindowSource();
         callRepository = new CallRepository();
 
         conversationId = getIntent().getStringExtra("conversationId");
@@ -170,6 +219,9 @@ public class ChatActivity extends BaseDrawerActivity {
         adapter.setOnReactionsClickListener((message) -> {
             showReactionsDetails(message);
         });
+
+        // Bubbles show thumbnails: the full image is loaded when opened
+        adapter.setOnImageClickListener(this::showFullImage);
         LinearLayoutManager layoutManager = new LinearLayoutManager(this);
         recyclerMessages.setLayoutManager(layoutManager);
         recyclerMessages.setAdapter(adapter);
@@ -186,6 +238,12 @@ public class ChatActivity extends BaseDrawerActivity {
                         hasMoreMessages) {
                     loadOlderMessages();
                 }
+
+                // Viewing a window of old history: page towards the newest messages
+                if (dy > 0 && isDetachedFromTail && !isLoadingNewerMessages &&
+                        layoutManager.findLastVisibleItemPosition() >= adapter.getItemCount() - LOAD_NEWER_THRESHOLD) {
+                    loadNewerMessages();
+                }
             }
         });
 
@@ -197,10 +255,17 @@ public class ChatActivity extends BaseDrawerActivity {
 
         listenMessages();
 
-        // Mark messages as read after a short delay
-        markMessagesAsRead();
+        // Opened on a specific message (e.g. a search hit)
+        String targetMessageId = getIntent().getStringExtra("messageId");
+        if (targetMessageId != null) {
+            jumpToMessage(targetMessageId);
+        }
+
+        // Read receipts and participants (messages are marked as read once loaded)
+        listenConversationState();
 
         buttonSend.setOnClickListener(v -> sendMessage());
+        buttonAttach.setOnClickListener(v -> pickImageLauncher.launch("image/*"));
 
         // Setup network monitoring
         setupNetworkMonitoring();
@@ -219,6 +284,9 @@ public class ChatActivity extends BaseDrawerActivity {
     private void setupCallButtons() {
         btnCallAudio.setOnClickListener(v -> initiateCall("audio"));
         btnCallVideo.setOnClickListener(v -> initiateCall("video"));
+
+        // A call may start from here: have the engine ready before the tap
+        CallEngineHolder.getInstance().prewarm(this);
     }
 
     private void setupCallBanner() {
@@ -306,11 +374,14 @@ public class ChatActivity extends BaseDrawerActivity {
             return;
         }
 
+        CallSetupMetrics.onTap();
+
         // create call
         callRepository.createCall(conversationId, currentUserId, participantIds, callType,
                 new CallRepository.CreateCallCallback() {
                     @Override
                     public void onSuccess(String callId) {
+                        CallSetupMetrics.mark(callId, CallSetupTrace.Milestone.CALL_CREATED);
                         Intent intent = new Intent(ChatActivity.this, CallActivity.class);
                         intent.putExtra("callId", callId);
                         intent.putExtra("conversationId", conversationId);
@@ -537,11 +608,9 @@ public class ChatActivity extends BaseDrawerActivity {
                 // Disable send button if over limit
                 buttonSend.setEnabled(length > 0 && length <= MAX_MESSAGE_LENGTH);
 
-                // Update typing status
-                if (length > 0) {
-                    startTyping();
-                } else {
-                    stopTyping();
+                // Update typing status (throttled, at most one write per heartbeat)
+                if (typingPresence != null) {
+                    typingPresence.onTextChanged(length > 0);
                 }
             }
         });
@@ -555,7 +624,10 @@ public class ChatActivity extends BaseDrawerActivity {
         networkStateReceiver = new BroadcastReceiver() {
             @Override
             public void onReceive(Context context, Intent intent) {
-                updateOfflineIndicator();
+                if (updateOfflineIndicator()) {
+                    // Back online: send queued messages/reactions without waiting for their backoff
+                    messageRepository.flushOutbox();
+                }
             }
         };
 
@@ -563,7 +635,7 @@ public class ChatActivity extends BaseDrawerActivity {
         registerReceiver(networkStateReceiver, filter);
     }
 
-    private void updateOfflineIndicator() {
+    private boolean updateOfflineIndicator() {
         ConnectivityManager cm = (ConnectivityManager) getSystemService(Context.CONNECTIVITY_SERVICE);
         NetworkInfo activeNetwork = cm != null ? cm.getActiveNetworkInfo() : null;
         boolean isConnected = activeNetwork != null && activeNetwork.isConnectedOrConnecting();
@@ -571,6 +643,7 @@ public class ChatActivity extends BaseDrawerActivity {
         if (offlineIndicator != null) {
             offlineIndicator.setVisibility(isConnected ? android.view.View.GONE : android.view.View.VISIBLE);
         }
+        return isConnected;
     }
 
     @Override
@@ -586,14 +659,24 @@ public class ChatActivity extends BaseDrawerActivity {
             setIntent(intent);
 
             // Clean up old listeners
-            if (messagesListener != null) {
-                messagesListener.remove();
-                messagesListener = null;
+            stopMessagesListener();
+            if (typingPresence != null) {
+                typingPresence.release();
+                typingPresence = null;
             }
-            if (typingListener != null) {
-                typingListener.remove();
-                typingListener = null;
+            if (conversationListener != null) {
+                conversationListener.remove();
+                conversationListener = null;
             }
+            if (readCursorsListener != null) {
+                readCursorsListener.remove();
+                readCursorsListener = null;
+            }
+            recyclerMessages.removeCallbacks(markReadRunnable);
+            readCursors.clear();
+            legacyReadCursors = new HashMap<>();
+            inboxReadCursors = new HashMap<>();
+            myReadCursor = null;
             if (activeCallListener != null) {
                 activeCallListener.remove();
                 activeCallListener = null;
@@ -604,16 +687,22 @@ public class ChatActivity extends BaseDrawerActivity {
 
             // Clear messages
             messages.clear();
-            adapter.submitList(new ArrayList<>());
+            adapter.submitItems(messages.snapshot());
 
             // Reload conversation
             loadConversationType();
             listenMessages();
+            listenConversationState();
             setupTypingIndicator();
             listenToActiveCall();
 
             Log.d("ChatActivity", "Conversation switched successfully");
         }
+
+        String targetMessageId = intent.getStringExtra("messageId");
+        if (targetMessageId != null) {
+            jumpToMessage(targetMessageId);
+        }
     }
 
     @Override
@@ -626,15 +715,18 @@ public class ChatActivity extends BaseDrawerActivity {
                 // Receiver was not registered
             }
         }
-        if (messagesListener != null) {
-            messagesListener.remove();
+        stopMessagesListener();
+        if (typingPresence != null) {
+            typingPresence.release();
+        }
+        if (conversationListener != null) {
+            conversationListener.remove();
         }
-        if (typingListener != null) {
-            typingListener.remove();
+        if (readCursorsListener != null) {
+            readCursorsListener.remove();
         }
-        stopTyping();
-        if (typingHandler != null) {
-            typingHandler.removeCallbacksAndMessages(null);
+        if (recyclerMessages != null) {
+            recyclerMessages.removeCallbacks(markReadRunnable);
         }
         if (activeCallListener != null) {
             activeCallListener.remove();
@@ -684,117 +776,243 @@ public class ChatActivity extends BaseDrawerActivity {
     }
 
     private void resetMyUnreadCount() {
-        db.collection("conversations")
-                .document(conversationId)
-                .update("unreadCounts." + currentUserId, 0);
+        messageRepository.markRead(conversationId, currentUserId, null);
     }
 
     private void listenMessages() {
-        // Load initial messages (last 50)
-        Query initialQuery = db.collection("conversations")
-                .document(conversationId)
-                .collection("messages")
-                .orderBy("sentAt", Query.Direction.DESCENDING)
-                .limit(MESSAGES_PER_PAGE);
-
-        initialQuery.get().addOnSuccessListener(querySnapshot -> {
-            if (querySnapshot.isEmpty()) {
-                hasMoreMessages = false;
-                return;
-            }
-
-            List<ChatMessage> initialMessages = new ArrayList<>();
-            for (DocumentSnapshot d : querySnapshot.getDocuments()) {
-                ChatMessage m = d.toObject(ChatMessage.class);
-                if (m != null) {
-                    m.setId(d.getId());
-                    initialMessages.add(0, m); // Reverse order (oldest first)
+        hasMoreMessages = true;
+        isTailWindowLoaded = false;
+        isDetachedFromTail = false;
+        syncWatermark = null;
+
+        // Render whatever is stored on disk first, then sync only what is newer
+        final String requestedConversationId = conversationId;
+        messageStore.loadLatest(conversationId, MESSAGES_PER_PAGE, cached -> {
+            if (isFinishing() || !requestedConversationId.equals(conversationId)) return;
+            // A jump replaced the list with a window of older history in the meantime
+            if (isDetachedFromTail) return;
+
+            if (!cached.isEmpty()) {
+                for (ChatMessage m : cached) {
+                    upsertMessage(m);
                 }
+                adapter.submitItems(messages.snapshot());
+                scrollToBottom();
             }
 
-            // Store last document for pagination
-            if (querySnapshot.size() < MESSAGES_PER_PAGE) {
-                hasMoreMessages = false;
-            } else {
-                lastDocument = querySnapshot.getDocuments().get(querySnapshot.size() - 1);
-            }
-
-            // Update messages list
-            messages.clear();
-            messages.addAll(initialMessages);
-            adapter.submitList(new ArrayList<>(initialMessages));
-
-            // Scroll to bottom
-            if (!initialMessages.isEmpty()) {
+            // Sends still queued in the outbox (e.g. written offline before the app was killed)
+            messageRepository.loadPendingMessages(requestedConversationId, pending -> {
+                if (isFinishing() || !requestedConversationId.equals(conversationId) || pending.isEmpty()) return;
+                if (isDetachedFromTail) return;
+                for (ChatMessage m : pending) {
+                    if (indexOfMessage(m.getId()) < 0) {
+                        upsertMessage(m);
+                    }
+                }
+                adapter.submitItems(messages.snapshot());
                 scrollToBottom();
+            });
+
+            if (cached.isEmpty()) {
+                // A single tail listener serves both the initial page and live updates:
+                // its first snapshot is the newest page, later snapshots only carry deltas.
+                setupRealtimeListener();
+                return;
             }
 
-            // Now set up real-time listener for new messages only
-            setupRealtimeListener();
+            // Stored history is on screen: only fetch what was written since it was stored
+            messageStore.loadSyncWatermark(requestedConversationId, watermark -> {
+                if (isFinishing() || !requestedConversationId.equals(conversationId) || isDetachedFromTail) return;
+                // Rows stored from documents without an updatedAt: fall back to the newest sentAt
+                syncWatermark = watermark != null ? watermark : cached.get(cached.size() - 1).getSentAt();
+                setupRealtimeListener();
+            });
         });
     }
 
+    private void stopMessagesListener() {
+        if (messagesListener != null) {
+            messagesListener.remove();
+            messagesListener = null;
+        }
+        if (messagesDecoder != null) {
+            messagesDecoder.release();
+            messagesDecoder = null;
+        }
+    }
+
     private void setupRealtimeListener() {
-        // Listen for all new messages (real-time updates)
-        // We'll filter out duplicates based on message IDs
-        messagesListener = db.collection("conversations")
-                .document(conversationId)
-                .collection("messages")
-                .orderBy("sentAt", Query.Direction.ASCENDING)
+        stopMessagesListener();
+        SnapshotDecoder decoder = SnapshotDecoder.inOrder();
+        messagesDecoder = decoder;
+
+        // Without a watermark: the newest MESSAGES_PER_PAGE messages (live tail window).
+        // With one (stored history on screen): every message written since, which also
+        // carries reactions to stored history. Older pages are loaded by loadOlderMessages().
+        final boolean isDeltaSync = syncWatermark != null;
+        final String windowField = MessageSyncQuery.orderField(syncWatermark);
+        messagesListener = MessageSyncQuery.tail(db, conversationId, syncWatermark, MESSAGES_PER_PAGE)
                 .addSnapshotListener((snap, e) -> {
-                    if (snap == null || snap.isEmpty()) return;
-
-                    List<ChatMessage> allMessages = new ArrayList<>();
-                    for (DocumentSnapshot d : snap.getDocuments()) {
-                        ChatMessage m = d.toObject(ChatMessage.class);
-                        if (m != null) {
-                            m.setId(d.getId());
-                            allMessages.add(m);
-                        }
+                    if (e != null) {
+                        Log.e("ChatActivity", "Error listening to messages", e);
+                        return;
                     }
+                    if (snap == null) return;
 
-                    // Check if messages have changed (new messages or updates to existing messages like reactions)
-                    boolean hasChanges = false;
-                    int oldSize = messages.size();
-                    boolean isNewMessage = allMessages.size() > oldSize;
+                    boolean isInitialSnapshot = !isTailWindowLoaded;
+                    isTailWindowLoaded = true;
+                    List<DocumentSnapshot> windowDocs = snap.getDocuments();
 
-                    if (allMessages.size() != oldSize) {
-                        hasChanges = true;
-                    } else {
-                        // Compare messages to detect updates (e.g., reactions, read status)
-                        for (int i = 0; i < allMessages.size(); i++) {
-                            ChatMessage newMsg = allMessages.get(i);
-                            ChatMessage oldMsg = i < messages.size() ? messages.get(i) : null;
+                    // Oldest document currently inside the tail window (DESC order -> last)
+                    Date windowStart = null;
+                    if (!windowDocs.isEmpty()) {
+                        windowStart = windowDocs.get(windowDocs.size() - 1).getDate(windowField);
+                    }
 
-                            if (oldMsg == null || !newMsg.equals(oldMsg)) {
-                                hasChanges = true;
-                                break;
-                            }
+                    if (isInitialSnapshot) {
+                        if (!isDeltaSync) {
+                            hasMoreMessages = windowDocs.size() >= MESSAGES_PER_PAGE;
+                        } else if (windowDocs.size() >= MESSAGES_PER_PAGE) {
+                            // More writes since the watermark than fit in one window: stored history
+                            // can't be brought up to date from here, start over from the newest page
+                            restartFromLatestPage();
+                            return;
                         }
                     }
 
-                    // Update if we have changes (new messages or updates to existing messages)
-                    if (hasChanges) {
-                        messages.clear();
-                        messages.addAll(allMessages);
-                        adapter.submitList(new ArrayList<>(messages));
-
-                        // Update last document for pagination
-                        if (!allMessages.isEmpty()) {
-                            lastDocument = snap.getDocuments().get(snap.size() - 1);
+                    // Revisions already on screen are skipped here (cheap field read on the main thread);
+                    // the rest is decoded in the background and applied in snapshot order
+                    List<DocumentChange> changes = new ArrayList<>();
+                    for (DocumentChange change : snap.getDocumentChanges()) {
+                        if (change.getType() != DocumentChange.Type.REMOVED && isUnchanged(change.getDocument())) {
+                            continue;
                         }
+                        changes.add(change);
+                    }
+                    if (changes.isEmpty()) return;
 
-                        // Only scroll to bottom for new messages, not for updates to existing messages
-                        // Don't force scroll for received messages if user is reading older messages
-                        if (isNewMessage) {
-                            scrollToBottom(false);
+                    final Date start = windowStart;
+                    decoder.submit(() -> decodeTailChanges(changes, windowField, start), delta -> {
+                        if (applyTailDelta(delta)) {
+                            onTailWindowApplied(isInitialSnapshot, delta.hasNewMessage);
                         }
-                    }
+                    });
                 });
     }
 
+    /**
+     * Decoded form of one tail snapshot (built on the decoder thread, applied on the main thread)
+     */
+    private static class TailDelta {
+        final List<ChatMessage> upserted = new ArrayList<>();
+        final Set<String> addedIds = new HashSet<>();
+        // Only persist what the server has acknowledged
+        final List<ChatMessage> acknowledged = new ArrayList<>();
+        final List<String> removedIds = new ArrayList<>();
+        boolean hasNewMessage;
+    }
+
+    /**
+     * @param windowField Field the tail window is ordered by (see {@link MessageSyncQuery#orderField})
+     */
+    private static TailDelta decodeTailChanges(List<DocumentChange> changes, String windowField, Date windowStart) {
+        TailDelta delta = new TailDelta();
+        for (DocumentChange change : changes) {
+            DocumentSnapshot d = change.getDocument();
+            if (change.getType() == DocumentChange.Type.REMOVED) {
+                // A document leaving a limit() query is usually just pushed out of the
+                // window by newer messages - keep it, it is still part of loaded history.
+                Date removedAt = d.getDate(windowField);
+                boolean agedOut = removedAt != null && windowStart != null
+                        && removedAt.before(windowStart);
+                if (!agedOut) {
+                    delta.removedIds.add(d.getId());
+                }
+                continue;
+            }
+
+            ChatMessage m = ModelMappers.CHAT_MESSAGE.map(d);
+            if (m == null) continue;
+            delta.upserted.add(m);
+            if (change.getType() == DocumentChange.Type.ADDED) {
+                delta.addedIds.add(m.getId());
+            }
+            if (!d.getMetadata().hasPendingWrites()) {
+                delta.acknowledged.add(m);
+            }
+        }
+        return delta;
+    }
+
+    /**
+     * @return true if the loaded messages changed
+     */
+    private boolean applyTailDelta(TailDelta delta) {
+        boolean hasChanges = false;
+        // A delta sync also reports writes to history older than the loaded range (e.g. a reaction):
+        // they are not shown, but stored copies are updated (older pages are read from the store
+        // first, and the watermark moves past these writes). Unstored ones are read when paged in.
+        Date oldestLoaded = oldestLoadedSentAt();
+        if (syncWatermark != null && oldestLoaded != null) {
+            List<ChatMessage> olderHistory = new ArrayList<>();
+            for (ChatMessage m : delta.acknowledged) {
+                if (isOutsideLoadedRange(m, oldestLoaded)) olderHistory.add(m);
+            }
+            delta.upserted.removeIf(m -> isOutsideLoadedRange(m, oldestLoaded));
+            delta.acknowledged.removeAll(olderHistory);
+            messageStore.updateMessages(conversationId, olderHistory);
+        }
+        for (String id : delta.removedIds) {
+            messageStore.removeMessage(conversationId, id);
+            if (removeMessageById(id)) {
+                hasChanges = true;
+            }
+        }
+        for (ChatMessage m : delta.upserted) {
+            if (upsertMessage(m) && delta.addedIds.contains(m.getId())) {
+                delta.hasNewMessage = true;
+            }
+            hasChanges = true;
+        }
+        messageStore.saveMessages(conversationId, delta.acknowledged);
+        return hasChanges;
+    }
+
+    private boolean isOutsideLoadedRange(ChatMessage m, Date oldestLoaded) {
+        return indexOfMessage(m.getId()) < 0 && m.getSentAt() != null && m.getSentAt().before(oldestLoaded);
+    }
+
+    /**
+     * Drop the stored and displayed history and listen to the newest page instead
+     */
+    private void restartFromLatestPage() {
+        messageStore.removeConversation(conversationId);
+        messages.clear();
+        adapter.submitItems(messages.snapshot());
+        syncWatermark = null;
+        isTailWindowLoaded = false;
+        hasMoreMessages = true;
+        setupRealtimeListener();
+    }
+
+    private void onTailWindowApplied(boolean isInitialSnapshot, boolean isNewMessage) {
+        adapter.submitItems(messages.snapshot());
+
+        if (isInitialSnapshot) {
+            scrollToBottom();
+        } else if (isNewMessage) {
+            // Don't force scroll for received messages if user is reading older messages
+            scrollToBottom(false);
+        }
+
+        if (isInitialSnapshot || isNewMessage) {
+            markMessagesAsRead();
+        }
+    }
+
     private void loadOlderMessages() {
-        if (isLoadingOlderMessages || !hasMoreMessages || lastDocument == null) {
+        ChatMessage oldestLoaded = oldestLoadedMessage();
+        if (isLoadingOlderMessages || !hasMoreMessages || oldestLoaded == null) {
             return;
         }
 
@@ -804,56 +1022,287 @@ public class ChatActivity extends BaseDrawerActivity {
         int currentScrollPosition = ((LinearLayoutManager) recyclerMessages.getLayoutManager())
                 .findFirstVisibleItemPosition();
 
-        Query olderQuery = db.collection("conversations")
-                .document(conversationId)
-                .collection("messages")
-                .orderBy("sentAt", Query.Direction.DESCENDING)
-                .startAfter(lastDocument)
-                .limit(MESSAGES_PER_PAGE);
-
-        olderQuery.get().addOnSuccessListener(querySnapshot -> {
-            isLoadingOlderMessages = false;
-            progressBarPagination.setVisibility(android.view.View.GONE);
+        // A jumped-to window is not contiguous with the stored range: page it from Firestore
+        if (isDetachedFromTail) {
+            loadOlderMessagesFromServer(oldestLoaded, currentScrollPosition);
+            return;
+        }
 
-            if (querySnapshot.isEmpty()) {
-                hasMoreMessages = false;
+        // Serve older pages from disk first, only go to Firestore when the store runs out
+        final String requestedConversationId = conversationId;
+        messageStore.loadBefore(conversationId, oldestLoaded.getSentAt(), oldestLoaded.getId(),
+                MESSAGES_PER_PAGE, stored -> {
+            if (!requestedConversationId.equals(conversationId)) {
+                isLoadingOlderMessages = false;
+                return;
+            }
+            if (!stored.isEmpty()) {
+                isLoadingOlderMessages = false;
+                progressBarPagination.setVisibility(android.view.View.GONE);
+                prependOlderMessages(stored, currentScrollPosition);
                 return;
             }
+            loadOlderMessagesFromServer(oldestLoaded, currentScrollPosition);
+        });
+    }
+
+    private void loadOlderMessagesFromServer(ChatMessage oldestLoaded, int currentScrollPosition) {
+        final String requestedConversationId = conversationId;
+        messageWindowSource.loadBefore(conversationId, oldestLoaded.getSentAt(), oldestLoaded.getId(),
+                MESSAGES_PER_PAGE,
+                new MessageWindowSource.PageCallback() {
+            @Override
+            public void onSuccess(MessageWindowSource.Page page) {
+                isLoadingOlderMessages = false;
+                progressBarPagination.setVisibility(android.view.View.GONE);
+                if (!requestedConversationId.equals(conversationId)) return;
+
+                if (!page.hasOlder) {
+                    hasMoreMessages = false;
+                }
+                if (page.messages.isEmpty()) return;
 
-            List<ChatMessage> olderMessages = new ArrayList<>();
-            for (DocumentSnapshot d : querySnapshot.getDocuments()) {
-                ChatMessage m = d.toObject(ChatMessage.class);
-                if (m != null) {
-                    m.setId(d.getId());
-                    olderMessages.add(0, m); // Reverse order
+                // Only history contiguous with the stored range is persisted
+                if (!isDetachedFromTail) {
+                    messageStore.saveMessages(conversationId, page.messages);
                 }
+                prependOlderMessages(page.messages, currentScrollPosition);
             }
 
-            // Update last document
-            if (querySnapshot.size() < MESSAGES_PER_PAGE) {
-                hasMoreMessages = false;
-            } else {
-                lastDocument = querySnapshot.getDocuments().get(querySnapshot.size() - 1);
+            @Override
+            public void onFailure(String error) {
+                isLoadingOlderMessages = false;
+                progressBarPagination.setVisibility(android.view.View.GONE);
             }
+        });
+    }
 
-            // Prepend older messages to list
-            olderMessages.addAll(messages);
-            messages.clear();
-            messages.addAll(olderMessages);
+    private void loadNewerMessages() {
+        ChatMessage newestLoaded = newestLoadedMessage();
+        if (!isDetachedFromTail || isLoadingNewerMessages || newestLoaded == null) {
+            return;
+        }
+
+        isLoadingNewerMessages = true;
+        progressBarPagination.setVisibility(android.view.View.VISIBLE);
 
-            adapter.submitList(new ArrayList<>(messages));
+        final String requestedConversationId = conversationId;
+        messageWindowSource.loadAfter(conversationId, newestLoaded.getSentAt(), newestLoaded.getId(),
+                MESSAGES_PER_PAGE,
+                new MessageWindowSource.PageCallback() {
+            @Override
+            public void onSuccess(MessageWindowSource.Page page) {
+                isLoadingNewerMessages = false;
+                progressBarPagination.setVisibility(android.view.View.GONE);
+                if (!requestedConversationId.equals(conversationId) || !isDetachedFromTail) return;
+
+                // Appended below the visible rows: the scroll position is unaffected
+                for (ChatMessage m : page.messages) {
+                    upsertMessage(m);
+                }
+                adapter.submitItems(messages.snapshot());
 
-            // Maintain scroll position
-            recyclerMessages.post(() -> {
-                int newPosition = currentScrollPosition + olderMessages.size();
-                recyclerMessages.scrollToPosition(newPosition);
-            });
-        }).addOnFailureListener(e -> {
-            isLoadingOlderMessages = false;
-            progressBarPagination.setVisibility(android.view.View.GONE);
+                if (!page.hasNewer) {
+                    reattachToLiveTail();
+                }
+            }
+
+            @Override
+            public void onFailure(String error) {
+                isLoadingNewerMessages = false;
+                progressBarPagination.setVisibility(android.view.View.GONE);
+            }
         });
     }
 
+    /**
+     * Show a message, loading a page of history around it if it is not in the list.
+     * A reply to a message from years ago costs the anchor read plus one page.
+     */
+    private void jumpToMessage(String messageId) {
+        if (messageId == null) return;
+        if (indexOfMessage(messageId) >= 0) {
+            scrollToMessage(messageId);
+            return;
+        }
+
+        progressBarPagination.setVisibility(android.view.View.VISIBLE);
+        final String requestedConversationId = conversationId;
+        messageWindowSource.loadAround(conversationId, messageId, MESSAGES_PER_PAGE,
+                new MessageWindowSource.PageCallback() {
+            @Override
+            public void onSuccess(MessageWindowSource.Page page) {
+                progressBarPagination.setVisibility(android.view.View.GONE);
+                if (isFinishing() || !requestedConversationId.equals(conversationId)) return;
+
+                // Replace the list with the window; live updates resume once it reaches the newest page
+                stopMessagesListener();
+                isDetachedFromTail = true;
+                isTailWindowLoaded = false;
+                isLoadingOlderMessages = false;
+                isLoadingNewerMessages = false;
+                hasMoreMessages = page.hasOlder;
+
+                messages.clear();
+                for (ChatMessage m : page.messages) {
+                    upsertMessage(m);
+                }
+                adapter.submitItems(messages.snapshot(), () -> scrollToMessage(messageId));
+
+                if (!page.hasNewer) {
+                    reattachToLiveTail();
+                }
+            }
+
+            @Override
+            public void onFailure(String error) {
+                progressBarPagination.setVisibility(android.view.View.GONE);
+                Toast.makeText(ChatActivity.this, "Message not found", Toast.LENGTH_SHORT).show();
+            }
+        });
+    }
+
+    /**
+     * The window reached the newest message: resume the live tail listener from there.
+     * The window is persisted so the store stays one contiguous range ending at the tail
+     * (stored history older than the window is dropped if the two do not overlap).
+     */
+    private void reattachToLiveTail() {
+        Date windowEnd = newestLoadedSentAt();
+        Date windowStart = oldestLoadedSentAt();
+        isDetachedFromTail = false;
+        if (windowEnd == null) {
+            listenMessages();
+            return;
+        }
+
+        final String requestedConversationId = conversationId;
+        final List<ChatMessage> window = new ArrayList<>(messages.getMessages());
+        messageStore.loadLatest(conversationId, 1, stored -> {
+            if (isFinishing() || !requestedConversationId.equals(conversationId) || isDetachedFromTail) return;
+
+            Date storedEnd = stored.isEmpty() ? null : stored.get(stored.size() - 1).getSentAt();
+            if (storedEnd != null && windowStart != null && storedEnd.before(windowStart)) {
+                messageStore.removeMessagesBefore(conversationId, windowStart);
+            }
+            messageStore.saveMessages(conversationId, window);
+
+            // The window is already on screen: the tail listener only carries what was written since
+            Date newestWrite = newestLoadedUpdatedAt();
+            syncWatermark = newestWrite != null ? newestWrite : windowEnd;
+            isTailWindowLoaded = true;
+            setupRealtimeListener();
+        });
+    }
+
+    /**
+     * Leave a jumped-to window and show the latest messages again
+     */
+    private void returnToLiveTail() {
+        stopMessagesListener();
+        messages.clear();
+        adapter.submitItems(messages.snapshot());
+        listenMessages();
+    }
+
+    private void prependOlderMessages(List<ChatMessage> olderMessages, int currentScrollPosition) {
+        int rowsBefore = messages.snapshot().size();
+        messages.prepend(olderMessages);
+        List<ChatItem> rows = messages.snapshot();
+        int addedCount = rows.size() - rowsBefore;
+
+        // Maintain scroll position once the older rows are displayed
+        adapter.submitItems(rows, () -> {
+            int newPosition = currentScrollPosition + addedCount;
+            recyclerMessages.scrollToPosition(newPosition);
+        });
+    }
+
+    private Date newestLoadedSentAt() {
+        ChatMessage newest = newestLoadedMessage();
+        return newest != null ? newest.getSentAt() : null;
+    }
+
+    /**
+     * Newest server message of the list, in the (sentAt, id) order pages are read in
+     * (the list keeps messages sharing a sentAt in arrival order)
+     */
+    private ChatMessage newestLoadedMessage() {
+        ChatMessage newest = null;
+        List<ChatMessage> loaded = messages.getMessages();
+        for (int i = loaded.size() - 1; i >= 0; i--) {
+            ChatMessage m = loaded.get(i);
+            // Local sends are not part of the server history yet
+            if (m.getSentAt() == null || m.getId() == null || m.getStatus() == ChatMessage.MessageStatus.PENDING
+                    || m.getStatus() == ChatMessage.MessageStatus.FAILED) {
+                continue;
+            }
+            if (newest != null && m.getSentAt().before(newest.getSentAt())) break;
+            if (newest == null || m.getSentAt().after(newest.getSentAt())
+                    || m.getId().compareTo(newest.getId()) > 0) {
+                newest = m;
+            }
+        }
+        return newest;
+    }
+
+    private Date newestLoadedUpdatedAt() {
+        Date newest = null;
+        for (ChatMessage m : messages.getMessages()) {
+            if (m.getUpdatedAt() != null && (newest == null || m.getUpdatedAt().after(newest))) {
+                newest = m.getUpdatedAt();
+            }
+        }
+        return newest;
+    }
+
+    private Date oldestLoadedSentAt() {
+        ChatMessage oldest = oldestLoadedMessage();
+        return oldest != null ? oldest.getSentAt() : null;
+    }
+
+    // Oldest message of the list, in the (sentAt, id) order pages are read in
+    private ChatMessage oldestLoadedMessage() {
+        ChatMessage oldest = null;
+        for (ChatMessage m : messages.getMessages()) {
+            if (m.getSentAt() == null || m.getId() == null) continue;
+            if (oldest != null && m.getSentAt().after(oldest.getSentAt())) break;
+            if (oldest == null || m.getId().compareTo(oldest.getId()) < 0) {
+                oldest = m;
+            }
+        }
+        return oldest;
+    }
+
+    /**
+     * Insert or replace a message in {@link #messages}, keeping the list ordered by sentAt.
+     * An optimistic local copy shares its client-generated id with the server version and is replaced by it.
+     * @return true if the message was not in the list before
+     */
+    private boolean upsertMessage(ChatMessage m) {
+        return messages.upsert(m);
+    }
+
+    private boolean isUnchanged(DocumentSnapshot d) {
+        int index = indexOfMessage(d.getId());
+        if (index < 0) return false;
+        ChatMessage current = messages.get(index);
+        Long version = d.getLong("version");
+        // Legacy documents without a version, and local pending/failed copies, always take the server copy
+        return version != null && version > 0
+                && version == current.getVersion()
+                && current.getStatus() != ChatMessage.MessageStatus.PENDING
+                && current.getStatus() != ChatMessage.MessageStatus.FAILED;
+    }
+
+    private boolean removeMessageById(String messageId) {
+        return messages.remove(messageId);
+    }
+
+    private int indexOfMessage(String messageId) {
+        return messages.indexOf(messageId);
+    }
+
     private void sendMessage() {
         String text = inputMessage.getText().toString().trim();
         if (text.isEmpty()) return;
@@ -868,22 +1317,52 @@ public class ChatActivity extends BaseDrawerActivity {
                 null,
                 ChatMessage.MessageStatus.PENDING
         );
+        queueMessage(msg);
+
+        inputMessage.setText("");
+        if (typingPresence != null) {
+            typingPresence.stopTyping(); // Stop typing when message is sent
+        }
+    }
 
-        // Add message locally first (optimistic update)
-        messages.add(msg);
-        adapter.submitList(new ArrayList<>(messages));
+    /**
+     * Downscale and upload a picked image, then send it as a message
+     */
+    private void sendImage(Uri image) {
+        Toast.makeText(this, "Sending photo...", Toast.LENGTH_SHORT).show();
+        messageRepository.prepareImageMessage(image, conversationId, currentUserId,
+                msg -> {
+                    if (isDestroyed()) {
+                        // Uploaded after the screen closed: still queue the message
+                        messageRepository.sendMessage(msg, conversationId, currentUserId, null);
+                        return;
+                    }
+                    queueMessage(msg);
+                },
+                error -> {
+                    if (!isDestroyed()) {
+                        Toast.makeText(this, "Could not send photo: " + error, Toast.LENGTH_SHORT).show();
+                    }
+                });
+    }
 
-        // Force scroll to bottom immediately after sending message
-        scrollToBottom(true);
+    /**
+     * Queue a message and show it right away as pending
+     */
+    private void queueMessage(ChatMessage msg) {
+        // The new message goes below the latest ones, not below a window of old history
+        if (isDetachedFromTail) {
+            returnToLiveTail();
+        }
 
-        // Use MessageRepository for sending with retry
+        // Queue the send first: it assigns the client-generated id the server copy will carry
         messageRepository.sendMessage(msg, conversationId, currentUserId, new MessageRepository.SendMessageCallback() {
             @Override
             public void onSuccess(String messageId) {
                 // Message will be updated via real-time listener
-                msg.setId(messageId);
                 msg.setStatus(ChatMessage.MessageStatus.SENT);
-                adapter.submitList(new ArrayList<>(messages));
+                messages.refresh(msg);
+                adapter.submitItems(messages.snapshot());
                 // Scroll again after message is confirmed sent
                 scrollToBottom(true);
             }
@@ -891,165 +1370,133 @@ public class ChatActivity extends BaseDrawerActivity {
             @Override
             public void onFailure(String error) {
                 // Message status already set to FAILED by repository
-                adapter.submitList(new ArrayList<>(messages));
+                messages.refresh(msg);
+                adapter.submitItems(messages.snapshot());
             }
         });
 
-        inputMessage.setText("");
-        stopTyping(); // Stop typing when message is sent
+        // Add message locally (optimistic update, callbacks above run later on the main thread)
+        messages.upsert(msg);
+        adapter.submitItems(messages.snapshot());
+
+        // Force scroll to bottom immediately after sending message
+        scrollToBottom(true);
+    }
+
+    private void showFullImage(ChatMessage message) {
+        Dialog dialog = new Dialog(this, android.R.style.Theme_Black_NoTitleBar_Fullscreen);
+        ImageView imageView = new ImageView(this);
+        imageView.setScaleType(ImageView.ScaleType.FIT_CENTER);
+        imageView.setOnClickListener(v -> dialog.dismiss());
+        dialog.setContentView(imageView);
+        dialog.show();
+        ChatImageLoader.loadFull(imageView, message);
     }
 
     private void markMessagesAsRead() {
-        // Delay to avoid marking as read if user leaves quickly
-        recyclerMessages.postDelayed(() -> {
-            if (isFinishing() || conversationId == null || currentUserId == null) {
-                return;
-            }
+        // Delay to avoid marking as read if user leaves quickly; bursts collapse into one write
+        recyclerMessages.removeCallbacks(markReadRunnable);
+        recyclerMessages.postDelayed(markReadRunnable, 500); // 500ms delay
+    }
 
-            // Get all unread messages received by current user
-            List<ChatMessage> unreadMessages = new ArrayList<>();
-            for (ChatMessage msg : messages) {
-                if (!msg.getSenderId().equals(currentUserId)) {
-                    // Check if already read by this user
-                    boolean alreadyRead = msg.getReadBy() != null && msg.getReadBy().contains(currentUserId);
-                    if (!alreadyRead) {
-                        unreadMessages.add(msg);
-                    }
-                }
-            }
+    private final Runnable markReadRunnable = () -> {
+        if (isFinishing() || conversationId == null || currentUserId == null) {
+            return;
+        }
 
-            if (unreadMessages.isEmpty()) {
-                return;
+        // Read state is one cursor per user: everything sent up to the newest loaded message is read
+        Date newest = null;
+        for (int i = messages.size() - 1; i >= 0; i--) {
+            ChatMessage msg = messages.get(i);
+            if (msg.getId() != null && msg.getSentAt() != null) {
+                newest = msg.getSentAt();
+                break;
             }
+        }
 
-            // Use batch write to update multiple messages
-            WriteBatch batch = db.batch();
-            Date readAt = new Date();
-
-            for (ChatMessage msg : unreadMessages) {
-                if (msg.getId() != null) {
-                    // Get current readBy list or create new one
-                    List<String> currentReadBy = msg.getReadBy() != null ?
-                            new ArrayList<>(msg.getReadBy()) : new ArrayList<>();
-
-                    // Add current user if not already present
-                    if (!currentReadBy.contains(currentUserId)) {
-                        currentReadBy.add(currentUserId);
-                    }
+        if (newest == null || (myReadCursor != null && !newest.after(myReadCursor))) {
+            return;
+        }
 
-                    // Update both readBy (for WhatsApp-style) and isRead (for backward compatibility)
-                    batch.update(
-                            db.collection("conversations")
-                                    .document(conversationId)
-                                    .collection("messages")
-                                    .document(msg.getId()),
-                            "readBy", currentReadBy,
-                            "isRead", true,
-                            "readAt", readAt
-                    );
-                }
-            }
+        myReadCursor = newest;
+        readCursors.put(currentUserId, newest);
 
-            batch.commit().addOnSuccessListener(aVoid -> {
-                // Update local messages
-                for (ChatMessage msg : unreadMessages) {
-                    List<String> currentReadBy = msg.getReadBy() != null ?
-                            new ArrayList<>(msg.getReadBy()) : new ArrayList<>();
-                    if (!currentReadBy.contains(currentUserId)) {
-                        currentReadBy.add(currentUserId);
-                    }
-                    msg.setReadBy(currentReadBy);
-                    msg.setRead(true);
-                    msg.setReadAt(readAt);
-                }
-                adapter.submitList(new ArrayList<>(messages));
-            });
-        }, 500); // 500ms delay
-    }
+        // Single write to the user's own inbox entry, however many messages were unread
+        messageRepository.markRead(conversationId, currentUserId, newest);
+    };
 
-    private void setupTypingIndicator() {
-        typingHandler = new android.os.Handler(android.os.Looper.getMainLooper());
+    private void listenConversationState() {
+        if (conversationListener != null) {
+            conversationListener.remove();
+        }
 
-        // Listen to typing status in Firestore
-        typingListener = db.collection("conversations")
+        conversationListener = db.collection("conversations")
                 .document(conversationId)
                 .addSnapshotListener((doc, e) -> {
                     if (doc == null || !doc.exists()) return;
 
+                    // Keep the send pipeline's participant cache current when members change
                     @SuppressWarnings("unchecked")
-                    Map<String, Object> typingUsers = (Map<String, Object>) doc.get("typingUsers");
-
-                    if (typingUsers == null || typingUsers.isEmpty()) {
-                        typingIndicator.setVisibility(android.view.View.GONE);
-                        return;
-                    }
-
-                    // Remove current user from typing list
-                    List<String> otherTypingUsers = new ArrayList<>();
-                    for (String uid : typingUsers.keySet()) {
-                        if (!uid.equals(currentUserId)) {
-                            otherTypingUsers.add(uid);
+                    List<String> ids = (List<String>) doc.get("participantIds");
+                    if (ids != null) {
+                        MessageRepository.cacheParticipants(conversationId, ids);
+                        if (!ids.equals(participantIds)) {
+                            participantIds = ids;
+                            adapter.setParticipantIds(ids);
                         }
                     }
 
-                    if (otherTypingUsers.isEmpty()) {
-                        typingIndicator.setVisibility(android.view.View.GONE);
-                        return;
-                    }
-
-                    // Display typing indicator
-                    if (otherTypingUsers.size() == 1) {
-                        // Load user name
-                        String uid = otherTypingUsers.get(0);
-                        db.collection("users").document(uid)
-                                .get()
-                                .addOnSuccessListener(userDoc -> {
-                                    String firstName = userDoc.getString("firstName");
-                                    String lastName = userDoc.getString("lastName");
-                                    String name = ((firstName != null ? firstName : "") + " " +
-                                            (lastName != null ? lastName : "")).trim();
-                                    if (name.isEmpty()) name = userDoc.getString("fullName");
-                                    if (name == null || name.isEmpty()) name = "Someone";
-
-                                    typingIndicator.setText(name + " is typing...");
-                                    typingIndicator.setVisibility(android.view.View.VISIBLE);
-                                });
-                    } else {
-                        typingIndicator.setText(otherTypingUsers.size() + " people are typing...");
-                        typingIndicator.setVisibility(android.view.View.VISIBLE);
-                    }
+                    legacyReadCursors = ChatUtils.toReadCursors(doc.get("lastReadAt"));
+                    onReadCursorsChanged();
                 });
-    }
-
-    private void startTyping() {
-        if (conversationId == null || currentUserId == null) return;
 
-        // Update typing status in Firestore
-        db.collection("conversations")
-                .document(conversationId)
-                .update("typingUsers." + currentUserId, System.currentTimeMillis());
+        // Members' read cursors live in conversations/{id}/members (inbox entries are private)
+        if (readCursorsListener != null) {
+            readCursorsListener.remove();
+        }
+        readCursorsListener = ConversationInbox.listenReadCursors(conversationId, cursors -> {
+            inboxReadCursors = cursors;
+            onReadCursorsChanged();
+        });
+    }
 
-        // Clear previous timeout
-        if (typingHandler != null) {
-            typingHandler.removeCallbacksAndMessages(null);
+    private void onReadCursorsChanged() {
+        Map<String, Date> cursors = ChatUtils.mergeReadCursors(legacyReadCursors, inboxReadCursors);
+        Date mine = cursors.get(currentUserId);
+        if (mine != null && (myReadCursor == null || mine.after(myReadCursor))) {
+            myReadCursor = mine;
         }
 
-        // Set timeout to stop typing after 3 seconds of inactivity
-        typingHandler.postDelayed(() -> stopTyping(), TYPING_TIMEOUT_MS);
+        if (!cursors.equals(readCursors)) {
+            readCursors.clear();
+            readCursors.putAll(cursors);
+            adapter.setReadCursors(cursors);
+        }
     }
 
-    private void stopTyping() {
-        if (conversationId == null || currentUserId == null) return;
+    private void setupTypingIndicator() {
+        typingPresence = new TypingPresence(conversationId, currentUserId);
+        typingPresence.listen(otherTypingUsers -> {
+            if (otherTypingUsers.isEmpty()) {
+                typingIndicator.setVisibility(android.view.View.GONE);
+                return;
+            }
 
-        // Remove typing status from Firestore
-        db.collection("conversations")
-                .document(conversationId)
-                .update("typingUsers." + currentUserId, FieldValue.delete());
+            // Display typing indicator
+            if (otherTypingUsers.size() == 1) {
+                // Load user name
+                String uid = otherTypingUsers.get(0);
+                UserDirectory.getInstance().loadName(uid, name -> {
+                    if (name == null) name = "Someone";
 
-        // Clear timeout
-        if (typingHandler != null) {
-            typingHandler.removeCallbacksAndMessages(null);
-        }
+                    typingIndicator.setText(name + " is typing...");
+                    typingIndicator.setVisibility(android.view.View.VISIBLE);
+                });
+            } else {
+                typingIndicator.setText(otherTypingUsers.size() + " people are typing...");
+                typingIndicator.setVisibility(android.view.View.VISIBLE);
+            }
+        });
     }
 
     // ===== CONTEXT MENU METHODS =====
@@ -1080,6 +1527,18 @@ public class ChatActivity extends BaseDrawerActivity {
             bottomSheet.dismiss();
         });
 
+        // Go to original - only for replies (loads the quoted message if it is not in the list)
+        Button btnGoToOriginal = view.findViewById(R.id.btnGoToOriginal);
+        if (message.isReply()) {
+            btnGoToOriginal.setVisibility(View.VISIBLE);
+            btnGoToOriginal.setOnClickListener(v -> {
+                jumpToMessage(message.getReplyToMessageId());
+                bottomSheet.dismiss();
+            });
+        } else {
+            btnGoToOriginal.setVisibility(View.GONE);
+        }
+
         // Info - only for our messages in groups
         if (message.getSenderId().equals(currentUserId) && isGroup) {
             btnInfo.setVisibility(View.VISIBLE);
@@ -1145,7 +1604,10 @@ public class ChatActivity extends BaseDrawerActivity {
             return;
         }
 
-        boolean hasReacted = message.hasReactedWith(currentUserId, emoji);
+        // Toggle against what is on screen (it already includes queued toggles)
+        int index = indexOfMessage(message.getId());
+        ChatMessage current = index >= 0 ? messages.get(index) : message;
+        boolean hasReacted = current.hasReactedWith(currentUserId, emoji);
 
         if (hasReacted) {
             // Remove reaction
@@ -1156,6 +1618,12 @@ public class ChatActivity extends BaseDrawerActivity {
             messageRepository.addReaction(message.getId(), emoji, currentUserId, conversationId);
             Toast.makeText(this, "Reaction added", Toast.LENGTH_SHORT).show();
         }
+
+        // Show the change now; the write is queued and may be folded with further toggles
+        if (index >= 0) {
+            upsertMessage(MessageRepository.withReaction(current, emoji, currentUserId, !hasReacted));
+            adapter.submitItems(messages.snapshot());
+        }
     }
 
     private void showReactionsDetails(ChatMessage message) {
@@ -1211,12 +1679,12 @@ public class ChatActivity extends BaseDrawerActivity {
         List<String> recipients = new ArrayList<>(participantIds);
         recipients.remove(message.getSenderId());
 
-        // Create list of participant info
+        // Create list of participant info (derived from members' read cursors)
         List<ParticipantReadStatus> statusList = new ArrayList<>();
-        List<String> readBy = message.getReadBy() != null ? message.getReadBy() : new ArrayList<>();
+        List<String> readers = ChatUtils.getReaders(message, participantIds, readCursors);
 
         for (String userId : recipients) {
-            boolean isRead = readBy.contains(userId);
+            boolean isRead = readers.contains(userId);
             statusList.add(new ParticipantReadStatus(userId, isRead, null)); // TODO: add readAt timestamp
         }
 
@@ -1363,9 +1831,9 @@ public class ChatActivity extends BaseDrawerActivity {
         }
 
         // Find the position of the message in the current list
-        List<com.example.workconnect.models.ChatItem> items = adapter.getCurrentList();
+        List<ChatItem> items = adapter.getCurrentList();
         for (int i = 0; i < items.size(); i++) {
-            com.example.workconnect.models.ChatItem item = items.get(i);
+            ChatItem item = items.get(i);
             if (item.isMessage()) {
                 ChatMessage msg = item.getMessage();
                 if (msg != null && messageId.equals(msg.getId())) {
@@ -7,6 +7,7 @@ import android.text.TextWatcher;
 import android.widget.Button;
 import android.widget.EditText;
 
+import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
@@ -16,20 +17,28 @@ import com.example.workconnect.adapters.chats.ChatConversationAdapter;
 import com.example.workconnect.adapters.chats.EmployeeSearchAdapter;
 import com.example.workconnect.models.ChatConversation;
 import com.example.workconnect.models.User;
+import com.example.workconnect.repository.authAndUsers.CompanyDirectory;
+import com.example.workconnect.repository.chat.ConversationInbox;
+import com.example.workconnect.repository.decode.ModelMappers;
+import com.example.workconnect.repository.decode.SnapshotDecoder;
 import com.example.workconnect.ui.home.BaseDrawerActivity;
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
 import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.firestore.DocumentChange;
+import com.google.firebase.firestore.DocumentReference;
 import com.google.firebase.firestore.DocumentSnapshot;
 import com.google.firebase.firestore.FieldValue;
 import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.firestore.ListenerRegistration;
 import com.google.firebase.firestore.Query;
 import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.WriteBatch;
 
 import android.util.Log;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -38,6 +47,14 @@ public class ChatListActivity extends BaseDrawerActivity {
 
     private static final String TAG = "ChatListActivity";
 
+    // Conversations are listened to newest first, one page more each time the list end is reached
+    private static final int CONVERSATIONS_PAGE_SIZE = 30;
+    private static final int LOAD_MORE_THRESHOLD = 5;
+
+    // Employee search runs against the local company index once typing pauses
+    private static final long SEARCH_DEBOUNCE_MS = 150;
+    private static final int SEARCH_RESULTS_LIMIT = 50;
+
     private String currentUserId;
     private String companyId;
 
@@ -48,14 +65,20 @@ public class ChatListActivity extends BaseDrawerActivity {
     private RecyclerView rvSearchResults;
     private final List<User> searchResults = new ArrayList<>();
     private EmployeeSearchAdapter searchAdapter;
+    private String pendingQuery;
+    private final Runnable searchRunnable = () -> searchEmployees(pendingQuery);
 
     // Conversations
     private RecyclerView rvConversations;
+    // Newest first, kept in sync with the listener's document changes
     private final List<ChatConversation> conversations = new ArrayList<>();
     private ChatConversationAdapter conversationAdapter;
+    private int conversationsLimit = CONVERSATIONS_PAGE_SIZE;
+    private boolean hasMoreConversations = false;
 
     // Listener lifecycle management
     private ListenerRegistration conversationsListener;
+    private SnapshotDecoder conversationsDecoder;
 
     @Override
     protected void onCreate(@Nullable Bundle savedInstanceState) {
@@ -91,7 +114,6 @@ public class ChatListActivity extends BaseDrawerActivity {
 
         // Initialize conversations adapter
         conversationAdapter = new ChatConversationAdapter(
-                conversations,
                 currentUserId,
                 conversation -> {
                     Intent intent = new Intent(this, ChatActivity.class);
@@ -100,8 +122,19 @@ public class ChatListActivity extends BaseDrawerActivity {
                 }
         );
 
-        rvConversations.setLayoutManager(new LinearLayoutManager(this));
+        LinearLayoutManager conversationsLayout = new LinearLayoutManager(this);
+        rvConversations.setLayoutManager(conversationsLayout);
         rvConversations.setAdapter(conversationAdapter);
+        rvConversations.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                if (dy <= 0) return;
+                int lastVisible = conversationsLayout.findLastVisibleItemPosition();
+                if (lastVisible >= conversationAdapter.getItemCount() - LOAD_MORE_THRESHOLD) {
+                    loadMoreConversations();
+                }
+            }
+        });
 
         // Load company id once (listener will start in onStart)
         loadCompanyId();
@@ -112,12 +145,14 @@ public class ChatListActivity extends BaseDrawerActivity {
             @Override
             public void afterTextChanged(Editable s) {
                 String q = s.toString().trim();
+                rvSearchResults.removeCallbacks(searchRunnable);
+                pendingQuery = q;
                 if (q.length() < 2) {
                     searchResults.clear();
                     searchAdapter.notifyDataSetChanged();
                     return;
                 }
-                searchEmployees(q);
+                rvSearchResults.postDelayed(searchRunnable, SEARCH_DEBOUNCE_MS);
             }
         });
 
@@ -156,6 +191,14 @@ public class ChatListActivity extends BaseDrawerActivity {
                 .addOnSuccessListener(doc -> {
                     companyId = doc.getString("companyId");
                     Log.d(TAG, "loadCompanyId(): companyId=" + companyId);
+                    CompanyDirectory.getInstance().start(companyId);
+
+                    // Conversations created before the per-user inbox existed
+                    if (!Boolean.TRUE.equals(doc.getBoolean("inboxBackfilled"))) {
+                        ConversationInbox.backfill(currentUserId, () ->
+                                db.collection("users").document(currentUserId)
+                                        .update("inboxBackfilled", true));
+                    }
 
                     // If activity already visible, start now.
                     // (onStart may already have happened)
@@ -169,12 +212,21 @@ public class ChatListActivity extends BaseDrawerActivity {
     private void startConversationsListener() {
         stopConversationsListener();
 
-        Log.d(TAG, "startConversationsListener() for uid=" + currentUserId);
+        Log.d(TAG, "startConversationsListener() for uid=" + currentUserId + " limit=" + conversationsLimit);
+
+        SnapshotDecoder decoder = SnapshotDecoder.inOrder();
+        conversationsDecoder = decoder;
+        final int limit = conversationsLimit;
+        final boolean[] isFirstSnapshot = {true};
 
+        // The user's own inbox entries carry everything a row shows (see ConversationInbox):
+        // a message elsewhere in the company never reaches this listener
         conversationsListener =
-                db.collection("conversations")
-                        .whereArrayContains("participantIds", currentUserId)
+                db.collection("users")
+                        .document(currentUserId)
+                        .collection("inbox")
                         .orderBy("lastMessageAt", Query.Direction.DESCENDING)
+                        .limit(limit)
                         .addSnapshotListener((snap, e) -> {
 
                             if (e != null) {
@@ -187,23 +239,91 @@ public class ChatListActivity extends BaseDrawerActivity {
                             }
 
                             Log.d(TAG, "Conversations count=" + snap.size());
-
-                            conversations.clear();
-                            for (DocumentSnapshot d : snap.getDocuments()) {
-                                ChatConversation c = d.toObject(ChatConversation.class);
-                                if (c != null) {
-                                    c.setId(d.getId());
-                                    conversations.add(c);
-                                }
+                            hasMoreConversations = snap.size() >= limit;
+
+                            if (isFirstSnapshot[0]) {
+                                // A (re)attached listener starts from the full window
+                                isFirstSnapshot[0] = false;
+                                decoder.submit(snap.getDocuments(), ModelMappers.INBOX_CONVERSATION, decoded -> {
+                                    conversations.clear();
+                                    conversations.addAll(decoded);
+                                    conversationAdapter.submitList(new ArrayList<>(conversations));
+                                });
+                                return;
                             }
-                            conversationAdapter.notifyDataSetChanged();
+
+                            List<DocumentChange> changes = snap.getDocumentChanges();
+                            if (changes.isEmpty()) return;
+                            decoder.submit(() -> decodeConversationChanges(changes), this::applyConversationChanges);
                         });
     }
 
+    /**
+     * One decoded document change of the conversations window
+     */
+    private static class ConversationChange {
+        final DocumentChange.Type type;
+        final String id;
+        final int newIndex;
+        final ChatConversation conversation; // null when removed
+
+        ConversationChange(DocumentChange.Type type, String id, int newIndex, ChatConversation conversation) {
+            this.type = type;
+            this.id = id;
+            this.newIndex = newIndex;
+            this.conversation = conversation;
+        }
+    }
+
+    private static List<ConversationChange> decodeConversationChanges(List<DocumentChange> changes) {
+        List<ConversationChange> out = new ArrayList<>(changes.size());
+        for (DocumentChange change : changes) {
+            DocumentSnapshot d = change.getDocument();
+            ChatConversation c = change.getType() == DocumentChange.Type.REMOVED
+                    ? null : ModelMappers.INBOX_CONVERSATION.map(d);
+            out.add(new ConversationChange(change.getType(), d.getId(), change.getNewIndex(), c));
+        }
+        return out;
+    }
+
+    /**
+     * Apply changes in order: newIndex is the position after the previous changes were applied.
+     * A new message moves one row to the top; the adapter's diff turns that into a move plus a partial rebind.
+     */
+    private void applyConversationChanges(List<ConversationChange> changes) {
+        for (ConversationChange change : changes) {
+            removeConversation(change.id);
+            if (change.type != DocumentChange.Type.REMOVED && change.conversation != null) {
+                int index = Math.max(0, Math.min(change.newIndex, conversations.size()));
+                conversations.add(index, change.conversation);
+            }
+        }
+        conversationAdapter.submitList(new ArrayList<>(conversations));
+    }
+
+    private void removeConversation(String id) {
+        for (int i = 0; i < conversations.size(); i++) {
+            if (id.equals(conversations.get(i).getId())) {
+                conversations.remove(i);
+                return;
+            }
+        }
+    }
+
+    private void loadMoreConversations() {
+        if (!hasMoreConversations || conversationsListener == null) return;
+        // Cleared until the wider window arrives, so scrolling doesn't request it twice
+        hasMoreConversations = false;
+        conversationsLimit += CONVERSATIONS_PAGE_SIZE;
+        startConversationsListener();
+    }
+
     private void stopConversationsListener() {
         if (conversationsListener != null) {
             conversationsListener.remove();
             conversationsListener = null;
+            conversationsDecoder.release();
+            conversationsDecoder = null;
             Log.d(TAG, "stopConversationsListener()");
         }
     }
@@ -214,35 +334,15 @@ public class ChatListActivity extends BaseDrawerActivity {
             return;
         }
 
-        String qLower = query.toLowerCase();
-
-        db.collection("users")
-                .whereEqualTo("companyId", companyId)
-                .whereEqualTo("status", com.example.workconnect.models.enums.RegisterStatus.APPROVED.name())
-                .get()
-                .addOnSuccessListener(snap -> {
-                    searchResults.clear();
-
-                    for (DocumentSnapshot d : snap.getDocuments()) {
-                        if (d.getId().equals(currentUserId)) continue;
-
-                        User u = d.toObject(User.class);
-                        if (u == null) continue;
-
-                        u.setUid(d.getId());
+        CompanyDirectory.getInstance().whenLoaded(companyId, directory -> {
+            // The user kept typing (or cleared the box) while the directory was loading
+            if (isFinishing() || !query.equals(pendingQuery)) return;
 
-                        String first = u.getFirstName() != null ? u.getFirstName() : "";
-                        String last  = u.getLastName() != null ? u.getLastName() : "";
-                        String name  = (first + " " + last).trim().toLowerCase();
-                        String email = u.getEmail() != null ? u.getEmail().toLowerCase() : "";
-
-                        if (name.contains(qLower) || email.contains(qLower)) {
-                            searchResults.add(u);
-                        }
-                    }
-                    searchAdapter.notifyDataSetChanged();
-                })
-                .addOnFailureListener(e -> Log.e(TAG, "searchEmployees() failed", e));
+            searchResults.clear();
+            searchResults.addAll(directory.search(query, SEARCH_RESULTS_LIMIT,
+                    Collections.singleton(currentUserId)));
+            searchAdapter.notifyDataSetChanged();
+        });
     }
 
     // =========================
@@ -266,15 +366,24 @@ public class ChatListActivity extends BaseDrawerActivity {
         data.put("lastMessageAt", FieldValue.serverTimestamp());
         data.put("lastMessageSenderId", "");
 
-        Map<String, Object> unread = new HashMap<>();
-        unread.put(currentUserId, 0);
-        unread.put(otherUserId, 0);
-        data.put("unreadCounts", unread);
+        DocumentReference convRef = db.collection("conversations").document(conversationId);
+        convRef.get()
+                .addOnSuccessListener(existing -> {
+                    // Existing chat: open it as is (rewriting it would reset its order and counters)
+                    if (existing.exists()) {
+                        openChat(conversationId);
+                        return;
+                    }
 
-        db.collection("conversations")
-                .document(conversationId)
-                .set(data, SetOptions.merge())
-                .addOnSuccessListener(v -> openChat(conversationId))
+                    // New chat: conversation + both members' inbox entries
+                    WriteBatch batch = db.batch();
+                    batch.set(convRef, data, SetOptions.merge());
+                    ConversationInbox.putEntry(batch, currentUserId, conversationId, data, 0);
+                    ConversationInbox.putEntry(batch, otherUserId, conversationId, data, 0);
+                    batch.commit()
+                            .addOnSuccessListener(v -> openChat(conversationId))
+                            .addOnFailureListener(e -> Log.e(TAG, "createOrOpenDirectConversation() failed", e));
+                })
                 .addOnFailureListener(e -> Log.e(TAG, "createOrOpenDirectConversation() failed", e));
     }
 
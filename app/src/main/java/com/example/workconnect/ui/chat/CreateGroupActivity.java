@@ -14,6 +14,8 @@ import com.example.workconnect.R;
 import com.example.workconnect.adapters.chats.GroupMemberAdapter;
 import com.example.workconnect.models.ChatMessage;
 import com.example.workconnect.models.User;
+import com.example.workconnect.repository.authAndUsers.CompanyDirectory;
+import com.example.workconnect.repository.chat.ConversationInbox;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.firestore.DocumentReference;
 import com.google.firebase.firestore.DocumentSnapshot;
@@ -77,26 +79,19 @@ public class CreateGroupActivity extends AppCompatActivity {
     }
 
     private void loadEmployees() {
-        db.collection("users")
-                .whereEqualTo("companyId", companyId)
-                .whereEqualTo("status", com.example.workconnect.models.enums.RegisterStatus.APPROVED.name())
-                .get()
-                .addOnSuccessListener(snap -> {
-                    employees.clear();
-                    selectedUids.clear();
-
-                    for (DocumentSnapshot d : snap.getDocuments()) {
-                        if (d.getId().equals(currentUserId)) continue;
-
-                        User u = d.toObject(User.class);
-                        if (u == null) continue;
-
-                        u.setUid(d.getId());
-                        employees.add(u);
-                    }
-
-                    adapter.notifyDataSetChanged();
-                });
+        // Served from the shared company index (one listener for the whole app)
+        CompanyDirectory.getInstance().whenLoaded(companyId, directory -> {
+            if (isFinishing()) return;
+            employees.clear();
+            selectedUids.clear();
+
+            for (User u : directory.getUsers()) {
+                if (u.getUid().equals(currentUserId)) continue;
+                employees.add(u);
+            }
+
+            adapter.notifyDataSetChanged();
+        });
     }
 
     private void createGroup() {
@@ -118,10 +113,10 @@ public class CreateGroupActivity extends AppCompatActivity {
         participants.add(currentUserId);
         participants.addAll(selectedUids);
 
-        // unreadCounts: creator = 0, others = 1 (so they see badge "1")
-        Map<String, Object> unread = new HashMap<>();
+        // Unread counts (members' inbox entries): creator = 0, others = 1 (so they see badge "1")
+        Map<String, Long> unread = new HashMap<>();
         for (String uid : participants) {
-            unread.put(uid, uid.equals(currentUserId) ? 0 : 1);
+            unread.put(uid, uid.equals(currentUserId) ? 0L : 1L);
         }
 
         // Create conversation with auto-id
@@ -138,8 +133,6 @@ public class CreateGroupActivity extends AppCompatActivity {
         convData.put("lastMessageAt", FieldValue.serverTimestamp());
         convData.put("lastMessageSenderId", currentUserId); // ok to set now
 
-        convData.put("unreadCounts", unread);
-
         btnCreate.setEnabled(false);
 
         db.collection("conversations")
@@ -154,12 +147,12 @@ public class CreateGroupActivity extends AppCompatActivity {
 
                                 String systemText = creatorName + " created this group";
 
-                                writeSystemMessageAndUpdateConversation(convRef, systemText, unread);
+                                writeSystemMessageAndUpdateConversation(convRef, convData, systemText, unread);
                             })
                             .addOnFailureListener(e -> {
                                 // fallback if name fetch fails
                                 String systemText = "Someone created this group";
-                                writeSystemMessageAndUpdateConversation(convRef, systemText, unread);
+                                writeSystemMessageAndUpdateConversation(convRef, convData, systemText, unread);
                             });
                 })
                 .addOnFailureListener(e -> {
@@ -170,8 +163,9 @@ public class CreateGroupActivity extends AppCompatActivity {
 
     private void writeSystemMessageAndUpdateConversation(
             DocumentReference convRef,
+            Map<String, Object> convData,
             String systemText,
-            Map<String, Object> unread
+            Map<String, Long> unread
     ) {
         // Message doc in subcollection
         DocumentReference msgRef = convRef.collection("messages").document();
@@ -188,17 +182,24 @@ public class CreateGroupActivity extends AppCompatActivity {
         msg.put("systemType", ChatMessage.SystemMessageType.GROUP_CREATED.name());
         msg.put("systemUserId", currentUserId);
         msg.put("readBy", new ArrayList<String>());
+        msg.put("version", 1L);
+        msg.put("updatedAt", FieldValue.serverTimestamp());
 
-        // Update conversation last message + unreadCounts
+        // Update conversation last message
         Map<String, Object> convUpdate = new HashMap<>();
         convUpdate.put("lastMessageText", systemText);
         convUpdate.put("lastMessageAt", FieldValue.serverTimestamp());
         convUpdate.put("lastMessageSenderId", currentUserId);
-        convUpdate.put("unreadCounts", unread);
 
         WriteBatch batch = db.batch();
         batch.set(msgRef, msg);
         batch.update(convRef, convUpdate);
+        // Members' inbox entries: what their chat list shows + unread counts
+        Map<String, Object> summary = new HashMap<>(convData);
+        summary.putAll(convUpdate);
+        for (Map.Entry<String, Long> entry : unread.entrySet()) {
+            ConversationInbox.putEntry(batch, entry.getKey(), convRef.getId(), summary, entry.getValue());
+        }
 
         batch.commit()
                 .addOnSuccessListener(v -> {
@@ -267,6 +267,10 @@ public class GroupCallVideoAdapter extends RecyclerView.Adapter<GroupCallVideoAd
         }
     }
 
+    public int getUidAt(int position) {
+        return videoItems.get(position).uid;
+    }
+
     public void removeVideo(int uid) {
         for (int i = 0; i < videoItems.size(); i++) {
             if (videoItems.get(i).uid == uid) {
@@ -15,11 +15,15 @@ import com.example.workconnect.R;
 import com.example.workconnect.adapters.chats.GroupInfoMemberAdapter;
 import com.example.workconnect.models.ChatMessage;
 import com.example.workconnect.models.User;
+import com.example.workconnect.repository.authAndUsers.UserDirectory;
+import com.example.workconnect.repository.chat.ConversationInbox;
+import com.example.workconnect.repository.chat.MessageRepository;
 import com.example.workconnect.utils.SystemMessageHelper;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.firestore.FieldValue;
 import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.firestore.ListenerRegistration;
+import com.google.firebase.firestore.WriteBatch;
 
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -154,17 +158,22 @@ public class GroupInfoActivity extends AppCompatActivity {
 
         if (participantIds.isEmpty()) return;
 
-        for (String uid : participantIds) {
-            db.collection("users").document(uid)
-                    .get()
-                    .addOnSuccessListener(userDoc -> {
-                        User u = userDoc.toObject(User.class);
-                        if (u == null) u = new User();
-                        u.setUid(userDoc.getId());
-                        members.add(u);
-                        adapter.notifyDataSetChanged();
-                    });
-        }
+        // One batched lookup instead of one read per member
+        UserDirectory.getInstance().loadUsers(participantIds, users -> {
+            members.clear();
+            for (String uid : participantIds) {
+                if (uid == null || uid.trim().isEmpty()) continue;
+                User u = users.get(uid);
+                if (u == null) {
+                    // No profile document: still listed (and removable), shown as a placeholder
+                    u = new User();
+                    u.setUid(uid);
+                    u.setFirstName("User");
+                }
+                members.add(u);
+            }
+            adapter.notifyDataSetChanged();
+        });
     }
 
     // =========================
@@ -175,15 +184,19 @@ public class GroupInfoActivity extends AppCompatActivity {
         Map<String, Object> updates = new HashMap<>();
         updates.put("participantIds", FieldValue.arrayRemove(uids.toArray()));
 
-        // delete unreadCounts.<uid> for each
+        // delete unreadCounts.<uid> and lastReadAt.<uid> (older conversations) and the inbox entry for each
+        WriteBatch batch = db.batch();
         for (String uid : uids) {
             updates.put("unreadCounts." + uid, FieldValue.delete());
+            updates.put("lastReadAt." + uid, FieldValue.delete());
+            ConversationInbox.removeEntry(batch, uid, conversationId);
         }
+        batch.update(db.collection("conversations").document(conversationId), updates);
 
-        db.collection("conversations")
-                .document(conversationId)
-                .update(updates)
+        batch.commit()
                 .addOnSuccessListener(v -> {
+                    MessageRepository.invalidateParticipants(conversationId);
+
                     // Create system messages for each removed member
                     for (String uid : uids) {
                         SystemMessageHelper.createSystemMessage(
@@ -208,10 +221,14 @@ public class GroupInfoActivity extends AppCompatActivity {
         Map<String, Object> updates = new HashMap<>();
         updates.put("participantIds", FieldValue.arrayRemove(uid));
         updates.put("unreadCounts." + uid, FieldValue.delete());
+        updates.put("lastReadAt." + uid, FieldValue.delete());
 
-        db.collection("conversations")
-                .document(conversationId)
-                .update(updates);
+        WriteBatch batch = db.batch();
+        batch.update(db.collection("conversations").document(conversationId), updates);
+        ConversationInbox.removeEntry(batch, uid, conversationId);
+
+        batch.commit()
+                .addOnSuccessListener(v -> MessageRepository.invalidateParticipants(conversationId));
     }
 
     // =========================
@@ -222,11 +239,16 @@ public class GroupInfoActivity extends AppCompatActivity {
         Map<String, Object> updates = new HashMap<>();
         updates.put("participantIds", FieldValue.arrayRemove(currentUserId));
         updates.put("unreadCounts." + currentUserId, FieldValue.delete());
+        updates.put("lastReadAt." + currentUserId, FieldValue.delete());
 
-        db.collection("conversations")
-                .document(conversationId)
-                .update(updates)
+        WriteBatch batch = db.batch();
+        batch.update(db.collection("conversations").document(conversationId), updates);
+        ConversationInbox.removeEntry(batch, currentUserId, conversationId);
+
+        batch.commit()
                 .addOnSuccessListener(v -> {
+                    MessageRepository.invalidateParticipants(conversationId);
+
                     // Create system message for user leaving
                     SystemMessageHelper.createSystemMessage(
                             conversationId,
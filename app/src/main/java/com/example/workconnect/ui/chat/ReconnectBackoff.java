@@ -0,0 +1,59 @@
+package com.example.workconnect.ui.chat;
+
+import java.util.function.DoubleSupplier;
+
+/**
+ * Delays between attempts to rejoin a call's channel.
+ *
+ * Exponential backoff (BASE_DELAY_MS, doubled each attempt, at most MAX_DELAY_MS) with
+ * jitter: each delay is picked between half and all of its step, so participants that
+ * lost the same network do not retry in lockstep. When the network comes back, the
+ * pending attempt runs right away instead of waiting for its delay.
+ *
+ * Pure Java (no Android) so it can be unit tested with a fixed random source.
+ */
+class ReconnectBackoff {
+
+    static final long BASE_DELAY_MS = 1_000;
+    static final long MAX_DELAY_MS = 30_000;
+
+    private final int maxAttempts;
+    private final DoubleSupplier random;
+
+    private int attempts = 0;
+
+    /**
+     * @param random Values in [0, 1)
+     */
+    ReconnectBackoff(int maxAttempts, DoubleSupplier random) {
+        this.maxAttempts = maxAttempts;
+        this.random = random;
+    }
+
+    int getAttempts() {
+        return attempts;
+    }
+
+    boolean isExhausted() {
+        return attempts >= maxAttempts;
+    }
+
+    /**
+     * Count an attempt and get how long to wait before it
+     * @return Delay in ms, -1 when no attempt is left
+     */
+    long nextDelayMs() {
+        if (isExhausted()) return -1;
+        long step = Math.min(MAX_DELAY_MS, BASE_DELAY_MS << Math.min(attempts, 16));
+        attempts++;
+        long half = step / 2;
+        return half + (long) (random.getAsDouble() * (step - half));
+    }
+
+    /**
+     * Connected again: the next loss starts over from the shortest delay
+     */
+    void reset() {
+        attempts = 0;
+    }
+}
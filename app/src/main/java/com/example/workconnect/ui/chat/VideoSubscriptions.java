@@ -0,0 +1,138 @@
+package com.example.workconnect.ui.chat;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Which video stream to receive from each remote participant of a group call.
+ *
+ * Senders publish two streams (dual-stream mode): full resolution and a small one.
+ * - The active speaker (main view) gets the high stream
+ * - Thumbnails on screen get the low stream, at most maxLowStreams of them
+ * - Everyone else (scrolled out of the thumbnail strip) is not received at all
+ *
+ * So decoding and downlink grow with what the screen shows, not with the number of
+ * participants. In speaker-only mode (picture-in-picture), only the active speaker is
+ * received, as a low stream. Only changes are pushed to the {@link Sink}.
+ *
+ * Pure Java (no Android/Agora) so it can be unit tested.
+ */
+class VideoSubscriptions {
+
+    enum Quality { HIGH, LOW, NONE }
+
+    interface Sink {
+        void setQuality(int uid, Quality quality);
+    }
+
+    private final Sink sink;
+    private final int maxLowStreams;
+
+    private final Set<Integer> participants = new LinkedHashSet<>();
+    private final Set<Integer> visibleThumbnails = new LinkedHashSet<>();
+    private int activeSpeaker = 0;
+    private boolean speakerOnly = false;
+    // Last quality pushed per uid
+    private final Map<Integer, Quality> applied = new HashMap<>();
+
+    VideoSubscriptions(int maxLowStreams, Sink sink) {
+        this.maxLowStreams = maxLowStreams;
+        this.sink = sink;
+    }
+
+    void onParticipantJoined(int uid) {
+        if (uid == 0) return; // local user
+        if (participants.add(uid)) apply();
+    }
+
+    void onParticipantLeft(int uid) {
+        if (!participants.remove(uid)) return;
+        visibleThumbnails.remove(uid);
+        applied.remove(uid);
+        if (activeSpeaker == uid) activeSpeaker = 0;
+        apply();
+    }
+
+    void setActiveSpeaker(int uid) {
+        if (activeSpeaker == uid) return;
+        // The previous speaker moves to the thumbnail strip: keep its video (low) until the
+        // strip reports what is on screen, rather than muting and resuming it
+        if (participants.contains(activeSpeaker)) visibleThumbnails.add(activeSpeaker);
+        activeSpeaker = uid;
+        apply();
+    }
+
+    /**
+     * Picture-in-picture: receive the active speaker's low stream and nothing else
+     */
+    void setSpeakerOnly(boolean speakerOnly) {
+        if (this.speakerOnly == speakerOnly) return;
+        this.speakerOnly = speakerOnly;
+        apply();
+    }
+
+    /**
+     * Uids of the thumbnails currently on screen (any order, the local user is ignored)
+     */
+    void setVisibleThumbnails(Collection<Integer> uids) {
+        Set<Integer> visible = new LinkedHashSet<>(uids);
+        visible.remove(0);
+        if (visible.equals(visibleThumbnails)) return;
+        visibleThumbnails.clear();
+        visibleThumbnails.addAll(visible);
+        apply();
+    }
+
+    /**
+     * New call: forget its participants (nothing is pushed, speaker-only mode is kept)
+     */
+    void reset() {
+        participants.clear();
+        visibleThumbnails.clear();
+        applied.clear();
+        activeSpeaker = 0;
+    }
+
+    /**
+     * Push every participant's quality again (after the engine's video was muted as a whole)
+     */
+    void resend() {
+        for (Map.Entry<Integer, Quality> entry : applied.entrySet()) {
+            sink.setQuality(entry.getKey(), entry.getValue());
+        }
+    }
+
+    Quality qualityOf(int uid) {
+        Quality quality = applied.get(uid);
+        return quality != null ? quality : Quality.NONE;
+    }
+
+    private void apply() {
+        Map<Integer, Quality> target = new LinkedHashMap<>();
+        Set<Integer> low = new HashSet<>();
+        for (int uid : participants) {
+            Quality quality;
+            if (uid == activeSpeaker) {
+                quality = speakerOnly ? Quality.LOW : Quality.HIGH;
+            } else if (!speakerOnly && visibleThumbnails.contains(uid) && low.size() < maxLowStreams) {
+                quality = Quality.LOW;
+                low.add(uid);
+            } else {
+                quality = Quality.NONE;
+            }
+            target.put(uid, quality);
+        }
+
+        for (Map.Entry<Integer, Quality> entry : target.entrySet()) {
+            Quality previous = applied.put(entry.getKey(), entry.getValue());
+            if (previous != entry.getValue()) {
+                sink.setQuality(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+}
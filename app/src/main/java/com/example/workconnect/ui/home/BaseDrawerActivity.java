@@ -23,7 +23,12 @@ import com.example.workconnect.R;
 import com.example.workconnect.ui.attendance.AttendanceActivity;
 import com.example.workconnect.models.Call;
 import com.example.workconnect.repository.CallRepository;
+import com.example.workconnect.repository.CallSignalingHub;
+import com.example.workconnect.repository.IncomingCallSurface;
+import com.example.workconnect.repository.authAndUsers.UserDirectory;
 import com.example.workconnect.ui.chat.CallActivity;
+import com.example.workconnect.utils.CallEngineHolder;
+import com.example.workconnect.utils.CallSetupMetrics;
 import com.google.android.material.bottomsheet.BottomSheetDialog;
 import com.google.firebase.firestore.ListenerRegistration;
 import com.example.workconnect.ui.auth.EditEmployeeProfileActivity;
@@ -58,7 +63,7 @@ import com.google.android.material.badge.BadgeDrawable;
 import com.google.android.material.badge.BadgeUtils;
 import com.google.firebase.firestore.ListenerRegistration;
 
-public abstract class BaseDrawerActivity extends AppCompatActivity {
+public abstract class BaseDrawerActivity extends AppCompatActivity implements IncomingCallSurface {
 
     protected DrawerLayout drawerLayout;
     protected NavigationView navView;
@@ -73,10 +78,10 @@ public abstract class BaseDrawerActivity extends AppCompatActivity {
 
     private ActionBarDrawerToggle toggle;
     
-    // Incoming call management
+    // Incoming call dialog (calls are listened to once for the process by CallSignalingHub)
     private CallRepository callRepository;
-    private ListenerRegistration incomingCallListener;
     private BottomSheetDialog currentIncomingCallDialog;
+    private String currentIncomingCallId;
 
     // 🔔 Notifications badge
     @Nullable private BadgeDrawable notifBadge;
@@ -105,9 +110,6 @@ public abstract class BaseDrawerActivity extends AppCompatActivity {
         }
 
         setSupportActionBar(toolbar);
-        
-        // Start listening for incoming calls
-        setupIncomingCallListener();
 
         // NOTE: Connect DrawerLayout with Toolbar to show hamburger icon
         toggle = new ActionBarDrawerToggle(
@@ -435,109 +437,52 @@ public abstract class BaseDrawerActivity extends AppCompatActivity {
         if (tvCompany != null) tvCompany.setText(companyName == null || companyName.trim().isEmpty() ? "-" : companyName.trim());
     }
     
-    /**
-     * Setup listener for incoming calls (available in all activities)
-     * Also handles call cancellation/ending to close dialogs
-     */
-    private void setupIncomingCallListener() {
-        if (mAuth.getCurrentUser() == null) return;
-        
-        String currentUserId = mAuth.getCurrentUser().getUid();
-        
-        // Listen to all calls where user is a participant (no status filter to avoid composite index).
-        // Status filtering is done client-side below.
-        // Documents are deleted 2 seconds after ending, so stale results are not an issue.
-        incomingCallListener = db.collection("calls")
-            .whereArrayContains("participants", currentUserId)
-            .addSnapshotListener((snapshot, e) -> {
-                if (e != null) {
-                    android.util.Log.e("BaseDrawerActivity", "Error listening to calls", e);
-                    return;
-                }
-
-                if (snapshot == null) return;
-
-                
-                // Process each call
-                for (com.google.firebase.firestore.DocumentSnapshot doc : snapshot.getDocuments()) {
-                    Call call = doc.toObject(Call.class);
-                    if (call == null) continue;
-
-                    call.setCallId(doc.getId());
-                    String status = call.getStatus();
-
-                    // Skip calls initiated by me
-                    if (call.getCallerId().equals(currentUserId)) continue;
-
-                    if ("ringing".equals(status)) {
-                        // New incoming call: show dialog only if we are NOT already in a call.
-                        // CallActivity.isInCall is a static volatile flag set by CallActivity itself —
-                        // it is true even when the call is minimized (user is in ChatActivity etc.).
-                        if (!com.example.workconnect.ui.chat.CallActivity.isInCall) {
-                            runOnUiThread(() -> showIncomingCallDialog(call));
-                        }
-                        // If already in a call, silently ignore — the caller's dialog will eventually
-                        // time out or they can cancel. We do NOT auto-reject here because in a group call
-                        // it is normal to receive a "ringing" event even if we are the caller.
-                    } else if ("cancelled".equals(status) || "ended".equals(status) || "missed".equals(status)) {
-                        // Call terminated: close dialog if open
-                        runOnUiThread(() -> {
-                            if (currentIncomingCallDialog != null && currentIncomingCallDialog.isShowing()) {
-                                currentIncomingCallDialog.dismiss();
-                                currentIncomingCallDialog = null;
-                            }
-                        });
-                    }
-                    // "active" → group call already answered by someone else; keep the dialog open
-                    // so the current user can still join
-                }
-            });
+    @Override
+    protected void onResume() {
+        super.onResume();
+        // Incoming call dialogs are shown by the screen in the foreground only
+        CallSignalingHub.getInstance().attach(this);
     }
-    
+
+    @Override
+    protected void onPause() {
+        CallSignalingHub.getInstance().detach(this);
+        super.onPause();
+    }
+
     /**
-     * Show incoming call dialog.
-     * Guards are already applied upstream (CallActivity.isInCall check in the listener).
+     * Show incoming call dialog (called by CallSignalingHub, which skips it during a call).
+     * The hub closes it through {@link #dismissIncomingCall} once the call is over.
      */
-    private void showIncomingCallDialog(Call call) {
-        // Double-check with the static flag (guards against very fast concurrent calls)
-        if (com.example.workconnect.ui.chat.CallActivity.isInCall) {
-            android.util.Log.d("BaseDrawerActivity", "Ignoring incoming call — already in a call");
-            return;
-        }
+    @Override
+    public void showIncomingCall(Call call) {
+        if (isFinishing() || isDestroyed()) return;
+
+        // Create the call engine while the user decides
+        CallEngineHolder.getInstance().prewarm(this);
+
+        // Close any existing incoming call dialog
+        dismissIncomingCall(currentIncomingCallId);
+
+        // Create a dialog for incoming call
+        BottomSheetDialog bottomSheet = new BottomSheetDialog(this);
+        currentIncomingCallDialog = bottomSheet;
+        currentIncomingCallId = call.getCallId();
+        View view = LayoutInflater.from(this).inflate(R.layout.dialog_incoming_call, null);
+        bottomSheet.setContentView(view);
+        bottomSheet.setCancelable(false); // Cannot dismiss by clicking outside
 
-        {
-            // Close any existing incoming call dialog
-            if (currentIncomingCallDialog != null && currentIncomingCallDialog.isShowing()) {
-                currentIncomingCallDialog.dismiss();
-                currentIncomingCallDialog = null;
-            }
-            
-            // Create a dialog for incoming call
-            BottomSheetDialog bottomSheet = new BottomSheetDialog(this);
-            currentIncomingCallDialog = bottomSheet;
-            View view = LayoutInflater.from(this).inflate(R.layout.dialog_incoming_call, null);
-            bottomSheet.setContentView(view);
-            bottomSheet.setCancelable(false); // Cannot dismiss by clicking outside
-        
         TextView tvCallerName = view.findViewById(R.id.tv_caller_name);
         TextView tvCallType = view.findViewById(R.id.tv_call_type);
         ImageView ivCallIcon = view.findViewById(R.id.iv_call_icon);
         Button btnAccept = view.findViewById(R.id.btn_accept);
         Button btnDecline = view.findViewById(R.id.btn_decline);
-        
+
         // Load caller name
         String callerId = call.getCallerId();
-        db.collection("users").document(callerId)
-            .get()
-            .addOnSuccessListener(doc -> {
-                String firstName = doc.getString("firstName");
-                String lastName = doc.getString("lastName");
-                String fullName = doc.getString("fullName");
-                String name = fullName != null ? fullName : 
-                    (firstName != null ? firstName + " " + (lastName != null ? lastName : "") : "Unknown");
-                tvCallerName.setText(name.trim());
-            });
-        
+        UserDirectory.getInstance().loadName(callerId, name ->
+                tvCallerName.setText(name != null ? name : "Unknown"));
+
         // Set call type and icon
         if (call.isVideoCall()) {
             tvCallType.setText("Incoming video call...");
@@ -546,9 +491,11 @@ public abstract class BaseDrawerActivity extends AppCompatActivity {
             tvCallType.setText("Incoming audio call...");
             ivCallIcon.setImageResource(R.drawable.ic_call_audio);
         }
-        
+
         btnAccept.setOnClickListener(v -> {
             bottomSheet.dismiss();
+            CallSetupMetrics.onTap();
+            CallSignalingHub.getInstance().onCallAnswered(call.getCallId());
             // Update call status to active when accepting
             callRepository.updateCallStatus(call.getCallId(), "active");
             Intent intent = new Intent(this, CallActivity.class);
@@ -560,58 +507,41 @@ public abstract class BaseDrawerActivity extends AppCompatActivity {
             intent.putExtra("isGroupCall", isGroupCall);
             startActivity(intent);
         });
-        
+
         btnDecline.setOnClickListener(v -> {
             bottomSheet.dismiss();
+            CallSignalingHub.getInstance().onCallDeclined(call.getCallId());
             // Mark call as missed
             callRepository.updateCallStatus(call.getCallId(), "missed");
         });
-        
-        // Dismiss dialog only on terminal states (ended/cancelled/missed) or document deletion.
-        // "active" means someone else in a group call answered — keep the dialog so this user can still join.
-        ListenerRegistration callStatusListener = callRepository.listenToCall(call.getCallId(), updatedCall -> {
-            runOnUiThread(() -> {
-                if (!bottomSheet.isShowing()) return;
-                if (updatedCall == null) {
-                    // Document deleted → call is fully over
-                    bottomSheet.dismiss();
-                    return;
-                }
-                String s = updatedCall.getStatus();
-                if ("ended".equals(s) || "cancelled".equals(s) || "missed".equals(s)) {
-                    bottomSheet.dismiss();
-                }
-                // "ringing" or "active" → keep dialog open
-            });
-        });
-        
-        // Remove listener when dialog is dismissed
+
         bottomSheet.setOnDismissListener(dialog -> {
-            if (callStatusListener != null) {
-                callStatusListener.remove();
+            // A newer dialog may already have replaced this one
+            if (currentIncomingCallDialog == bottomSheet) {
+                currentIncomingCallDialog = null;
+                currentIncomingCallId = null;
             }
-            currentIncomingCallDialog = null;
         });
-        
+
         bottomSheet.show();
+    }
+
+    @Override
+    public void dismissIncomingCall(String callId) {
+        if (callId == null || !callId.equals(currentIncomingCallId)) return;
+        if (currentIncomingCallDialog != null && currentIncomingCallDialog.isShowing()) {
+            currentIncomingCallDialog.dismiss();
         }
+        currentIncomingCallDialog = null;
+        currentIncomingCallId = null;
     }
 
     @Override
     protected void onDestroy() {
         super.onDestroy();
 
-        // Remove incoming call listener
-        if (incomingCallListener != null) {
-            incomingCallListener.remove();
-            incomingCallListener = null;
-        }
-
         // Dismiss any showing dialog
-        if (currentIncomingCallDialog != null && currentIncomingCallDialog.isShowing()) {
-            currentIncomingCallDialog.dismiss();
-            currentIncomingCallDialog = null;
-        }
+        dismissIncomingCall(currentIncomingCallId);
 
         // Remove notification badge listener
         if (notifBadgeListener != null) {
@@ -0,0 +1,230 @@
+package com.example.workconnect.utils;
+
+/**
+ * BlurHash (https://blurha.sh) encoder/decoder for chat image placeholders.
+ *
+ * An image is reduced to a few cosine components (colors in linear RGB) and stored as a
+ * short base 83 string on the message: 4x3 components fit in 28 characters. The bubble
+ * decodes it to a tiny blurred bitmap and shows it while the thumbnail downloads.
+ *
+ * Pixels are ARGB ints as returned by Bitmap.getPixels (alpha is ignored).
+ * Pure Java (no Android) so the encoder can be unit tested with sample images.
+ */
+public final class BlurHash {
+
+    private static final String CHARACTERS =
+            "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz#$%*+,-.:;=?@[]^_{|}~";
+
+    private BlurHash() {
+    }
+
+    /**
+     * Encode an image
+     * @param pixels ARGB pixels, row by row (width * height values)
+     * @param componentsX Horizontal components (1..9)
+     * @param componentsY Vertical components (1..9)
+     */
+    public static String encode(int[] pixels, int width, int height, int componentsX, int componentsY) {
+        if (componentsX < 1 || componentsX > 9 || componentsY < 1 || componentsY > 9) {
+            throw new IllegalArgumentException("Components must be between 1 and 9");
+        }
+        if (width < 1 || height < 1 || pixels == null || pixels.length < width * height) {
+            throw new IllegalArgumentException("Invalid image size");
+        }
+
+        // Linear RGB of every pixel, computed once for all components
+        double[] linear = new double[width * height * 3];
+        for (int i = 0; i < width * height; i++) {
+            int p = pixels[i];
+            linear[i * 3] = srgbToLinear((p >> 16) & 0xFF);
+            linear[i * 3 + 1] = srgbToLinear((p >> 8) & 0xFF);
+            linear[i * 3 + 2] = srgbToLinear(p & 0xFF);
+        }
+
+        double[][] factors = new double[componentsX * componentsY][];
+        for (int j = 0; j < componentsY; j++) {
+            for (int i = 0; i < componentsX; i++) {
+                factors[j * componentsX + i] = basisFactor(linear, width, height, i, j);
+            }
+        }
+
+        StringBuilder hash = new StringBuilder();
+        encode83((componentsX - 1) + (componentsY - 1) * 9, 1, hash);
+
+        double maximumValue;
+        if (factors.length > 1) {
+            double actualMaximum = 0;
+            for (int k = 1; k < factors.length; k++) {
+                for (double v : factors[k]) actualMaximum = Math.max(actualMaximum, Math.abs(v));
+            }
+            int quantisedMaximum = (int) Math.max(0, Math.min(82, Math.floor(actualMaximum * 166 - 0.5)));
+            maximumValue = (quantisedMaximum + 1) / 166.0;
+            encode83(quantisedMaximum, 1, hash);
+        } else {
+            maximumValue = 1;
+            encode83(0, 1, hash);
+        }
+
+        encode83(encodeDc(factors[0]), 4, hash);
+        for (int k = 1; k < factors.length; k++) {
+            encode83(encodeAc(factors[k], maximumValue), 2, hash);
+        }
+        return hash.toString();
+    }
+
+    /**
+     * Decode a hash into an opaque image
+     * @param punch Contrast of the result (1 = as encoded)
+     * @return ARGB pixels, row by row
+     * @throws IllegalArgumentException if the hash is malformed
+     */
+    public static int[] decode(String hash, int width, int height, double punch) {
+        if (!isValid(hash)) {
+            throw new IllegalArgumentException("Invalid BlurHash: " + hash);
+        }
+        if (width < 1 || height < 1) {
+            throw new IllegalArgumentException("Invalid image size");
+        }
+
+        int sizeFlag = decode83(hash, 0, 1);
+        int componentsX = sizeFlag % 9 + 1;
+        int componentsY = sizeFlag / 9 + 1;
+        double maximumValue = (decode83(hash, 1, 2) + 1) / 166.0 * punch;
+
+        double[][] colors = new double[componentsX * componentsY][];
+        colors[0] = decodeDc(decode83(hash, 2, 6));
+        for (int k = 1; k < colors.length; k++) {
+            colors[k] = decodeAc(decode83(hash, 4 + k * 2, 6 + k * 2), maximumValue);
+        }
+
+        // Cosines depend on a single axis: computed once per column / row
+        double[][] cosX = new double[componentsX][width];
+        for (int i = 0; i < componentsX; i++) {
+            for (int x = 0; x < width; x++) cosX[i][x] = Math.cos(Math.PI * x * i / width);
+        }
+        double[][] cosY = new double[componentsY][height];
+        for (int j = 0; j < componentsY; j++) {
+            for (int y = 0; y < height; y++) cosY[j][y] = Math.cos(Math.PI * y * j / height);
+        }
+
+        int[] pixels = new int[width * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                double r = 0, g = 0, b = 0;
+                for (int j = 0; j < componentsY; j++) {
+                    for (int i = 0; i < componentsX; i++) {
+                        double basis = cosX[i][x] * cosY[j][y];
+                        double[] color = colors[j * componentsX + i];
+                        r += color[0] * basis;
+                        g += color[1] * basis;
+                        b += color[2] * basis;
+                    }
+                }
+                pixels[y * width + x] = 0xFF000000
+                        | (linearToSrgb(r) << 16)
+                        | (linearToSrgb(g) << 8)
+                        | linearToSrgb(b);
+            }
+        }
+        return pixels;
+    }
+
+    /**
+     * Whether a string is a well-formed hash (length matching its component count, base 83 only)
+     */
+    public static boolean isValid(String hash) {
+        if (hash == null || hash.length() < 6) return false;
+        for (int i = 0; i < hash.length(); i++) {
+            if (CHARACTERS.indexOf(hash.charAt(i)) < 0) return false;
+        }
+        int sizeFlag = decode83(hash, 0, 1);
+        int components = (sizeFlag % 9 + 1) * (sizeFlag / 9 + 1);
+        return hash.length() == 4 + 2 * components;
+    }
+
+    private static double[] basisFactor(double[] linear, int width, int height, int i, int j) {
+        double r = 0, g = 0, b = 0;
+        for (int y = 0; y < height; y++) {
+            double cosY = Math.cos(Math.PI * j * y / height);
+            for (int x = 0; x < width; x++) {
+                double basis = Math.cos(Math.PI * i * x / width) * cosY;
+                int p = (y * width + x) * 3;
+                r += basis * linear[p];
+                g += basis * linear[p + 1];
+                b += basis * linear[p + 2];
+            }
+        }
+        double scale = (i == 0 && j == 0 ? 1.0 : 2.0) / (width * height);
+        return new double[]{r * scale, g * scale, b * scale};
+    }
+
+    private static int encodeDc(double[] color) {
+        return (linearToSrgb(color[0]) << 16) + (linearToSrgb(color[1]) << 8) + linearToSrgb(color[2]);
+    }
+
+    private static double[] decodeDc(int value) {
+        return new double[]{
+                srgbToLinear(value >> 16),
+                srgbToLinear((value >> 8) & 0xFF),
+                srgbToLinear(value & 0xFF)
+        };
+    }
+
+    private static int encodeAc(double[] color, double maximumValue) {
+        int r = quantiseAc(color[0] / maximumValue);
+        int g = quantiseAc(color[1] / maximumValue);
+        int b = quantiseAc(color[2] / maximumValue);
+        return r * 19 * 19 + g * 19 + b;
+    }
+
+    private static int quantiseAc(double value) {
+        return (int) Math.max(0, Math.min(18, Math.floor(signPow(value, 0.5) * 9 + 9.5)));
+    }
+
+    private static double[] decodeAc(int value, double maximumValue) {
+        int r = value / (19 * 19);
+        int g = (value / 19) % 19;
+        int b = value % 19;
+        return new double[]{
+                signPow((r - 9) / 9.0, 2.0) * maximumValue,
+                signPow((g - 9) / 9.0, 2.0) * maximumValue,
+                signPow((b - 9) / 9.0, 2.0) * maximumValue
+        };
+    }
+
+    private static double signPow(double value, double exp) {
+        return Math.copySign(Math.pow(Math.abs(value), exp), value);
+    }
+
+    private static double srgbToLinear(int value) {
+        double v = value / 255.0;
+        return v <= 0.04045 ? v / 12.92 : Math.pow((v + 0.055) / 1.055, 2.4);
+    }
+
+    private static int linearToSrgb(double value) {
+        double v = Math.max(0, Math.min(1, value));
+        double srgb = v <= 0.0031308 ? v * 12.92 : 1.055 * Math.pow(v, 1 / 2.4) - 0.055;
+        return (int) (srgb * 255 + 0.5);
+    }
+
+    private static void encode83(int value, int length, StringBuilder out) {
+        for (int i = 1; i <= length; i++) {
+            int digit = (value / pow83(length - i)) % 83;
+            out.append(CHARACTERS.charAt(digit));
+        }
+    }
+
+    private static int decode83(String hash, int start, int end) {
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            value = value * 83 + CHARACTERS.indexOf(hash.charAt(i));
+        }
+        return value;
+    }
+
+    private static int pow83(int exp) {
+        int result = 1;
+        for (int i = 0; i < exp; i++) result *= 83;
+        return result;
+    }
+}
@@ -0,0 +1,176 @@
+package com.example.workconnect.utils;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.example.workconnect.config.AgoraConfig;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+import io.agora.rtc2.IRtcEngineEventHandler;
+import io.agora.rtc2.RtcEngine;
+import io.agora.rtc2.RtcEngineConfig;
+
+/**
+ * Owns the Agora engine for the whole process.
+ *
+ * Creating the engine loads native libraries and sets up audio/video modules: hundreds of
+ * milliseconds that used to sit between tapping "call" and joining the channel. The engine
+ * is now created ahead of time, when a chat with call buttons opens ({@link #prewarm}),
+ * and kept across calls (including a minimized call reopened in a new CallActivity).
+ * It is only destroyed under memory pressure while no call uses it.
+ *
+ * Called on the main thread. Creating and destroying the engine both block, so they run
+ * one at a time on a background thread and the created engine is handed back on the main thread.
+ */
+public final class CallEngineHolder {
+
+    private static final String TAG = "CallEngineHolder";
+
+    private static CallEngineHolder instance;
+
+    // Serializes create and destroy: a create queued after a destroy sees it finished
+    private final ExecutorService engineExecutor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    private RtcEngine engine;
+    private boolean creating = false;
+    // Call screens currently receiving engine events
+    private final List<IRtcEngineEventHandler> handlers = new ArrayList<>();
+    // Call screens waiting for the engine being created
+    private final Map<IRtcEngineEventHandler, Consumer<RtcEngine>> waiting = new LinkedHashMap<>();
+
+    // Registered at creation: keeps engine errors in the logs while no call screen listens
+    private final IRtcEngineEventHandler baseHandler = new IRtcEngineEventHandler() {
+        @Override
+        public void onError(int err) {
+            Log.e(TAG, "Agora error: " + err);
+        }
+    };
+
+    private CallEngineHolder() {
+    }
+
+    public static CallEngineHolder getInstance() {
+        if (instance == null) {
+            instance = new CallEngineHolder();
+        }
+        return instance;
+    }
+
+    /**
+     * Start creating the engine in the background (the screen opening is not slowed down)
+     */
+    public void prewarm(Context context) {
+        if (engine != null) return;
+        createAsync(context.getApplicationContext());
+    }
+
+    /**
+     * Get the engine for a call, creating it if it was not pre-warmed
+     * @param handler Receives engine events until {@link #release}
+     * @param onReady Called on the main thread with the engine, null if it could not be created;
+     *                never called if the handler is released first
+     */
+    public void acquire(Context context, IRtcEngineEventHandler handler, Consumer<RtcEngine> onReady) {
+        if (engine != null) {
+            attach(handler);
+            onReady.accept(engine);
+            return;
+        }
+        waiting.put(handler, onReady);
+        createAsync(context.getApplicationContext());
+    }
+
+    /**
+     * A call screen no longer uses the engine (the engine itself is kept for the next call)
+     */
+    public void release(IRtcEngineEventHandler handler) {
+        waiting.remove(handler);
+        if (handlers.remove(handler) && engine != null) {
+            engine.removeHandler(handler);
+        }
+    }
+
+    /**
+     * Forwarded from the Application: frees the engine when memory runs low and no call is running
+     */
+    public void onTrimMemory(int level) {
+        // UI_HIDDEN only means the app went to the background
+        if (level == ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN) return;
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+            destroyIfUnused();
+        }
+    }
+
+    public void onLowMemory() {
+        destroyIfUnused();
+    }
+
+    private void createAsync(Context appContext) {
+        if (creating) return;
+        creating = true;
+        engineExecutor.execute(() -> {
+            long start = SystemClock.elapsedRealtime();
+            RtcEngine created = create(appContext);
+            long elapsedMs = SystemClock.elapsedRealtime() - start;
+            mainHandler.post(() -> onCreated(created, elapsedMs));
+        });
+    }
+
+    private void onCreated(RtcEngine created, long elapsedMs) {
+        creating = false;
+        engine = created;
+        if (created != null) {
+            Log.d(TAG, "Engine created in " + elapsedMs + "ms");
+        }
+
+        List<Map.Entry<IRtcEngineEventHandler, Consumer<RtcEngine>>> ready = new ArrayList<>(waiting.entrySet());
+        waiting.clear();
+        for (Map.Entry<IRtcEngineEventHandler, Consumer<RtcEngine>> e : ready) {
+            if (created != null) {
+                attach(e.getKey());
+            }
+            e.getValue().accept(created);
+        }
+    }
+
+    private void attach(IRtcEngineEventHandler handler) {
+        if (!handlers.contains(handler)) {
+            handlers.add(handler);
+            engine.addHandler(handler);
+        }
+    }
+
+    // Background thread
+    private RtcEngine create(Context appContext) {
+        try {
+            RtcEngineConfig config = new RtcEngineConfig();
+            config.mContext = appContext;
+            config.mAppId = AgoraConfig.APP_ID;
+            config.mEventHandler = baseHandler;
+            return RtcEngine.create(config);
+        } catch (Exception e) {
+            Log.e(TAG, "Failed to create Agora engine", e);
+            return null;
+        }
+    }
+
+    private void destroyIfUnused() {
+        // While a create is running, the engine is kept: someone may be waiting for it
+        if (engine == null || creating || !handlers.isEmpty()) return;
+        Log.d(TAG, "Releasing idle engine (memory pressure)");
+        engine = null;
+        engineExecutor.execute(RtcEngine::destroy);
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.workconnect.utils;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Call setup latency logging (logcat tag "CallSetup"), one {@link CallSetupTrace} per call.
+ *
+ * The tap happens before the call document (and its id) exists: it starts a pending
+ * trace that the first milestone reported for a call id adopts. Each milestone is logged
+ * as it happens, and the whole trace once the first remote frame arrives, or when the
+ * call screen closes before that.
+ *
+ * Main thread only.
+ */
+public final class CallSetupMetrics {
+
+    private static final String TAG = "CallSetup";
+
+    // A tap not followed by a call within this delay (permission denied, failure) is dropped
+    private static final long PENDING_TAP_TTL_MS = 30_000;
+
+    private static final CallSetupTrace.Clock CLOCK = SystemClock::elapsedRealtime;
+
+    private static CallSetupTrace pendingTap;
+    private static long pendingTapAt;
+    private static final Map<String, CallSetupTrace> traces = new HashMap<>();
+
+    private CallSetupMetrics() {
+    }
+
+    /**
+     * The user tapped "call" or "accept"
+     */
+    public static void onTap() {
+        pendingTap = new CallSetupTrace(CLOCK);
+        pendingTap.mark(CallSetupTrace.Milestone.TAP);
+        pendingTapAt = CLOCK.now();
+    }
+
+    /**
+     * A call reached a milestone (repeated milestones are ignored)
+     */
+    public static void mark(String callId, CallSetupTrace.Milestone milestone) {
+        if (callId == null) return;
+        CallSetupTrace trace = traces.get(callId);
+        if (trace == null) {
+            boolean tapIsRecent = pendingTap != null && CLOCK.now() - pendingTapAt <= PENDING_TAP_TTL_MS;
+            trace = tapIsRecent ? pendingTap : new CallSetupTrace(CLOCK);
+            pendingTap = null;
+            traces.put(callId, trace);
+        }
+        if (!trace.mark(milestone)) return;
+
+        Log.d(TAG, callId + ": " + milestone.label + " at +" + trace.sinceStart(milestone) + "ms");
+        if (trace.isComplete()) {
+            Log.i(TAG, "Call " + callId + " set up: " + trace.summary());
+            traces.remove(callId);
+        }
+    }
+
+    /**
+     * The call screen closed: report what was reached (e.g. a call nobody answered)
+     */
+    public static void finish(String callId) {
+        CallSetupTrace trace = callId != null ? traces.remove(callId) : null;
+        if (trace != null) {
+            Log.i(TAG, "Call " + callId + " closed before media: " + trace.summary());
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.workconnect.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Timestamps of one call's setup, from the tap on "call" (or "accept") to the first
+ * frame received from the other side. Milestones a side never reaches are skipped
+ * (the callee creates no call document and sees no remote ringing).
+ *
+ * Pure Java (no Android) so the report can be unit tested with a fake clock.
+ */
+public class CallSetupTrace {
+
+    public enum Milestone {
+        TAP("tap"),
+        CALL_CREATED("call doc created"),
+        ENGINE_READY("engine ready"),
+        REMOTE_RINGING("remote ringing"),
+        JOINED("joined channel"),
+        FIRST_REMOTE_FRAME("first remote frame");
+
+        final String label;
+
+        Milestone(String label) {
+            this.label = label;
+        }
+    }
+
+    public interface Clock {
+        long now();
+    }
+
+    private static final long NOT_REACHED = -1;
+
+    private final Clock clock;
+    private final long[] reachedAt = new long[Milestone.values().length];
+
+    public CallSetupTrace(Clock clock) {
+        this.clock = clock;
+        Arrays.fill(reachedAt, NOT_REACHED);
+    }
+
+    /**
+     * Record a milestone (only its first occurrence counts)
+     * @return Whether it was recorded now
+     */
+    public boolean mark(Milestone milestone) {
+        if (reachedAt[milestone.ordinal()] != NOT_REACHED) return false;
+        reachedAt[milestone.ordinal()] = clock.now();
+        return true;
+    }
+
+    public boolean isReached(Milestone milestone) {
+        return reachedAt[milestone.ordinal()] != NOT_REACHED;
+    }
+
+    /**
+     * Time from the first recorded milestone to this one, -1 if not reached
+     */
+    public long sinceStart(Milestone milestone) {
+        long at = reachedAt[milestone.ordinal()];
+        if (at == NOT_REACHED) return NOT_REACHED;
+        return at - reachedAt[first().ordinal()];
+    }
+
+    /**
+     * Whether the other side is heard or seen (setup is over)
+     */
+    public boolean isComplete() {
+        return isReached(Milestone.FIRST_REMOTE_FRAME);
+    }
+
+    /**
+     * One line per trace: each reached milestone with the time since the previous one,
+     * in the order they were reached, e.g.
+     * "tap → call doc created +180ms → engine ready +40ms → ... (total 1540ms)"
+     */
+    public String summary() {
+        List<Milestone> reached = new ArrayList<>();
+        for (Milestone m : Milestone.values()) {
+            if (isReached(m)) reached.add(m);
+        }
+        if (reached.isEmpty()) return "no milestone";
+        reached.sort((a, b) -> Long.compare(reachedAt[a.ordinal()], reachedAt[b.ordinal()]));
+
+        StringBuilder out = new StringBuilder(reached.get(0).label);
+        for (int i = 1; i < reached.size(); i++) {
+            long delta = reachedAt[reached.get(i).ordinal()] - reachedAt[reached.get(i - 1).ordinal()];
+            out.append(" → ").append(reached.get(i).label)
+                    .append(String.format(Locale.US, " +%dms", delta));
+        }
+        long total = reachedAt[reached.get(reached.size() - 1).ordinal()] - reachedAt[reached.get(0).ordinal()];
+        out.append(String.format(Locale.US, " (total %dms)", total));
+        return out.toString();
+    }
+
+    private Milestone first() {
+        Milestone first = null;
+        for (Milestone m : Milestone.values()) {
+            if (!isReached(m)) continue;
+            if (first == null || reachedAt[m.ordinal()] < reachedAt[first.ordinal()]) first = m;
+        }
+        return first;
+    }
+}
@@ -3,8 +3,13 @@ package com.example.workconnect.utils;
 import com.example.workconnect.models.ChatItem;
 import com.example.workconnect.models.ChatMessage;
 
+import com.google.firebase.Timestamp;
+
 import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Utility class for chat-related operations
@@ -61,4 +66,85 @@ public class ChatUtils {
         
         return items;
     }
+
+    /**
+     * Check whether a user's read cursor covers a message
+     * A cursor is the sentAt of the newest message the user has read, so every message
+     * sent at or before it counts as read.
+     *
+     * @param readCursors Map of userId -> read cursor (can be null)
+     * @param userId The user to check
+     * @param sentAt When the message was sent
+     * @return true if the user has read up to (or past) this message
+     */
+    public static boolean isReadByCursor(Map<String, Date> readCursors, String userId, Date sentAt) {
+        if (readCursors == null || userId == null || sentAt == null) return false;
+        Date cursor = readCursors.get(userId);
+        return cursor != null && !cursor.before(sentAt);
+    }
+
+    /**
+     * Get the recipients who have read a message
+     * Uses the members' read cursors, plus the legacy per-message readBy list for older messages
+     *
+     * @param message The message
+     * @param participantIds All conversation participants (sender is excluded)
+     * @param readCursors Map of userId -> read cursor (can be null)
+     * @return List of user IDs who have read the message, empty if none
+     */
+    public static List<String> getReaders(ChatMessage message, List<String> participantIds,
+                                          Map<String, Date> readCursors) {
+        List<String> readers = new ArrayList<>();
+        if (message == null || participantIds == null) return readers;
+
+        for (String uid : participantIds) {
+            if (uid == null || uid.equals(message.getSenderId())) continue;
+            if (isReadByCursor(readCursors, uid, message.getSentAt()) || message.isReadBy(uid)) {
+                readers.add(uid);
+            }
+        }
+        return readers;
+    }
+
+    /**
+     * Convert the raw "lastReadAt" map of a conversation document into read cursors
+     * Firestore returns nested dates as Timestamp, local writes may still hold Date
+     *
+     * @param raw Value of the "lastReadAt" field (can be null)
+     * @return Map of userId -> read cursor, empty if raw is null or not a map
+     */
+    public static Map<String, Date> toReadCursors(Object raw) {
+        Map<String, Date> cursors = new HashMap<>();
+        if (!(raw instanceof Map)) return cursors;
+
+        for (Map.Entry<?, ?> entry : ((Map<?, ?>) raw).entrySet()) {
+            Object value = entry.getValue();
+            Date date = null;
+            if (value instanceof Timestamp) {
+                date = ((Timestamp) value).toDate();
+            } else if (value instanceof Date) {
+                date = (Date) value;
+            }
+            if (entry.getKey() != null && date != null) {
+                cursors.put(entry.getKey().toString(), date);
+            }
+        }
+        return cursors;
+    }
+
+    /**
+     * Combine two sets of read cursors, keeping the newest cursor of each user
+     *
+     * @return New map of userId -> newest read cursor
+     */
+    public static Map<String, Date> mergeReadCursors(Map<String, Date> a, Map<String, Date> b) {
+        Map<String, Date> merged = new HashMap<>(a);
+        for (Map.Entry<String, Date> entry : b.entrySet()) {
+            Date current = merged.get(entry.getKey());
+            if (current == null || entry.getValue().after(current)) {
+                merged.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return merged;
+    }
 }
@@ -1,95 +1,190 @@
 package com.example.workconnect.utils;
 
-import java.text.SimpleDateFormat;
-import java.util.Calendar;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
 import java.util.Date;
 import java.util.Locale;
+import java.util.TimeZone;
 
+/**
+ * Date formatting for chat screens.
+ *
+ * Thread-safe: formatters are immutable java.time DateTimeFormatters and the caches are
+ * replaced wholesale, never mutated in a way readers can observe half-done, so it can be
+ * used from AsyncListDiffer's background thread or any precompute thread.
+ *
+ * Binding is allocation-free after warm-up: "HH:mm" strings are cached per minute of the
+ * day and separator labels ("Today", "Yesterday", dd/MM/yyyy) per epoch day. The label
+ * cache is rebuilt when the local date changes; call {@link #onTimeZoneChanged()} when the
+ * device time zone or locale changes.
+ */
 public class DateHelper {
-    
-    private static final SimpleDateFormat TIME_FORMAT = new SimpleDateFormat("HH:mm", Locale.getDefault());
-    private static final SimpleDateFormat DATE_FORMAT = new SimpleDateFormat("dd/MM/yyyy", Locale.getDefault());
-    private static final SimpleDateFormat FULL_FORMAT = new SimpleDateFormat("dd/MM/yyyy HH:mm", Locale.getDefault());
-    
+
+    private static final long MINUTE_MS = 60L * 1000;
+    private static final long DAY_MS = 24L * 60 * MINUTE_MS;
+    private static final int MINUTES_PER_DAY = 24 * 60;
+    private static final int DAY_LABEL_SLOTS = 64;
+
+    private static volatile Formats formats = new Formats();
+    private static volatile DayLabels dayLabels = new DayLabels(todayKey(formats));
+
     /**
      * Format the time as HH:mm
      */
     public static String formatTime(Date date) {
         if (date == null) return "";
-        return TIME_FORMAT.format(date);
+        Formats f = formats;
+        long millis = date.getTime();
+        long local = millis + f.timeZone.getOffset(millis);
+        int minuteOfDay = (int) Math.floorMod(Math.floorDiv(local, MINUTE_MS), (long) MINUTES_PER_DAY);
+
+        String cached = f.timeOfDay[minuteOfDay];
+        if (cached == null) {
+            // Benign race: two threads may format the same minute, both store an equal immutable String
+            cached = String.format(f.locale, "%02d:%02d", minuteOfDay / 60, minuteOfDay % 60);
+            f.timeOfDay[minuteOfDay] = cached;
+        }
+        return cached;
     }
-    
+
     /**
      * Format the date as dd/MM/yyyy
      */
     public static String formatDate(Date date) {
         if (date == null) return "";
-        return DATE_FORMAT.format(date);
+        Formats f = formats;
+        return f.date.format(Instant.ofEpochMilli(date.getTime()).atZone(f.zoneId));
     }
-    
+
     /**
      * Format the full date and time as dd/MM/yyyy HH:mm
      */
     public static String formatFullDateTime(Date date) {
         if (date == null) return "";
-        return FULL_FORMAT.format(date);
+        Formats f = formats;
+        return f.full.format(Instant.ofEpochMilli(date.getTime()).atZone(f.zoneId));
     }
-    
+
     /**
      * Check if a date is today
      */
     public static boolean isToday(Date date) {
         if (date == null) return false;
-        Calendar today = Calendar.getInstance();
-        Calendar dateCal = Calendar.getInstance();
-        dateCal.setTime(date);
-        
-        return today.get(Calendar.YEAR) == dateCal.get(Calendar.YEAR) &&
-               today.get(Calendar.DAY_OF_YEAR) == dateCal.get(Calendar.DAY_OF_YEAR);
+        return toEpochDay(date.getTime()) == todayKey(formats);
     }
-    
+
     /**
      * Check if a date is yesterday
      */
     public static boolean isYesterday(Date date) {
         if (date == null) return false;
-        Calendar yesterday = Calendar.getInstance();
-        yesterday.add(Calendar.DAY_OF_YEAR, -1);
-        Calendar dateCal = Calendar.getInstance();
-        dateCal.setTime(date);
-        
-        return yesterday.get(Calendar.YEAR) == dateCal.get(Calendar.YEAR) &&
-               yesterday.get(Calendar.DAY_OF_YEAR) == dateCal.get(Calendar.DAY_OF_YEAR);
+        return toEpochDay(date.getTime()) == todayKey(formats) - 1;
     }
-    
+
     /**
      * Get a formatted date separator string for messages
      * Returns "Today", "Yesterday", or the formatted date
      */
     public static String getDateSeparatorText(Date date) {
         if (date == null) return "";
-        
-        if (isToday(date)) {
-            return "Today";
-        } else if (isYesterday(date)) {
-            return "Yesterday";
+        return getDateSeparatorText(toEpochDay(date.getTime()));
+    }
+
+    /**
+     * Separator label of a local epoch day (see {@link #toEpochDay(long)}), cached per day
+     */
+    public static String getDateSeparatorText(long epochDay) {
+        DayLabels labels = currentDayLabels();
+        int slot = (int) Math.floorMod(epochDay, (long) DAY_LABEL_SLOTS);
+        DayLabel cached = labels.slots[slot];
+        if (cached != null && cached.epochDay == epochDay) {
+            return cached.label;
+        }
+
+        String label;
+        if (epochDay == labels.today) {
+            label = "Today";
+        } else if (epochDay == labels.today - 1) {
+            label = "Yesterday";
         } else {
-            return formatDate(date);
+            label = formats.date.format(LocalDate.ofEpochDay(epochDay));
         }
+        labels.slots[slot] = new DayLabel(epochDay, label);
+        return label;
     }
-    
+
     /**
      * Check if two dates are on different days
      */
     public static boolean isDifferentDay(Date date1, Date date2) {
         if (date1 == null || date2 == null) return true;
-        
-        Calendar cal1 = Calendar.getInstance();
-        cal1.setTime(date1);
-        Calendar cal2 = Calendar.getInstance();
-        cal2.setTime(date2);
-        
-        return cal1.get(Calendar.YEAR) != cal2.get(Calendar.YEAR) ||
-               cal1.get(Calendar.DAY_OF_YEAR) != cal2.get(Calendar.DAY_OF_YEAR);
+        return toEpochDay(date1.getTime()) != toEpochDay(date2.getTime());
+    }
+
+    /**
+     * Local calendar day of an instant as a day count since 1970-01-01.
+     * Two instants are on the same day iff their keys are equal; no Calendar is allocated.
+     */
+    public static long toEpochDay(long millis) {
+        Formats f = formats;
+        long local = millis + f.timeZone.getOffset(millis);
+        return Math.floorDiv(local, DAY_MS);
+    }
+
+    /**
+     * Drop every cached string after the device time zone or locale changed
+     */
+    public static void onTimeZoneChanged() {
+        Formats f = new Formats();
+        formats = f;
+        dayLabels = new DayLabels(todayKey(f));
+    }
+
+    // "Today"/"Yesterday" move at midnight: start a fresh label cache on a new day
+    private static DayLabels currentDayLabels() {
+        DayLabels labels = dayLabels;
+        long today = todayKey(formats);
+        if (labels.today != today) {
+            labels = new DayLabels(today);
+            dayLabels = labels;
+        }
+        return labels;
+    }
+
+    private static long todayKey(Formats f) {
+        long now = System.currentTimeMillis();
+        return Math.floorDiv(now + f.timeZone.getOffset(now), DAY_MS);
+    }
+
+    // Zone/locale dependent state, replaced as a whole
+    private static class Formats {
+        final Locale locale = Locale.getDefault();
+        // Private copy: TimeZone.getDefault() returns a new clone on every call
+        final TimeZone timeZone = TimeZone.getDefault();
+        final ZoneId zoneId = timeZone.toZoneId();
+        final DateTimeFormatter date = DateTimeFormatter.ofPattern("dd/MM/yyyy", locale);
+        final DateTimeFormatter full = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm", locale);
+        final String[] timeOfDay = new String[MINUTES_PER_DAY];
+    }
+
+    private static class DayLabels {
+        final long today;
+        final DayLabel[] slots = new DayLabel[DAY_LABEL_SLOTS];
+
+        DayLabels(long today) {
+            this.today = today;
+        }
+    }
+
+    private static class DayLabel {
+        final long epochDay;
+        final String label;
+
+        DayLabel(long epochDay, String label) {
+            this.epochDay = epochDay;
+            this.label = label;
+        }
     }
 }
@@ -0,0 +1,237 @@
+package com.example.workconnect.utils;
+
+import com.example.workconnect.models.User;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Immutable prefix index over employees' first name, last name and email.
+ *
+ * Every word of those fields is normalized (lower case, accents removed) and stored in one
+ * sorted token array, so the employees matching a prefix are a contiguous range found by
+ * binary search. A query matches an employee when every query word is a prefix of one of
+ * their words; results are ranked (exact word before prefix, name before email) and then
+ * by display name.
+ *
+ * Thread-safe once built: build it in the background, query it from any thread.
+ */
+public class EmployeeSearchIndex {
+
+    private static final int FIELD_FIRST_NAME = 0;
+    private static final int FIELD_LAST_NAME = 1;
+    private static final int FIELD_OTHER_NAME = 2;
+    private static final int FIELD_EMAIL = 3;
+    private static final int FIELD_BITS = 2;
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern WORD_SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}@]+");
+    private static final Pattern EMAIL_SEPARATORS = Pattern.compile("[._+\\-@]+");
+
+    // Sorted by display name: the tie-breaker for equally ranked matches
+    private final List<User> users;
+    // Sorted tokens and, at the same index, (user index << FIELD_BITS) | field
+    private final String[] tokens;
+    private final int[] postings;
+
+    private EmployeeSearchIndex(List<User> users, String[] tokens, int[] postings) {
+        this.users = users;
+        this.tokens = tokens;
+        this.postings = postings;
+    }
+
+    public static EmployeeSearchIndex build(Collection<User> source) {
+        List<User> users = new ArrayList<>(source);
+        List<String> names = new ArrayList<>(users.size());
+        for (User u : users) {
+            names.add(normalize(UserUtils.getDisplayName(u, u.getEmail() != null ? u.getEmail() : "")));
+        }
+        Integer[] order = new Integer[users.size()];
+        for (int i = 0; i < order.length; i++) order[i] = i;
+        Arrays.sort(order, Comparator.comparing(names::get));
+        List<User> sorted = new ArrayList<>(users.size());
+        for (Integer i : order) sorted.add(users.get(i));
+
+        List<Posting> entries = new ArrayList<>(sorted.size() * 4);
+        for (int i = 0; i < sorted.size(); i++) {
+            User u = sorted.get(i);
+            int before = entries.size();
+            addWords(entries, before, u.getFirstName(), i, FIELD_FIRST_NAME);
+            addWords(entries, before, u.getLastName(), i, FIELD_LAST_NAME);
+            if (entries.size() == before) {
+                // No first/last name stored: index the full name instead
+                addWords(entries, before, u.getFullName(), i, FIELD_OTHER_NAME);
+            }
+            String email = normalize(u.getEmail());
+            if (!email.isEmpty()) {
+                // Whole address (queries containing '@'), then its parts
+                addToken(entries, before, email, i, FIELD_EMAIL);
+                for (String part : EMAIL_SEPARATORS.split(email)) {
+                    addToken(entries, before, part, i, FIELD_EMAIL);
+                }
+            }
+        }
+        Collections.sort(entries, (a, b) -> a.token.compareTo(b.token));
+
+        String[] tokens = new String[entries.size()];
+        int[] postings = new int[entries.size()];
+        for (int i = 0; i < tokens.length; i++) {
+            Posting p = entries.get(i);
+            tokens[i] = p.token;
+            postings[i] = (p.user << FIELD_BITS) | p.field;
+        }
+        return new EmployeeSearchIndex(Collections.unmodifiableList(sorted), tokens, postings);
+    }
+
+    /**
+     * All employees, sorted by display name
+     */
+    public List<User> getUsers() {
+        return users;
+    }
+
+    public int size() {
+        return users.size();
+    }
+
+    /**
+     * @param query Free text: words are matched as prefixes, a word containing '@' against whole emails
+     * @param limit Maximum number of results
+     * @return Matching employees, best match first (all employees for an empty query)
+     */
+    public List<User> search(String query, int limit) {
+        String[] terms = splitQuery(query);
+        if (terms.length == 0) {
+            return users.size() <= limit ? users : users.subList(0, limit);
+        }
+
+        int n = users.size();
+        int[] matchedTerms = new int[n];
+        int[] termScore = new int[n];
+        int[] score = new int[n];
+        int[] candidates = new int[n];
+        int candidateCount = 0;
+
+        for (int t = 0; t < terms.length; t++) {
+            String term = terms[t];
+            for (int i = lowerBound(term); i < tokens.length && tokens[i].startsWith(term); i++) {
+                int user = postings[i] >>> FIELD_BITS;
+                // Every earlier term must have matched this user already
+                if (matchedTerms[user] < t) continue;
+
+                int s = rank(tokens[i].length() == term.length(), postings[i] & ((1 << FIELD_BITS) - 1));
+                if (matchedTerms[user] == t) {
+                    matchedTerms[user] = t + 1;
+                    termScore[user] = s;
+                    score[user] += s;
+                    if (t == 0) candidates[candidateCount++] = user;
+                } else if (s > termScore[user]) {
+                    // Same term hit another word of this user: keep the best one
+                    score[user] += s - termScore[user];
+                    termScore[user] = s;
+                }
+            }
+        }
+
+        // Sort key: higher score first, then user index (display name order)
+        long[] hits = new long[candidateCount];
+        int hitCount = 0;
+        for (int c = 0; c < candidateCount; c++) {
+            int user = candidates[c];
+            if (matchedTerms[user] == terms.length) {
+                hits[hitCount++] = ((long) -score[user] << 32) | user;
+            }
+        }
+        Arrays.sort(hits, 0, hitCount);
+
+        List<User> out = new ArrayList<>(Math.min(limit, hitCount));
+        for (int i = 0; i < hitCount && i < limit; i++) {
+            out.add(users.get((int) hits[i]));
+        }
+        return out;
+    }
+
+    /**
+     * Lower case, accents removed, trimmed ("Élodie " -> "elodie")
+     */
+    static String normalize(String s) {
+        if (s == null) return "";
+        String stripped = MARKS.matcher(Normalizer.normalize(s, Normalizer.Form.NFD)).replaceAll("");
+        return stripped.toLowerCase(Locale.ROOT).trim();
+    }
+
+    private static String[] splitQuery(String query) {
+        String q = normalize(query);
+        if (q.isEmpty()) return new String[0];
+        List<String> terms = new ArrayList<>();
+        for (String word : q.split("\\s+")) {
+            if (word.contains("@")) {
+                terms.add(word);
+            } else {
+                for (String part : WORD_SEPARATORS.split(word)) {
+                    if (!part.isEmpty()) terms.add(part);
+                }
+            }
+        }
+        return terms.toArray(new String[0]);
+    }
+
+    // Exact word beats prefix; first name beats last name beats email
+    private static int rank(boolean exact, int field) {
+        int fieldRank;
+        switch (field) {
+            case FIELD_FIRST_NAME: fieldRank = 3; break;
+            case FIELD_LAST_NAME:
+            case FIELD_OTHER_NAME: fieldRank = 2; break;
+            default: fieldRank = 1;
+        }
+        return (exact ? 4 : 0) + fieldRank;
+    }
+
+    private int lowerBound(String key) {
+        int lo = 0;
+        int hi = tokens.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (tokens[mid].compareTo(key) < 0) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    private static void addWords(List<Posting> entries, int userStart, String text, int user, int field) {
+        String normalized = normalize(text);
+        if (normalized.isEmpty()) return;
+        for (String word : WORD_SEPARATORS.split(normalized)) {
+            addToken(entries, userStart, word, user, field);
+        }
+    }
+
+    // One posting per distinct token of a user (the first, best-ranked field wins)
+    private static void addToken(List<Posting> entries, int userStart, String token, int user, int field) {
+        if (token.isEmpty()) return;
+        for (int i = userStart; i < entries.size(); i++) {
+            if (entries.get(i).token.equals(token)) return;
+        }
+        entries.add(new Posting(token, user, field));
+    }
+
+    private static class Posting {
+        final String token;
+        final int user;
+        final int field;
+
+        Posting(String token, int user, int field) {
+            this.token = token;
+            this.user = user;
+            this.field = field;
+        }
+    }
+}
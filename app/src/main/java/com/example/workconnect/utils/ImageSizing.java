@@ -0,0 +1,64 @@
+package com.example.workconnect.utils;
+
+/**
+ * Size arithmetic of the chat image pipeline: how much to subsample when decoding,
+ * what to re-encode to, and how large a bubble draws an image.
+ *
+ * Pure Java (no Android) so the numbers can be unit tested.
+ */
+public final class ImageSizing {
+
+    private ImageSizing() {
+    }
+
+    /**
+     * Largest power of two (BitmapFactory.Options.inSampleSize) that still decodes the image
+     * with its long edge at least maxEdge, so the exact scaling after decoding only shrinks
+     * @return 1 if the image is already no larger than maxEdge
+     */
+    public static int sampleSize(int width, int height, int maxEdge) {
+        int longEdge = Math.max(width, height);
+        int sample = 1;
+        while (maxEdge > 0 && longEdge / (sample * 2) >= maxEdge) {
+            sample *= 2;
+        }
+        return sample;
+    }
+
+    /**
+     * Scale a size down to fit a box, keeping its aspect ratio (never scales up)
+     * @return {width, height}, each at least 1
+     */
+    public static int[] fit(int width, int height, int maxWidth, int maxHeight) {
+        if (width <= 0 || height <= 0) return new int[]{Math.max(1, maxWidth), Math.max(1, maxHeight)};
+        double scale = Math.min(1.0, Math.min((double) maxWidth / width, (double) maxHeight / height));
+        return new int[]{
+                Math.max(1, (int) Math.round(width * scale)),
+                Math.max(1, (int) Math.round(height * scale))
+        };
+    }
+
+    /**
+     * Scale a size down so its long edge is at most maxEdge
+     */
+    public static int[] fit(int width, int height, int maxEdge) {
+        return fit(width, height, maxEdge, maxEdge);
+    }
+
+    /**
+     * Size of an image bubble: the image scaled to the largest size within maxWidth x maxHeight
+     * (small images are scaled up too), each edge kept at least minEdge so panoramas stay
+     * tappable (the view crops what does not fit)
+     * @return {width, height}, or a maxWidth x maxWidth square if the image size is unknown
+     */
+    public static int[] bubbleSize(int imageWidth, int imageHeight, int maxWidth, int maxHeight, int minEdge) {
+        if (imageWidth <= 0 || imageHeight <= 0) return new int[]{maxWidth, maxWidth};
+        double scale = Math.min((double) maxWidth / imageWidth, (double) maxHeight / imageHeight);
+        int width = (int) Math.round(imageWidth * scale);
+        int height = (int) Math.round(imageHeight * scale);
+        return new int[]{
+                Math.min(maxWidth, Math.max(minEdge, width)),
+                Math.min(maxHeight, Math.max(minEdge, height))
+        };
+    }
+}
@@ -1,49 +1,67 @@
 package com.example.workconnect.utils;
 
+import android.util.Log;
+
 import com.example.workconnect.models.ChatMessage;
+import com.example.workconnect.repository.chat.ConversationInbox;
+import com.example.workconnect.repository.chat.MessageRepository;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.FieldValue;
 import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.WriteBatch;
 
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Writes system messages (members added / removed / left, calls) together with what a sent
+ * message updates: the conversation's last message and every member's inbox entry
+ * (preview and unread count, see {@link ConversationInbox}).
+ */
 public class SystemMessageHelper {
 
+    private static final String TAG = "SystemMessageHelper";
+
+    // Firestore limit of writes per batch
+    private static final int MAX_BATCH_OPS = 500;
+
     private static final FirebaseFirestore db = FirebaseFirestore.getInstance();
 
-    public static void createSystemMessage(
+    // Documents read and written since the process started (reads-per-message load test)
+    public static final AtomicLong documentReads = new AtomicLong();
+    public static final AtomicLong documentWrites = new AtomicLong();
+
+    public static Task<Void> createSystemMessage(
             String conversationId,
             ChatMessage.SystemMessageType systemType,
             String systemUserId,
             String text) {
-        createSystemMessage(conversationId, systemType, systemUserId, null, text);
+        return createSystemMessage(conversationId, systemType, systemUserId, null, text);
     }
-    
-    public static void createSystemMessage(
+
+    /**
+     * @return Task completing once the message and the inbox fan-out are written
+     */
+    public static Task<Void> createSystemMessage(
             String conversationId,
             ChatMessage.SystemMessageType systemType,
             String systemUserId,
             String actorUserId,
             String text) {
 
-        ChatMessage systemMsg = new ChatMessage();
-        systemMsg.setConversationId(conversationId);
-        systemMsg.setSenderId("system"); // System messages don't have a real sender
-        systemMsg.setText(text);
-        systemMsg.setSentAt(new Date());
-        systemMsg.setRead(false);
-        systemMsg.setReadAt(null);
-        systemMsg.setStatus(ChatMessage.MessageStatus.SENT);
-        systemMsg.setMessageType(ChatMessage.MessageType.SYSTEM);
-        systemMsg.setSystemType(systemType);
-        systemMsg.setSystemUserId(systemUserId);
-        systemMsg.setSystemActorId(actorUserId);
+        Date sentAt = new Date();
 
         Map<String, Object> messageData = new HashMap<>();
         messageData.put("conversationId", conversationId);
         messageData.put("senderId", "system");
         messageData.put("text", text);
-        messageData.put("sentAt", new Date());
+        messageData.put("sentAt", sentAt);
         messageData.put("isRead", false);
         messageData.put("readAt", null);
         messageData.put("status", "SENT");
@@ -53,11 +71,149 @@ public class SystemMessageHelper {
         if (actorUserId != null) {
             messageData.put("systemActorId", actorUserId);
         }
-        messageData.put("readBy", new java.util.ArrayList<String>());
+        messageData.put("readBy", new ArrayList<String>());
+        messageData.put("version", 1L);
+        messageData.put("updatedAt", FieldValue.serverTimestamp());
+
+        // A new member's inbox entry also gets the conversation summary (type, title) so the
+        // chat shows up in their list: that needs the conversation document
+        boolean addsMember = systemType == ChatMessage.SystemMessageType.USER_ADDED
+                || systemType == ChatMessage.SystemMessageType.USER_JOINED;
+        List<String> cached = MessageRepository.getCachedParticipants(conversationId);
+        if (cached != null && !addsMember) {
+            return write(conversationId, messageData, cached, null, null,
+                    systemType, systemUserId, actorUserId, text, sentAt);
+        }
 
-        db.collection("conversations")
+        return db.collection("conversations")
                 .document(conversationId)
-                .collection("messages")
-                .add(messageData);
+                .get()
+                .continueWithTask(read -> {
+                    Map<String, Object> conversation = read.isSuccessful() && read.getResult() != null
+                            ? read.getResult().getData() : null;
+                    if (conversation == null) {
+                        // Offline or gone: still write the message, the fan-out needs the members
+                        Log.w(TAG, "Conversation " + conversationId + " not read, writing the message only",
+                                read.getException());
+                        return write(conversationId, messageData, null, null, null,
+                                systemType, systemUserId, actorUserId, text, sentAt);
+                    }
+                    documentReads.incrementAndGet();
+                    List<String> members = participantsOf(conversation);
+                    MessageRepository.cacheParticipants(conversationId, members);
+                    return write(conversationId, messageData, members, conversation,
+                            addsMember ? systemUserId : null,
+                            systemType, systemUserId, actorUserId, text, sentAt);
+                })
+                .addOnFailureListener(e -> Log.e(TAG, "Failed to write system message in " + conversationId, e));
+    }
+
+    /**
+     * One batch holding the message, the conversation's last message and the members' inbox
+     * entries; large groups spill their remaining inbox entries into further batches
+     * @param members Participants of the conversation, null to write the message only
+     * @param conversation Conversation fields, null if not read
+     * @param addedUid Member whose entry gets the conversation summary, null for none
+     */
+    private static Task<Void> write(String conversationId, Map<String, Object> messageData,
+                                    List<String> members, Map<String, Object> conversation, String addedUid,
+                                    ChatMessage.SystemMessageType systemType, String systemUserId,
+                                    String actorUserId, String text, Date sentAt) {
+        DocumentReference convRef = db.collection("conversations").document(conversationId);
+        if (members == null) {
+            return convRef.collection("messages").document().set(messageData)
+                    .addOnSuccessListener(v -> documentWrites.incrementAndGet());
+        }
+
+        String previewSenderId = previewSenderId(systemType, systemUserId, actorUserId);
+        String preview = previewText(systemType, actorUserId, text);
+
+        Map<String, Object> convUpdates = new HashMap<>();
+        convUpdates.put("lastMessageText", preview);
+        convUpdates.put("lastMessageAt", sentAt);
+        convUpdates.put("lastMessageSenderId", previewSenderId);
+
+        List<WriteBatch> batches = new ArrayList<>();
+        WriteBatch batch = db.batch();
+        batch.set(convRef.collection("messages").document(), messageData);
+        batch.update(convRef, convUpdates);
+        batches.add(batch);
+        int ops = 2;
+
+        boolean withSummary = conversation != null && addedUid != null && members.contains(addedUid);
+        if (withSummary) {
+            ConversationInbox.putSummary(batch, addedUid, conversationId, conversation);
+            ops++;
+        }
+
+        // The member the preview names "sent" the message: their count is reset, everyone else's goes up
+        int start = 0;
+        while (start < members.size()) {
+            int end = Math.min(start + MAX_BATCH_OPS - ops, members.size());
+            ConversationInbox.putMessagesSent(batch, conversationId, members.subList(start, end),
+                    previewSenderId, 1, preview, sentAt);
+            start = end;
+            if (start < members.size()) {
+                batch = db.batch();
+                batches.add(batch);
+                ops = 0;
+            }
+        }
+
+        List<Task<Void>> commits = new ArrayList<>();
+        for (WriteBatch b : batches) {
+            commits.add(b.commit());
+        }
+        int writes = 2 + members.size() + (withSummary ? 1 : 0);
+        return Tasks.whenAll(commits)
+                .addOnSuccessListener(v -> documentWrites.addAndGet(writes));
+    }
+
+    // Who the chat list prefixes the preview with ("Alice: added a member"), null for no prefix
+    private static String previewSenderId(ChatMessage.SystemMessageType systemType,
+                                          String systemUserId, String actorUserId) {
+        if (actorUserId != null) return actorUserId;
+        switch (systemType) {
+            case USER_LEFT:
+            case USER_JOINED:
+            case GROUP_OPENED:
+                return systemUserId;
+            default:
+                return null;
+        }
+    }
+
+    // Chat list preview: member names are not known here, the prefix names the actor
+    private static String previewText(ChatMessage.SystemMessageType systemType, String actorUserId, String text) {
+        if (text != null && !text.isEmpty()) return text;
+        switch (systemType) {
+            case USER_ADDED:
+                return actorUserId != null ? "added a member" : "A member was added";
+            case USER_REMOVED:
+                return actorUserId != null ? "removed a member" : "A member was removed";
+            case USER_LEFT:
+                return "left the group";
+            case USER_JOINED:
+                return "joined the group";
+            case GROUP_OPENED:
+                return "opened this group";
+            case CALL_MISSED:
+                return "Missed call";
+            case CALL_ENDED:
+                return "Call ended";
+            default:
+                return "System message";
+        }
+    }
+
+    private static List<String> participantsOf(Map<String, Object> conversation) {
+        List<String> out = new ArrayList<>();
+        Object ids = conversation.get("participantIds");
+        if (ids instanceof List) {
+            for (Object id : (List<?>) ids) {
+                if (id instanceof String) out.add((String) id);
+            }
+        }
+        return out;
     }
 }
@@ -0,0 +1,67 @@
+package com.example.workconnect.utils;
+
+/**
+ * Decides when the local "is typing" state has to be written.
+ *
+ * Leading-edge throttle: the first keystroke publishes immediately, further keystrokes
+ * only publish a heartbeat once heartbeatMs has passed since the last write.
+ * Readers expire a typist whose heartbeat is older than their TTL, so going idle needs
+ * no write at all; an explicit stop is only written while the last heartbeat is still live.
+ *
+ * Pure Java (no Android/Firebase) so the write count can be unit tested with a fake clock.
+ */
+public class TypingThrottle {
+
+    public interface Clock {
+        long now();
+    }
+
+    public interface Publisher {
+        void publish(boolean typing);
+    }
+
+    private final long heartbeatMs;
+    private final long expiryMs;
+    private final Clock clock;
+    private final Publisher publisher;
+
+    private boolean announced = false;
+    private long lastWriteAt = 0;
+
+    /**
+     * @param heartbeatMs Minimum time between two "typing" writes
+     * @param expiryMs Time after which readers drop a typist without a new heartbeat
+     */
+    public TypingThrottle(long heartbeatMs, long expiryMs, Clock clock, Publisher publisher) {
+        this.heartbeatMs = heartbeatMs;
+        this.expiryMs = expiryMs;
+        this.clock = clock;
+        this.publisher = publisher;
+    }
+
+    /**
+     * Call on every text change while the input is not empty
+     */
+    public void onKeystroke() {
+        long now = clock.now();
+        if (!announced || now - lastWriteAt >= heartbeatMs) {
+            announced = true;
+            lastWriteAt = now;
+            publisher.publish(true);
+        }
+    }
+
+    /**
+     * Call when the input was cleared, the message was sent or the chat was left
+     */
+    public void onStopped() {
+        if (!announced) return;
+        announced = false;
+
+        // Readers still show us until the last heartbeat expires: clear it now
+        if (clock.now() - lastWriteAt < expiryMs) {
+            lastWriteAt = clock.now();
+            publisher.publish(false);
+        }
+    }
+}
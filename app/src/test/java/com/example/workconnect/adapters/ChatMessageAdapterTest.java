@@ -1,5 +1,6 @@
 package com.example.workconnect.adapters;
 
+import com.example.workconnect.adapters.chats.MessageRowIndex;
 import com.example.workconnect.models.ChatItem;
 import com.example.workconnect.models.ChatMessage;
 import com.example.workconnect.utils.ChatUtils;
@@ -8,7 +9,9 @@ import static org.junit.Assert.*;
 import static org.mockito.Mockito.*;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Calendar;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 
@@ -148,6 +151,122 @@ public class ChatMessageAdapterTest {
         verify(mockMessage2, atLeastOnce()).getSentAt();
     }
 
+    @Test
+    public void testIsSameRevision_SameVersionDifferentPayload_ReturnsTrue() {
+        // 1. Setting up the conditions
+        Date now = new Date();
+        ChatMessage oldMsg = createTestMessage("msg1", now);
+        oldMsg.setVersion(2);
+        ChatMessage newMsg = createTestMessage("msg1", now);
+        newMsg.setVersion(2);
+        newMsg.setReactions(java.util.Collections.singletonMap("👍", java.util.Arrays.asList("user2")));
+
+        // 2. Calling the function under test
+        boolean result = oldMsg.isSameRevision(newMsg);
+
+        // 3. Assertions to verify the expected result
+        assertTrue("Same id and version means same content, payload is not compared", result);
+    }
+
+    @Test
+    public void testIsSameRevision_VersionOrStatusChanged_ReturnsFalse() {
+        // 1. Setting up the conditions
+        Date now = new Date();
+        ChatMessage current = createTestMessage("msg1", now);
+        current.setVersion(1);
+        ChatMessage bumped = createTestMessage("msg1", now);
+        bumped.setVersion(2);
+        ChatMessage pending = createTestMessage("msg1", now);
+        pending.setVersion(1);
+        pending.setStatus(ChatMessage.MessageStatus.PENDING);
+
+        // 2. Calling the function under test
+        boolean sameAsBumped = current.isSameRevision(bumped);
+        boolean sameAsPending = current.isSameRevision(pending);
+
+        // 3. Assertions to verify the expected result
+        assertFalse("A write bumps the version and must rebind", sameAsBumped);
+        assertFalse("A local send status change must rebind", sameAsPending);
+    }
+
+    @Test
+    public void testHasSameContent_OptimisticCopySameVersion_ReturnsFalse() {
+        // 1. Setting up the conditions
+        Date now = new Date();
+        ChatMessage shown = createTestMessage("msg1", now);
+        shown.setVersion(3);
+        ChatMessage reacted = createTestMessage("msg1", now);
+        reacted.setVersion(3);
+        reacted.setReactions(Collections.singletonMap("👍", Arrays.asList(TEST_USER_ID)));
+        reacted.setLocalRevision(shown.getLocalRevision() + 1);
+
+        // 2. Calling the function under test
+        boolean sameContent = new ChatItem(shown).hasSameContent(new ChatItem(reacted));
+        boolean sameRevision = shown.isSameRevision(reacted);
+
+        // 3. Assertions to verify the expected result
+        assertFalse("A queued reaction keeps the version, the local revision must still rebind", sameContent);
+        assertFalse(sameRevision);
+    }
+
+    @Test
+    public void testMessageRowIndex_OneNameResolved_OnlyThatSendersRowsRebound() {
+        // 1. Setting up the conditions
+        Date now = new Date();
+        List<ChatItem> items = new ArrayList<>();
+        items.add(new ChatItem(now));                                          // 0 separator
+        items.add(new ChatItem(createSenderMessage("m1", "alice", now)));      // 1
+        items.add(new ChatItem(createSenderMessage("m2", "alice", now)));      // 2
+        items.add(new ChatItem(createSenderMessage("m3", "bob", now)));        // 3
+        items.add(new ChatItem(createTestMessage("m4", now)));                 // 4 mine
+        items.add(new ChatItem(createSenderMessage("m5", "alice", now)));      // 5
+        ChatMessage added = createSenderMessage("m6", "carol", now);
+        added.setMessageType(ChatMessage.MessageType.SYSTEM);
+        added.setSystemType(ChatMessage.SystemMessageType.USER_ADDED);
+        added.setSystemUserId("bob");
+        added.setSystemActorId("alice");
+        items.add(new ChatItem(added));                                        // 6 system
+
+        // 2. Calling the function under test
+        MessageRowIndex index = MessageRowIndex.build(items, TEST_USER_ID);
+        List<int[]> aliceRows = index.rowsShowing(Collections.singleton("alice"));
+        List<int[]> unknownRows = index.rowsShowing(Collections.singleton("dave"));
+        List<int[]> myRows = index.myRows();
+
+        // 3. Assertions to verify the expected result
+        assertEquals("Consecutive rows are merged into ranges", 2, aliceRows.size());
+        assertArrayEquals(new int[]{1, 2}, aliceRows.get(0));
+        assertArrayEquals("Alice's bubble and the system message naming her", new int[]{5, 2}, aliceRows.get(1));
+        assertTrue("A user shown nowhere rebinds nothing", unknownRows.isEmpty());
+        assertEquals(1, myRows.size());
+        assertArrayEquals("Read receipts only on my bubbles", new int[]{4, 1}, myRows.get(0));
+    }
+
+    @Test
+    public void testMessageRowIndex_SeveralNames_RangesSortedWithoutDuplicates() {
+        // 1. Setting up the conditions
+        Date now = new Date();
+        List<ChatItem> items = new ArrayList<>();
+        items.add(new ChatItem(createSenderMessage("m1", "bob", now)));
+        items.add(new ChatItem(createSenderMessage("m2", "alice", now)));
+        items.add(new ChatItem(createSenderMessage("m3", "bob", now)));
+        items.add(new ChatItem(createSenderMessage("m4", "carol", now)));
+
+        // 2. Calling the function under test
+        List<int[]> rows = MessageRowIndex.build(items, TEST_USER_ID)
+                .rowsShowing(Arrays.asList("alice", "bob", "alice"));
+
+        // 3. Assertions to verify the expected result
+        assertEquals(1, rows.size());
+        assertArrayEquals(new int[]{0, 3}, rows.get(0));
+    }
+
+    private ChatMessage createSenderMessage(String id, String senderId, Date sentAt) {
+        ChatMessage message = createTestMessage(id, sentAt);
+        message.setSenderId(senderId);
+        return message;
+    }
+
     private ChatMessage createTestMessage(String id, Date sentAt) {
         ChatMessage message = new ChatMessage();
         message.setId(id);
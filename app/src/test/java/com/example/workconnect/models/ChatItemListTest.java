@@ -0,0 +1,125 @@
+package com.example.workconnect.models;
+
+import com.example.workconnect.utils.ChatUtils;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+public class ChatItemListTest {
+
+    private static final long HOUR_MS = 60 * 60 * 1000L;
+    private static final int MESSAGE_COUNT = 10_000;
+
+    @Test
+    public void testUpsert_Append10kMessages_MatchesFullRebuild() {
+        // 1. Setting up the conditions: 10k messages, one every 3 hours (several days)
+        ChatItemList list = new ChatItemList();
+        List<ChatMessage> expected = createMessages(0, MESSAGE_COUNT);
+
+        // 2. Calling the function under test
+        for (ChatMessage m : expected) {
+            list.upsert(m);
+        }
+
+        // 3. Assertions to verify the expected result
+        assertSameRows(ChatUtils.insertDateSeparators(expected), list.snapshot());
+    }
+
+    @Test
+    public void testPrepend_100PagesOf100_MatchesFullRebuild() {
+        // 1. Setting up the conditions: newest page first, older pages prepended like scrolling up
+        ChatItemList list = new ChatItemList();
+        List<ChatMessage> all = createMessages(0, MESSAGE_COUNT);
+
+        // 2. Calling the function under test
+        for (int end = MESSAGE_COUNT; end > 0; end -= 100) {
+            list.prepend(new ArrayList<>(all.subList(end - 100, end)));
+        }
+
+        // 3. Assertions to verify the expected result
+        assertSameRows(ChatUtils.insertDateSeparators(all), list.snapshot());
+    }
+
+    @Test
+    public void testRemoveAndReplace_KeepsSeparatorsConsistent() {
+        // 1. Setting up the conditions
+        ChatItemList list = new ChatItemList();
+        List<ChatMessage> messages = createMessages(0, 40);
+        for (ChatMessage m : messages) {
+            list.upsert(m);
+        }
+
+        // 2. Calling the function under test
+        // Remove the only message of a day boundary, the last message and the first message
+        list.remove(messages.get(8).getId());
+        list.remove(messages.get(39).getId());
+        list.remove(messages.get(0).getId());
+        ChatMessage edited = createMessage(messages.get(20).getId(), messages.get(20).getSentAt());
+        edited.setVersion(2);
+        boolean added = list.upsert(edited);
+
+        // 3. Assertions to verify the expected result
+        List<ChatMessage> expected = new ArrayList<>(messages);
+        expected.remove(39);
+        expected.remove(8);
+        expected.remove(0);
+        expected.set(expected.indexOf(messages.get(20)), edited);
+        assertFalse("Replacing an existing message is not an insert", added);
+        assertSameRows(ChatUtils.insertDateSeparators(expected), list.snapshot());
+    }
+
+    @Test
+    public void testRemoveBefore_DropsOlderHistory() {
+        // 1. Setting up the conditions
+        ChatItemList list = new ChatItemList();
+        List<ChatMessage> messages = createMessages(0, 30);
+        for (ChatMessage m : messages) {
+            list.upsert(m);
+        }
+
+        // 2. Calling the function under test
+        boolean removed = list.removeBefore(messages.get(10).getSentAt());
+
+        // 3. Assertions to verify the expected result
+        assertTrue("Older messages should be removed", removed);
+        assertEquals("20 messages left", 20, list.size());
+        assertSameRows(ChatUtils.insertDateSeparators(messages.subList(10, 30)), list.snapshot());
+    }
+
+    private void assertSameRows(List<ChatItem> expected, List<ChatItem> actual) {
+        assertEquals("Row count", expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            ChatItem e = expected.get(i);
+            ChatItem a = actual.get(i);
+            assertEquals("Row type at " + i, e.getType(), a.getType());
+            if (e.isMessage()) {
+                assertSame("Message at " + i, e.getMessage(), a.getMessage());
+            } else {
+                assertEquals("Separator day at " + i, e.getDayKey(), a.getDayKey());
+            }
+        }
+    }
+
+    private List<ChatMessage> createMessages(int from, int count) {
+        long base = 1_700_000_000_000L;
+        List<ChatMessage> list = new ArrayList<>(count);
+        for (int i = from; i < from + count; i++) {
+            list.add(createMessage("msg" + i, new Date(base + i * 3 * HOUR_MS)));
+        }
+        return list;
+    }
+
+    private ChatMessage createMessage(String id, Date sentAt) {
+        ChatMessage message = new ChatMessage();
+        message.setId(id);
+        message.setSenderId("user1");
+        message.setText("Test message " + id);
+        message.setSentAt(sentAt);
+        message.setStatus(ChatMessage.MessageStatus.SENT);
+        message.setVersion(1);
+        return message;
+    }
+}
@@ -0,0 +1,172 @@
+package com.example.workconnect.repository;
+
+import com.example.workconnect.models.Call;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class CallSignalRouterTest {
+
+    private static final String ME = "me";
+
+    // Screen that records the dialogs it shows
+    private static class FakeSurface implements IncomingCallSurface {
+        final List<String> open = new ArrayList<>();
+        final Map<String, Integer> shown = new HashMap<>();
+
+        @Override
+        public void showIncomingCall(Call call) {
+            open.add(call.getCallId());
+            shown.merge(call.getCallId(), 1, Integer::sum);
+        }
+
+        @Override
+        public void dismissIncomingCall(String callId) {
+            open.remove(callId);
+        }
+    }
+
+    private boolean inCall = false;
+    private final CallSignalRouter router = new CallSignalRouter(() -> inCall);
+
+    public CallSignalRouterTest() {
+        router.setUser(ME);
+    }
+
+    private static Call call(String id, String callerId, String status) {
+        Call call = new Call();
+        call.setCallId(id);
+        call.setCallerId(callerId);
+        call.setStatus(status);
+        call.setParticipants(Arrays.asList(callerId, ME));
+        return call;
+    }
+
+    @Test
+    public void testOnCallChanged_RepeatedSnapshots_OneDialog() {
+        // 1. Setting up the conditions
+        FakeSurface screen = new FakeSurface();
+        router.attach(screen);
+
+        // 2. Calling the function under test: cache copy, server copy, media toggles
+        for (int i = 0; i < 4; i++) {
+            router.onCallChanged(call("c1", "bob", "ringing"));
+        }
+
+        // 3. Assertions to verify the expected result
+        assertEquals(Arrays.asList("c1"), screen.open);
+        assertEquals(Integer.valueOf(1), screen.shown.get("c1"));
+    }
+
+    @Test
+    public void testNavigation_TenScreensDuringCallStorm_AtMostOneDialog() {
+        // 1. Setting up the conditions
+        List<FakeSurface> screens = new ArrayList<>();
+        FakeSurface previous = null;
+
+        // 2. Calling the function under test: a screen change between every call event
+        for (int i = 0; i < 10; i++) {
+            FakeSurface screen = new FakeSurface();
+            screens.add(screen);
+            if (previous != null) router.detach(previous);
+            router.attach(screen);
+            previous = screen;
+
+            router.onCallChanged(call("c" + i, "caller" + i, "ringing"));
+            router.onCallChanged(call("c" + i, "caller" + i, "ringing"));
+            if (i % 3 == 0) router.onCallRemoved("c" + i); // caller hung up
+
+            // 3. Assertions to verify the expected result
+            int openDialogs = 0;
+            for (FakeSurface s : screens) openDialogs += s.open.size();
+            assertTrue("At most one dialog at any time, got " + openDialogs, openDialogs <= 1);
+            for (FakeSurface s : screens) {
+                for (Integer count : s.shown.values()) {
+                    assertEquals("A screen shows each call once", Integer.valueOf(1), count);
+                }
+            }
+        }
+        // c1 rang first and never ended: its dialog moved from screen to screen
+        assertEquals(Arrays.asList("c1"), previous.open);
+        for (FakeSurface s : screens.subList(1, screens.size())) {
+            assertFalse("Calls ringing later wait for c1", s.shown.containsKey("c2") || s.shown.containsKey("c8"));
+        }
+    }
+
+    @Test
+    public void testOnCallRemoved_PresentedCallEnds_NextRingingCallShown() {
+        // 1. Setting up the conditions
+        FakeSurface screen = new FakeSurface();
+        router.attach(screen);
+        router.onCallChanged(call("c1", "bob", "ringing"));
+        router.onCallChanged(call("c2", "dana", "ringing"));
+
+        // 2. Calling the function under test
+        router.onCallRemoved("c1");
+
+        // 3. Assertions to verify the expected result
+        assertEquals(Arrays.asList("c2"), screen.open);
+    }
+
+    @Test
+    public void testOnCallChanged_GroupCallAnsweredElsewhere_DialogKept() {
+        // 1. Setting up the conditions
+        FakeSurface screen = new FakeSurface();
+        router.attach(screen);
+        router.onCallChanged(call("c1", "bob", "ringing"));
+
+        // 2. Calling the function under test
+        router.onCallChanged(call("c1", "bob", "active"));
+
+        // 3. Assertions to verify the expected result
+        assertEquals("The user can still join", Arrays.asList("c1"), screen.open);
+    }
+
+    @Test
+    public void testOnCallChanged_OwnCallOrInCall_NoDialog() {
+        // 1. Setting up the conditions
+        FakeSurface screen = new FakeSurface();
+        router.attach(screen);
+
+        // 2. Calling the function under test
+        router.onCallChanged(call("mine", ME, "ringing"));
+        inCall = true;
+        router.onCallChanged(call("c1", "bob", "ringing"));
+
+        // 3. Assertions to verify the expected result
+        assertTrue(screen.open.isEmpty());
+
+        // Once the call is over, the next screen shows the call still ringing
+        inCall = false;
+        router.detach(screen);
+        FakeSurface next = new FakeSurface();
+        router.attach(next);
+        assertEquals(Arrays.asList("c1"), next.open);
+    }
+
+    @Test
+    public void testOnDeclined_NotShownAgain() {
+        // 1. Setting up the conditions
+        FakeSurface screen = new FakeSurface();
+        router.attach(screen);
+        router.onCallChanged(call("c1", "bob", "ringing"));
+
+        // 2. Calling the function under test
+        screen.dismissIncomingCall("c1");
+        router.onDeclined("c1");
+        router.onCallChanged(call("c1", "bob", "ringing"));
+        router.detach(screen);
+        FakeSurface next = new FakeSurface();
+        router.attach(next);
+
+        // 3. Assertions to verify the expected result
+        assertTrue(next.open.isEmpty());
+        assertEquals(Integer.valueOf(1), screen.shown.get("c1"));
+    }
+}
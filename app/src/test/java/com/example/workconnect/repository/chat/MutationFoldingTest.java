@@ -0,0 +1,64 @@
+package com.example.workconnect.repository.chat;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class MutationFoldingTest {
+
+    @Test
+    public void testFoldReaction_OppositeTogglePending_DropsBoth() {
+        // 1. Setting up the conditions
+        Boolean pendingAdd = true; // 👍 added, not written yet
+
+        // 2. Calling the function under test
+        MutationFolding.Action action = MutationFolding.foldReaction(pendingAdd, false, false);
+
+        // 3. Assertions to verify the expected result
+        assertEquals("Add then remove leaves the server state as it was",
+                MutationFolding.Action.DROP_BOTH, action);
+    }
+
+    @Test
+    public void testFoldReaction_PendingInFlight_WritesAgain() {
+        // 1. Setting up the conditions
+        Boolean pendingAdd = true; // add is being committed
+
+        // 2. Calling the function under test
+        MutationFolding.Action action = MutationFolding.foldReaction(pendingAdd, true, false);
+
+        // 3. Assertions to verify the expected result
+        assertEquals("A committing batch can't be recalled",
+                MutationFolding.Action.REPLACE, action);
+    }
+
+    @Test
+    public void testFoldReaction_NoPendingOrSameToggle() {
+        // 1. Setting up the conditions
+        // (no pending entry, then the same toggle pending)
+
+        // 2. Calling the function under test
+        MutationFolding.Action first = MutationFolding.foldReaction(null, false, true);
+        MutationFolding.Action repeated = MutationFolding.foldReaction(true, false, true);
+
+        // 3. Assertions to verify the expected result
+        assertEquals(MutationFolding.Action.REPLACE, first);
+        assertEquals(MutationFolding.Action.KEEP_PENDING, repeated);
+    }
+
+    @Test
+    public void testFoldReadMark_KeepsNewestCursor() {
+        // 1. Setting up the conditions
+        long pending = 2_000L;
+
+        // 2. Calling the function under test
+        MutationFolding.Action newer = MutationFolding.foldReadMark(pending, false, 3_000L);
+        MutationFolding.Action older = MutationFolding.foldReadMark(pending, false, 1_000L);
+        MutationFolding.Action resetOnly = MutationFolding.foldReadMark(pending, false, 0L);
+
+        // 3. Assertions to verify the expected result
+        assertEquals(MutationFolding.Action.REPLACE, newer);
+        assertEquals(MutationFolding.Action.KEEP_PENDING, older);
+        assertEquals("The pending mark already resets the count",
+                MutationFolding.Action.KEEP_PENDING, resetOnly);
+    }
+}
@@ -0,0 +1,268 @@
+package com.example.workconnect.repository.chat;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class OutboxDrainPolicyTest {
+
+    private static final int MAX_OPS = 500;
+    private static final int MAX_ATTEMPTS = 8;
+    private static final long NOW = 1_000_000L;
+
+    private long seq = 0;
+
+    @Test
+    public void testNextBatch_1000QueuedSends_DrainInBatches() {
+        // 1. Setting up the conditions
+        OutboxDrainPolicy policy = newPolicy();
+        List<OutboxDrainPolicy.Item> queue = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            queue.add(send("conv1", "m" + i));
+        }
+
+        // 2. Calling the function under test
+        List<Integer> batchSizes = new ArrayList<>();
+        while (!queue.isEmpty()) {
+            List<OutboxDrainPolicy.Item> batch = policy.nextBatch(queue, NOW);
+            assertFalse("Due entries must always make progress", batch.isEmpty());
+            policy.onCommitted(batch);
+            queue.removeAll(batch);
+            batchSizes.add(batch.size());
+        }
+
+        // 3. Assertions to verify the expected result
+        // 499 sends + the conversation update fill a 500-op batch
+        assertEquals(3, batchSizes.size());
+        assertEquals(Integer.valueOf(499), batchSizes.get(0));
+        assertEquals(Integer.valueOf(499), batchSizes.get(1));
+        assertEquals(Integer.valueOf(2), batchSizes.get(2));
+    }
+
+    @Test
+    public void testNextBatch_InboxFanOutCost_FillsItsOwnBatch() {
+        // 1. Setting up the conditions
+        OutboxDrainPolicy policy = newPolicy();
+        List<OutboxDrainPolicy.Item> queue = new ArrayList<>();
+        queue.add(send("conv1", "m1"));
+        OutboxDrainPolicy.Item fanOut = reaction("conv1", "m0");
+        fanOut.cost = MAX_OPS; // one write per member of a 500-member group
+        queue.add(fanOut);
+        queue.add(send("conv1", "m2"));
+
+        // 2. Calling the function under test
+        List<OutboxDrainPolicy.Item> first = policy.nextBatch(queue, NOW);
+        queue.removeAll(first);
+        List<OutboxDrainPolicy.Item> second = policy.nextBatch(queue, NOW);
+        queue.removeAll(second);
+        List<OutboxDrainPolicy.Item> third = policy.nextBatch(queue, NOW);
+
+        // 3. Assertions to verify the expected result
+        assertEquals(1, first.size());
+        assertEquals("m1", first.get(0).messageId);
+        assertEquals(1, second.size());
+        assertSame(fanOut, second.get(0));
+        assertEquals(1, third.size());
+        assertEquals("m2", third.get(0).messageId);
+    }
+
+    @Test
+    public void testNextBatch_ExclusiveEntry_CommittedAlone() {
+        // 1. Setting up the conditions
+        OutboxDrainPolicy policy = newPolicy();
+        List<OutboxDrainPolicy.Item> queue = new ArrayList<>();
+        queue.add(send("conv1", "m1"));
+        OutboxDrainPolicy.Item fanOut = reaction("conv1", "m0");
+        fanOut.exclusive = true;
+        queue.add(fanOut);
+        queue.add(send("conv1", "m2"));
+
+        // 2. Calling the function under test
+        List<OutboxDrainPolicy.Item> first = policy.nextBatch(queue, NOW);
+        queue.removeAll(first);
+        List<OutboxDrainPolicy.Item> second = policy.nextBatch(queue, NOW);
+        queue.removeAll(second);
+        List<OutboxDrainPolicy.Item> third = policy.nextBatch(queue, NOW);
+
+        // 3. Assertions to verify the expected result
+        assertEquals(1, first.size());
+        assertEquals("m1", first.get(0).messageId);
+        assertEquals(1, second.size());
+        assertSame(fanOut, second.get(0));
+        assertEquals(1, third.size());
+        assertEquals("m2", third.get(0).messageId);
+    }
+
+    @Test
+    public void testNextBatch_OneConversationPerBatch_OldestFirst() {
+        // 1. Setting up the conditions
+        OutboxDrainPolicy policy = newPolicy();
+        List<OutboxDrainPolicy.Item> queue = new ArrayList<>();
+        queue.add(send("conv1", "a1"));
+        queue.add(send("conv2", "b1"));
+        queue.add(reaction("conv1", "a1"));
+        queue.add(send("conv2", "b2"));
+
+        // 2. Calling the function under test
+        List<OutboxDrainPolicy.Item> first = policy.nextBatch(queue, NOW);
+        queue.removeAll(first);
+        List<OutboxDrainPolicy.Item> second = policy.nextBatch(queue, NOW);
+
+        // 3. Assertions to verify the expected result
+        assertEquals(2, first.size());
+        for (OutboxDrainPolicy.Item item : first) {
+            assertEquals("conv1", item.conversationId);
+        }
+        assertEquals(2, second.size());
+        assertEquals("b1", second.get(0).messageId);
+        assertEquals("b2", second.get(1).messageId);
+    }
+
+    @Test
+    public void testOnFailed_RejectedReaction_IsolatedAndDropped_OtherChatsDrain() {
+        // 1. Setting up the conditions
+        OutboxDrainPolicy policy = newPolicy();
+        List<OutboxDrainPolicy.Item> queue = new ArrayList<>();
+        OutboxDrainPolicy.Item bad = reaction("conv1", "deleted");
+        for (int i = 0; i < 7; i++) {
+            queue.add(send("conv1", "m" + i));
+        }
+        queue.add(bad);
+        queue.add(send("conv2", "other"));
+
+        // 2. Calling the function under test
+        // The server rejects any batch holding the reaction to a deleted message
+        List<String> committed = new ArrayList<>();
+        OutboxDrainPolicy.Outcome<OutboxDrainPolicy.Item> dropOutcome = null;
+        for (int round = 0; round < 20 && !queue.isEmpty(); round++) {
+            List<OutboxDrainPolicy.Item> batch = policy.nextBatch(queue, NOW);
+            if (batch.contains(bad)) {
+                OutboxDrainPolicy.Outcome<OutboxDrainPolicy.Item> outcome = policy.onFailed(batch, true, NOW);
+                queue.removeAll(outcome.dropped);
+                if (!outcome.dropped.isEmpty()) dropOutcome = outcome;
+            } else {
+                policy.onCommitted(batch);
+                queue.removeAll(batch);
+                for (OutboxDrainPolicy.Item item : batch) committed.add(item.messageId);
+            }
+        }
+
+        // 3. Assertions to verify the expected result
+        assertTrue("Queue should be empty", queue.isEmpty());
+        assertNotNull(dropOutcome);
+        assertEquals(1, dropOutcome.dropped.size());
+        assertSame(bad, dropOutcome.dropped.get(0));
+        assertTrue("Splitting a rejected batch counts no attempt", dropOutcome.failedSends.isEmpty());
+        assertEquals(8, committed.size());
+        assertTrue(committed.contains("other"));
+        for (int i = 0; i < 7; i++) {
+            assertEquals("Sends keep their order", "m" + i, committed.get(i));
+        }
+    }
+
+    @Test
+    public void testOnFailed_RejectedSend_ParkedAndHoldsOnlyLaterSends() {
+        // 1. Setting up the conditions
+        OutboxDrainPolicy policy = newPolicy();
+        OutboxDrainPolicy.Item parkedSend = send("conv1", "m1");
+        List<OutboxDrainPolicy.Item> batch = new ArrayList<>();
+        batch.add(parkedSend);
+
+        // 2. Calling the function under test
+        OutboxDrainPolicy.Outcome<OutboxDrainPolicy.Item> outcome = policy.onFailed(batch, true, NOW);
+
+        List<OutboxDrainPolicy.Item> queue = new ArrayList<>();
+        queue.add(parkedSend);
+        queue.add(reaction("conv1", "m0"));         // reaction to an already written message
+        queue.add(send("conv1", "m2"));             // later send of the same chat
+        queue.add(reaction("conv1", "m1"));         // reaction to the parked message
+        queue.add(send("conv2", "n1"));
+        List<OutboxDrainPolicy.Item> next = policy.nextBatch(queue, NOW);
+
+        // 3. Assertions to verify the expected result
+        assertEquals(OutboxDrainPolicy.PARKED, parkedSend.nextAttemptAt);
+        assertEquals(1, outcome.failedSends.size());
+        assertEquals(1, next.size());
+        assertEquals("Only the reaction to a written message goes through", "m0", next.get(0).messageId);
+        queue.remove(next.get(0));
+        List<OutboxDrainPolicy.Item> other = policy.nextBatch(queue, NOW);
+        assertEquals(1, other.size());
+        assertEquals("Other chats keep draining", "n1", other.get(0).messageId);
+    }
+
+    @Test
+    public void testOnFailed_Transient_CountsAttemptsPerEntry() {
+        // 1. Setting up the conditions
+        OutboxDrainPolicy policy = newPolicy();
+        OutboxDrainPolicy.Item fresh = send("conv1", "m1");
+        OutboxDrainPolicy.Item retried = send("conv1", "m2");
+        retried.attempts = 3;
+        OutboxDrainPolicy.Item worn = reaction("conv1", "m0");
+        worn.attempts = MAX_ATTEMPTS - 1;
+        List<OutboxDrainPolicy.Item> batch = new ArrayList<>();
+        batch.add(fresh);
+        batch.add(retried);
+        batch.add(worn);
+
+        // 2. Calling the function under test
+        OutboxDrainPolicy.Outcome<OutboxDrainPolicy.Item> outcome = policy.onFailed(batch, false, NOW);
+
+        // 3. Assertions to verify the expected result
+        assertEquals(1, fresh.attempts);
+        assertEquals(4, retried.attempts);
+        assertEquals("Each entry backs off from its own count", NOW + 1000L, fresh.nextAttemptAt);
+        assertEquals(NOW + 8000L, retried.nextAttemptAt);
+        assertEquals("Out of attempts: a reaction is dropped, not parked", 1, outcome.dropped.size());
+        assertSame(worn, outcome.dropped.get(0));
+        assertEquals(2, outcome.failedSends.size());
+        assertFalse(outcome.retryNow);
+    }
+
+    @Test
+    public void testNextDueAt_HeldEntriesWaitForBackoffOnly() {
+        // 1. Setting up the conditions
+        OutboxDrainPolicy.Item parked = send("conv1", "m1");
+        parked.nextAttemptAt = OutboxDrainPolicy.PARKED;
+        OutboxDrainPolicy.Item held = send("conv1", "m2");
+        OutboxDrainPolicy.Item backingOff = reaction("conv2", "n1");
+        backingOff.nextAttemptAt = NOW + 5000L;
+        List<OutboxDrainPolicy.Item> queue = new ArrayList<>();
+        queue.add(parked);
+        queue.add(held);
+
+        // 2. Calling the function under test
+        long onlyParked = OutboxDrainPolicy.nextDueAt(queue, NOW);
+        queue.add(backingOff);
+        long withBackoff = OutboxDrainPolicy.nextDueAt(queue, NOW);
+
+        // 3. Assertions to verify the expected result
+        assertTrue(newPolicy().nextBatch(queue, NOW).isEmpty());
+        assertEquals("Nothing to schedule until a manual retry", OutboxDrainPolicy.PARKED, onlyParked);
+        assertEquals(NOW + 5000L, withBackoff);
+    }
+
+    private OutboxDrainPolicy newPolicy() {
+        // Deterministic backoff: 1s, 2s, 4s ...
+        return new OutboxDrainPolicy(MAX_OPS, MAX_ATTEMPTS, attempts -> 1000L << (attempts - 1));
+    }
+
+    private OutboxDrainPolicy.Item send(String conversationId, String messageId) {
+        OutboxDrainPolicy.Item item = item(conversationId, messageId);
+        item.send = true;
+        return item;
+    }
+
+    private OutboxDrainPolicy.Item reaction(String conversationId, String messageId) {
+        return item(conversationId, messageId);
+    }
+
+    private OutboxDrainPolicy.Item item(String conversationId, String messageId) {
+        OutboxDrainPolicy.Item item = new OutboxDrainPolicy.Item();
+        item.seq = ++seq;
+        item.conversationId = conversationId;
+        item.messageId = messageId;
+        return item;
+    }
+}
@@ -0,0 +1,226 @@
+package com.example.workconnect.repository.decode;
+
+import com.example.workconnect.models.ChatConversation;
+import com.example.workconnect.models.ChatMessage;
+import com.example.workconnect.models.InboxEntry;
+import com.example.workconnect.models.ShiftAssignment;
+import com.example.workconnect.models.VacationRequest;
+import com.example.workconnect.models.enums.VacationStatus;
+import com.google.firebase.Timestamp;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+public class ModelMappersTest {
+
+    @Test
+    public void testChatMessage_AllFields_Mapped() {
+        // 1. Setting up the conditions
+        Date sentAt = new Date(1_700_000_000_000L);
+        Map<String, Object> reactions = new HashMap<>();
+        reactions.put("👍", Arrays.asList("user2", "user3"));
+        Map<String, Object> data = messageData(sentAt);
+        data.put("reactions", reactions);
+        data.put("readBy", Arrays.asList("user2"));
+        data.put("messageType", "IMAGE");
+        data.put("fileUrl", "https://example.com/a.jpg");
+        data.put("fileSize", 2048L);
+        data.put("replyToMessageId", "msg0");
+        Date updatedAt = new Date(1_700_000_060_000L);
+        data.put("updatedAt", new Timestamp(updatedAt));
+
+        // 2. Calling the function under test
+        ChatMessage m = ModelMappers.CHAT_MESSAGE.map("msg1", data);
+
+        // 3. Assertions to verify the expected result
+        assertEquals("msg1", m.getId());
+        assertEquals("conv1", m.getConversationId());
+        assertEquals("user1", m.getSenderId());
+        assertEquals("Hello", m.getText());
+        assertEquals("Timestamp should be converted to Date", sentAt, m.getSentAt());
+        assertEquals(ChatMessage.MessageType.IMAGE, m.getMessageType());
+        assertEquals(ChatMessage.MessageStatus.SENT, m.getStatus());
+        assertEquals(Arrays.asList("user2", "user3"), m.getReactions().get("👍"));
+        assertTrue(m.isReadBy("user2"));
+        assertEquals(Long.valueOf(2048L), m.getFileSize());
+        assertTrue(m.isReply());
+        assertEquals(3L, m.getVersion());
+        assertEquals(updatedAt, m.getUpdatedAt());
+    }
+
+    @Test
+    public void testChatMessage_ImageAttachment_Mapped() {
+        // 1. Setting up the conditions
+        Map<String, Object> data = messageData(new Date());
+        data.put("messageType", "IMAGE");
+        data.put("fileUrl", "https://example.com/a.jpg");
+        data.put("thumbnailUrl", "https://example.com/a_thumb.jpg");
+        data.put("imageWidth", 1600L);
+        data.put("imageHeight", 1200L);
+        data.put("placeholder", "LEHV6nWB2yk8pyo0adR*.7kCMdnj");
+
+        // 2. Calling the function under test
+        ChatMessage m = ModelMappers.CHAT_MESSAGE.map("msg1", data);
+
+        // 3. Assertions to verify the expected result
+        assertEquals("https://example.com/a_thumb.jpg", m.getThumbnailUrl());
+        assertEquals(1600, m.getImageWidth());
+        assertEquals(1200, m.getImageHeight());
+        assertEquals("LEHV6nWB2yk8pyo0adR*.7kCMdnj", m.getPlaceholder());
+        assertTrue(m.isImage());
+    }
+
+    @Test
+    public void testChatMessage_UnexpectedTypes_FallBackInsteadOfThrowing() {
+        // 1. Setting up the conditions
+        Map<String, Object> data = messageData(new Date());
+        data.put("messageType", "STICKER");     // unknown enum constant
+        data.put("text", 42L);                  // wrong type
+        data.put("readBy", "user2");            // not a list
+        data.put("version", "7");               // not a number
+
+        // 2. Calling the function under test
+        ChatMessage m = ModelMappers.CHAT_MESSAGE.map("msg1", data);
+
+        // 3. Assertions to verify the expected result
+        assertEquals(ChatMessage.MessageType.TEXT, m.getMessageType());
+        assertNull(m.getText());
+        assertNull(m.getReadBy());
+        assertEquals(0L, m.getVersion());
+    }
+
+    @Test
+    public void testChatConversation_CountersAndReadCursors_Mapped() {
+        // 1. Setting up the conditions
+        Date lastMessageAt = new Date(1_700_000_000_000L);
+        Map<String, Object> unread = new HashMap<>();
+        unread.put("user1", 4L);
+        Map<String, Object> cursors = new HashMap<>();
+        cursors.put("user2", new Timestamp(lastMessageAt));
+
+        Map<String, Object> data = new HashMap<>();
+        data.put("participantIds", Arrays.asList("user1", "user2"));
+        data.put("type", "group");
+        data.put("title", "Team");
+        data.put("lastMessageAt", new Timestamp(lastMessageAt));
+        data.put("unreadCounts", unread);
+        data.put("lastReadAt", cursors);
+
+        // 2. Calling the function under test
+        ChatConversation c = ModelMappers.CHAT_CONVERSATION.map("conv1", data);
+
+        // 3. Assertions to verify the expected result
+        assertEquals("conv1", c.getId());
+        assertTrue(c.isGroup());
+        assertEquals(lastMessageAt, c.getLastMessageAt());
+        assertEquals(4L, c.getUnreadCountFor("user1"));
+        assertEquals(0L, c.getUnreadCountFor("user2"));
+        assertEquals(lastMessageAt, c.getLastReadAt().get("user2"));
+    }
+
+    @Test
+    public void testInboxEntry_CountAndCursor_Mapped() {
+        // 1. Setting up the conditions
+        Date lastReadAt = new Date(1_700_000_000_000L);
+        Map<String, Object> data = new HashMap<>();
+        data.put("uid", "user2");
+        data.put("unreadCount", 7L);
+        data.put("lastReadAt", new Timestamp(lastReadAt));
+
+        // 2. Calling the function under test
+        InboxEntry e = ModelMappers.INBOX_ENTRY.map("conv1", data);
+
+        // 3. Assertions to verify the expected result
+        assertEquals("Doc id stands in for a missing conversationId", "conv1", e.getConversationId());
+        assertEquals("user2", e.getUid());
+        assertEquals(7L, e.getUnreadCount());
+        assertEquals(lastReadAt, e.getLastReadAt());
+    }
+
+    @Test
+    public void testReadCursor_KeyedByUid_Mapped() {
+        // 1. Setting up the conditions
+        Date lastReadAt = new Date(1_700_000_000_000L);
+        Map<String, Object> data = new HashMap<>();
+        data.put("lastReadAt", new Timestamp(lastReadAt));
+
+        // 2. Calling the function under test
+        InboxEntry e = ModelMappers.READ_CURSOR.map("user2", data);
+
+        // 3. Assertions to verify the expected result
+        assertEquals("Doc id stands in for a missing uid", "user2", e.getUid());
+        assertEquals(lastReadAt, e.getLastReadAt());
+    }
+
+    @Test
+    public void testInboxConversation_DirectRow_Mapped() {
+        // 1. Setting up the conditions
+        Date lastMessageAt = new Date(1_700_000_000_000L);
+        Map<String, Object> data = new HashMap<>();
+        data.put("conversationId", "user1_user2");
+        data.put("uid", "user1");
+        data.put("peerId", "user2");
+        data.put("type", "direct");
+        data.put("lastMessageText", "Hi");
+        data.put("lastMessageAt", new Timestamp(lastMessageAt));
+        data.put("lastMessageSenderId", "user2");
+        data.put("unreadCount", 3L);
+
+        // 2. Calling the function under test
+        ChatConversation c = ModelMappers.INBOX_CONVERSATION.map("user1_user2", data);
+
+        // 3. Assertions to verify the expected result
+        assertEquals("user1_user2", c.getId());
+        assertFalse(c.isGroup());
+        assertEquals("Hi", c.getLastMessageText());
+        assertEquals(lastMessageAt, c.getLastMessageAt());
+        assertEquals("Owner and peer only", Arrays.asList("user1", "user2"), c.getParticipantIds());
+        assertEquals(3L, c.getUnreadCountFor("user1"));
+    }
+
+    @Test
+    public void testVacationAndShift_EnumsAndIds_Mapped() {
+        // 1. Setting up the conditions
+        Map<String, Object> vacation = new HashMap<>();
+        vacation.put("employeeId", "user1");
+        vacation.put("status", "APPROVED");
+        vacation.put("daysRequested", 3L);
+        vacation.put("balanceDeducted", true);
+
+        Map<String, Object> assignment = new HashMap<>();
+        assignment.put("templateId", "morning");
+        assignment.put("startHour", 8L);
+        assignment.put("endHour", 16L);
+
+        // 2. Calling the function under test
+        VacationRequest r = ModelMappers.VACATION_REQUEST.map("req1", vacation);
+        ShiftAssignment a = ModelMappers.SHIFT_ASSIGNMENT.map("user7", assignment);
+
+        // 3. Assertions to verify the expected result
+        assertEquals("req1", r.getId());
+        assertEquals(VacationStatus.APPROVED, r.getStatus());
+        assertEquals(3, r.getDaysRequested());
+        assertEquals(Boolean.TRUE, r.getBalanceDeducted());
+        assertEquals("Assignment docs are keyed by user id", "user7", a.getUserId());
+        assertEquals(8, a.getStartHour());
+        assertEquals(16, a.getEndHour());
+    }
+
+    private Map<String, Object> messageData(Date sentAt) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("conversationId", "conv1");
+        data.put("senderId", "user1");
+        data.put("text", "Hello");
+        data.put("sentAt", new Timestamp(sentAt));
+        data.put("isRead", false);
+        data.put("readBy", new ArrayList<String>());
+        data.put("messageType", "TEXT");
+        data.put("version", 3L);
+        return data;
+    }
+}
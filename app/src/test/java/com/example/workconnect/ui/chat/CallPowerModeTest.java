@@ -0,0 +1,114 @@
+package com.example.workconnect.ui.chat;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import com.example.workconnect.ui.chat.CallPowerMode.Mode;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class CallPowerModeTest {
+
+    private final List<Mode> changes = new ArrayList<>();
+
+    @Test
+    public void testCallScreenShown_FullMode() {
+        // 1. Setting up the conditions
+        CallPowerMode powerMode = new CallPowerMode(changes::add);
+
+        // 2. Calling the function under test
+        powerMode.setVisible(true);
+
+        // 3. Assertions to verify the expected result
+        assertEquals(Arrays.asList(Mode.FULL), changes);
+        assertTrue(powerMode.getMode().rendersLocalPreview());
+        assertTrue(powerMode.getMode().ticksDuration());
+    }
+
+    @Test
+    public void testEnterAndLeavePip() {
+        // 1. Setting up the conditions
+        CallPowerMode powerMode = new CallPowerMode(changes::add);
+        powerMode.setVisible(true);
+
+        // 2. Calling the function under test: PiP keeps the activity started
+        powerMode.setInPip(true);
+        Mode inPip = powerMode.getMode();
+        powerMode.setInPip(false);
+
+        // 3. Assertions to verify the expected result
+        assertEquals(Mode.PIP, inPip);
+        assertEquals(Arrays.asList(Mode.FULL, Mode.PIP, Mode.FULL), changes);
+    }
+
+    @Test
+    public void testPipWindowClosed_BackgroundWhicheverCallbackComesFirst() {
+        // 1. Setting up the conditions: two screens in PiP
+        CallPowerMode stopFirst = new CallPowerMode(mode -> { });
+        CallPowerMode pipFirst = new CallPowerMode(mode -> { });
+        for (CallPowerMode powerMode : Arrays.asList(stopFirst, pipFirst)) {
+            powerMode.setVisible(true);
+            powerMode.setInPip(true);
+        }
+
+        // 2. Calling the function under test: Android versions report the close in different orders
+        stopFirst.setVisible(false);
+        Mode afterStop = stopFirst.getMode();
+        stopFirst.setInPip(false);
+
+        pipFirst.setInPip(false);
+        pipFirst.setVisible(false);
+
+        // 3. Assertions to verify the expected result: no video is received once nothing shows it
+        assertEquals(Mode.BACKGROUND, afterStop);
+        assertEquals(Mode.BACKGROUND, stopFirst.getMode());
+        assertEquals(Mode.BACKGROUND, pipFirst.getMode());
+        assertFalse(stopFirst.getMode().receivesRemoteVideo());
+    }
+
+    @Test
+    public void testMinimizedToChat_BackgroundThenFullOnReturn() {
+        // 1. Setting up the conditions
+        CallPowerMode powerMode = new CallPowerMode(changes::add);
+        powerMode.setVisible(true);
+
+        // 2. Calling the function under test: minimizeCall() opens the chat, then back to the call
+        powerMode.setVisible(false);
+        powerMode.setVisible(true);
+
+        // 3. Assertions to verify the expected result
+        assertEquals(Arrays.asList(Mode.FULL, Mode.BACKGROUND, Mode.FULL), changes);
+    }
+
+    @Test
+    public void testRepeatedSignals_NotifiedOnce() {
+        CallPowerMode powerMode = new CallPowerMode(changes::add);
+
+        powerMode.setVisible(true);
+        powerMode.setVisible(true);
+        powerMode.setInPip(false);
+
+        assertEquals(Arrays.asList(Mode.FULL), changes);
+    }
+
+    @Test
+    public void testModePolicies() {
+        // PiP: small window with the main participant only
+        assertFalse(Mode.PIP.rendersLocalPreview());
+        assertFalse(Mode.PIP.bindsThumbnails());
+        assertTrue(Mode.PIP.receivesRemoteVideo());
+        assertTrue(Mode.PIP.speakerOnly());
+        assertFalse(Mode.PIP.ticksDuration());
+
+        // Background: only the notification remains
+        assertFalse(Mode.BACKGROUND.rendersLocalPreview());
+        assertFalse(Mode.BACKGROUND.bindsThumbnails());
+        assertFalse(Mode.BACKGROUND.ticksDuration());
+
+        // Full screen: everything
+        assertTrue(Mode.FULL.bindsThumbnails());
+        assertFalse(Mode.FULL.speakerOnly());
+    }
+}
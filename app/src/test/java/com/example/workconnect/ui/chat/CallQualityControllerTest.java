@@ -0,0 +1,121 @@
+package com.example.workconnect.ui.chat;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import com.example.workconnect.ui.chat.CallQualityController.Profile;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class CallQualityControllerTest {
+
+    // Agora reports network quality every 2 seconds
+    private static final long SAMPLE_INTERVAL_MS = 2_000;
+
+    private final List<Profile> changes = new ArrayList<>();
+    private long now = 0;
+
+    // Feed a recorded trace of local quality values (same value for uplink and downlink)
+    private void play(CallQualityController controller, int... trace) {
+        for (int quality : trace) {
+            now += SAMPLE_INTERVAL_MS;
+            controller.onQualitySample(now, quality, quality);
+        }
+    }
+
+    @Test
+    public void testSinglePoorSample_NoChange() {
+        // 1. Setting up the conditions
+        CallQualityController controller = new CallQualityController(Profile.HD, changes::add);
+
+        // 2. Calling the function under test: a short spike in an otherwise good call
+        play(controller, 1, 2, 4, 1, 2, 3, 1, 1);
+
+        // 3. Assertions to verify the expected result
+        assertTrue(changes.isEmpty());
+        assertEquals(Profile.HD, controller.getProfile());
+    }
+
+    @Test
+    public void testSustainedPoor_StepsDownOneProfileAtATime() {
+        // 1. Setting up the conditions
+        CallQualityController controller = new CallQualityController(Profile.HD, changes::add);
+
+        // 2. Calling the function under test: congested uplink for 12 seconds
+        play(controller, 3, 3, 4, 3, 3, 4);
+
+        // 3. Assertions to verify the expected result: never below the lowest video profile
+        assertEquals(Arrays.asList(Profile.SD, Profile.LOW), changes);
+        assertEquals(Profile.LOW, controller.getProfile());
+    }
+
+    @Test
+    public void testVeryBad_FallsBackToAudioOnlyQuickly() {
+        // 1. Setting up the conditions
+        CallQualityController controller = new CallQualityController(Profile.HD, changes::add);
+
+        // 2. Calling the function under test: elevator ride
+        play(controller, 5, 6, 5);
+
+        // 3. Assertions to verify the expected result
+        assertEquals(Profile.AUDIO_ONLY, controller.getProfile());
+        assertEquals(Profile.AUDIO_ONLY, changes.get(changes.size() - 1));
+    }
+
+    @Test
+    public void testRecovery_StepsUpOnlyAfterHoldAndGoodStreak() {
+        // 1. Setting up the conditions: dropped to audio only
+        CallQualityController controller = new CallQualityController(Profile.SD, changes::add);
+        play(controller, 5, 5, 5);
+        assertEquals(Profile.AUDIO_ONLY, controller.getProfile());
+        changes.clear();
+
+        // 2. Calling the function under test: good network again
+        play(controller, 1, 1, 1, 1, 1);             // 10 s: hold time not over yet
+        List<Profile> afterFiveGood = new ArrayList<>(changes);
+        play(controller, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1);
+
+        // 3. Assertions to verify the expected result: back up one profile at a time, capped at the start one
+        assertTrue(afterFiveGood.isEmpty());
+        assertEquals(Arrays.asList(Profile.LOW, Profile.SD), changes);
+        assertEquals(Profile.SD, controller.getProfile());
+    }
+
+    @Test
+    public void testFlappingNetwork_DoesNotOscillate() {
+        // 1. Setting up the conditions
+        CallQualityController controller = new CallQualityController(Profile.HD, changes::add);
+
+        // 2. Calling the function under test: alternating good/poor samples for a minute
+        for (int i = 0; i < 15; i++) {
+            play(controller, 1, 3);
+        }
+
+        // 3. Assertions to verify the expected result
+        assertTrue(changes.isEmpty());
+    }
+
+    @Test
+    public void testPacketLoss_WorsensGoodQualitySample() {
+        // 1. Setting up the conditions: the quality score looks fine but 30% of packets are lost
+        CallQualityController controller = new CallQualityController(Profile.HD, changes::add);
+        controller.onStats(30, 120);
+
+        // 2. Calling the function under test
+        play(controller, 2, 2, 2);
+
+        // 3. Assertions to verify the expected result
+        assertEquals(Profile.AUDIO_ONLY, controller.getProfile());
+    }
+
+    @Test
+    public void testUnknownSamples_Ignored() {
+        CallQualityController controller = new CallQualityController(Profile.HD, changes::add);
+
+        play(controller, 0, 0, 0, 0, 0, 0);
+
+        assertTrue(changes.isEmpty());
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.workconnect.ui.chat;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class ReconnectBackoffTest {
+
+    @Test
+    public void testDelays_DoubleUpToMaxThenExhausted() {
+        // 1. Setting up the conditions: jitter always at its maximum
+        ReconnectBackoff backoff = new ReconnectBackoff(7, () -> 0.999999);
+
+        // 2. Calling the function under test
+        long[] delays = new long[8];
+        for (int i = 0; i < delays.length; i++) {
+            delays[i] = backoff.nextDelayMs();
+        }
+
+        // 3. Assertions to verify the expected result
+        assertEquals(999, delays[0]);
+        assertEquals(1_999, delays[1]);
+        assertEquals(3_999, delays[2]);
+        assertEquals(15_999, delays[4]);
+        assertEquals(29_999, delays[5]);
+        assertEquals(29_999, delays[6]);
+        assertEquals(-1, delays[7]);
+        assertTrue(backoff.isExhausted());
+    }
+
+    @Test
+    public void testJitter_StaysWithinHalfToFullStep() {
+        // 1. Setting up the conditions
+        ReconnectBackoff low = new ReconnectBackoff(5, () -> 0.0);
+        ReconnectBackoff mid = new ReconnectBackoff(5, () -> 0.5);
+
+        // 2. Calling the function under test
+        low.nextDelayMs();
+        long lowSecond = low.nextDelayMs();
+        mid.nextDelayMs();
+        long midSecond = mid.nextDelayMs();
+
+        // 3. Assertions to verify the expected result: second step is 2 s
+        assertEquals(1_000, lowSecond);
+        assertEquals(1_500, midSecond);
+    }
+
+    @Test
+    public void testReset_StartsOverFromShortestDelay() {
+        // 1. Setting up the conditions
+        ReconnectBackoff backoff = new ReconnectBackoff(3, () -> 0.0);
+        backoff.nextDelayMs();
+        backoff.nextDelayMs();
+        backoff.nextDelayMs();
+        assertTrue(backoff.isExhausted());
+
+        // 2. Calling the function under test
+        backoff.reset();
+
+        // 3. Assertions to verify the expected result
+        assertFalse(backoff.isExhausted());
+        assertEquals(500, backoff.nextDelayMs());
+        assertEquals(1, backoff.getAttempts());
+    }
+}
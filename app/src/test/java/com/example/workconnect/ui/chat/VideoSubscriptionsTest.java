@@ -0,0 +1,165 @@
+package com.example.workconnect.ui.chat;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import com.example.workconnect.ui.chat.VideoSubscriptions.Quality;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class VideoSubscriptionsTest {
+
+    // Records what would be sent to the engine
+    private static class RecordingSink implements VideoSubscriptions.Sink {
+        final List<String> calls = new ArrayList<>();
+
+        @Override
+        public void setQuality(int uid, Quality quality) {
+            calls.add(uid + "=" + quality);
+        }
+    }
+
+    @Test
+    public void testActiveSpeakerHigh_VisibleThumbnailsLow_OthersNone() {
+        // 1. Setting up the conditions: 12 remote participants, 3 thumbnails fit on screen
+        RecordingSink sink = new RecordingSink();
+        VideoSubscriptions subscriptions = new VideoSubscriptions(6, sink);
+        for (int uid = 1; uid <= 12; uid++) {
+            subscriptions.onParticipantJoined(uid);
+        }
+
+        // 2. Calling the function under test
+        subscriptions.setActiveSpeaker(1);
+        subscriptions.setVisibleThumbnails(Arrays.asList(0, 2, 3));
+
+        // 3. Assertions to verify the expected result
+        assertEquals(Quality.HIGH, subscriptions.qualityOf(1));
+        assertEquals(Quality.LOW, subscriptions.qualityOf(2));
+        assertEquals(Quality.LOW, subscriptions.qualityOf(3));
+        for (int uid = 4; uid <= 12; uid++) {
+            assertEquals(Quality.NONE, subscriptions.qualityOf(uid));
+        }
+    }
+
+    @Test
+    public void testScroll_OnlyChangedParticipantsPushed() {
+        // 1. Setting up the conditions
+        RecordingSink sink = new RecordingSink();
+        VideoSubscriptions subscriptions = new VideoSubscriptions(6, sink);
+        for (int uid = 1; uid <= 5; uid++) {
+            subscriptions.onParticipantJoined(uid);
+        }
+        subscriptions.setActiveSpeaker(1);
+        subscriptions.setVisibleThumbnails(Arrays.asList(2, 3));
+        sink.calls.clear();
+
+        // 2. Calling the function under test: strip scrolled by one thumbnail
+        subscriptions.setVisibleThumbnails(Arrays.asList(3, 4));
+        subscriptions.setVisibleThumbnails(Arrays.asList(4, 3)); // same set: nothing to do
+
+        // 3. Assertions to verify the expected result
+        assertEquals(Arrays.asList("2=NONE", "4=LOW"), sink.calls);
+    }
+
+    @Test
+    public void testSwitchSpeaker_OldSpeakerDowngradedToThumbnail() {
+        // 1. Setting up the conditions
+        RecordingSink sink = new RecordingSink();
+        VideoSubscriptions subscriptions = new VideoSubscriptions(6, sink);
+        subscriptions.onParticipantJoined(1);
+        subscriptions.onParticipantJoined(2);
+        subscriptions.setActiveSpeaker(1);
+        subscriptions.setVisibleThumbnails(Arrays.asList(0, 2));
+        sink.calls.clear();
+
+        // 2. Calling the function under test: thumbnail 2 tapped, 1 moves to the strip
+        subscriptions.setActiveSpeaker(2);
+        subscriptions.setVisibleThumbnails(Arrays.asList(0, 1));
+
+        // 3. Assertions to verify the expected result
+        assertEquals(Quality.HIGH, subscriptions.qualityOf(2));
+        assertEquals(Quality.LOW, subscriptions.qualityOf(1));
+        assertFalse("Nobody should ever be muted during the swap", sink.calls.contains("1=NONE"));
+    }
+
+    @Test
+    public void testManyVisibleThumbnails_LowStreamsCapped() {
+        // 1. Setting up the conditions: tablet showing 10 thumbnails, cap of 4 low streams
+        RecordingSink sink = new RecordingSink();
+        VideoSubscriptions subscriptions = new VideoSubscriptions(4, sink);
+        List<Integer> visible = new ArrayList<>();
+        for (int uid = 1; uid <= 11; uid++) {
+            subscriptions.onParticipantJoined(uid);
+            if (uid > 1) visible.add(uid);
+        }
+        subscriptions.setActiveSpeaker(1);
+
+        // 2. Calling the function under test
+        subscriptions.setVisibleThumbnails(visible);
+
+        // 3. Assertions to verify the expected result
+        int low = 0;
+        for (int uid = 2; uid <= 11; uid++) {
+            if (subscriptions.qualityOf(uid) == Quality.LOW) low++;
+        }
+        assertEquals(4, low);
+        assertEquals(Quality.HIGH, subscriptions.qualityOf(1));
+    }
+
+    @Test
+    public void testSpeakerLeaves_NoStaleState() {
+        // 1. Setting up the conditions
+        RecordingSink sink = new RecordingSink();
+        VideoSubscriptions subscriptions = new VideoSubscriptions(6, sink);
+        subscriptions.onParticipantJoined(1);
+        subscriptions.onParticipantJoined(2);
+        subscriptions.setActiveSpeaker(1);
+        sink.calls.clear();
+
+        // 2. Calling the function under test: 1 leaves, 2 is promoted
+        subscriptions.onParticipantLeft(1);
+        subscriptions.setActiveSpeaker(2);
+
+        // 3. Assertions to verify the expected result
+        assertEquals(Collections.singletonList("2=HIGH"), sink.calls);
+        assertEquals(Quality.NONE, subscriptions.qualityOf(1));
+    }
+
+    @Test
+    public void testSpeakerOnly_SingleLowStreamThenRestored() {
+        // 1. Setting up the conditions
+        RecordingSink sink = new RecordingSink();
+        VideoSubscriptions subscriptions = new VideoSubscriptions(6, sink);
+        for (int uid = 1; uid <= 4; uid++) {
+            subscriptions.onParticipantJoined(uid);
+        }
+        subscriptions.setActiveSpeaker(1);
+        subscriptions.setVisibleThumbnails(Arrays.asList(2, 3));
+
+        // 2. Calling the function under test: picture-in-picture
+        subscriptions.setSpeakerOnly(true);
+        Quality speakerInPip = subscriptions.qualityOf(1);
+        Quality thumbnailInPip = subscriptions.qualityOf(2);
+        subscriptions.setSpeakerOnly(false);
+
+        // 3. Assertions to verify the expected result
+        assertEquals(Quality.LOW, speakerInPip);
+        assertEquals(Quality.NONE, thumbnailInPip);
+        assertEquals(Quality.HIGH, subscriptions.qualityOf(1));
+        assertEquals(Quality.LOW, subscriptions.qualityOf(2));
+    }
+
+    @Test
+    public void testLocalUserIgnored() {
+        RecordingSink sink = new RecordingSink();
+        VideoSubscriptions subscriptions = new VideoSubscriptions(6, sink);
+
+        subscriptions.onParticipantJoined(0);
+        subscriptions.setVisibleThumbnails(Collections.singletonList(0));
+
+        assertTrue(sink.calls.isEmpty());
+    }
+}
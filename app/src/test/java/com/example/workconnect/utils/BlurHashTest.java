@@ -0,0 +1,144 @@
+package com.example.workconnect.utils;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class BlurHashTest {
+
+    // Sample images, ARGB pixels row by row
+    private static int[] solid(int width, int height, int rgb) {
+        int[] pixels = new int[width * height];
+        for (int i = 0; i < pixels.length; i++) pixels[i] = 0xFF000000 | rgb;
+        return pixels;
+    }
+
+    // Black on the left to white on the right
+    private static int[] horizontalGradient(int width, int height) {
+        int[] pixels = new int[width * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int v = x * 255 / (width - 1);
+                pixels[y * width + x] = 0xFF000000 | (v << 16) | (v << 8) | v;
+            }
+        }
+        return pixels;
+    }
+
+    // Red top half, blue bottom half
+    private static int[] twoBands(int width, int height) {
+        int[] pixels = new int[width * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                pixels[y * width + x] = y < height / 2 ? 0xFFFF0000 : 0xFF0000FF;
+            }
+        }
+        return pixels;
+    }
+
+    private static int channel(int pixel, int shift) {
+        return (pixel >> shift) & 0xFF;
+    }
+
+    @Test
+    public void testEncode_FourByThreeComponents_FixedLength() {
+        // 1. Setting up the conditions
+        int[] pixels = horizontalGradient(32, 24);
+
+        // 2. Calling the function under test
+        String hash = BlurHash.encode(pixels, 32, 24, 4, 3);
+
+        // 3. Assertions to verify the expected result
+        assertEquals("4 + 2 characters per component", 28, hash.length());
+        assertTrue(BlurHash.isValid(hash));
+    }
+
+    @Test
+    public void testEncodeDecode_SolidColor_RestoresColor() {
+        // 1. Setting up the conditions
+        int[] pixels = solid(16, 16, 0x3366CC);
+
+        // 2. Calling the function under test
+        String hash = BlurHash.encode(pixels, 16, 16, 4, 3);
+        int[] decoded = BlurHash.decode(hash, 8, 8, 1.0);
+
+        // 3. Assertions to verify the expected result (the cosine basis is not exactly flat
+        // over a sampled image, so pixels may drift slightly from the mean)
+        long r = 0, g = 0, b = 0;
+        for (int pixel : decoded) {
+            assertEquals(0xFF, pixel >>> 24);
+            r += channel(pixel, 16);
+            g += channel(pixel, 8);
+            b += channel(pixel, 0);
+        }
+        assertEquals(0x33, (double) r / decoded.length, 4);
+        assertEquals(0x66, (double) g / decoded.length, 4);
+        assertEquals(0xCC, (double) b / decoded.length, 4);
+    }
+
+    @Test
+    public void testEncodeDecode_Gradient_KeepsDirection() {
+        // 1. Setting up the conditions
+        int[] pixels = horizontalGradient(32, 32);
+
+        // 2. Calling the function under test
+        int[] decoded = BlurHash.decode(BlurHash.encode(pixels, 32, 32, 4, 3), 16, 16, 1.0);
+
+        // 3. Assertions to verify the expected result
+        int left = channel(decoded[8 * 16], 8);
+        int middle = channel(decoded[8 * 16 + 8], 8);
+        int right = channel(decoded[8 * 16 + 15], 8);
+        assertTrue("Left edge should be dark, got " + left, left < 80);
+        assertTrue("Right edge should be light, got " + right, right > 175);
+        assertTrue("Brightness should grow left to right", left < middle && middle < right);
+        // No vertical variation in the source
+        assertEquals(middle, channel(decoded[8], 8), 3);
+    }
+
+    @Test
+    public void testEncodeDecode_TwoBands_KeepsColorsApart() {
+        // 1. Setting up the conditions
+        int[] pixels = twoBands(24, 24);
+
+        // 2. Calling the function under test
+        int[] decoded = BlurHash.decode(BlurHash.encode(pixels, 24, 24, 4, 3), 12, 12, 1.0);
+
+        // 3. Assertions to verify the expected result
+        int top = decoded[6];
+        int bottom = decoded[11 * 12 + 6];
+        assertTrue("Top should be mostly red", channel(top, 16) > channel(top, 0));
+        assertTrue("Bottom should be mostly blue", channel(bottom, 0) > channel(bottom, 16));
+    }
+
+    @Test
+    public void testEncode_SingleComponent_AverageColorOnly() {
+        // 1. Setting up the conditions
+        int[] pixels = twoBands(10, 10);
+
+        // 2. Calling the function under test
+        String hash = BlurHash.encode(pixels, 10, 10, 1, 1);
+        int[] decoded = BlurHash.decode(hash, 4, 4, 1.0);
+
+        // 3. Assertions to verify the expected result
+        assertEquals(6, hash.length());
+        assertEquals("Every decoded pixel is the same color", decoded[0], decoded[15]);
+    }
+
+    @Test
+    public void testIsValid_MalformedHashes_Rejected() {
+        // 1. Setting up the conditions
+        String hash = BlurHash.encode(solid(4, 4, 0x808080), 4, 4, 4, 3);
+
+        // 2. Calling the function under test
+        // 3. Assertions to verify the expected result
+        assertFalse(BlurHash.isValid(null));
+        assertFalse(BlurHash.isValid("abc"));
+        assertFalse("Truncated", BlurHash.isValid(hash.substring(0, hash.length() - 2)));
+        assertFalse("Character outside base 83", BlurHash.isValid(hash.substring(0, 27) + "!"));
+        assertTrue(BlurHash.isValid(hash));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDecode_InvalidHash_Throws() {
+        BlurHash.decode("not a hash", 4, 4, 1.0);
+    }
+}
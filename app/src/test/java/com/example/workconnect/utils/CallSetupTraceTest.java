@@ -0,0 +1,103 @@
+package com.example.workconnect.utils;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import com.example.workconnect.utils.CallSetupTrace.Milestone;
+
+public class CallSetupTraceTest {
+
+    private static class FakeClock implements CallSetupTrace.Clock {
+        long now = 1_000;
+
+        @Override
+        public long now() {
+            return now;
+        }
+    }
+
+    @Test
+    public void testSummary_CallerPath_DeltasBetweenConsecutiveMilestones() {
+        // 1. Setting up the conditions
+        FakeClock clock = new FakeClock();
+        CallSetupTrace trace = new CallSetupTrace(clock);
+
+        // 2. Calling the function under test
+        trace.mark(Milestone.TAP);
+        clock.now += 180;
+        trace.mark(Milestone.CALL_CREATED);
+        clock.now += 40;
+        trace.mark(Milestone.ENGINE_READY);
+        clock.now += 300;
+        trace.mark(Milestone.REMOTE_RINGING);
+        clock.now += 2_000;
+        trace.mark(Milestone.JOINED);
+        clock.now += 500;
+        trace.mark(Milestone.FIRST_REMOTE_FRAME);
+
+        // 3. Assertions to verify the expected result
+        assertTrue(trace.isComplete());
+        assertEquals(3_020, trace.sinceStart(Milestone.FIRST_REMOTE_FRAME));
+        assertEquals("tap → call doc created +180ms → engine ready +40ms → remote ringing +300ms"
+                + " → joined channel +2000ms → first remote frame +500ms (total 3020ms)", trace.summary());
+    }
+
+    @Test
+    public void testMark_Repeated_OnlyFirstOccurrenceCounts() {
+        // 1. Setting up the conditions
+        FakeClock clock = new FakeClock();
+        CallSetupTrace trace = new CallSetupTrace(clock);
+        trace.mark(Milestone.TAP);
+        clock.now += 100;
+
+        // 2. Calling the function under test
+        boolean first = trace.mark(Milestone.JOINED);
+        clock.now += 900;
+        boolean again = trace.mark(Milestone.JOINED);
+
+        // 3. Assertions to verify the expected result
+        assertTrue(first);
+        assertFalse(again);
+        assertEquals(100, trace.sinceStart(Milestone.JOINED));
+    }
+
+    @Test
+    public void testSummary_OutOfOrderMilestones_SortedByTime() {
+        // 1. Setting up the conditions: the callee's ack can arrive after the channel is joined
+        FakeClock clock = new FakeClock();
+        CallSetupTrace trace = new CallSetupTrace(clock);
+        trace.mark(Milestone.TAP);
+        clock.now += 50;
+        trace.mark(Milestone.JOINED);
+        clock.now += 70;
+
+        // 2. Calling the function under test
+        trace.mark(Milestone.REMOTE_RINGING);
+
+        // 3. Assertions to verify the expected result
+        assertFalse(trace.isComplete());
+        assertEquals("tap → joined channel +50ms → remote ringing +70ms (total 120ms)", trace.summary());
+    }
+
+    @Test
+    public void testSinceStart_NoTap_MeasuredFromFirstMilestone() {
+        // 1. Setting up the conditions: call screen reopened without a recorded tap
+        FakeClock clock = new FakeClock();
+        CallSetupTrace trace = new CallSetupTrace(clock);
+        trace.mark(Milestone.ENGINE_READY);
+        clock.now += 250;
+
+        // 2. Calling the function under test
+        trace.mark(Milestone.JOINED);
+
+        // 3. Assertions to verify the expected result
+        assertEquals(0, trace.sinceStart(Milestone.ENGINE_READY));
+        assertEquals(250, trace.sinceStart(Milestone.JOINED));
+        assertEquals(-1, trace.sinceStart(Milestone.TAP));
+    }
+
+    @Test
+    public void testSummary_NothingRecorded() {
+        assertEquals("no milestone", new CallSetupTrace(new FakeClock()).summary());
+    }
+}
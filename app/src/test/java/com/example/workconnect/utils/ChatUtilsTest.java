@@ -10,7 +10,9 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class ChatUtilsTest {
 
@@ -71,4 +73,63 @@ public class ChatUtilsTest {
         assertTrue("Third item should be a date separator", result.get(2).isDateSeparator());
         assertTrue("Fourth item should be a message", result.get(3).isMessage());
     }
+
+    @Test
+    public void testGetReaders_CursorsAtOrAfterSentAt_CountAsRead() {
+        // 1. Setting up the conditions
+        Date sentAt = new Date(1_000_000L);
+        ChatMessage message = new ChatMessage("msg1", "conv1", "user1", "Hello", sentAt, false, null);
+        List<String> participantIds = Arrays.asList("user1", "user2", "user3", "user4");
+
+        Map<String, Date> readCursors = new HashMap<>();
+        readCursors.put("user2", sentAt);                       // read exactly up to this message
+        readCursors.put("user3", new Date(sentAt.getTime() - 1)); // stopped just before it
+        readCursors.put("user4", new Date(sentAt.getTime() + 60_000L));
+
+        // 2. Calling the function under test
+        List<String> readers = ChatUtils.getReaders(message, participantIds, readCursors);
+
+        // 3. Assertions to verify the expected result
+        assertEquals("Two recipients have read the message", 2, readers.size());
+        assertTrue("user2 cursor equals sentAt", readers.contains("user2"));
+        assertTrue("user4 cursor is after sentAt", readers.contains("user4"));
+        assertFalse("Sender is never a reader", readers.contains("user1"));
+    }
+
+    @Test
+    public void testGetReaders_LegacyReadBy_StillCounts() {
+        // 1. Setting up the conditions
+        ChatMessage message = new ChatMessage("msg1", "conv1", "user1", "Hello", new Date(), false, null);
+        message.setReadBy(Arrays.asList("user2"));
+        List<String> participantIds = Arrays.asList("user1", "user2");
+
+        // 2. Calling the function under test
+        List<String> readers = ChatUtils.getReaders(message, participantIds, null);
+
+        // 3. Assertions to verify the expected result
+        assertEquals("Legacy readBy should be honoured without cursors", Arrays.asList("user2"), readers);
+    }
+
+    @Test
+    public void testMergeReadCursors_KeepsNewestCursorPerUser() {
+        // 1. Setting up the conditions
+        Date older = new Date(1_700_000_000_000L);
+        Date newer = new Date(1_700_000_060_000L);
+        Map<String, Date> legacy = new HashMap<>();
+        legacy.put("user1", newer);
+        legacy.put("user2", older);
+        Map<String, Date> inbox = new HashMap<>();
+        inbox.put("user2", newer);
+        inbox.put("user3", older);
+
+        // 2. Calling the function under test
+        Map<String, Date> merged = ChatUtils.mergeReadCursors(legacy, inbox);
+
+        // 3. Assertions to verify the expected result
+        assertEquals(3, merged.size());
+        assertEquals("Only in legacy cursors", newer, merged.get("user1"));
+        assertEquals("Inbox cursor is newer", newer, merged.get("user2"));
+        assertEquals("Only in inbox cursors", older, merged.get("user3"));
+        assertEquals("Inputs are not modified", older, legacy.get("user2"));
+    }
 }
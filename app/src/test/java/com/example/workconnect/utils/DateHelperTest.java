@@ -0,0 +1,84 @@
+package com.example.workconnect.utils;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class DateHelperTest {
+
+    private static final long BASE = 1_700_000_000_000L;
+    private static final long STEP_MS = 7 * 60 * 1000L + 13_000L;
+
+    @Test
+    public void testFormatTime_MatchesSimpleDateFormat() {
+        // 1. Setting up the conditions
+        SimpleDateFormat reference = new SimpleDateFormat("HH:mm", Locale.getDefault());
+
+        for (int i = 0; i < 2000; i++) {
+            Date date = new Date(BASE + i * STEP_MS);
+
+            // 2. Calling the function under test
+            String result = DateHelper.formatTime(date);
+
+            // 3. Assertions to verify the expected result
+            assertEquals("Time of " + date, reference.format(date), result);
+        }
+    }
+
+    @Test
+    public void testGetDateSeparatorText_TodayYesterdayAndOlder() {
+        // 1. Setting up the conditions
+        long now = System.currentTimeMillis();
+        Date today = new Date(now);
+        Date yesterday = new Date(now - 24 * 60 * 60 * 1000L);
+        Date older = new Date(BASE);
+
+        // 2. Calling the function under test
+        String todayText = DateHelper.getDateSeparatorText(today);
+        String yesterdayText = DateHelper.getDateSeparatorText(yesterday);
+        String olderText = DateHelper.getDateSeparatorText(older);
+
+        // 3. Assertions to verify the expected result
+        assertEquals("Today", todayText);
+        assertEquals("Yesterday", yesterdayText);
+        assertEquals(new SimpleDateFormat("dd/MM/yyyy", Locale.getDefault()).format(older), olderText);
+    }
+
+    @Test
+    public void testFormatTime_ConcurrentThreads_SameResults() throws Exception {
+        // 1. Setting up the conditions
+        List<String> expected = new ArrayList<>();
+        SimpleDateFormat reference = new SimpleDateFormat("HH:mm", Locale.getDefault());
+        for (int i = 0; i < 5000; i++) {
+            expected.add(reference.format(new Date(BASE + i * STEP_MS)));
+        }
+        DateHelper.onTimeZoneChanged(); // start with cold caches
+
+        // 2. Calling the function under test
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        List<Future<List<String>>> results = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            results.add(pool.submit(() -> {
+                List<String> out = new ArrayList<>();
+                for (int i = 0; i < 5000; i++) {
+                    out.add(DateHelper.formatTime(new Date(BASE + i * STEP_MS)));
+                }
+                return out;
+            }));
+        }
+
+        // 3. Assertions to verify the expected result
+        for (Future<List<String>> f : results) {
+            assertEquals("Every thread formats exactly like SimpleDateFormat", expected, f.get());
+        }
+        pool.shutdown();
+    }
+}
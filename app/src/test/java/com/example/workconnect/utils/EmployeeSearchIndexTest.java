@@ -0,0 +1,155 @@
+package com.example.workconnect.utils;
+
+import com.example.workconnect.models.User;
+import org.junit.Ignore;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class EmployeeSearchIndexTest {
+
+    @Test
+    public void testSearch_PrefixOfAnyWord_MatchesNameAndEmail() {
+        // 1. Setting up the conditions
+        EmployeeSearchIndex index = EmployeeSearchIndex.build(Arrays.asList(
+                createUser("u1", "Dana", "Levi", "dana.levi@acme.com"),
+                createUser("u2", "Noam", "Cohen", "noam@acme.com"),
+                createUser("u3", "Maya", "Danino", "maya.d@acme.com")));
+
+        // 2. Calling the function under test
+        List<User> byFirstName = index.search("dan", 10);
+        List<User> byLastName = index.search("coh", 10);
+        List<User> byEmail = index.search("maya.d@", 10);
+        List<User> noMatch = index.search("evi", 10);
+
+        // 3. Assertions to verify the expected result
+        assertEquals("First name prefix ranks above last name prefix",
+                Arrays.asList("u1", "u3"), uids(byFirstName));
+        assertEquals(Arrays.asList("u2"), uids(byLastName));
+        assertEquals(Arrays.asList("u3"), uids(byEmail));
+        assertTrue("Only word prefixes match, not substrings", noMatch.isEmpty());
+    }
+
+    @Test
+    public void testSearch_SeveralWordsAndAccents_AllWordsMustMatch() {
+        // 1. Setting up the conditions
+        EmployeeSearchIndex index = EmployeeSearchIndex.build(Arrays.asList(
+                createUser("u1", "Élodie", "Martin", "elodie@acme.com"),
+                createUser("u2", "Elon", "Marsh", "elon@acme.com"),
+                createUser("u3", "Martin", "Elbaz", "martin@acme.com")));
+
+        // 2. Calling the function under test
+        List<User> result = index.search("  EL  mart ", 10);
+
+        // 3. Assertions to verify the expected result
+        assertEquals("u1: first name + last name prefix; u3: last name + first name prefix",
+                Arrays.asList("u1", "u3"), uids(result));
+    }
+
+    @Test
+    public void testSearch_ExactWordRanksFirst_EmptyQueryReturnsAllSorted() {
+        // 1. Setting up the conditions
+        EmployeeSearchIndex index = EmployeeSearchIndex.build(Arrays.asList(
+                createUser("u1", "Ronit", "Bar", "ronit@acme.com"),
+                createUser("u2", "Ron", "Shani", "r.shani@acme.com"),
+                createUser("u3", "Aviv", "Ronen", "aviv@acme.com")));
+
+        // 2. Calling the function under test
+        List<User> ranked = index.search("ron", 10);
+        List<User> all = index.search("", 10);
+
+        // 3. Assertions to verify the expected result
+        assertEquals("Exact first name, then first name prefix, then last name prefix",
+                Arrays.asList("u2", "u1", "u3"), uids(ranked));
+        assertEquals("Empty query lists everyone by display name",
+                Arrays.asList("u3", "u2", "u1"), uids(all));
+    }
+
+    @Test
+    public void testSearch_10kEmployees_FindsPrefixAndExactMatches() {
+        // 1. Setting up the conditions
+        List<User> users = createCompany(10_000);
+
+        // 2. Calling the function under test
+        EmployeeSearchIndex index = EmployeeSearchIndex.build(users);
+        int found = 0;
+        for (String q : new String[]{"d", "da", "dan", "dana1", "coh", "noam 3", "shira.katz"}) {
+            found += index.search(q, 50).size();
+        }
+
+        // 3. Assertions to verify the expected result
+        assertEquals(10_000, index.size());
+        assertTrue("Queries should find employees", found > 0);
+        assertTrue(index.search("zz", 50).isEmpty());
+        assertEquals(Arrays.asList("u40"), uids(index.search("dana0.levi40@acme.com", 50)));
+    }
+
+    // Timing run, not a check: the numbers depend on the machine. Remove @Ignore to print
+    // build time, per-query latency and the heap held by the index for 10k employees.
+    @Ignore("Timing run: prints latency and memory, asserts nothing about them")
+    @Test
+    public void testSearch_10kEmployees_PrintsLatencyAndMemory() {
+        // 1. Setting up the conditions
+        List<User> users = createCompany(10_000);
+        String[] queries = {"d", "da", "dan", "dana1", "coh", "noam 3", "shira.katz", "zz"};
+        int warmupRounds = 200;
+        int rounds = 1000;
+        Runtime rt = Runtime.getRuntime();
+        System.gc();
+        long heapBefore = rt.totalMemory() - rt.freeMemory();
+
+        // 2. Calling the function under test
+        long buildStart = System.nanoTime();
+        EmployeeSearchIndex index = EmployeeSearchIndex.build(users);
+        long buildMs = (System.nanoTime() - buildStart) / 1_000_000;
+        System.gc();
+        long heapAfter = rt.totalMemory() - rt.freeMemory();
+
+        int found = 0;
+        for (int r = 0; r < warmupRounds; r++) {
+            for (String q : queries) found += index.search(q, 50).size();
+        }
+        long searchStart = System.nanoTime();
+        for (int r = 0; r < rounds; r++) {
+            for (String q : queries) found += index.search(q, 50).size();
+        }
+        double avgMicros = (System.nanoTime() - searchStart) / 1000.0 / (rounds * queries.length);
+        System.out.println("EmployeeSearchIndex 10k: build " + buildMs + "ms, search avg "
+                + String.format("%.1f", avgMicros) + "us, index ~" + (heapAfter - heapBefore) / 1024 + "KB");
+
+        // 3. Assertions to verify the expected result
+        assertEquals(10_000, index.size());
+        assertTrue(found > 0);
+    }
+
+    // Employees named like a company: first names repeat with a number, last names repeat
+    private List<User> createCompany(int size) {
+        String[] first = {"Dana", "Noam", "Maya", "Yossi", "Tamar", "Avi", "Shira", "Omer", "Noa", "Itai"};
+        String[] last = {"Levi", "Cohen", "Mizrahi", "Peretz", "Biton", "Friedman", "Katz", "Azulay"};
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            String f = first[i % first.length] + (i / 80);
+            String l = last[i % last.length];
+            users.add(createUser("u" + i, f, l, f.toLowerCase() + "." + l.toLowerCase() + i + "@acme.com"));
+        }
+        return users;
+    }
+
+    private List<String> uids(List<User> users) {
+        List<String> out = new ArrayList<>();
+        for (User u : users) out.add(u.getUid());
+        return out;
+    }
+
+    private User createUser(String uid, String firstName, String lastName, String email) {
+        User user = new User();
+        user.setUid(uid);
+        user.setFirstName(firstName);
+        user.setLastName(lastName);
+        user.setEmail(email);
+        return user;
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.workconnect.utils;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class ImageSizingTest {
+
+    @Test
+    public void testSampleSize_TwelveMegapixelPhoto_DecodesAtLeastTargetSize() {
+        // 1. Setting up the conditions: 4032x3024 camera photo, 1600px target
+        // 2. Calling the function under test
+        int sample = ImageSizing.sampleSize(4032, 3024, 1600);
+
+        // 3. Assertions to verify the expected result
+        assertEquals(2, sample);
+        assertTrue("Decoded long edge must not drop below the target", 4032 / sample >= 1600);
+    }
+
+    @Test
+    public void testSampleSize_SmallImage_NoSubsampling() {
+        assertEquals(1, ImageSizing.sampleSize(800, 600, 1600));
+        assertEquals(1, ImageSizing.sampleSize(1600, 1200, 1600));
+    }
+
+    @Test
+    public void testFit_LargeImage_LongEdgeCappedKeepingRatio() {
+        // 1. Setting up the conditions
+        // 2. Calling the function under test
+        int[] landscape = ImageSizing.fit(4032, 3024, 1600);
+        int[] portrait = ImageSizing.fit(3024, 4032, 320);
+
+        // 3. Assertions to verify the expected result
+        assertArrayEquals(new int[]{1600, 1200}, landscape);
+        assertArrayEquals(new int[]{240, 320}, portrait);
+    }
+
+    @Test
+    public void testFit_SmallImage_NotScaledUp() {
+        assertArrayEquals(new int[]{200, 100}, ImageSizing.fit(200, 100, 1600));
+    }
+
+    @Test
+    public void testBubbleSize_KnownSize_MatchesAspectRatio() {
+        // 1. Setting up the conditions: 600x600 px bubble box, 120 px minimum edge
+        // 2. Calling the function under test
+        int[] landscape = ImageSizing.bubbleSize(1600, 1200, 600, 600, 120);
+        int[] small = ImageSizing.bubbleSize(100, 50, 600, 600, 120);
+        int[] panorama = ImageSizing.bubbleSize(4000, 500, 600, 600, 120);
+
+        // 3. Assertions to verify the expected result
+        assertArrayEquals(new int[]{600, 450}, landscape);
+        assertArrayEquals("Small images fill the box width", new int[]{600, 300}, small);
+        assertArrayEquals("Thin images keep a minimum height", new int[]{600, 120}, panorama);
+    }
+
+    @Test
+    public void testBubbleSize_UnknownSize_Square() {
+        assertArrayEquals(new int[]{600, 600}, ImageSizing.bubbleSize(0, 0, 600, 600, 120));
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.workconnect.utils;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class TypingThrottleTest {
+
+    private static final long HEARTBEAT_MS = 4000;
+    private static final long EXPIRY_MS = 6500;
+
+    private long now = 0;
+    private final List<Boolean> writes = new ArrayList<>();
+    private final TypingThrottle throttle = new TypingThrottle(HEARTBEAT_MS, EXPIRY_MS, () -> now, writes::add);
+
+    @Test
+    public void testOnKeystroke_BurstOfKeystrokes_WritesOncePerHeartbeat() {
+        // 1. Setting up the conditions: 10 keystrokes per second for 20 seconds
+        // 2. Calling the function under test
+        for (int i = 0; i < 200; i++) {
+            now = i * 100L;
+            throttle.onKeystroke();
+        }
+
+        // 3. Assertions to verify the expected result
+        int expectedMax = (int) (20_000 / HEARTBEAT_MS) + 1;
+        assertTrue("200 keystrokes should produce at most " + expectedMax + " writes, got " + writes.size(),
+                writes.size() <= expectedMax);
+        assertEquals("First keystroke is published immediately (leading edge)", Boolean.TRUE, writes.get(0));
+        assertFalse("Typing never publishes a stop", writes.contains(Boolean.FALSE));
+    }
+
+    @Test
+    public void testOnStopped_WhileHeartbeatLive_WritesSingleStop() {
+        // 1. Setting up the conditions
+        throttle.onKeystroke();
+        now = 1000;
+
+        // 2. Calling the function under test
+        throttle.onStopped();
+        throttle.onStopped();
+
+        // 3. Assertions to verify the expected result
+        assertEquals("One start and one stop", Arrays.asList(true, false), writes);
+    }
+
+    @Test
+    public void testOnStopped_AfterHeartbeatExpired_WritesNothing() {
+        // 1. Setting up the conditions
+        throttle.onKeystroke();
+        now = EXPIRY_MS + 1;
+
+        // 2. Calling the function under test
+        throttle.onStopped();
+
+        // 3. Assertions to verify the expected result
+        assertEquals("Readers already expired the heartbeat, no delete needed", Arrays.asList(true), writes);
+    }
+
+    @Test
+    public void testOnKeystroke_AfterStop_PublishesImmediately() {
+        // 1. Setting up the conditions
+        throttle.onKeystroke();
+        now = 500;
+        throttle.onStopped();
+
+        // 2. Calling the function under test
+        now = 600;
+        throttle.onKeystroke();
+
+        // 3. Assertions to verify the expected result
+        assertEquals("Typing again after a send is announced right away", Arrays.asList(true, false, true), writes);
+    }
+}